@@ -0,0 +1,71 @@
+package academy.application.algorithm;
+
+import academy.application.render.ImageRenderer;
+import academy.domain.AffineParams;
+import academy.domain.AppConfiguration;
+import academy.domain.Point;
+import academy.domain.Size;
+import academy.domain.Variation;
+import academy.domain.VariationParams;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** The iteration kernel: one affine map followed by the weighted sum of the configured variations. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-jmh.xml")
+public class ChaosGameBenchmark {
+
+    private static final List<VariationParams> ALL_VARIATIONS = List.of(
+            new VariationParams(Variation.SWIRL, 0.4),
+            new VariationParams(Variation.SINUSOIDAL, 0.3),
+            new VariationParams(Variation.SPHERICAL, 0.2),
+            new VariationParams(Variation.LINEAR, 0.1));
+
+    @Param({"1", "4"})
+    private int variationCount;
+
+    private ChaosGame game;
+    private List<VariationParams> variations;
+    private AffineParams affine;
+    private Point point;
+    private Point result;
+
+    @Setup
+    public void setUp() {
+        variations = ALL_VARIATIONS.subList(0, variationCount);
+        affine = new AffineParams(0.5, 0.1, 0.2, -0.1, 0.5, 0.3);
+        AppConfiguration configuration = AppConfiguration.builder()
+                .size(new Size(64, 64))
+                .seed(5L)
+                .iterationCount(1)
+                .threadQuantity(1)
+                .affineParamsList(List.of(affine))
+                .variationsParamsList(variations)
+                .build();
+        configuration.setRandom(new Random(configuration.getSeed()));
+        game = new ChaosGame(configuration, new ImageRenderer(configuration));
+        point = Point.builder().x(0.3).y(-0.2).color(0.5).build();
+        result = Point.builder().build();
+    }
+
+    @Benchmark
+    public Point applyFunction() {
+        return game.applyFunction(point, variations, affine, result);
+    }
+}
@@ -0,0 +1,198 @@
+package academy.application.render;
+
+import academy.application.render.histogram.Histogram;
+import academy.application.render.png.PngEncoder;
+import academy.domain.Point;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Histogram accumulation, merging and the tone-map/encode stage of {@link ImageRenderer}. */
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-jmh.xml")
+public class ImageRendererBenchmark {
+
+    private static ImageRenderer filledRenderer(int width, int height, long seed) {
+        ImageRenderer renderer = new ImageRenderer(width, height);
+        Random random = new Random(seed);
+        Point point = Point.builder().build();
+        for (int i = 0; i < width * height * 4; i++) {
+            renderer.plot(point.setX(random.nextGaussian() * 1.5)
+                    .setY(random.nextGaussian() * 1.5)
+                    .setColor(random.nextDouble()));
+        }
+        return renderer;
+    }
+
+    private static int[] parseResolution(String resolution) {
+        String[] parts = resolution.split("x");
+        return new int[] {Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    }
+
+    /** Points spread over the image, or all outside the coordinate bounds. */
+    @State(Scope.Thread)
+    public static class PlotState {
+        private static final int POINTS = 1024;
+
+        @Param({"true", "false"})
+        private boolean inBounds;
+
+        private ImageRenderer renderer;
+        private Point[] points;
+        private int next;
+
+        @Setup
+        public void setUp() {
+            renderer = new ImageRenderer(1920, 1080);
+            Random random = new Random(42);
+            points = new Point[POINTS];
+            double offset = inBounds ? 0.0 : 10.0;
+            for (int i = 0; i < POINTS; i++) {
+                points[i] = Point.builder()
+                        .x(offset + random.nextDouble(-3.9, 3.9))
+                        .y(offset + random.nextDouble(-3.9, 3.9))
+                        .color(random.nextDouble())
+                        .build();
+            }
+        }
+
+        Point nextPoint() {
+            next = (next + 1) & (POINTS - 1);
+            return points[next];
+        }
+    }
+
+    /** A target renderer and one worker renderer per thread, as after a multi-threaded run. */
+    @State(Scope.Thread)
+    public static class MergeState {
+        @Param({"640x480", "1920x1080", "3840x2160"})
+        private String resolution;
+
+        @Param({"2", "8"})
+        private int threads;
+
+        private ImageRenderer target;
+        private List<ImageRenderer> workers;
+
+        @Setup
+        public void setUp() {
+            int[] size = parseResolution(resolution);
+            target = new ImageRenderer(size[0], size[1]);
+            workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(filledRenderer(size[0], size[1], i));
+            }
+        }
+    }
+
+    /** A filled histogram to tone-map. */
+    @State(Scope.Thread)
+    public static class ToneMapState {
+        @Param({"640x480", "1920x1080"})
+        private String resolution;
+
+        private ImageRenderer renderer;
+        private double logMaxAlpha;
+
+        @Setup
+        public void setUp() {
+            int[] size = parseResolution(resolution);
+            renderer = filledRenderer(size[0], size[1], 7);
+            logMaxAlpha = Math.log(renderer.findMaxAlpha());
+        }
+    }
+
+    /** A filled histogram to tone-map and encode, with a single-stream or block-parallel PNG encoder. */
+    @State(Scope.Thread)
+    public static class SaveState {
+        @Param({"640x480", "1920x1080"})
+        private String resolution;
+
+        @Param({"1", "4"})
+        private int encoderThreads;
+
+        private ImageRenderer renderer;
+        private final WritableByteChannel sink = new DiscardingChannel();
+
+        @Setup
+        public void setUp() {
+            int[] size = parseResolution(resolution);
+            renderer = filledRenderer(size[0], size[1], 7);
+            renderer.setPngEncoder(PngEncoder.create(Deflater.DEFAULT_COMPRESSION, encoderThreads));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void plot(PlotState state) {
+        state.renderer.plot(state.nextPoint());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ImageRenderer merge(MergeState state) {
+        state.target.merge(state.workers);
+        return state.target;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void toneMap(ToneMapState state, Blackhole blackhole) {
+        Histogram histogram = state.renderer.getHistogram();
+        double[] pixel = new double[Histogram.CHANNELS];
+        double[] rgb = new double[3];
+        for (int y = 0; y < state.renderer.getHeight(); y++) {
+            for (int x = 0; x < state.renderer.getWidth(); x++) {
+                histogram.read(x, y, pixel);
+                ToneMapper.DEFAULT.mapPixel(pixel, state.logMaxAlpha, rgb);
+                blackhole.consume(ToneMapper.toRgb8(rgb));
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long save(SaveState state) throws IOException {
+        return state.renderer.writePng(state.sink, ToneMapper.DEFAULT);
+    }
+
+    /** Measures the encoder without disk I/O. */
+    private static final class DiscardingChannel implements WritableByteChannel {
+        @Override
+        public int write(ByteBuffer source) {
+            int remaining = source.remaining();
+            source.position(source.limit());
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
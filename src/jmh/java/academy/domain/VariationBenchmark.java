@@ -0,0 +1,44 @@
+package academy.domain;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Cost of a single {@link Variation} operator on a point away from the singularities. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-jmh.xml")
+public class VariationBenchmark {
+
+    @Param({"LINEAR", "SPHERICAL", "SWIRL", "HORSESHOE", "EXPONENTIAL", "SINUSOIDAL"})
+    private Variation variation;
+
+    private Point point;
+    private double x;
+    private double y;
+
+    @Setup
+    public void setUp() {
+        point = Point.builder().build();
+        x = 0.37;
+        y = -0.61;
+    }
+
+    @Benchmark
+    public Point apply() {
+        // Operators mutate the point in place, so it is reset to keep the input stable between invocations
+        return variation.getOperator().apply(point.setX(x).setY(y));
+    }
+}
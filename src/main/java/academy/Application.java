@@ -1,27 +1,80 @@
 package academy;
 
 import academy.application.algorithm.ChaosGame;
+import academy.application.algorithm.PreviewWriter;
+import academy.application.algorithm.RenderEvents;
+import academy.application.cache.RenderCache;
+import academy.application.cache.RenderKey;
+import academy.application.metrics.RenderMetrics;
+import academy.application.metrics.RenderPhase;
+import academy.application.metrics.RenderReport;
+import academy.application.metrics.jfr.FlightRecording;
+import academy.application.render.DensityEstimation;
+import academy.application.render.HistogramFile;
+import academy.application.render.HistogramHeader;
 import academy.application.render.ImageRenderer;
+import academy.application.render.OutputFormat;
+import academy.application.render.ReconstructionFilter;
+import academy.application.render.RenderBudget;
+import academy.application.render.histogram.AccumulationStrategy;
+import academy.application.render.histogram.MemoryLimits;
+import academy.application.render.histogram.MemoryPlan;
+import academy.application.render.histogram.MemoryPlanner;
+import academy.application.render.png.PngEncoder;
+import academy.cli.command.BatchCommand;
+import academy.cli.command.BenchCommand;
+import academy.cli.command.ClientCommand;
+import academy.cli.command.DaemonCommand;
+import academy.cli.command.ServeCommand;
+import academy.cli.command.TonemapCommand;
+import academy.cli.converter.AccumulationStrategyConverter;
 import academy.cli.converter.AffineParamsConverter;
 import academy.cli.converter.AppConfigurationConverter;
+import academy.cli.converter.DensityEstimationConverter;
+import academy.cli.converter.MemorySizeConverter;
 import academy.cli.converter.PathConverter;
+import academy.cli.converter.ReconstructionFilterConverter;
 import academy.cli.converter.VariationParamsConverter;
 import academy.cli.validator.ArgumentValidator;
 import academy.domain.AffineParams;
 import academy.domain.AppConfiguration;
 import academy.domain.Size;
 import academy.domain.VariationParams;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
 @Slf4j
-@Command(name = "Fractal Flame Generator", version = "1.0", mixinStandardHelpOptions = true)
+@Command(
+        name = "Fractal Flame Generator",
+        version = "1.0",
+        mixinStandardHelpOptions = true,
+        subcommands = {
+            TonemapCommand.class,
+            BenchCommand.class,
+            BatchCommand.class,
+            DaemonCommand.class,
+            ClientCommand.class,
+            ServeCommand.class
+        })
 public class Application implements Runnable {
+    /** Longest the render waits for the final preview once the generation is over. */
+    private static final Duration PREVIEW_TIMEOUT = Duration.ofSeconds(10);
+    /** Longest a shutdown waits for the stopped render to be saved. */
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(60);
 
     @Option(
             names = {"-w", "--width"},
@@ -80,6 +133,153 @@ public class Application implements Runnable {
             converter = AppConfigurationConverter.class)
     private AppConfiguration appConfiguration;
 
+    @Option(
+            names = "--resume-histogram",
+            description = "Saved histogram to refine: the iteration count is added on top of its samples",
+            converter = PathConverter.class)
+    private Path resumeHistogramPath;
+
+    @Option(
+            names = "--save-histogram",
+            description = "Save the accumulated histogram so the render can be refined later",
+            converter = PathConverter.class)
+    private Path saveHistogramPath;
+
+    @Option(
+            names = "--png-compression",
+            description = "PNG deflate level, 0 (fastest) to 9 (smallest), -1 for the zlib default "
+                    + "(default: ${DEFAULT-VALUE})",
+            defaultValue = "-1")
+    private int pngCompression;
+
+    @Option(
+            names = "--png-bit-depth",
+            description = "Bits per PNG sample, 8 or 16 (default: ${DEFAULT-VALUE})",
+            defaultValue = "8")
+    private int pngBitDepth;
+
+    @Option(
+            names = "--export",
+            description = "Additional outputs, format chosen by extension: .png, .pfm (float RGB), "
+                    + ".npy (raw histogram channels). Can be repeated",
+            converter = PathConverter.class)
+    private List<Path> exportPaths = new ArrayList<>();
+
+    @Option(
+            names = "--metrics",
+            description = "Render metrics JSON file (default: <output>.metrics.json next to the image, "
+                    + "none when writing to standard output)",
+            converter = PathConverter.class)
+    private Path metricsPath;
+
+    @Option(
+            names = "--metrics-prometheus",
+            description = "Also write the render metrics in Prometheus text format to this file",
+            converter = PathConverter.class)
+    private Path prometheusPath;
+
+    @Option(
+            names = "--jfr",
+            description =
+                    "Record the render with JDK Flight Recorder (profile settings plus render events) to this file",
+            converter = PathConverter.class)
+    private Path jfrPath;
+
+    @Option(
+            names = "--memory-budget",
+            description = "Heap the histograms may use, e.g. 512m or 4g (default: the maximum heap)",
+            converter = MemorySizeConverter.class)
+    private Long memoryBudget;
+
+    @Option(
+            names = "--accumulation",
+            description = "Histogram accumulation strategy: auto (fastest that fits in memory), per-thread-double, "
+                    + "compact, shared-atomic, off-heap or mapped-file (default: ${DEFAULT-VALUE})",
+            defaultValue = AccumulationStrategyConverter.AUTO,
+            converter = AccumulationStrategyConverter.class)
+    private AccumulationStrategy accumulationStrategy;
+
+    @Option(
+            names = "--oversample",
+            description = "Histogram cells per image pixel along each axis, 1 to 8; the histogram is downsampled "
+                    + "with --filter when the image is written (default: ${DEFAULT-VALUE})",
+            defaultValue = "1")
+    private int oversample;
+
+    @Option(
+            names = "--filter",
+            description = "Downsampling filter: box, gaussian or mitchell (default: ${DEFAULT-VALUE})",
+            defaultValue = "box",
+            converter = ReconstructionFilterConverter.class)
+    private ReconstructionFilter filter;
+
+    @Option(
+            names = "--density-estimation",
+            description = "Density estimation as max[,min[,curve]]: blur sparse regions with kernels that shrink with "
+                    + "density, from max pixels for single samples down to min (default 0), curve (default 0.4) "
+                    + "setting the fall-off",
+            converter = DensityEstimationConverter.class)
+    private DensityEstimation densityEstimation;
+
+    @Option(
+            names = "--cache",
+            description = "Render cache directory: an identical render is copied from it, one with fewer iterations "
+                    + "is refined instead of rendered from scratch, and the result is stored for the next run",
+            converter = PathConverter.class)
+    private Path cacheDirectory;
+
+    @Option(
+            names = "--cache-size",
+            description = "Size the render cache is kept under, least valuable entries evicted first "
+                    + "(default: ${DEFAULT-VALUE})",
+            defaultValue = "4g",
+            converter = MemorySizeConverter.class)
+    private long cacheSize;
+
+    @Option(
+            names = "--preview-every",
+            description = "Seconds between progressive previews written next to the output as <name>.preview.png "
+                    + "while the workers keep plotting (default: no previews)")
+    private Integer previewEverySeconds;
+
+    @Option(
+            names = "--preview-size",
+            description = "Longest side of the previews in pixels (default: ${DEFAULT-VALUE})",
+            defaultValue = "512")
+    private int previewSize;
+
+    @Option(
+            names = "--time-limit",
+            description = "Seconds the generation may run; when they are up the workers stop at their next chunk "
+                    + "and what they accumulated is saved (default: no limit)")
+    private Integer timeLimitSeconds;
+
+    @Option(
+            names = "--time-budget",
+            description = "Seconds the whole render may take instead of an iteration count: the workers iterate "
+                    + "until the estimated merge, tone map and encoding just fit in what is left (default: off)")
+    private Integer timeBudgetSeconds;
+
+    /** Time the generation of a time-budgeted render got, and the estimated time of what follows it. */
+    private long budgetedGenerationNanos;
+
+    private long estimatedFinishNanos;
+
+    private MemoryPlan memoryPlan;
+
+    /** Picocli parses the arguments and loads the configuration file between construction and {@link #run()}. */
+    private final long createdNanos = System.nanoTime();
+
+    private final long createdAllocatedBytes = RenderMetrics.allocatedBytes();
+
+    private final RenderMetrics metrics = new RenderMetrics();
+
+    /** The game generating right now, stopped by the shutdown hook; {@code null} before the generation starts. */
+    private volatile ChaosGame activeGame;
+
+    /** Released when {@link #run()} returns, so the shutdown hook knows the partial render has been saved. */
+    private final CountDownLatch finished = new CountDownLatch(1);
+
     public static void main(String[] args) {
         log.info("Starting Fractal Flame Generator");
         int exitCode = new CommandLine(new Application()).execute(args);
@@ -93,19 +293,117 @@ public class Application implements Runnable {
 
     @Override
     public void run() {
-        long startTime = System.currentTimeMillis();
+        Thread shutdownHook = new Thread(this::stopOnShutdown, "render-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        try {
+            render();
+        } finally {
+            finished.countDown();
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // The JVM is already shutting down and the hook is waiting for this render
+            }
+        }
+    }
 
+    /**
+     * Runs on SIGTERM or Ctrl+C: ends the generation at the next chunk of every worker and waits until what they
+     * accumulated has been merged and saved.
+     */
+    private void stopOnShutdown() {
+        ChaosGame game = activeGame;
+        if (game == null) {
+            return;
+        }
+        log.warn("Shutdown requested, saving what has been accumulated so far");
+        game.stop();
         try {
-            initializeConfiguration();
-            validate();
+            if (!finished.await(SHUTDOWN_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+                log.error("The render was not saved within {} s of the shutdown", SHUTDOWN_TIMEOUT.toSeconds());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void render() {
+        long startTime = System.nanoTime();
+        metrics.addPhase(
+                RenderPhase.CONFIG_LOAD,
+                startTime - createdNanos,
+                RenderMetrics.allocatedBytes() - createdAllocatedBytes);
+
+        try (FlightRecording recording = jfrPath == null ? null : FlightRecording.start(jfrPath)) {
+            metrics.time(RenderPhase.CONFIG_LOAD, this::initializeConfiguration);
+            metrics.time(RenderPhase.VALIDATION, this::validate);
             logConfiguration();
             initializeRandom();
-            ImageRenderer renderer = new ImageRenderer(appConfiguration);
-            ChaosGame game = new ChaosGame(appConfiguration, renderer);
-            executeGeneration(game);
-            renderer.save(appConfiguration.getOutputPath());
-            long endTime = System.currentTimeMillis();
-            log.info("Total execution time: {} ms", endTime - startTime);
+            RenderCache cache = cacheDirectory == null ? null : RenderCache.open(cacheDirectory, cacheSize);
+            RenderKey key = cache == null ? null : RenderKey.of(appConfiguration, oversample, memoryPlan.strategy());
+            if (cache != null && copyCachedImage(cache, key)) {
+                writeMetrics();
+                log.info("Total execution time: {} ms", (System.nanoTime() - startTime) / 1_000_000);
+                return;
+            }
+            long allocationStartTime = System.nanoTime();
+            long allocatedBefore = RenderMetrics.allocatedBytes();
+            try (ImageRenderer renderer = new ImageRenderer(
+                    appConfiguration, memoryPlan.strategy(), memoryPlan.limits().tempDirectory(), oversample)) {
+                configureRenderer(renderer);
+                renderer.setMetrics(metrics);
+                HistogramHeader previous =
+                        cache == null ? loadHistogram(renderer) : loadCachedHistogram(renderer, cache, key);
+                metrics.addPhase(
+                        RenderPhase.ALLOCATION,
+                        System.nanoTime() - allocationStartTime,
+                        RenderMetrics.allocatedBytes() - allocatedBefore);
+                // A resumed histogram gets the iteration count on top, a cached one is topped up to it
+                long totalIterations = appConfiguration.getIterationCount()
+                        + (previous != null && resumeHistogramPath != null ? previous.iterations() : 0);
+                int iterationsToRun = (int) (totalIterations - (previous == null ? 0 : previous.iterations()));
+                ChaosGame game = new ChaosGame(gameConfiguration(iterationsToRun), renderer);
+                game.setStreamOffset(previous == null ? 0 : previous.streams());
+                game.setMetrics(metrics);
+                if (timeLimitSeconds != null) {
+                    game.setTimeLimit(Duration.ofSeconds(timeLimitSeconds));
+                }
+                if (timeBudgetSeconds != null) {
+                    game.setIterateUntilTimeLimit(true);
+                    game.setTimeLimit(budgetedGenerationTime());
+                }
+                if (iterationsToRun > 0) {
+                    activeGame = game;
+                    executeGeneration(game);
+                } else {
+                    log.info("Histogram found in the render cache, skipping generation");
+                }
+                // A generation stopped by the time limit or a shutdown saves the iterations it actually ran
+                long renderedIterations =
+                        totalIterations - iterationsToRun + (iterationsToRun > 0 ? game.getCompletedIterations() : 0);
+                HistogramHeader header =
+                        histogramHeader(renderer, game, previous, renderedIterations, iterationsToRun > 0);
+                saveHistogram(renderer, header);
+                if (cache != null && iterationsToRun > 0) {
+                    cache.storeHistogram(key, renderer, header);
+                }
+                if (densityEstimation != null) {
+                    renderer.estimateDensity(densityEstimation);
+                }
+                renderer.save(appConfiguration.getOutputPath());
+                exportPaths.forEach(renderer::save);
+                if (cache != null
+                        && renderedIterations == totalIterations
+                        && !ImageRenderer.STDOUT.equals(appConfiguration.getOutputPath())) {
+                    cache.storeImage(imageKey(key), appConfiguration.getOutputPath(), outputExtension());
+                }
+                metrics.recordHistogram(renderer);
+                if (timeBudgetSeconds != null) {
+                    reportTimeBudget(renderedIterations, renderer.getPlotCount());
+                }
+            }
+            writeMetrics();
+            log.info("Total execution time: {} ms", (System.nanoTime() - startTime) / 1_000_000);
 
         } catch (CommandLine.ParameterException e) {
             log.error("Validation error: {}", e.getMessage());
@@ -138,6 +436,27 @@ public class Application implements Runnable {
         log.debug("Starting validation of input arguments");
         try {
             ArgumentValidator.validate(appConfiguration, this);
+            ArgumentValidator.validatePngCompression(pngCompression, this);
+            ArgumentValidator.validatePngBitDepth(pngBitDepth, this);
+            ArgumentValidator.validateExportPaths(exportPaths, this);
+            ArgumentValidator.validateOversample(oversample, this);
+            if (resumeHistogramPath != null) {
+                ArgumentValidator.validateResumeHistogram(appConfiguration, this, resumeHistogramPath, oversample);
+            }
+            if (cacheDirectory != null) {
+                ArgumentValidator.validateCache(cacheDirectory, resumeHistogramPath, this);
+            }
+            if (timeLimitSeconds != null) {
+                ArgumentValidator.validateTimeLimit(timeLimitSeconds, this);
+            }
+            if (timeBudgetSeconds != null) {
+                ArgumentValidator.validateTimeBudget(timeBudgetSeconds, timeLimitSeconds, cacheDirectory, this);
+            }
+            if (previewEverySeconds != null) {
+                ArgumentValidator.validatePreview(
+                        previewEverySeconds, previewSize, appConfiguration.getOutputPath(), this);
+            }
+            planMemory();
             log.debug("All validations passed successfully");
         } catch (CommandLine.ParameterException e) {
             log.error("Validation failed: {}", e.getMessage());
@@ -145,6 +464,112 @@ public class Application implements Runnable {
         }
     }
 
+    /** Picks the accumulation strategy, refusing renders whose histograms cannot fit before any work is done. */
+    private void planMemory() {
+        Path parent = appConfiguration.getOutputPath().toAbsolutePath().getParent();
+        Path tempDirectory = parent != null && Files.isDirectory(parent) ? parent : Path.of(".");
+        MemoryLimits limits = MemoryLimits.current(memoryBudget == null ? 0 : memoryBudget, tempDirectory);
+        int width = appConfiguration.getSize().width() * oversample;
+        int height = appConfiguration.getSize().height() * oversample;
+        try {
+            memoryPlan = MemoryPlanner.plan(
+                    width,
+                    height,
+                    appConfiguration.getThreadQuantity(),
+                    plannedIterations(),
+                    limits,
+                    accumulationStrategy,
+                    densityEstimation != null,
+                    densityEstimation == null ? 0 : densityEstimation.scratchBytes(oversample, width, height));
+        } catch (IllegalArgumentException e) {
+            throw new CommandLine.ParameterException(new CommandLine(this), e.getMessage());
+        }
+    }
+
+    /** A time-budgeted render may run every worker up to the largest count the game supports. */
+    private long plannedIterations() {
+        return timeBudgetSeconds == null
+                ? appConfiguration.getIterationCount()
+                : (long) Integer.MAX_VALUE * appConfiguration.getThreadQuantity();
+    }
+
+    private ImageRenderer configureRenderer(ImageRenderer renderer) {
+        renderer.setFilter(filter);
+        renderer.setPngEncoder(PngEncoder.create(pngCompression, appConfiguration.getThreadQuantity()));
+        renderer.setPngBitDepth(pngBitDepth);
+        return renderer;
+    }
+
+    /**
+     * What the time budget leaves the generation: the budget counts from the start of the JVM, and the merge, density
+     * estimation, histogram save and image writes that follow the generation are estimated from rates measured on a
+     * small renderer set up like the real one.
+     */
+    private Duration budgetedGenerationTime() {
+        int threads = appConfiguration.getThreadQuantity();
+        int workers = threads == 1 ? 0 : threads;
+        RenderBudget budget = RenderBudget.calibrate(
+                size -> configureRenderer(new ImageRenderer(
+                        appConfiguration.toBuilder().size(new Size(size, size)).build(),
+                        memoryPlan.strategy(),
+                        memoryPlan.limits().tempDirectory(),
+                        oversample)),
+                workers,
+                budgetFinish());
+        estimatedFinishNanos = budget.finishNanos(
+                appConfiguration.getSize().width(), appConfiguration.getSize().height(), workers);
+        long spentNanos = System.nanoTime() - jvmStartNanos();
+        budgetedGenerationNanos =
+                Math.max(0, Duration.ofSeconds(timeBudgetSeconds).toNanos() - spentNanos - estimatedFinishNanos);
+        log.info(
+                "Time budget: {} ms spent before the generation, {} ms kept for the finish, {} ms left to generate",
+                spentNanos / 1_000_000,
+                estimatedFinishNanos / 1_000_000,
+                budgetedGenerationNanos / 1_000_000);
+        if (budgetedGenerationNanos == 0) {
+            log.warn("The time budget of {} s leaves no time for the generation", timeBudgetSeconds);
+        }
+        return Duration.ofNanos(budgetedGenerationNanos);
+    }
+
+    /** The steps {@link #render} runs after the generation, for the time budget to measure. */
+    private RenderBudget.Finish budgetFinish() {
+        List<OutputFormat> formats = new ArrayList<>();
+        formats.add(OutputFormat.fromPath(appConfiguration.getOutputPath()));
+        exportPaths.forEach(path -> formats.add(OutputFormat.fromPath(path)));
+        Path histogramDirectory = null;
+        if (saveHistogramPath != null) {
+            Path parent = saveHistogramPath.toAbsolutePath().getParent();
+            histogramDirectory = parent != null && Files.isDirectory(parent)
+                    ? parent
+                    : memoryPlan.limits().tempDirectory();
+        }
+        return new RenderBudget.Finish(formats, histogramDirectory, densityEstimation);
+    }
+
+    /** The budget covers the JVM startup too, which is what a caller waiting for the image sees. */
+    private static long jvmStartNanos() {
+        long sinceStartMillis = System.currentTimeMillis()
+                - ManagementFactory.getRuntimeMXBean().getStartTime();
+        return System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(sinceStartMillis);
+    }
+
+    private void reportTimeBudget(long iterations, long plottedPoints) {
+        long elapsedNanos = System.nanoTime() - jvmStartNanos();
+        metrics.setTimeBudget(new RenderReport.TimeBudget(
+                Duration.ofSeconds(timeBudgetSeconds).toNanos(),
+                budgetedGenerationNanos,
+                estimatedFinishNanos,
+                elapsedNanos,
+                iterations));
+        log.info(
+                "Time budget of {} s: {} iterations, {} points plotted, rendered in {} ms",
+                timeBudgetSeconds,
+                iterations,
+                plottedPoints,
+                elapsedNanos / 1_000_000);
+    }
+
     private void initializeRandom() {
         Random random = new Random(appConfiguration.getSeed());
         appConfiguration.setRandom(random);
@@ -158,10 +583,33 @@ public class Application implements Runnable {
                 "Image size: {}x{}",
                 appConfiguration.getSize().width(),
                 appConfiguration.getSize().height());
-        log.info("Iterations: {}", appConfiguration.getIterationCount());
+        if (oversample > 1) {
+            log.info("Oversample: {}x, {} filter", oversample, filter.getKey());
+        }
+        if (densityEstimation != null) {
+            log.info(
+                    "Density estimation: radius {} to {}, curve {}",
+                    densityEstimation.maxRadius(),
+                    densityEstimation.minRadius(),
+                    densityEstimation.curve());
+        }
+        if (timeBudgetSeconds == null) {
+            log.info("Iterations: {}", appConfiguration.getIterationCount());
+        } else {
+            log.info("Time budget: {} s instead of an iteration count", timeBudgetSeconds);
+        }
         log.info("Threads: {}", appConfiguration.getThreadQuantity());
         log.info("Seed: {}", appConfiguration.getSeed());
         log.info("Output path: {}", appConfiguration.getOutputPath());
+        if (cacheDirectory != null) {
+            log.info("Render cache: {}", cacheDirectory);
+        }
+        if (timeLimitSeconds != null) {
+            log.info("Time limit: {} s", timeLimitSeconds);
+        }
+        if (previewEverySeconds != null) {
+            log.info("Previews: every {} s, up to {} px", previewEverySeconds, previewSize);
+        }
         log.info(
                 "Affine transformations: {}",
                 appConfiguration.getAffineParamsList().size());
@@ -184,7 +632,166 @@ public class Application implements Runnable {
         }
     }
 
+    private HistogramHeader loadHistogram(ImageRenderer renderer) {
+        if (resumeHistogramPath == null) {
+            return null;
+        }
+        HistogramHeader previous = HistogramFile.readInto(resumeHistogramPath, renderer);
+        log.info(
+                "Refining saved histogram: {} previous iterations, adding {}",
+                previous.iterations(),
+                appConfiguration.getIterationCount());
+        return previous;
+    }
+
+    /**
+     * The cached histogram of this render with the most iterations up to the requested count, added to the renderer;
+     * {@code null} when there is none.
+     */
+    private HistogramHeader loadCachedHistogram(ImageRenderer renderer, RenderCache cache, RenderKey key) {
+        return cache.findHistogram(key, appConfiguration.getIterationCount())
+                .map(cached -> {
+                    HistogramHeader header = HistogramFile.readInto(cached.path(), renderer);
+                    log.info(
+                            "Render cache has {} of {} iterations",
+                            header.iterations(),
+                            appConfiguration.getIterationCount());
+                    return header;
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Copies the cached image of an identical render to the output path. Renders that also export, save their histogram
+     * or stream to standard output need the histogram and never take this shortcut.
+     *
+     * @return whether the image was found
+     */
+    private boolean copyCachedImage(RenderCache cache, RenderKey key) throws IOException {
+        Path outputPath = appConfiguration.getOutputPath();
+        if (!exportPaths.isEmpty() || saveHistogramPath != null || ImageRenderer.STDOUT.equals(outputPath)) {
+            return false;
+        }
+        Optional<Path> cached = cache.findImage(imageKey(key), outputExtension());
+        if (cached.isEmpty()) {
+            return false;
+        }
+        Path parent = outputPath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.copy(cached.get(), outputPath, StandardCopyOption.REPLACE_EXISTING);
+        log.info("Image copied from the render cache to {}, skipping the render", outputPath);
+        return true;
+    }
+
+    private RenderKey imageKey(RenderKey key) {
+        return key.image(
+                appConfiguration.getIterationCount(),
+                filter.getKey(),
+                densityEstimation,
+                pngBitDepth,
+                pngCompression,
+                outputExtension());
+    }
+
+    private String outputExtension() {
+        return OutputFormat.fromPath(appConfiguration.getOutputPath()).getExtension();
+    }
+
+    /** The configuration the chaos game runs with: the requested one, or a copy doing only what is left to do. */
+    private AppConfiguration gameConfiguration(int iterations) {
+        if (iterations == appConfiguration.getIterationCount()) {
+            return appConfiguration;
+        }
+        // The copy shares the affine parameters, so the transformation colors stay those of the seed
+        return appConfiguration.toBuilder().iterationCount(iterations).build();
+    }
+
+    private HistogramHeader histogramHeader(
+            ImageRenderer renderer, ChaosGame game, HistogramHeader previous, long iterations, boolean generated) {
+        int streams = generated ? game.getStreamOffset() + game.getStreamCount() : previous.streams();
+        return new HistogramHeader(
+                renderer.getHistogram().width(),
+                renderer.getHistogram().height(),
+                oversample,
+                appConfiguration.getSeed(),
+                iterations,
+                streams,
+                renderer.getPlotCount(),
+                renderer.getOutOfBoundsCount(),
+                RenderKey.content(appConfiguration, oversample).hash());
+    }
+
+    private void saveHistogram(ImageRenderer renderer, HistogramHeader header) {
+        if (saveHistogramPath == null) {
+            return;
+        }
+        HistogramFile.write(saveHistogramPath, renderer, header);
+    }
+
+    private void writeMetrics() {
+        RenderReport report = metrics.report();
+        logSummary(report);
+        Path jsonPath = metricsPath != null ? metricsPath : sidecarPath(appConfiguration.getOutputPath());
+        try {
+            if (jsonPath != null) {
+                report.writeJson(jsonPath);
+                log.info("Render metrics written to {}", jsonPath);
+            }
+            if (prometheusPath != null) {
+                report.writePrometheus(prometheusPath);
+                log.info("Prometheus metrics written to {}", prometheusPath);
+            }
+        } catch (IOException e) {
+            log.error("Failed to write render metrics: {}", e.getMessage());
+            throw new RuntimeException("Failed to write render metrics: " + e.getMessage(), e);
+        }
+    }
+
+    private static void logSummary(RenderReport report) {
+        log.info("=== Render Summary ===");
+        report.phaseNanos()
+                .forEach((phase, nanos) -> log.info(
+                        "{}: {} ms, {} KB allocated",
+                        phase,
+                        nanos / 1_000_000,
+                        report.phaseAllocatedBytes().get(phase) >> 10));
+        for (RenderReport.Worker worker : report.workers()) {
+            log.info(
+                    "Worker {}: {} it/s, {} KB allocated",
+                    worker.worker(),
+                    Math.round(worker.iterationsPerSecond()),
+                    worker.allocatedBytes() >> 10);
+        }
+        log.info(
+                "GC: {} collections, {} ms paused; peak heap {} MB",
+                report.gcCount(),
+                report.gcPauseMillis(),
+                report.peakHeapBytes() >> 20);
+    }
+
+    /** {@code out/flame.png} gets {@code out/flame.metrics.json}; there is no sidecar for standard output. */
+    private static Path sidecarPath(Path outputPath) {
+        if (ImageRenderer.STDOUT.equals(outputPath)) {
+            return null;
+        }
+        String fileName = outputPath.getFileName().toString();
+        int extensionIndex = fileName.lastIndexOf('.');
+        String stem = extensionIndex > 0 ? fileName.substring(0, extensionIndex) : fileName;
+        return outputPath.resolveSibling(stem + ".metrics.json");
+    }
+
     private void executeGeneration(ChaosGame game) {
+        RenderEvents events = null;
+        PreviewWriter previews = null;
+        if (previewEverySeconds != null) {
+            Duration interval = Duration.ofSeconds(previewEverySeconds);
+            events = game.publishEvents(interval, interval, previewSize);
+            previews = new PreviewWriter(PreviewWriter.previewPath(appConfiguration.getOutputPath()));
+            events.subscribe(previews);
+        }
+        long startTime = System.nanoTime();
         if (appConfiguration.getThreadQuantity() == 1) {
             log.info("Starting single-threaded generation");
             game.runSingleThread();
@@ -192,5 +799,29 @@ public class Application implements Runnable {
             log.info("Starting multi-threaded generation with {} threads", appConfiguration.getThreadQuantity());
             game.runMultiThread();
         }
+        if (previews != null) {
+            reportPreviews(events, previews, System.nanoTime() - startTime);
+        }
+    }
+
+    /** Waits for the final preview and logs what the previews cost next to the generation time. */
+    private static void reportPreviews(RenderEvents events, PreviewWriter previews, long generationNanos) {
+        try {
+            if (!previews.await(PREVIEW_TIMEOUT)) {
+                log.warn("The final preview was not written within {} s", PREVIEW_TIMEOUT.toSeconds());
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long previewNanos = events.getFrameNanos() + previews.getWriteNanos();
+        log.info(
+                "Previews: {} written to {}, {} ms taking frames and {} ms writing them ({}% of the generation time)",
+                previews.getWrittenCount(),
+                previews.getPreviewPath(),
+                events.getFrameNanos() / 1_000_000,
+                previews.getWriteNanos() / 1_000_000,
+                String.format("%.1f", 100.0 * previewNanos / Math.max(generationNanos, 1)));
     }
 }
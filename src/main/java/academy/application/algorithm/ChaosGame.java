@@ -1,64 +1,200 @@
 package academy.application.algorithm;
 
+import academy.application.metrics.RenderMetrics;
+import academy.application.metrics.RenderPhase;
+import academy.application.metrics.RenderProgress;
+import academy.application.metrics.jfr.WorkerChunkEvent;
 import academy.application.render.ImageRenderer;
+import academy.application.render.ToneMappedImage;
+import academy.application.render.ToneMapper;
 import academy.domain.AffineParams;
 import academy.domain.AppConfiguration;
 import academy.domain.Point;
 import academy.domain.VariationParams;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @RequiredArgsConstructor
 public class ChaosGame {
     private static final int WARMUP_ITERATIONS = 20;
-    private static final int PROGRESS_LOG_INTERVAL_PERCENT = 10;
+    /**
+     * Iterations between progress updates, one {@link WorkerChunkEvent} each; large enough that the bookkeeping is free
+     * next to the work it spans.
+     */
+    static final int CHUNK_ITERATIONS = 1 << 16;
+
     private final AppConfiguration configuration;
     private final ImageRenderer renderer;
 
+    /**
+     * Index of the first random stream this run draws from. Stream {@code i} is seeded with {@code seed + i}, so a
+     * refinement pass that starts after the streams recorded in a saved histogram never repeats earlier samples.
+     */
+    @Getter
+    @Setter
+    private int streamOffset;
+
+    /** Time the last multi-threaded run spent merging the per-thread histograms. */
+    @Getter
+    private long mergeNanos;
+
+    /**
+     * Pool that runs the workers of a multi-threaded run, shared with other renders; {@code null} to start a pool of
+     * {@code threadQuantity} threads for this run only.
+     */
+    @Getter
+    @Setter
+    private ExecutorService executor;
+
+    /** Progress of the run in flight, {@code null} between runs; lets a caller report on a render it started. */
+    @Getter
+    private volatile RenderProgress progress;
+
+    /**
+     * Wall-clock limit of the next run, {@code null} for none; once it has passed the workers stop at their next chunk
+     * boundary as if {@link #stop()} had been called.
+     */
+    @Getter
+    @Setter
+    private Duration timeLimit;
+
+    /**
+     * Whether the next run is bounded by its {@link #timeLimit} alone: every worker then iterates until the limit, up
+     * to {@link Integer#MAX_VALUE} iterations each, instead of running its share of the iteration count.
+     */
+    @Getter
+    @Setter
+    private boolean iterateUntilTimeLimit;
+
+    /** Set by {@link #cancel()}; the workers check it between chunks. */
+    private volatile boolean cancelled;
+
+    /** Set by {@link #stop()}; the workers check it between chunks. */
+    private volatile boolean stopped;
+
+    /** {@link System#nanoTime()} past which the run in flight stops, {@code 0} for none. */
+    private volatile long deadlineNanos;
+
+    private volatile boolean timeLimitReached;
+
+    /** Iterations the last run actually performed; fewer than configured when it was stopped early. */
+    @Getter
+    private long completedIterations;
+
+    /** Renderers of the workers in flight, read by {@link #preview}; guarded by itself. */
+    private final List<ImageRenderer> liveWorkers = new ArrayList<>();
+
+    /** Publisher of the events of the next run, {@code null} unless {@link #publishEvents} asked for one. */
+    private RenderEvents events;
+
+    /** Receives the iteration and merge durations and the throughput of every worker. */
+    @Getter
+    @Setter
+    private RenderMetrics metrics = new RenderMetrics();
+
     public void runSingleThread() {
         log.info("Starting chaos game algorithm (single-threaded)");
         log.debug("Total iterations: {}, warmup iterations: {}", configuration.getIterationCount(), WARMUP_ITERATIONS);
 
-        long startTime = System.currentTimeMillis();
-        generatePoints(configuration.getRandom(), renderer, configuration.getIterationCount(), 0);
-        long endTime = System.currentTimeMillis();
-        log.info("Single-threaded generation completed in {} ms", endTime - startTime);
+        Random random =
+                streamOffset == 0 ? configuration.getRandom() : new Random(configuration.getSeed() + streamOffset);
+        log.debug("Using random stream {}", streamOffset);
+
+        long startTime = System.nanoTime();
+        long allocatedBefore = RenderMetrics.allocatedBytes();
+        long threadAllocatedBefore = RenderMetrics.threadAllocatedBytes();
+        int iterations = iterateUntilTimeLimit ? Integer.MAX_VALUE : configuration.getIterationCount();
+        try (RenderProgress progress = RenderProgress.start(iterations, 1)) {
+            this.progress = progress;
+            startDeadline();
+            startEvents(progress);
+            completedIterations = generatePoints(random, renderer, iterations, 0, progress);
+            throwIfCancelled();
+        } catch (RuntimeException e) {
+            failEvents(e);
+            throw e;
+        } finally {
+            this.progress = null;
+        }
+        long nanos = System.nanoTime() - startTime;
+        metrics.addPhase(RenderPhase.ITERATION, nanos, RenderMetrics.allocatedBytes() - allocatedBefore);
+        metrics.addWorker(0, completedIterations, nanos, RenderMetrics.threadAllocatedBytes() - threadAllocatedBefore);
+        logStoppedEarly();
+        completeEvents();
+        log.info("Single-threaded generation completed in {} ms", nanos / 1_000_000);
     }
 
     public void runMultiThread() {
+        long startTime = System.nanoTime();
+        merge(iterate());
+        log.info("Multi-threaded generation completed in {} ms", (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    /**
+     * Runs the workers of a multi-threaded render and returns their renderers without merging them, so a pipeline can
+     * hand the merge to another thread; {@link #merge(List)} completes the render.
+     */
+    public List<ImageRenderer> iterate() {
         int threads = configuration.getThreadQuantity();
-        int totalIterations = configuration.getIterationCount();
-        int iterationsPerThread = totalIterations / threads;
-        int remainingIterations = totalIterations % threads;
+        long totalIterations =
+                iterateUntilTimeLimit ? (long) Integer.MAX_VALUE * threads : configuration.getIterationCount();
+        int iterationsPerThread = (int) (totalIterations / threads);
+        int remainingIterations = (int) (totalIterations % threads);
 
         log.info("Starting chaos game algorithm (multi-threaded)");
         log.info("Thread pool size: {}", threads);
         log.debug("Iterations per thread: {}, remaining: {}", iterationsPerThread, remainingIterations);
 
-        long startTime = System.currentTimeMillis();
-        try (var executor = Executors.newFixedThreadPool(threads)) {
+        long startTime = System.nanoTime();
+        long allocatedBefore = RenderMetrics.allocatedBytes();
+        try (ExecutorService ownExecutor = executor == null ? Executors.newFixedThreadPool(threads) : null;
+                RenderProgress progress = RenderProgress.start(totalIterations, threads)) {
+            this.progress = progress;
+            startDeadline();
+            startEvents(progress);
+            ExecutorService workers = executor == null ? ownExecutor : executor;
             List<Future<ImageRenderer>> futures = new ArrayList<>();
             for (int i = 0; i < threads; i++) {
                 final int threadIndex = i;
                 final int threadIterations = iterationsPerThread + (i < remainingIterations ? 1 : 0);
                 log.debug("Submitting task for thread {}: {} iterations", threadIndex, threadIterations);
-                var future = executor.submit(() -> {
+                var future = workers.submit(() -> {
                     log.debug("Thread {} started", threadIndex);
-                    long threadStartTime = System.currentTimeMillis();
+                    long threadStartTime = System.nanoTime();
+                    long threadAllocatedBefore = RenderMetrics.threadAllocatedBytes();
 
-                    ImageRenderer localRenderer = new ImageRenderer(configuration);
-                    Random random = new Random(configuration.getSeed() + threadIndex);
-                    generatePoints(random, localRenderer, threadIterations, threadIndex);
+                    ImageRenderer localRenderer = renderer.newWorker();
+                    synchronized (liveWorkers) {
+                        liveWorkers.add(localRenderer);
+                    }
+                    Random random = new Random(configuration.getSeed() + streamOffset + threadIndex);
+                    long iterations;
+                    try {
+                        iterations = generatePoints(random, localRenderer, threadIterations, threadIndex, progress);
+                    } catch (RuntimeException e) {
+                        releaseWorkers(List.of(localRenderer));
+                        throw e;
+                    }
 
-                    long threadEndTime = System.currentTimeMillis();
-                    log.debug("Thread {} completed in {} ms", threadIndex, threadEndTime - threadStartTime);
+                    long threadNanos = System.nanoTime() - threadStartTime;
+                    metrics.addWorker(
+                            threadIndex,
+                            iterations,
+                            threadNanos,
+                            RenderMetrics.threadAllocatedBytes() - threadAllocatedBefore);
+                    log.debug("Thread {} completed in {} ms", threadIndex, threadNanos / 1_000_000);
 
                     return localRenderer;
                 });
@@ -74,81 +210,271 @@ public class ChaosGame {
                     log.debug("Thread result received ({}/{})", completedThreads, threads);
                 } catch (InterruptedException e) {
                     log.error("Thread interrupted while waiting for result", e);
+                    abortWorkers(futures, rendererList);
                     Thread.currentThread().interrupt();
                     throw new RuntimeException("Generation interrupted", e);
                 } catch (ExecutionException e) {
                     log.error("Thread execution failed: {}", e.getCause().getMessage());
+                    abortWorkers(futures, rendererList);
                     throw new RuntimeException("Generation failed", e.getCause());
                 }
             }
-            log.info("All threads completed, merging results");
-            long mergeStartTime = System.currentTimeMillis();
-            renderer.merge(rendererList);
-            long mergeEndTime = System.currentTimeMillis();
-            log.debug("Histogram merge completed in {} ms", mergeEndTime - mergeStartTime);
+            if (cancelled) {
+                releaseWorkers(rendererList);
+                throwIfCancelled();
+            }
+            completedIterations = progress.getCompletedIterations();
+            logStoppedEarly();
+            log.info("All threads completed");
+            metrics.addPhase(
+                    RenderPhase.ITERATION,
+                    System.nanoTime() - startTime,
+                    RenderMetrics.allocatedBytes() - allocatedBefore);
+            return rendererList;
+        } catch (RuntimeException e) {
+            failEvents(e);
+            throw e;
+        } finally {
+            this.progress = null;
         }
+    }
+
+    /** Adds the histograms of the {@link #iterate()} workers into the renderer and releases them. */
+    public void merge(List<ImageRenderer> workers) {
+        log.info("Merging the results of {} threads", workers.size());
+        long mergeStartTime = System.nanoTime();
+        long mergeAllocatedBefore = RenderMetrics.allocatedBytes();
+        // Previews wait for the merge, so they never count a sample twice or read a released histogram
+        try {
+            synchronized (liveWorkers) {
+                renderer.merge(workers);
+                liveWorkers.removeAll(workers);
+            }
+        } catch (RuntimeException e) {
+            failEvents(e);
+            throw e;
+        }
+        workers.forEach(ImageRenderer::close);
+        mergeNanos = System.nanoTime() - mergeStartTime;
+        metrics.addPhase(RenderPhase.MERGE, mergeNanos, RenderMetrics.allocatedBytes() - mergeAllocatedBefore);
+        log.debug("Histogram merge completed in {} ms", mergeNanos / 1_000_000);
+        completeEvents();
+    }
 
-        long endTime = System.currentTimeMillis();
-        log.info("Multi-threaded generation completed in {} ms", endTime - startTime);
+    /**
+     * Publishes the events of the next run: progress every {@code progressInterval}, a frame of at most
+     * {@code frameSize} pixels every {@code frameInterval} and at the end, then the completion; see
+     * {@link RenderEvents}. Subscribe to the result before the run starts. Slow subscribers get fewer events, they
+     * never slow the workers down.
+     *
+     * @param frameInterval time between frames, {@code null} or zero for the final frame only
+     * @param frameSize longest side of the frames, {@code 0} for no frames
+     */
+    public RenderEvents publishEvents(Duration progressInterval, Duration frameInterval, int frameSize) {
+        events = new RenderEvents(progressInterval, frameInterval, frameSize, ToneMapper.DEFAULT);
+        return events;
     }
 
-    private void generatePoints(Random random, ImageRenderer targetRenderer, int iterations, int threadId) {
+    private void startEvents(RenderProgress progress) {
+        if (events != null) {
+            events.start(this, progress);
+        }
+    }
+
+    private void completeEvents() {
+        if (events != null) {
+            events.complete(renderer.getPlotCount());
+            events = null;
+        }
+    }
+
+    private void failEvents(Throwable error) {
+        if (events != null) {
+            events.fail(error);
+            events = null;
+        }
+    }
+
+    /**
+     * Stops the run in flight, or the next one, at the next chunk boundary of every worker; the run then throws
+     * {@link CancellationException} instead of returning. Safe to call from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Ends the run in flight, or the next one, at the next chunk boundary of every worker. Unlike {@link #cancel()} the
+     * run then returns as usual with what the workers have accumulated, merged into the renderer, and
+     * {@link #getCompletedIterations()} tells how much that is. Safe to call from any thread, a signal handler
+     * included.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Whether the last run was stopped before it ran all of its iterations; a run that iterates until its time limit
+     * never is.
+     */
+    public boolean isStoppedEarly() {
+        return !iterateUntilTimeLimit && completedIterations < configuration.getIterationCount();
+    }
+
+    /**
+     * Tone-mapped snapshot of what the run has accumulated so far, at most {@code maxSize} pixels along the longer
+     * side, taken while the workers keep plotting; see {@link ImageRenderer#preview}.
+     */
+    public ToneMappedImage preview(int maxSize, ToneMapper toneMapper) {
+        synchronized (liveWorkers) {
+            return renderer.preview(liveWorkers, maxSize, toneMapper);
+        }
+    }
+
+    private void startDeadline() {
+        if (iterateUntilTimeLimit && timeLimit == null) {
+            throw new IllegalStateException("Iterating until the time limit needs a time limit");
+        }
+        deadlineNanos = timeLimit == null ? 0 : System.nanoTime() + timeLimit.toNanos();
+        timeLimitReached = false;
+    }
+
+    /** Checked once per chunk, so reading the clock costs nothing next to the iterations. */
+    private boolean keepIterating() {
+        if (cancelled || stopped) {
+            return false;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Render interrupted");
+        }
+        long deadline = deadlineNanos;
+        if (deadline != 0 && System.nanoTime() - deadline >= 0) {
+            if (!timeLimitReached) {
+                timeLimitReached = true;
+                log.info("Time limit of {} ms reached", timeLimit.toMillis());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private void logStoppedEarly() {
+        if (isStoppedEarly()) {
+            log.info(
+                    "Generation stopped early after {} of {} iterations",
+                    completedIterations,
+                    configuration.getIterationCount());
+        }
+    }
+
+    /** Interrupts the workers still running after one of them failed, and releases those that already finished. */
+    private void abortWorkers(List<Future<ImageRenderer>> futures, List<ImageRenderer> finished) {
+        futures.forEach(future -> future.cancel(true));
+        releaseWorkers(finished);
+    }
+
+    private void throwIfCancelled() {
+        if (cancelled) {
+            log.info("Chaos game cancelled");
+            throw new CancellationException("Render cancelled");
+        }
+    }
+
+    private void releaseWorkers(List<ImageRenderer> workers) {
+        synchronized (liveWorkers) {
+            liveWorkers.removeAll(workers);
+        }
+        workers.forEach(ImageRenderer::close);
+    }
+
+    /** Number of random streams a run with the current configuration consumes. */
+    public int getStreamCount() {
+        return Math.max(1, configuration.getThreadQuantity());
+    }
+
+    /** @return iterations actually run, fewer than {@code iterations} when the run was stopped or cancelled */
+    private long generatePoints(
+            Random random, ImageRenderer targetRenderer, int iterations, int threadId, RenderProgress progress) {
         Point point = Point.builder()
                 .x(random.nextDouble(-1.0, 1.0))
                 .y(random.nextDouble(-1.0, 1.0))
                 .color(random.nextDouble(0.0, 1.0))
                 .build();
 
-        int progressStep = Math.max(1, iterations / PROGRESS_LOG_INTERVAL_PERCENT);
-        int nextProgressLog = progressStep;
-        int effectiveIterations = iterations - WARMUP_ITERATIONS;
-
         log.trace("Thread {}: Starting point generation at ({}, {})", threadId, point.getX(), point.getY());
 
-        for (int j = 0; j < iterations; j++) {
-            int k = random.nextInt(0, configuration.getAffineParamsList().size());
-            AffineParams affineParams = configuration.getAffineParamsList().get(k);
-            point = applyFunction(point, configuration.getVariationsParamsList(), affineParams);
-            point.setColor((point.getColor() + affineParams.getColor()) / 2);
-
-            if (j < WARMUP_ITERATIONS) continue;
-
-            targetRenderer.plot(point);
-            if (threadId == 0 && j >= nextProgressLog) {
-                int progressPercent = (int) ((j - WARMUP_ITERATIONS) * 100.0 / effectiveIterations);
-                log.info(
-                        "Generation progress: {}% ({}/{} iterations)",
-                        progressPercent, j - WARMUP_ITERATIONS, effectiveIterations);
-                nextProgressLog += progressStep;
+        // Long counters: a worker may run up to Integer.MAX_VALUE iterations, where int chunk bounds would wrap
+        long chunkStart = 0;
+        for (; chunkStart < iterations && keepIterating(); chunkStart += CHUNK_ITERATIONS) {
+            int chunkLength = chunkLength(chunkStart, iterations);
+            int plotFrom = chunkStart < WARMUP_ITERATIONS ? WARMUP_ITERATIONS - (int) chunkStart : 0;
+            WorkerChunkEvent event = new WorkerChunkEvent();
+            event.begin();
+            long plottedBefore = targetRenderer.getPlotCount();
+            long outOfBoundsBefore = targetRenderer.getOutOfBoundsCount();
+
+            for (int j = 0; j < chunkLength; j++) {
+                int k = random.nextInt(0, configuration.getAffineParamsList().size());
+                AffineParams affineParams = configuration.getAffineParamsList().get(k);
+                applyFunction(point, configuration.getVariationsParamsList(), affineParams, point);
+                point.setColor((point.getColor() + affineParams.getColor()) / 2);
+
+                if (j < plotFrom) continue;
+
+                targetRenderer.plot(point);
+            }
+
+            long outOfBounds = targetRenderer.getOutOfBoundsCount() - outOfBoundsBefore;
+            progress.add(threadId, chunkLength, outOfBounds);
+            event.end();
+            if (event.shouldCommit()) {
+                event.worker = threadId;
+                event.firstIteration = chunkStart;
+                event.iterations = chunkLength;
+                event.pointsPlotted = targetRenderer.getPlotCount() - plottedBefore;
+                event.pointsOutOfBounds = outOfBounds;
+                event.commit();
             }
         }
-        if (threadId == 0) {
-            log.info("Generation progress: 100% ({}/{} iterations)", effectiveIterations, effectiveIterations);
-        }
+        long completed = Math.min(chunkStart, iterations);
         log.debug(
                 "Thread {}: Completed {} iterations ({} effective points)",
                 threadId,
-                iterations,
-                iterations - WARMUP_ITERATIONS);
+                completed,
+                Math.max(0, completed - WARMUP_ITERATIONS));
+        return completed;
+    }
+
+    /** Iterations of the chunk starting at {@code chunkStart}; package-private to test counts near the int range. */
+    static int chunkLength(long chunkStart, long iterations) {
+        return (int) Math.min(CHUNK_ITERATIONS, iterations - chunkStart);
     }
 
-    private Point applyFunction(Point point, List<VariationParams> variationParamsList, AffineParams affine) {
+    /**
+     * Applies the affine map and the weighted sum of the variations to {@code point}. The result is written into
+     * {@code target}, which also serves as scratch for the variations, so the kernel allocates nothing; {@code target}
+     * may be {@code point} itself. Package-private for the JMH kernel benchmark.
+     */
+    Point applyFunction(Point point, List<VariationParams> variationParamsList, AffineParams affine, Point target) {
         double xAffine = affine.getA() * point.getX() + affine.getB() * point.getY() + affine.getC();
         double yAffine = affine.getD() * point.getX() + affine.getE() * point.getY() + affine.getF();
+        double color = point.getColor();
         double xResult = 0.0;
         double yResult = 0.0;
-        for (VariationParams variationParams : variationParamsList) {
-            Point tempPoint = Point.builder()
-                    .x(xAffine)
-                    .y(yAffine)
-                    .color(point.getColor())
-                    .build();
-
-            Point variedPoint = variationParams.variation().getOperator().apply(tempPoint);
+        // Indexed loop: an iterator per call shows up as garbage until the JIT scalar-replaces it
+        for (int i = 0; i < variationParamsList.size(); i++) {
+            VariationParams variationParams = variationParamsList.get(i);
+            target.setX(xAffine).setY(yAffine).setColor(color);
+
+            Point variedPoint = variationParams.variation().getOperator().apply(target);
             xResult += variedPoint.getX() * variationParams.weight();
             yResult += variedPoint.getY() * variationParams.weight();
         }
 
-        return Point.builder().x(xResult).y(yResult).color(point.getColor()).build();
+        return target.setX(xResult).setY(yResult).setColor(color);
     }
 }
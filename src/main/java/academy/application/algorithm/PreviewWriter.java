@@ -0,0 +1,121 @@
+package academy.application.algorithm;
+
+import academy.application.render.png.PngEncoder;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Subscriber of {@link RenderEvents} that writes every {@link RenderEvent.Frame} over one PNG file, so a long render
+ * can be watched while it runs. Each frame is written to a temporary file next to the preview and moved over it, so a
+ * viewer never reads a half-written image. The frames are encoded at the fastest compression on the delivery thread of
+ * the subscription; a failed write is logged and the next frame tries again.
+ */
+@Slf4j
+public class PreviewWriter implements Flow.Subscriber<RenderEvent> {
+    private final Path previewPath;
+    private final Path tempPath;
+    private final PngEncoder encoder = PngEncoder.create(Deflater.BEST_SPEED, 1);
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    // Written by the delivery thread only, read once the subscription has finished
+    private long writtenCount;
+    private long writeNanos;
+
+    public PreviewWriter(Path previewPath) {
+        this.previewPath = previewPath;
+        this.tempPath = previewPath.resolveSibling(previewPath.getFileName() + ".tmp");
+    }
+
+    /** {@code out/flame.png} gets {@code out/flame.preview.png}. */
+    public static Path previewPath(Path outputPath) {
+        String fileName = outputPath.getFileName().toString();
+        int extensionIndex = fileName.lastIndexOf('.');
+        String stem = extensionIndex > 0 ? fileName.substring(0, extensionIndex) : fileName;
+        return outputPath.resolveSibling(stem + ".preview.png");
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(RenderEvent event) {
+        if (event instanceof RenderEvent.Frame frame) {
+            write(frame);
+        }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        finished.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+        finished.countDown();
+    }
+
+    /**
+     * Waits for the last frame of the run to be written.
+     *
+     * @return whether the subscription finished in time
+     */
+    public boolean await(Duration timeout) throws InterruptedException {
+        return finished.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public Path getPreviewPath() {
+        return previewPath;
+    }
+
+    /** Previews written so far; read it after {@link #await}. */
+    public long getWrittenCount() {
+        return writtenCount;
+    }
+
+    /** Time spent encoding and writing the previews; read it after {@link #await}. */
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    private void write(RenderEvent.Frame frame) {
+        long startTime = System.nanoTime();
+        try {
+            Path parent = previewPath.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(
+                    tempPath,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                frame.image().writePng(channel, encoder);
+            }
+            Files.move(tempPath, previewPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long nanos = System.nanoTime() - startTime;
+            writtenCount++;
+            writeNanos += nanos;
+            log.info(
+                    "Preview written to {} after {} iterations: {} ms to take, {} ms to write",
+                    previewPath,
+                    frame.completedIterations(),
+                    frame.renderNanos() / 1_000_000,
+                    nanos / 1_000_000);
+        } catch (IOException e) {
+            writeNanos += System.nanoTime() - startTime;
+            log.warn("Failed to write preview to {}: {}", previewPath, e.getMessage());
+        }
+    }
+}
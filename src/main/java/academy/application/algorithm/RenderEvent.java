@@ -0,0 +1,25 @@
+package academy.application.algorithm;
+
+import academy.application.render.ToneMappedImage;
+
+/** What a {@link RenderEvents} publisher tells its subscribers about a chaos game run. */
+public sealed interface RenderEvent {
+
+    /**
+     * Iterations done so far.
+     *
+     * @param iterationsPerSecond throughput over the last second, {@code 0} during the first one
+     */
+    record Progress(long completedIterations, long totalIterations, double iterationsPerSecond)
+            implements RenderEvent {}
+
+    /**
+     * Tone-mapped preview of what the run has accumulated, see {@link ChaosGame#preview}.
+     *
+     * @param renderNanos time the frame took to take and tone-map
+     */
+    record Frame(ToneMappedImage image, long completedIterations, long renderNanos) implements RenderEvent {}
+
+    /** The run finished: its histogram holds {@code plottedPoints} samples from {@code iterations} iterations. */
+    record Completed(long iterations, long plottedPoints, long elapsedNanos) implements RenderEvent {}
+}
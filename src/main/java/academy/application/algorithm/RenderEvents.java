@@ -0,0 +1,215 @@
+package academy.application.algorithm;
+
+import academy.application.metrics.RenderProgress;
+import academy.application.render.ToneMappedImage;
+import academy.application.render.ToneMapper;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link Flow.Publisher} of the {@link RenderEvent}s of one chaos game run, from {@link ChaosGame#publishEvents}:
+ * {@link RenderEvent.Progress} every {@code progressInterval}, a {@link RenderEvent.Frame} every {@code frameInterval}
+ * and once more at the end, then {@link RenderEvent.Completed} and {@code onComplete}. A run that fails or is cancelled
+ * ends with {@code onError} instead.
+ *
+ * <p>The workers never see the subscribers. A sampler thread reads the progress counters and takes the frames while
+ * they plot, and every subscriber is fed from its own bounded buffer on a virtual thread. When a subscriber falls
+ * behind, the events that do not fit in its buffer are dropped for it, see {@link #getDroppedEvents()}; the render and
+ * the other subscribers go on at full speed.
+ *
+ * <p>Frames are the one cost the sampler puts on the render: taking one downscales every worker histogram on the
+ * sampler thread. The next frame is therefore never taken sooner than {@code frameInterval} after the previous one
+ * ended, nor sooner than {@link #MAX_FRAME_SHARE} of the wall time would allow given what it cost, see
+ * {@link #getFrameNanos()}.
+ */
+@Slf4j
+public class RenderEvents implements Flow.Publisher<RenderEvent>, AutoCloseable {
+    /** Events buffered per subscriber before new ones are dropped for it. */
+    static final int BUFFER_CAPACITY = 16;
+    /** Longest the end of a run waits for a full subscriber buffer to take the final frame and the completion. */
+    private static final long FINAL_EVENT_TIMEOUT_MILLIS = 200;
+    /** Largest share of the sampler thread's wall time spent taking frames. */
+    static final double MAX_FRAME_SHARE = 0.05;
+
+    private final Duration progressInterval;
+    private final Duration frameInterval;
+    private final int frameSize;
+    private final ToneMapper toneMapper;
+    private final ExecutorService delivery = Executors.newVirtualThreadPerTaskExecutor();
+    private final SubmissionPublisher<RenderEvent> publisher = new SubmissionPublisher<>(delivery, BUFFER_CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong frameNanos = new AtomicLong();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "render-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ChaosGame game;
+    private RenderProgress progress;
+    private long startNanos;
+    private ScheduledFuture<?> progressTicks;
+    private ScheduledFuture<?> frameTicks;
+    private boolean sampling;
+
+    /**
+     * @param frameInterval time between frames, {@code null} or zero for the final frame only
+     * @param frameSize longest side of the frames in pixels, {@code 0} for no frames at all
+     */
+    RenderEvents(Duration progressInterval, Duration frameInterval, int frameSize, ToneMapper toneMapper) {
+        if (progressInterval.isNegative() || progressInterval.isZero()) {
+            throw new IllegalArgumentException("Progress interval must be positive, got: " + progressInterval);
+        }
+        if (frameSize < 0) {
+            throw new IllegalArgumentException("Frame size cannot be negative, got: " + frameSize);
+        }
+        this.progressInterval = progressInterval;
+        this.frameInterval = frameInterval;
+        this.frameSize = frameSize;
+        this.toneMapper = toneMapper;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super RenderEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /** Events dropped for subscribers whose buffer was full, summed over the subscribers. */
+    public long getDroppedEvents() {
+        return dropped.get();
+    }
+
+    /** Frames taken so far, the final one included. */
+    public long getFrameCount() {
+        return frames.get();
+    }
+
+    /** Time spent taking the frames so far, on the sampler thread while the workers kept plotting. */
+    public long getFrameNanos() {
+        return frameNanos.get();
+    }
+
+    public int getSubscriberCount() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    /** Starts sampling {@code game}; called by the game when its run begins. */
+    synchronized void start(ChaosGame game, RenderProgress progress) {
+        if (this.game != null) {
+            throw new IllegalStateException("Render events publish a single run");
+        }
+        this.game = game;
+        this.progress = progress;
+        this.startNanos = System.nanoTime();
+        this.sampling = true;
+        long progressNanos = progressInterval.toNanos();
+        progressTicks =
+                sampler.scheduleAtFixedRate(this::publishProgress, progressNanos, progressNanos, TimeUnit.NANOSECONDS);
+        if (frameSize > 0 && frameInterval != null && frameInterval.isPositive()) {
+            scheduleFrame(frameInterval.toNanos());
+        }
+    }
+
+    /** Publishes the final progress, frame and completion; called by the game once its histogram is complete. */
+    void complete(long plottedPoints) {
+        stopSampling();
+        // A run stopped early completes with the iterations it actually ran
+        long completed = progress.getCompletedIterations();
+        offer(new RenderEvent.Progress(completed, progress.getTotalIterations(), progress.getIterationsPerSecond()), 0);
+        publishFrame(FINAL_EVENT_TIMEOUT_MILLIS);
+        offer(
+                new RenderEvent.Completed(completed, plottedPoints, System.nanoTime() - startNanos),
+                FINAL_EVENT_TIMEOUT_MILLIS);
+        close();
+    }
+
+    /** Ends every subscription with {@code error}; called by the game when its run fails or is cancelled. */
+    void fail(Throwable error) {
+        stopSampling();
+        publisher.closeExceptionally(error);
+        sampler.shutdown();
+        delivery.shutdown();
+    }
+
+    /** Stops sampling and completes the subscriptions once they have taken their buffered events. */
+    @Override
+    public void close() {
+        stopSampling();
+        publisher.close();
+        sampler.shutdown();
+        delivery.shutdown();
+    }
+
+    private synchronized void stopSampling() {
+        sampling = false;
+        if (progressTicks != null) {
+            progressTicks.cancel(false);
+        }
+        if (frameTicks != null) {
+            frameTicks.cancel(false);
+        }
+    }
+
+    private void publishProgress() {
+        offer(
+                new RenderEvent.Progress(
+                        progress.getCompletedIterations(),
+                        progress.getTotalIterations(),
+                        progress.getIterationsPerSecond()),
+                0);
+    }
+
+    /** Schedules one frame at a time, so a frame that takes longer than the interval never queues up another. */
+    private synchronized void scheduleFrame(long delayNanos) {
+        if (sampling) {
+            frameTicks = sampler.schedule(this::frameTick, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void frameTick() {
+        long cost = publishFrame(0);
+        scheduleFrame(Math.max(frameInterval.toNanos(), (long) (cost / MAX_FRAME_SHARE) - cost));
+    }
+
+    /** @return how long taking the frame took, {@code 0} when none was taken */
+    private long publishFrame(long timeoutMillis) {
+        if (frameSize == 0 || publisher.getNumberOfSubscribers() == 0) {
+            return 0;
+        }
+        long frameStart = System.nanoTime();
+        long completed = progress.getCompletedIterations();
+        try {
+            ToneMappedImage image = game.preview(frameSize, toneMapper);
+            long cost = System.nanoTime() - frameStart;
+            frames.incrementAndGet();
+            frameNanos.addAndGet(cost);
+            offer(new RenderEvent.Frame(image, completed, cost), timeoutMillis);
+            return cost;
+        } catch (RuntimeException e) {
+            // A failed frame must not end the sampling, the next one may work
+            log.warn("Failed to take a render frame: {}", e.getMessage());
+            return System.nanoTime() - frameStart;
+        }
+    }
+
+    private void offer(RenderEvent event, long timeoutMillis) {
+        try {
+            publisher.offer(event, timeoutMillis, TimeUnit.MILLISECONDS, (subscriber, item) -> {
+                dropped.incrementAndGet();
+                log.trace("Dropped {} for a slow subscriber", item.getClass().getSimpleName());
+                return false;
+            });
+        } catch (IllegalStateException e) {
+            // A tick that was already running when the run ended
+        }
+    }
+}
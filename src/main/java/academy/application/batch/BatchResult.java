@@ -0,0 +1,26 @@
+package academy.application.batch;
+
+import java.nio.file.Path;
+
+/**
+ * Outcome of one job of a batch.
+ *
+ * @param output image the job wrote, {@code null} if it failed before choosing one
+ * @param nanos time from admission to the saved image, without the wait for memory
+ * @param error why the job failed, {@code null} if it succeeded
+ */
+public record BatchResult(
+        Path config, Path output, int width, int height, long iterations, int threads, long nanos, String error) {
+
+    public static BatchResult failed(Path config, Path output, String error) {
+        return new BatchResult(config, output, 0, 0, 0, 0, 0, error);
+    }
+
+    public boolean succeeded() {
+        return error == null;
+    }
+
+    public double iterationsPerSecond() {
+        return nanos == 0 ? 0 : iterations * 1e9 / nanos;
+    }
+}
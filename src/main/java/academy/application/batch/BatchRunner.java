@@ -0,0 +1,443 @@
+package academy.application.batch;
+
+import academy.application.algorithm.ChaosGame;
+import academy.application.render.ImageRenderer;
+import academy.application.render.ToneMappedImage;
+import academy.application.render.ToneMapper;
+import academy.application.render.histogram.AccumulationStrategy;
+import academy.application.render.histogram.HistogramPool;
+import academy.application.render.histogram.MemoryEstimate;
+import academy.application.render.png.PngEncoder;
+import academy.domain.AppConfiguration;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Renders many configurations in one JVM as a pipeline of four stages, so one job's encode and disk write overlap the
+ * next job's iterations:
+ *
+ * <ol>
+ *   <li>{@code iterate} runs the chaos game on the shared pool of worker threads, coordinated by a virtual thread per
+ *       job that only waits;
+ *   <li>{@code merge} adds up the per-thread histograms of a job;
+ *   <li>{@code tone_map} turns the histogram into an in-memory image and hands the histograms back to the
+ *       {@link HistogramPool}, so the next job of the same size reuses them;
+ *   <li>{@code encode} compresses the image and writes the file.
+ * </ol>
+ *
+ * <p>The stages after {@code iterate} run on a thread each and are connected by queues of {@value #QUEUE_CAPACITY}
+ * jobs. Configurations are loaded and admitted in order: a job starts once the heap its histograms need fits under the
+ * memory budget next to the jobs holding histograms, and at most two jobs per pool thread hold them. Idle histograms
+ * are evicted when they would push the budget over. How busy every stage was is logged at the end and available from
+ * {@link #getStageUtilisation()}.
+ */
+@Slf4j
+public class BatchRunner {
+    private static final String CSV_HEADER =
+            "config,output,status,width,height,iterations,threads,millis,iterations_per_second,error";
+    private static final int JOBS_PER_THREAD = 2;
+    private static final int QUEUE_CAPACITY = 2;
+
+    private final int threads;
+    private final long budgetBytes;
+    private final Path outputDir;
+    private final ConfigLoader loader;
+    private final HistogramPool histograms = new HistogramPool();
+    private final Semaphore inFlight;
+    private final PngEncoder encoder = PngEncoder.create(Deflater.DEFAULT_COMPRESSION, 1);
+    private final LongAdder iterationNanos = new LongAdder();
+    private long reservedBytes;
+
+    /** Utilisation of the stages in the last {@link #run}, in pipeline order. */
+    @Getter
+    private List<StageUtilisation> stageUtilisation = List.of();
+
+    /**
+     * Reads and validates one configuration, with its output path replaced by {@code outputPath}; any runtime exception
+     * fails the job with its message.
+     */
+    @FunctionalInterface
+    public interface ConfigLoader {
+        AppConfiguration load(Path configPath, Path outputPath);
+    }
+
+    /**
+     * @param threads size of the shared worker pool
+     * @param budgetBytes heap the histograms of running and idle jobs may take together
+     * @param outputDir where every job writes {@code <config name>.png}
+     */
+    public BatchRunner(int threads, long budgetBytes, Path outputDir, ConfigLoader loader) {
+        this.threads = threads;
+        this.budgetBytes = budgetBytes;
+        this.outputDir = outputDir;
+        this.loader = loader;
+        this.inFlight = new Semaphore(threads * JOBS_PER_THREAD);
+    }
+
+    /**
+     * The {@code .json} files of a directory in name order, or the paths listed in a manifest file, one per line,
+     * relative to the manifest; blank lines and lines starting with {@code #} are skipped.
+     */
+    public static List<Path> resolveConfigs(Path directoryOrManifest) throws IOException {
+        if (Files.isDirectory(directoryOrManifest)) {
+            try (Stream<Path> files = Files.list(directoryOrManifest)) {
+                return files.filter(path -> path.getFileName()
+                                .toString()
+                                .toLowerCase(Locale.ROOT)
+                                .endsWith(".json"))
+                        .filter(Files::isRegularFile)
+                        .sorted()
+                        .toList();
+            }
+        }
+        Path baseDir = directoryOrManifest.toAbsolutePath().getParent();
+        return Files.readAllLines(directoryOrManifest).stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .map(baseDir::resolve)
+                .toList();
+    }
+
+    public List<BatchResult> run(List<Path> configs) {
+        log.info(
+                "Rendering {} configurations on {} threads with a {} histogram budget",
+                configs.size(),
+                threads,
+                MemoryEstimate.formatBytes(budgetBytes));
+        long startTime = System.nanoTime();
+        iterationNanos.reset();
+        BatchResult[] results = new BatchResult[configs.size()];
+        List<Path> outputs = outputPaths(configs);
+        LongAdder iteratedJobs = new LongAdder();
+        LongAdder iterateBlockedNanos = new LongAdder();
+        List<BatchStage<Job>> stages;
+
+        try (TimedPool pool = new TimedPool(threads);
+                BatchStage<Job> encode = new BatchStage<>("encode", QUEUE_CAPACITY, this::encode, null);
+                BatchStage<Job> toneMap = new BatchStage<>("tone_map", QUEUE_CAPACITY, this::toneMap, encode);
+                BatchStage<Job> merge = new BatchStage<>("merge", QUEUE_CAPACITY, this::merge, toneMap);
+                ExecutorService coordinators = Executors.newVirtualThreadPerTaskExecutor()) {
+            stages = List.of(merge, toneMap, encode);
+            for (int i = 0; i < configs.size(); i++) {
+                Job job = admit(i, configs.get(i), outputs.get(i), results);
+                if (job == null) {
+                    continue;
+                }
+                coordinators.submit(() -> {
+                    if (iterate(job, pool)) {
+                        iteratedJobs.increment();
+                        long readyTime = System.nanoTime();
+                        try {
+                            merge.put(job);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            fail(job, "Interrupted before merging");
+                        }
+                        iterateBlockedNanos.add(System.nanoTime() - readyTime);
+                    }
+                });
+            }
+            // Closing in reverse order drains the pipeline: every stage ends once the one before it has handed over
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch interrupted", e);
+        }
+
+        long wallNanos = System.nanoTime() - startTime;
+        List<BatchResult> resultList = List.of(results);
+        long failed = resultList.stream().filter(result -> !result.succeeded()).count();
+        double seconds = wallNanos / 1e9;
+        log.info(
+                "Batch completed: {} rendered, {} failed in {} s ({} jobs/s)",
+                results.length - failed,
+                failed,
+                Math.round(seconds * 10) / 10.0,
+                Math.round(results.length / seconds * 10) / 10.0);
+        log.info("Histograms: {} allocated, {} reused", histograms.allocatedCount(), histograms.reusedCount());
+
+        List<StageUtilisation> utilisation = new ArrayList<>();
+        utilisation.add(new StageUtilisation(
+                "iterate", threads, iteratedJobs.sum(), iterationNanos.sum(), iterateBlockedNanos.sum(), wallNanos));
+        stages.forEach(stage -> utilisation.add(stage.utilisation(wallNanos)));
+        stageUtilisation = List.copyOf(utilisation);
+        logUtilisation(stageUtilisation);
+        return resultList;
+    }
+
+    /**
+     * Loads a configuration and waits until its histograms fit in the budget and a job slot is free; records the
+     * failure and returns {@code null} when the job cannot run.
+     */
+    private Job admit(int index, Path config, Path output, BatchResult[] results) throws InterruptedException {
+        AppConfiguration configuration;
+        try {
+            configuration = loader.load(config, output);
+        } catch (RuntimeException e) {
+            log.error("Skipping {}: {}", config, e.getMessage());
+            results[index] = BatchResult.failed(config, output, e.getMessage());
+            return null;
+        }
+
+        long bytes = AccumulationStrategy.PER_THREAD_DOUBLE
+                .estimate(
+                        configuration.getSize().width(),
+                        configuration.getSize().height(),
+                        configuration.getThreadQuantity())
+                .heapBytes();
+        if (bytes > budgetBytes) {
+            String error = "Histograms need " + MemoryEstimate.formatBytes(bytes) + ", more than the batch budget of "
+                    + MemoryEstimate.formatBytes(budgetBytes);
+            log.error("Skipping {}: {}", config, error);
+            results[index] = BatchResult.failed(config, output, error);
+            return null;
+        }
+
+        inFlight.acquire();
+        reserve(bytes);
+        return new Job(index, config, configuration, bytes, results);
+    }
+
+    /** Runs the chaos game of a job on the pool; multi-threaded jobs stop short of the merge. */
+    private boolean iterate(Job job, TimedPool pool) {
+        AppConfiguration configuration = job.configuration;
+        configuration.setRandom(new Random(configuration.getSeed()));
+        configuration.setColors();
+        try {
+            job.renderer = new ImageRenderer(configuration, histograms);
+            job.game = new ChaosGame(configuration, job.renderer);
+            job.game.setExecutor(pool);
+            if (configuration.getThreadQuantity() == 1) {
+                await(pool.submit(job.game::runSingleThread));
+            } else {
+                // The workers run on the pool, this virtual thread only waits for them
+                job.workers = job.game.iterate();
+            }
+            return true;
+        } catch (RuntimeException e) {
+            fail(job, String.valueOf(e.getMessage()));
+            return false;
+        }
+    }
+
+    private Job merge(Job job) {
+        try {
+            if (!job.workers.isEmpty()) {
+                job.game.merge(job.workers);
+            }
+            return job;
+        } catch (RuntimeException e) {
+            fail(job, String.valueOf(e.getMessage()));
+            return null;
+        }
+    }
+
+    /** Tone-maps the merged histogram and hands it back, so the next jobs can start while this one encodes. */
+    private Job toneMap(Job job) {
+        try {
+            job.image = job.renderer.toneMap(ToneMapper.DEFAULT);
+            releaseHistograms(job);
+            return job;
+        } catch (RuntimeException e) {
+            fail(job, String.valueOf(e.getMessage()));
+            return null;
+        }
+    }
+
+    private Job encode(Job job) {
+        AppConfiguration configuration = job.configuration;
+        try {
+            job.image.savePng(configuration.getOutputPath(), encoder);
+            job.results[job.index] = new BatchResult(
+                    job.config,
+                    configuration.getOutputPath(),
+                    configuration.getSize().width(),
+                    configuration.getSize().height(),
+                    configuration.getIterationCount(),
+                    configuration.getThreadQuantity(),
+                    System.nanoTime() - job.startTime,
+                    null);
+        } catch (RuntimeException e) {
+            fail(job, String.valueOf(e.getMessage()));
+        }
+        job.image = null;
+        return job;
+    }
+
+    private void fail(Job job, String error) {
+        log.error("Rendering {} failed: {}", job.config, error);
+        job.results[job.index] = BatchResult.failed(job.config, job.configuration.getOutputPath(), error);
+        releaseHistograms(job);
+    }
+
+    /** Returns the job's histograms to the pool and frees its share of the budget, once. */
+    private void releaseHistograms(Job job) {
+        if (job.released) {
+            return;
+        }
+        job.released = true;
+        job.workers.forEach(ImageRenderer::close);
+        job.workers = List.of();
+        if (job.renderer != null) {
+            job.renderer.close();
+        }
+        release(job.reservedBytes);
+        inFlight.release();
+    }
+
+    private static void logUtilisation(List<StageUtilisation> utilisation) {
+        for (StageUtilisation stage : utilisation) {
+            log.info(
+                    "Stage {}: {}% busy on {} thread(s), {} jobs, {} ms blocked on the next stage",
+                    stage.stage(),
+                    Math.round(stage.utilisation() * 1000) / 10.0,
+                    stage.threads(),
+                    stage.jobs(),
+                    stage.blockedNanos() / 1_000_000);
+        }
+        utilisation.stream()
+                .max(Comparator.comparingDouble(StageUtilisation::utilisation))
+                .ifPresent(bottleneck -> log.info("Bottleneck: {}", bottleneck.stage()));
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while rendering", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /** Waits until {@code bytes} fit next to the running jobs, then evicts idle histograms that no longer fit. */
+    private synchronized void reserve(long bytes) throws InterruptedException {
+        while (reservedBytes + bytes > budgetBytes) {
+            wait();
+        }
+        reservedBytes += bytes;
+        long excess = reservedBytes + histograms.idleBytes() - budgetBytes;
+        if (excess > 0) {
+            histograms.evict(excess);
+        }
+    }
+
+    private synchronized void release(long bytes) {
+        reservedBytes -= bytes;
+        notifyAll();
+    }
+
+    /** A configuration on its way through the pipeline. */
+    private static final class Job {
+        final int index;
+        final Path config;
+        final AppConfiguration configuration;
+        final long reservedBytes;
+        final BatchResult[] results;
+        final long startTime = System.nanoTime();
+        ImageRenderer renderer;
+        ChaosGame game;
+        List<ImageRenderer> workers = List.of();
+        ToneMappedImage image;
+        boolean released;
+
+        Job(int index, Path config, AppConfiguration configuration, long reservedBytes, BatchResult[] results) {
+            this.index = index;
+            this.config = config;
+            this.configuration = configuration;
+            this.reservedBytes = reservedBytes;
+            this.results = results;
+        }
+    }
+
+    /** Fixed pool that adds the time its threads spend running tasks to {@link #iterationNanos}. */
+    private final class TimedPool extends ThreadPoolExecutor {
+        private final ThreadLocal<Long> taskStart = new ThreadLocal<>();
+
+        TimedPool(int threads) {
+            super(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            taskStart.set(System.nanoTime());
+        }
+
+        @Override
+        protected void afterExecute(Runnable task, Throwable failure) {
+            iterationNanos.add(System.nanoTime() - taskStart.get());
+        }
+    }
+
+    /** {@code <output dir>/<config name>.png}, numbered when several configurations share a name. */
+    private List<Path> outputPaths(List<Path> configs) {
+        List<Path> outputs = new ArrayList<>(configs.size());
+        Set<String> used = new HashSet<>();
+        for (Path config : configs) {
+            String fileName = config.getFileName().toString();
+            int extensionIndex = fileName.lastIndexOf('.');
+            String stem = extensionIndex > 0 ? fileName.substring(0, extensionIndex) : fileName;
+            String name = stem;
+            for (int suffix = 2; !used.add(name); suffix++) {
+                name = stem + "-" + suffix;
+            }
+            outputs.add(outputDir.resolve(name + ".png"));
+        }
+        return outputs;
+    }
+
+    public static String toCsv(List<BatchResult> results) {
+        StringBuilder csv = new StringBuilder(CSV_HEADER).append('\n');
+        for (BatchResult result : results) {
+            csv.append(String.format(
+                    Locale.ROOT,
+                    "%s,%s,%s,%d,%d,%d,%d,%.1f,%.0f,%s%n",
+                    quote(result.config()),
+                    quote(result.output()),
+                    result.succeeded() ? "ok" : "failed",
+                    result.width(),
+                    result.height(),
+                    result.iterations(),
+                    result.threads(),
+                    result.nanos() / 1e6,
+                    result.iterationsPerSecond(),
+                    quote(result.error())));
+        }
+        return csv.toString();
+    }
+
+    private static String quote(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n")) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -0,0 +1,81 @@
+package academy.application.batch;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.UnaryOperator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One stage of the batch pipeline: a thread that takes jobs from a bounded queue, runs them and puts the ones that
+ * succeed into the queue of the next stage. A full queue blocks the stage before it, so a slow stage holds back the
+ * ones upstream instead of piling up their output.
+ *
+ * <p>Work is timed separately from the wait for the next stage, which tells a busy stage from a blocked one.
+ */
+@Slf4j
+final class BatchStage<T> implements AutoCloseable {
+    private static final Object END = new Object();
+
+    private final String name;
+    private final BlockingQueue<Object> queue;
+    /** Returns the job for the next stage, or {@code null} when it failed and leaves the pipeline. */
+    private final UnaryOperator<T> action;
+
+    private final BatchStage<T> next;
+    private final Thread thread;
+    private long jobs;
+    private long busyNanos;
+    private long blockedNanos;
+
+    /** @param next stage the jobs go on to, {@code null} for the last one */
+    BatchStage(String name, int capacity, UnaryOperator<T> action, BatchStage<T> next) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.action = action;
+        this.next = next;
+        this.thread = Thread.ofPlatform().name("batch-" + name).start(this::runJobs);
+    }
+
+    /** Queues a job, waiting while the stage is {@code capacity} jobs behind. */
+    void put(T job) throws InterruptedException {
+        queue.put(job);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runJobs() {
+        try {
+            for (Object item = queue.take(); item != END; item = queue.take()) {
+                long startTime = System.nanoTime();
+                T result;
+                try {
+                    result = action.apply((T) item);
+                } catch (RuntimeException e) {
+                    log.error("Batch stage {} failed: {}", name, e.getMessage(), e);
+                    result = null;
+                }
+                long doneTime = System.nanoTime();
+                busyNanos += doneTime - startTime;
+                jobs++;
+                if (result != null && next != null) {
+                    next.put(result);
+                    blockedNanos += System.nanoTime() - doneTime;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Batch stage {} interrupted", name);
+        }
+    }
+
+    /** Lets the stage finish the queued jobs and waits for its thread. */
+    @Override
+    public void close() throws InterruptedException {
+        queue.put(END);
+        thread.join();
+    }
+
+    /** Counters of the stage; only meaningful after {@link #close()}. */
+    StageUtilisation utilisation(long wallNanos) {
+        return new StageUtilisation(name, 1, jobs, busyNanos, blockedNanos, wallNanos);
+    }
+}
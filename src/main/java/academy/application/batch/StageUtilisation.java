@@ -0,0 +1,18 @@
+package academy.application.batch;
+
+/**
+ * How much of a batch one pipeline stage spent working.
+ *
+ * @param threads threads the stage runs on
+ * @param busyNanos time spent running jobs, summed over the threads
+ * @param blockedNanos time spent waiting for room in the queue of the next stage
+ * @param wallNanos duration of the whole batch
+ */
+public record StageUtilisation(
+        String stage, int threads, long jobs, long busyNanos, long blockedNanos, long wallNanos) {
+
+    /** Fraction of the batch the stage's threads were busy; the stage closest to 1 is the bottleneck. */
+    public double utilisation() {
+        return wallNanos == 0 ? 0 : busyNanos / ((double) threads * wallNanos);
+    }
+}
@@ -0,0 +1,18 @@
+package academy.application.bench;
+
+/**
+ * Measurements of one render at a fixed thread count.
+ *
+ * @param speedup throughput relative to the single-threaded run
+ * @param efficiency {@code speedup / threads}, {@code 1.0} is perfect scaling
+ * @param peakHeapBytes peak heap usage during the run, summed over the heap memory pools
+ */
+public record ScalingResult(
+        int threads,
+        long iterations,
+        double millis,
+        double iterationsPerSecond,
+        double speedup,
+        double efficiency,
+        double mergeMillis,
+        long peakHeapBytes) {}
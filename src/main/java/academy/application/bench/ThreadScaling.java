@@ -0,0 +1,158 @@
+package academy.application.bench;
+
+import academy.application.algorithm.ChaosGame;
+import academy.application.render.ImageRenderer;
+import academy.domain.AppConfiguration;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Renders one configuration at increasing thread counts to find where scaling stops. Images are accumulated but not
+ * written; the best of {@code runs} measured renders is kept per thread count.
+ */
+@Slf4j
+public class ThreadScaling {
+    private static final String CSV_HEADER =
+            "threads,iterations,millis,iterations_per_second,speedup,efficiency,merge_millis,peak_heap_mb";
+
+    private final AppConfiguration configuration;
+    private final int warmupRuns;
+    private final int runs;
+
+    public ThreadScaling(AppConfiguration configuration, int warmupRuns, int runs) {
+        this.configuration = configuration;
+        this.warmupRuns = warmupRuns;
+        this.runs = runs;
+    }
+
+    public List<ScalingResult> run(List<Integer> threadCounts) {
+        log.info(
+                "Measuring thread scaling for {} iterations at {}x{}, thread counts {}",
+                configuration.getIterationCount(),
+                configuration.getSize().width(),
+                configuration.getSize().height(),
+                threadCounts);
+
+        for (int i = 0; i < warmupRuns; i++) {
+            render(threadCounts.getFirst());
+        }
+
+        List<ScalingResult> results = new ArrayList<>();
+        double baselineThroughput = 0;
+        for (int threads : threadCounts) {
+            Measurement best = null;
+            for (int i = 0; i < runs; i++) {
+                Measurement measurement = render(threads);
+                if (best == null || measurement.nanos() < best.nanos()) {
+                    best = measurement;
+                }
+            }
+
+            double millis = best.nanos() / 1e6;
+            double throughput = configuration.getIterationCount() * 1e9 / best.nanos();
+            if (results.isEmpty()) {
+                // Speedup is relative to the first entry, normalized to one thread
+                baselineThroughput = throughput / threads;
+            }
+            double speedup = throughput / baselineThroughput;
+            ScalingResult result = new ScalingResult(
+                    threads,
+                    configuration.getIterationCount(),
+                    millis,
+                    throughput,
+                    speedup,
+                    speedup / threads,
+                    best.mergeNanos() / 1e6,
+                    best.peakHeapBytes());
+            log.info(
+                    "{} threads: {} it/s, speedup {}",
+                    threads,
+                    String.format("%.0f", throughput),
+                    String.format("%.2f", speedup));
+            results.add(result);
+        }
+        return results;
+    }
+
+    private Measurement render(int threads) {
+        AppConfiguration runConfiguration =
+                configuration.toBuilder().threadQuantity(threads).build();
+        runConfiguration.setRandom(new Random(runConfiguration.getSeed()));
+        runConfiguration.setColors();
+
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long startTime = System.nanoTime();
+        ImageRenderer renderer = new ImageRenderer(runConfiguration);
+        ChaosGame game = new ChaosGame(runConfiguration, renderer);
+        if (threads == 1) {
+            game.runSingleThread();
+        } else {
+            game.runMultiThread();
+        }
+        long nanos = System.nanoTime() - startTime;
+
+        long peakHeap = heapPools.stream()
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+        return new Measurement(nanos, game.getMergeNanos(), peakHeap);
+    }
+
+    public static String toTable(List<ScalingResult> results) {
+        StringBuilder table = new StringBuilder(String.format(
+                Locale.ROOT,
+                "%7s %12s %10s %14s %8s %10s %10s %10s%n",
+                "threads",
+                "iterations",
+                "time ms",
+                "it/s",
+                "speedup",
+                "efficiency",
+                "merge ms",
+                "peak MB"));
+        for (ScalingResult result : results) {
+            table.append(String.format(
+                    Locale.ROOT,
+                    "%7d %12d %10.1f %14.0f %8.2f %9.0f%% %10.1f %10d%n",
+                    result.threads(),
+                    result.iterations(),
+                    result.millis(),
+                    result.iterationsPerSecond(),
+                    result.speedup(),
+                    result.efficiency() * 100,
+                    result.mergeMillis(),
+                    result.peakHeapBytes() >> 20));
+        }
+        return table.toString();
+    }
+
+    public static String toCsv(List<ScalingResult> results) {
+        StringBuilder csv = new StringBuilder(CSV_HEADER).append('\n');
+        for (ScalingResult result : results) {
+            csv.append(String.format(
+                    Locale.ROOT,
+                    "%d,%d,%.3f,%.1f,%.4f,%.4f,%.3f,%d\n",
+                    result.threads(),
+                    result.iterations(),
+                    result.millis(),
+                    result.iterationsPerSecond(),
+                    result.speedup(),
+                    result.efficiency(),
+                    result.mergeMillis(),
+                    result.peakHeapBytes() >> 20));
+        }
+        return csv.toString();
+    }
+
+    private record Measurement(long nanos, long mergeNanos, long peakHeapBytes) {}
+}
@@ -0,0 +1,220 @@
+package academy.application.cache;
+
+import academy.application.render.HistogramFile;
+import academy.application.render.HistogramHeader;
+import academy.application.render.ImageRenderer;
+import academy.application.render.histogram.MemoryEstimate;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Content-addressed store of finished renders on disk, keyed by {@link RenderKey}:
+ *
+ * <pre>
+ * histograms/&lt;key&gt;/&lt;iterations&gt;.fhist   histogram holding that many iterations
+ * images/&lt;image key&gt;.&lt;format&gt;           image written from one of them
+ * </pre>
+ *
+ * <p>An in-memory Caffeine index of the files sits in front of the directory, weighted by file size: once the entries
+ * outgrow the size limit the index evicts the least valuable ones and their files are deleted. The index is rebuilt
+ * from the directory when the cache is opened, oldest files first. Files are written next to their final name and moved
+ * into place, so processes sharing a cache directory never read a partial entry.
+ */
+@Slf4j
+public class RenderCache {
+    private static final String HISTOGRAMS = "histograms";
+    private static final String IMAGES = "images";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    /** Relative path of every entry to its size in bytes. */
+    private final Cache<Path, Long> index;
+
+    /** A cached histogram and the iterations it holds. */
+    public record CachedHistogram(Path path, long iterations) {}
+
+    private RenderCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.index = Caffeine.newBuilder()
+                .maximumWeight(Math.max(1, maxBytes >> 10))
+                .weigher((Path path, Long bytes) -> (int) Math.min(Integer.MAX_VALUE, (bytes + 1023) >> 10))
+                .removalListener(this::onRemoval)
+                // Evict on the writing thread, so the directory is back under the limit when a store returns
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /** Opens or creates the cache in {@code directory}, keeping at most about {@code maxBytes} of entries. */
+    public static RenderCache open(Path directory, long maxBytes) {
+        RenderCache cache = new RenderCache(directory, maxBytes);
+        try {
+            Files.createDirectories(directory.resolve(HISTOGRAMS));
+            Files.createDirectories(directory.resolve(IMAGES));
+            cache.loadIndex();
+        } catch (IOException e) {
+            log.error("Cannot open render cache {}: {}", directory, e.getMessage());
+            throw new RuntimeException("Cannot open render cache: " + e.getMessage(), e);
+        }
+        return cache;
+    }
+
+    private void loadIndex() throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+        record Entry(Path path, long bytes, FileTime modified) {}
+        Stream<Entry> entries = files.stream().flatMap(file -> {
+            try {
+                if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                    // Left behind by a process that died mid-write
+                    Files.deleteIfExists(file);
+                    return Stream.empty();
+                }
+                return Stream.of(new Entry(file, Files.size(file), Files.getLastModifiedTime(file)));
+            } catch (IOException e) {
+                log.warn("Skipping unreadable cache file {}: {}", file, e.getMessage());
+                return Stream.empty();
+            }
+        });
+        entries.sorted(Comparator.comparing(Entry::modified))
+                .forEach(entry -> index.put(directory.relativize(entry.path()), entry.bytes()));
+        log.info(
+                "Render cache {}: {} entries, {}",
+                directory,
+                index.estimatedSize(),
+                MemoryEstimate.formatBytes(sizeBytes()));
+    }
+
+    /** Cached image for {@code imageKey} in the format of {@code extension} (such as {@code .png}). */
+    public Optional<Path> findImage(RenderKey imageKey, String extension) {
+        return find(Path.of(IMAGES, imageKey.hash() + extension));
+    }
+
+    /** Copies {@code image} into the cache under {@code imageKey}, keeping its extension. */
+    public void storeImage(RenderKey imageKey, Path image, String extension) {
+        store(
+                Path.of(IMAGES, imageKey.hash() + extension),
+                target -> Files.copy(image, target, StandardCopyOption.REPLACE_EXISTING));
+    }
+
+    /**
+     * The cached histogram of {@code key} holding the most iterations, but no more than {@code maxIterations}: the
+     * exact render when it holds that many, one to refine otherwise.
+     */
+    public Optional<CachedHistogram> findHistogram(RenderKey key, long maxIterations) {
+        Path keyDirectory = Path.of(HISTOGRAMS, key.hash());
+        Optional<CachedHistogram> best = index.asMap().keySet().stream()
+                .filter(path -> keyDirectory.equals(path.getParent()))
+                .map(path -> new CachedHistogram(path, iterations(path)))
+                .filter(candidate -> candidate.iterations() > 0 && candidate.iterations() <= maxIterations)
+                .max(Comparator.comparingLong(CachedHistogram::iterations));
+        return best.flatMap(
+                candidate -> find(candidate.path()).map(path -> new CachedHistogram(path, candidate.iterations())));
+    }
+
+    /** Writes the histogram of {@code renderer} into the cache under {@code key} and its header's iteration count. */
+    public void storeHistogram(RenderKey key, ImageRenderer renderer, HistogramHeader header) {
+        store(
+                Path.of(HISTOGRAMS, key.hash(), header.iterations() + HistogramFile.EXTENSION),
+                target -> HistogramFile.write(target, renderer, header));
+    }
+
+    /** Total size of the entries. */
+    public long sizeBytes() {
+        return index.asMap().values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public long entryCount() {
+        return index.estimatedSize();
+    }
+
+    private Optional<Path> find(Path relative) {
+        if (index.getIfPresent(relative) == null) {
+            return Optional.empty();
+        }
+        Path path = directory.resolve(relative);
+        if (!Files.isRegularFile(path)) {
+            log.warn("Cached file {} disappeared, dropping it from the index", path);
+            index.invalidate(relative);
+            return Optional.empty();
+        }
+        log.info("Render cache hit: {}", relative);
+        return Optional.of(path);
+    }
+
+    private void store(Path relative, FileWriter writer) {
+        Path target = directory.resolve(relative);
+        Path temp = null;
+        try {
+            Files.createDirectories(target.getParent());
+            temp = Files.createTempFile(target.getParent(), target.getFileName() + ".", TEMP_SUFFIX);
+            writer.write(temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            index.put(relative, Files.size(target));
+            log.info("Stored {} in the render cache", relative);
+        } catch (IOException | RuntimeException e) {
+            // A render that cannot be cached is still a successful render
+            log.warn("Cannot store {} in the render cache: {}", relative, e.getMessage());
+            try {
+                if (temp != null) {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException ignored) {
+                // Swept up the next time the cache is opened
+            }
+        }
+    }
+
+    private void onRemoval(Path relative, Long bytes, RemovalCause cause) {
+        if (relative == null || !cause.wasEvicted()) {
+            return;
+        }
+        Path path = directory.resolve(relative);
+        try {
+            Files.deleteIfExists(path);
+            log.info("Evicted {} ({}) from the render cache", relative, MemoryEstimate.formatBytes(bytes));
+            Path parent = path.getParent();
+            if (relative.startsWith(HISTOGRAMS) && isEmptyDirectory(parent)) {
+                Files.deleteIfExists(parent);
+            }
+        } catch (IOException e) {
+            log.warn("Cannot delete evicted cache file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static boolean isEmptyDirectory(Path directory) throws IOException {
+        try (Stream<Path> children = Files.list(directory)) {
+            return children.findAny().isEmpty();
+        }
+    }
+
+    /** {@code <iterations>.fhist}, or {@code -1} for anything else. */
+    private static long iterations(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.endsWith(HistogramFile.EXTENSION)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(0, name.length() - HistogramFile.EXTENSION.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @FunctionalInterface
+    private interface FileWriter {
+        void write(Path target) throws IOException;
+    }
+}
@@ -0,0 +1,151 @@
+package academy.application.cache;
+
+import academy.application.render.DensityEstimation;
+import academy.application.render.histogram.AccumulationStrategy;
+import academy.domain.AffineParams;
+import academy.domain.AppConfiguration;
+import academy.domain.VariationParams;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Content address of a render: the SHA-256 of a canonical JSON form of everything that shapes its histogram. Keys are
+ * sorted and numbers written in their shortest plain form ({@code 0.50} and {@code 5e-1} are both {@code 0.5},
+ * {@code -0.0} is {@code 0}), so equal configurations hash equally however they were written.
+ *
+ * <p>The iteration count is not part of the key: histograms of the same key differ only in how many iterations they
+ * hold, so a smaller one can be refined into a larger one. The output path never is, and the thread count is, since it
+ * decides how the iterations are split between random streams. So is the precision of the accumulation strategy:
+ * {@code float} worker histograms round the sums differently from {@code double} ones.
+ *
+ * <p>{@link #content} leaves the thread count and the precision out: it fingerprints the picture a histogram holds,
+ * which a resumed render may refine with any number of threads and any strategy.
+ */
+public record RenderKey(String hash) {
+    /** Bumped whenever the chaos game or the histogram layout changes, so stale entries stop matching. */
+    static final int VERSION = 2;
+
+    private static final ObjectMapper MAPPER =
+            new ObjectMapper().enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN);
+
+    /**
+     * Key of the histogram {@code configuration} accumulates at {@code oversample} cells per pixel with
+     * {@code strategy}.
+     */
+    public static RenderKey of(AppConfiguration configuration, int oversample, AccumulationStrategy strategy) {
+        return new RenderKey(sha256(canonical(configuration, oversample, strategy)));
+    }
+
+    /** Key of what the histogram of {@code configuration} shows, whatever the threads and strategy that rendered it. */
+    public static RenderKey content(AppConfiguration configuration, int oversample) {
+        Map<String, Object> canonical = canonicalMap(configuration, oversample);
+        canonical.remove("threads");
+        return new RenderKey(sha256(write(canonical)));
+    }
+
+    /**
+     * Key of the image written from a histogram of this key holding {@code iterations} iterations.
+     *
+     * @param densityEstimation {@code null} when the image is written without it
+     * @param extension output file extension, which picks the format
+     */
+    public RenderKey image(
+            long iterations,
+            String filter,
+            DensityEstimation densityEstimation,
+            int pngBitDepth,
+            int pngCompression,
+            String extension) {
+        Map<String, Object> image = new TreeMap<>();
+        image.put("histogram", hash);
+        image.put("iterations", iterations);
+        image.put("filter", filter);
+        if (densityEstimation != null) {
+            image.put(
+                    "density_estimation",
+                    List.of(
+                            number(densityEstimation.maxRadius()),
+                            number(densityEstimation.minRadius()),
+                            number(densityEstimation.curve())));
+        }
+        image.put("png_bit_depth", pngBitDepth);
+        image.put("png_compression", pngCompression);
+        image.put("format", extension);
+        return new RenderKey(sha256(write(image)));
+    }
+
+    static String canonical(AppConfiguration configuration, int oversample, AccumulationStrategy strategy) {
+        Map<String, Object> canonical = canonicalMap(configuration, oversample);
+        canonical.put("precision", strategy.precision(configuration.getThreadQuantity()));
+        return write(canonical);
+    }
+
+    private static Map<String, Object> canonicalMap(AppConfiguration configuration, int oversample) {
+        Map<String, Object> canonical = new TreeMap<>();
+        canonical.put("version", VERSION);
+        canonical.put(
+                "size",
+                List.of(configuration.getSize().width(), configuration.getSize().height()));
+        canonical.put("oversample", oversample);
+        canonical.put("seed", configuration.getSeed());
+        canonical.put("threads", configuration.getThreadQuantity());
+        canonical.put(
+                "affine_params",
+                configuration.getAffineParamsList().stream()
+                        .map(RenderKey::affine)
+                        .toList());
+        canonical.put(
+                "functions",
+                configuration.getVariationsParamsList().stream()
+                        .map(RenderKey::variation)
+                        .toList());
+        return canonical;
+    }
+
+    private static List<BigDecimal> affine(AffineParams params) {
+        return List.of(
+                number(params.getA()),
+                number(params.getB()),
+                number(params.getC()),
+                number(params.getD()),
+                number(params.getE()),
+                number(params.getF()));
+    }
+
+    private static List<Object> variation(VariationParams params) {
+        return List.of(params.variation().name(), number(params.weight()));
+    }
+
+    private static BigDecimal number(double value) {
+        if (value == 0) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(value).stripTrailingZeros();
+    }
+
+    private static String write(Map<String, Object> canonical) {
+        try {
+            return MAPPER.writeValueAsString(canonical);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize render key: " + e.getMessage(), e);
+        }
+    }
+
+    private static String sha256(String canonical) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package academy.application.daemon;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One line of a daemon answer. {@code event} tells which fields are set:
+ *
+ * <ul>
+ *   <li>{@code queued}: the job waits for another render to finish;
+ *   <li>{@code progress}: {@code completed} of {@code total} iterations are done;
+ *   <li>{@code done}: the image is at {@code outputPath} (if one was requested) after {@code millis}, and {@code bytes}
+ *       bytes of PNG follow when they were asked for;
+ *   <li>{@code error}: the job failed with {@code message}.
+ * </ul>
+ */
+public record DaemonMessage(
+        String event,
+        Long completed,
+        Long total,
+        @JsonProperty("output_path") String outputPath,
+        Long millis,
+        Long bytes,
+        String message) {
+    public static final String QUEUED = "queued";
+    public static final String PROGRESS = "progress";
+    public static final String DONE = "done";
+    public static final String ERROR = "error";
+
+    static DaemonMessage queued() {
+        return new DaemonMessage(QUEUED, null, null, null, null, null, null);
+    }
+
+    static DaemonMessage progress(long completed, long total) {
+        return new DaemonMessage(PROGRESS, completed, total, null, null, null, null);
+    }
+
+    static DaemonMessage done(String outputPath, long millis, long bytes) {
+        return new DaemonMessage(DONE, null, null, outputPath, millis, bytes, null);
+    }
+
+    static DaemonMessage error(String message) {
+        return new DaemonMessage(ERROR, null, null, null, null, null, message);
+    }
+}
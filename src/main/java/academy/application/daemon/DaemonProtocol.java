@@ -0,0 +1,53 @@
+package academy.application.daemon;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Wire format between {@link RenderDaemon} and {@link RenderClient}: one JSON object per line in both directions. The
+ * client sends a {@link DaemonRequest}, the daemon answers with {@link DaemonMessage}s, and a {@code done} message with
+ * a positive {@code bytes} count is followed by that many bytes of PNG data.
+ */
+@UtilityClass
+class DaemonProtocol {
+    /** Longest line either side accepts, far above any configuration. */
+    static final int MAX_LINE_BYTES = 1 << 20;
+
+    static final ObjectMapper MAPPER = new ObjectMapper()
+            .findAndRegisterModules()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    static void write(OutputStream output, Object message) throws IOException {
+        output.write(MAPPER.writeValueAsBytes(message));
+        output.write('\n');
+        output.flush();
+    }
+
+    static <T> T read(InputStream input, Class<T> type) throws IOException {
+        return MAPPER.readValue(readLine(input), type);
+    }
+
+    /** Reads up to the next newline without buffering past it, so binary data after the line stays in the stream. */
+    static String readLine(InputStream input) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (int b = input.read(); b != '\n'; b = input.read()) {
+            if (b < 0) {
+                throw new EOFException("Connection closed in the middle of a message");
+            }
+            if (line.size() == MAX_LINE_BYTES) {
+                throw new IOException("Message longer than " + MAX_LINE_BYTES + " bytes");
+            }
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+}
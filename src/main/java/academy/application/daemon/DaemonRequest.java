@@ -0,0 +1,17 @@
+package academy.application.daemon;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * One render job for the daemon.
+ *
+ * @param config the render configuration, in the format of a {@code --config} file
+ * @param outputPath where the daemon writes the image, absolute since the daemon has its own working directory;
+ *     {@code null} to only return the image bytes
+ * @param returnImage whether the PNG bytes are sent back after the {@code done} message
+ */
+public record DaemonRequest(
+        JsonNode config,
+        @JsonProperty("output_path") String outputPath,
+        @JsonProperty("return_image") boolean returnImage) {}
@@ -0,0 +1,66 @@
+package academy.application.daemon;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+
+/** Client side of the {@link RenderDaemon} protocol. */
+@Slf4j
+@UtilityClass
+public class RenderClient {
+
+    /**
+     * What the daemon answered.
+     *
+     * @param outputPath where the daemon wrote the image, {@code null} if only the bytes were asked for
+     * @param image the PNG bytes if they were asked for, {@code null} otherwise
+     */
+    public record Result(Path outputPath, long millis, byte[] image) {}
+
+    /**
+     * Sends one job and waits for its result.
+     *
+     * @param config the render configuration, in the format of a {@code --config} file
+     * @param outputPath where the daemon writes the image, {@code null} to only receive the bytes
+     * @param progress receives the {@code queued} and {@code progress} messages
+     * @throws IOException if the daemon cannot be reached or the job failed, with the daemon's message
+     */
+    public static Result render(
+            Path socketPath, JsonNode config, Path outputPath, boolean returnImage, Consumer<DaemonMessage> progress)
+            throws IOException {
+        String absoluteOutput = outputPath == null
+                ? null
+                : outputPath.toAbsolutePath().normalize().toString();
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+                InputStream input = Channels.newInputStream(channel);
+                OutputStream output = Channels.newOutputStream(channel)) {
+            DaemonProtocol.write(output, new DaemonRequest(config, absoluteOutput, returnImage));
+            while (true) {
+                DaemonMessage message = DaemonProtocol.read(input, DaemonMessage.class);
+                switch (message.event()) {
+                    case DaemonMessage.DONE -> {
+                        byte[] image = message.bytes() > 0 ? input.readNBytes(Math.toIntExact(message.bytes())) : null;
+                        if (image != null && image.length != message.bytes()) {
+                            throw new IOException("Connection closed after " + image.length + " of " + message.bytes()
+                                    + " image bytes");
+                        }
+                        return new Result(
+                                message.outputPath() == null ? null : Path.of(message.outputPath()),
+                                message.millis(),
+                                image);
+                    }
+                    case DaemonMessage.ERROR -> throw new IOException("Render failed: " + message.message());
+                    default -> progress.accept(message);
+                }
+            }
+        }
+    }
+}
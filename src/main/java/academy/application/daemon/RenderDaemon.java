@@ -0,0 +1,379 @@
+package academy.application.daemon;
+
+import academy.application.algorithm.ChaosGame;
+import academy.application.metrics.RenderProgress;
+import academy.application.render.ImageRenderer;
+import academy.application.render.ToneMapper;
+import academy.application.render.histogram.MemoryEstimate;
+import academy.application.render.histogram.MemoryLimits;
+import academy.application.render.histogram.MemoryPlan;
+import academy.application.render.histogram.MemoryPlanner;
+import academy.domain.AffineParams;
+import academy.domain.AppConfiguration;
+import academy.domain.Size;
+import academy.domain.Variation;
+import academy.domain.VariationParams;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Long-lived render server on a Unix domain socket, so repeated small renders skip the JVM startup and the JIT warmup
+ * of the chaos game. The daemon warms the engine up with a render of its own before it accepts connections, then serves
+ * every connection on a virtual thread: it reads one {@link DaemonRequest}, streams {@code progress} messages while the
+ * job renders and ends with {@code done} or {@code error}, see {@link DaemonProtocol}.
+ *
+ * <p>The workers of every job run on one pool that lives as long as the daemon, and at most {@code maxJobs} jobs render
+ * at a time; the others are told they are {@code queued} and wait. Jobs whose histograms do not fit in the memory
+ * budget are refused up front, and a job only starts once its histograms fit next to those of the running ones.
+ */
+@Slf4j
+public class RenderDaemon implements AutoCloseable {
+    /** Socket the daemon and its clients use unless told otherwise. */
+    public static final Path DEFAULT_SOCKET = Path.of(System.getProperty("java.io.tmpdir"), "fractal-flame.sock");
+
+    private static final long PROGRESS_INTERVAL_MILLIS = 200;
+    private static final int WARMUP_SIZE = 256;
+
+    private final Path socketPath;
+    private final int threads;
+    private final long warmupIterations;
+    private final JobLoader loader;
+    private final Semaphore renders;
+    private final MemoryLimits memoryBudget;
+    private final ExecutorService pool;
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+    private ServerSocketChannel server;
+    /** Memory the histograms of the running jobs were planned to take; guarded by this daemon. */
+    private long reservedHeapBytes;
+
+    private long reservedOffHeapBytes;
+
+    /**
+     * Turns the configuration of a request into a validated one writing to {@code outputPath}; any runtime exception
+     * fails the job with its message.
+     */
+    @FunctionalInterface
+    public interface JobLoader {
+        AppConfiguration load(JsonNode config, Path outputPath);
+    }
+
+    /**
+     * @param threads size of the worker pool the jobs share
+     * @param maxJobs jobs rendering at the same time
+     * @param warmupIterations iterations of the warmup render, {@code 0} to skip it
+     * @param memoryBudget heap and off-heap memory the histograms of the running jobs may take together, and the disk
+     *     space a mapped histogram may take
+     */
+    public RenderDaemon(
+            Path socketPath,
+            int threads,
+            int maxJobs,
+            long warmupIterations,
+            MemoryLimits memoryBudget,
+            JobLoader loader) {
+        this.socketPath = socketPath;
+        this.threads = threads;
+        this.warmupIterations = warmupIterations;
+        this.loader = loader;
+        this.renders = new Semaphore(maxJobs, true);
+        this.memoryBudget = memoryBudget;
+        this.pool = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Warms the engine up and binds the socket, replacing a stale socket file left by a daemon that is gone.
+     *
+     * @throws IllegalStateException if another daemon is listening on the socket
+     */
+    public void start() throws IOException {
+        if (Files.exists(socketPath)) {
+            if (isListening(socketPath)) {
+                throw new IllegalStateException("A render daemon is already listening on " + socketPath);
+            }
+            log.info("Removing stale socket {}", socketPath);
+            Files.delete(socketPath);
+        }
+        warmUp();
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketPath));
+        log.info("Render daemon listening on {} with {} worker threads", socketPath, threads);
+    }
+
+    /** Accepts connections until {@link #close()} is called. */
+    public void serve() throws IOException {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (ClosedChannelException e) {
+                return;
+            }
+            connections.submit(() -> handle(channel));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (server != null) {
+            server.close();
+            Files.deleteIfExists(socketPath);
+        }
+        connections.shutdown();
+        pool.shutdown();
+        log.info("Render daemon stopped");
+    }
+
+    private void handle(SocketChannel channel) {
+        try (channel;
+                InputStream input = Channels.newInputStream(channel);
+                OutputStream output = Channels.newOutputStream(channel)) {
+            DaemonRequest request;
+            try {
+                request = DaemonProtocol.read(input, DaemonRequest.class);
+            } catch (IOException e) {
+                DaemonProtocol.write(output, DaemonMessage.error("Malformed request: " + e.getMessage()));
+                return;
+            }
+            render(request, output);
+        } catch (IOException e) {
+            log.warn("Client connection failed: {}", e.getMessage());
+        }
+    }
+
+    private void render(DaemonRequest request, OutputStream output) throws IOException {
+        if (request.outputPath() == null && !request.returnImage()) {
+            DaemonProtocol.write(output, DaemonMessage.error("Request neither an output path nor the image"));
+            return;
+        }
+        Path outputPath = request.outputPath() == null ? ImageRenderer.STDOUT : Path.of(request.outputPath());
+        if (!outputPath.isAbsolute() && !ImageRenderer.STDOUT.equals(outputPath)) {
+            DaemonProtocol.write(output, DaemonMessage.error("Output path must be absolute, got: " + outputPath));
+            return;
+        }
+
+        AppConfiguration configuration;
+        MemoryPlan plan;
+        try {
+            configuration = loader.load(request.config(), outputPath);
+            plan = planMemory(configuration);
+        } catch (RuntimeException e) {
+            log.warn("Rejecting job: {}", e.getMessage());
+            DaemonProtocol.write(output, DaemonMessage.error(e.getMessage()));
+            return;
+        }
+
+        if (!renders.tryAcquire()) {
+            DaemonProtocol.write(output, DaemonMessage.queued());
+            renders.acquireUninterruptibly();
+        }
+        reserve(plan.estimate());
+        try {
+            long startTime = System.nanoTime();
+            Job job = new Job(configuration, plan, request.returnImage());
+            // A single-threaded game runs on the pool itself, a multi-threaded one is only waited for
+            Future<byte[]> result =
+                    configuration.getThreadQuantity() == 1 ? pool.submit(job::run) : connections.submit(job::run);
+            byte[] image;
+            try {
+                image = awaitWithProgress(result, job, output);
+            } catch (IOException e) {
+                // The client is gone; a job that outlived its permit would render past the job limit
+                abandon(job, result);
+                throw e;
+            }
+            long millis = (System.nanoTime() - startTime) / 1_000_000;
+            String writtenPath = ImageRenderer.STDOUT.equals(outputPath) ? null : outputPath.toString();
+            DaemonProtocol.write(output, DaemonMessage.done(writtenPath, millis, image == null ? 0 : image.length));
+            if (image != null) {
+                output.write(image);
+                output.flush();
+            }
+            log.info("Job for {} done in {} ms", writtenPath == null ? "the client" : writtenPath, millis);
+        } catch (ExecutionException e) {
+            log.error("Job failed: {}", e.getCause().getMessage());
+            DaemonProtocol.write(
+                    output, DaemonMessage.error(String.valueOf(e.getCause().getMessage())));
+        } finally {
+            release(plan.estimate());
+            renders.release();
+        }
+    }
+
+    /** Waits for the job, sending its progress to the client while the chaos game runs. */
+    private static byte[] awaitWithProgress(Future<byte[]> result, Job job, OutputStream output)
+            throws IOException, ExecutionException {
+        while (true) {
+            try {
+                return result.get(PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                RenderProgress progress = job.game.getProgress();
+                if (progress != null) {
+                    DaemonProtocol.write(
+                            output,
+                            DaemonMessage.progress(progress.getCompletedIterations(), progress.getTotalIterations()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while rendering", e);
+            }
+        }
+    }
+
+    /** Cancels a job nobody waits for any more and waits until its workers have let go of the pool. */
+    private static void abandon(Job job, Future<byte[]> result) {
+        log.warn("Client left, cancelling its job");
+        job.game.cancel();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                result.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException | CancellationException e) {
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Plans the job against the whole budget, so it is refused only if it cannot run even alone. */
+    private MemoryPlan planMemory(AppConfiguration configuration) {
+        Path parent = configuration.getOutputPath().toAbsolutePath().getParent();
+        Path tempDirectory = parent != null && Files.isDirectory(parent) ? parent : Path.of(".");
+        MemoryLimits current = MemoryLimits.current(0, tempDirectory);
+        return MemoryPlanner.plan(
+                configuration.getSize().width(),
+                configuration.getSize().height(),
+                configuration.getThreadQuantity(),
+                configuration.getIterationCount(),
+                new MemoryLimits(
+                        memoryBudget.heapBytes(),
+                        memoryBudget.offHeapBytes(),
+                        Math.min(memoryBudget.diskBytes(), current.diskBytes()),
+                        tempDirectory),
+                null);
+    }
+
+    /** Waits until the histograms of a job fit next to those of the running jobs. */
+    private synchronized void reserve(MemoryEstimate estimate) {
+        boolean interrupted = false;
+        while (reservedHeapBytes + estimate.heapBytes() > memoryBudget.heapBytes()
+                || reservedOffHeapBytes + estimate.offHeapBytes() > memoryBudget.offHeapBytes()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        reservedHeapBytes += estimate.heapBytes();
+        reservedOffHeapBytes += estimate.offHeapBytes();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void release(MemoryEstimate estimate) {
+        reservedHeapBytes -= estimate.heapBytes();
+        reservedOffHeapBytes -= estimate.offHeapBytes();
+        notifyAll();
+    }
+
+    /** Renders a configuration exercising every variation, so the first real job runs compiled code. */
+    private void warmUp() throws IOException {
+        if (warmupIterations == 0) {
+            return;
+        }
+        log.info("Warming up the render engine with {} iterations", warmupIterations);
+        long startTime = System.nanoTime();
+        List<VariationParams> variations = Arrays.stream(Variation.values())
+                .map(variation -> new VariationParams(variation, 1.0 / Variation.values().length))
+                .toList();
+        AppConfiguration configuration = AppConfiguration.builder()
+                .size(new Size(WARMUP_SIZE, WARMUP_SIZE))
+                .seed(1L)
+                .iterationCount((int) warmupIterations)
+                .threadQuantity(threads)
+                .outputPath(ImageRenderer.STDOUT)
+                .affineParamsList(AffineParams.sierpinskiTriangle())
+                .variationsParamsList(variations)
+                .build();
+        new Job(configuration, null, true).run();
+        log.info("Warmup completed in {} ms", (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    private static boolean isListening(Path socketPath) {
+        try (SocketChannel probe = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            return probe.isConnected();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** One render on the shared pool; the game is exposed so its progress can be read while it runs. */
+    private final class Job {
+        private final AppConfiguration configuration;
+        private final ImageRenderer renderer;
+        private final ChaosGame game;
+        private final boolean returnImage;
+
+        /** @param plan memory plan of the job, {@code null} for the default per-thread histograms */
+        Job(AppConfiguration configuration, MemoryPlan plan, boolean returnImage) {
+            this.configuration = configuration;
+            this.renderer = plan == null
+                    ? new ImageRenderer(configuration)
+                    : new ImageRenderer(
+                            configuration, plan.strategy(), plan.limits().tempDirectory());
+            this.game = new ChaosGame(configuration, renderer);
+            this.returnImage = returnImage;
+            game.setExecutor(pool);
+        }
+
+        /** @return the PNG bytes when they were asked for, {@code null} otherwise */
+        byte[] run() throws IOException {
+            try (renderer) {
+                configuration.setRandom(new Random(configuration.getSeed()));
+                configuration.setColors();
+                if (configuration.getThreadQuantity() == 1) {
+                    game.runSingleThread();
+                } else {
+                    game.runMultiThread();
+                }
+
+                Path outputPath = configuration.getOutputPath();
+                if (ImageRenderer.STDOUT.equals(outputPath)) {
+                    ByteArrayOutputStream image = new ByteArrayOutputStream();
+                    renderer.writePng(Channels.newChannel(image), ToneMapper.DEFAULT);
+                    return image.toByteArray();
+                }
+                renderer.save(outputPath);
+                return returnImage ? Files.readAllBytes(outputPath) : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package academy.application.engine;
+
+import academy.application.algorithm.ChaosGame;
+import academy.application.render.ImageRenderer;
+import academy.application.render.histogram.AccumulationStrategy;
+import academy.application.render.histogram.HistogramPool;
+import academy.application.render.histogram.MemoryEstimate;
+import academy.application.render.png.PngEncoder;
+import academy.domain.AffineParams;
+import academy.domain.AppConfiguration;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process render engine for embedding: build one, then call {@link #render} from any number of threads and read the
+ * result from memory, never from disk.
+ *
+ * <pre>
+ * try (FlameEngine engine = FlameEngine.builder().threads(8).build()) {
+ *     BufferedImage image = engine.renderImage(configuration);
+ * }
+ * </pre>
+ *
+ * <p>The chaos game of every render runs on one worker pool that lives as long as the engine, and the histograms come
+ * from a {@link HistogramPool}, so renders of the same size reuse their buffers. Renders whose histograms would push
+ * the memory budget over wait for others to finish; idle pooled histograms are evicted first. The engine copies every
+ * configuration before rendering it, so callers may share and reuse configurations; the output path is ignored.
+ */
+@Slf4j
+public class FlameEngine implements AutoCloseable {
+    @Getter
+    private final int threads;
+
+    @Getter
+    private final long memoryBudget;
+
+    private final int pngCompression;
+    private final ExecutorService pool;
+    private final HistogramPool histograms = new HistogramPool();
+    /** Histogram bytes held by renders in flight; guarded by {@code this}. */
+    private long reservedBytes;
+
+    private boolean closed;
+
+    /**
+     * @param threads size of the worker pool, the available processors when {@code null}
+     * @param memoryBudget heap the histograms of running renders and idle pooled ones may take together, half of the
+     *     maximum heap when {@code null}
+     * @param pngCompression {@link Deflater} level of the encoded images, the default level when {@code null}
+     */
+    @Builder
+    private FlameEngine(Integer threads, Long memoryBudget, Integer pngCompression) {
+        this.threads = threads == null ? Runtime.getRuntime().availableProcessors() : threads;
+        this.memoryBudget = memoryBudget == null ? Runtime.getRuntime().maxMemory() / 2 : memoryBudget;
+        this.pngCompression = pngCompression == null ? Deflater.DEFAULT_COMPRESSION : pngCompression;
+        if (this.threads < 1) {
+            throw new IllegalArgumentException("Thread quantity must be at least 1, got: " + this.threads);
+        }
+        if (this.memoryBudget < 1) {
+            throw new IllegalArgumentException("Memory budget must be positive, got: " + this.memoryBudget);
+        }
+        if (this.pngCompression < Deflater.DEFAULT_COMPRESSION || this.pngCompression > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException(
+                    "PNG compression level must be between -1 and 9, got: " + this.pngCompression);
+        }
+        this.pool = Executors.newFixedThreadPool(this.threads);
+        log.info(
+                "Flame engine started with {} worker threads and a {} histogram budget",
+                this.threads,
+                MemoryEstimate.formatBytes(this.memoryBudget));
+    }
+
+    /**
+     * Renders {@code configuration} into a pooled histogram. Blocks until the render is done; close the result to hand
+     * its histogram back.
+     *
+     * @throws IllegalArgumentException if the configuration is incomplete or its histograms exceed the memory budget
+     */
+    public FlameRender render(AppConfiguration configuration) {
+        AppConfiguration copy = copy(configuration);
+        long bytes = AccumulationStrategy.PER_THREAD_DOUBLE
+                .estimate(copy.getSize().width(), copy.getSize().height(), copy.getThreadQuantity())
+                .heapBytes();
+        if (bytes > memoryBudget) {
+            throw new IllegalArgumentException("Histograms need " + MemoryEstimate.formatBytes(bytes)
+                    + ", more than the engine budget of " + MemoryEstimate.formatBytes(memoryBudget));
+        }
+        reserve(bytes);
+
+        ImageRenderer renderer = null;
+        try {
+            renderer = new ImageRenderer(copy, histograms);
+            renderer.setPngEncoder(PngEncoder.create(pngCompression, 1));
+            ChaosGame game = new ChaosGame(copy, renderer);
+            game.setExecutor(pool);
+            if (copy.getThreadQuantity() == 1) {
+                await(pool.submit(game::runSingleThread));
+            } else {
+                // The workers run on the pool, the calling thread only waits for them and merges
+                game.runMultiThread();
+            }
+            return new FlameRender(renderer, () -> release(bytes));
+        } catch (RuntimeException e) {
+            if (renderer != null) {
+                renderer.close();
+            }
+            release(bytes);
+            throw e;
+        }
+    }
+
+    /** Renders {@code configuration} and tone-maps it into an 8-bit RGB image. */
+    public BufferedImage renderImage(AppConfiguration configuration) {
+        try (FlameRender render = render(configuration)) {
+            return render.toBufferedImage();
+        }
+    }
+
+    /** Renders {@code configuration} and encodes it as an 8-bit PNG. */
+    public byte[] renderPng(AppConfiguration configuration) {
+        try (FlameRender render = render(configuration)) {
+            return render.toPng();
+        }
+    }
+
+    /** Heap held by pooled histograms between renders. */
+    public long idleHistogramBytes() {
+        return histograms.idleBytes();
+    }
+
+    /** Histograms handed out again instead of allocated. */
+    public long reusedHistogramCount() {
+        return histograms.reusedCount();
+    }
+
+    /** Stops the worker pool once the renders in flight are done; pooled histograms are dropped. */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        pool.close();
+        histograms.evict(Long.MAX_VALUE);
+        log.info("Flame engine stopped");
+    }
+
+    /**
+     * A private copy with its own random stream and affine colors, so concurrent renders of one configuration do not
+     * race on them.
+     */
+    private static AppConfiguration copy(AppConfiguration configuration) {
+        if (configuration.getSize() == null) {
+            throw new IllegalArgumentException("Configuration has no size");
+        }
+        if (configuration.getIterationCount() < 1) {
+            throw new IllegalArgumentException(
+                    "Iteration count must be at least 1, got: " + configuration.getIterationCount());
+        }
+        if (configuration.getThreadQuantity() < 1) {
+            throw new IllegalArgumentException(
+                    "Thread quantity must be at least 1, got: " + configuration.getThreadQuantity());
+        }
+        if (configuration.getAffineParamsList() == null
+                || configuration.getAffineParamsList().isEmpty()) {
+            throw new IllegalArgumentException("Configuration has no affine transformations");
+        }
+        if (configuration.getVariationsParamsList() == null
+                || configuration.getVariationsParamsList().isEmpty()) {
+            throw new IllegalArgumentException("Configuration has no variations");
+        }
+        List<AffineParams> affineParams = configuration.getAffineParamsList().stream()
+                .map(params -> new AffineParams(
+                        params.getA(), params.getB(), params.getC(), params.getD(), params.getE(), params.getF()))
+                .toList();
+        AppConfiguration copy =
+                configuration.toBuilder().affineParamsList(affineParams).build();
+        copy.setRandom(new Random(copy.getSeed()));
+        copy.setColors();
+        return copy;
+    }
+
+    private synchronized void reserve(long bytes) {
+        if (closed) {
+            throw new IllegalStateException("Flame engine is closed");
+        }
+        while (reservedBytes + bytes > memoryBudget) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for memory", e);
+            }
+        }
+        reservedBytes += bytes;
+        long excess = reservedBytes + histograms.idleBytes() - memoryBudget;
+        if (excess > 0) {
+            histograms.evict(excess);
+        }
+    }
+
+    private synchronized void release(long bytes) {
+        reservedBytes -= bytes;
+        notifyAll();
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while rendering", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package academy.application.engine;
+
+import academy.application.render.ImageRenderer;
+import academy.application.render.ToneMappedImage;
+import academy.application.render.ToneMapper;
+import academy.application.render.histogram.Histogram;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+
+/**
+ * Result of a {@link FlameEngine} render: the accumulated histogram, still in the engine's pool, and ways to turn it
+ * into pixels without touching the disk. Close it to hand the histogram back; it must not be used afterwards. Not
+ * thread-safe, one caller owns a render.
+ */
+public final class FlameRender implements AutoCloseable {
+    private final ImageRenderer renderer;
+    private final Runnable onClose;
+    private boolean closed;
+
+    FlameRender(ImageRenderer renderer, Runnable onClose) {
+        this.renderer = renderer;
+        this.onClose = onClose;
+    }
+
+    public int width() {
+        return renderer.getWidth();
+    }
+
+    public int height() {
+        return renderer.getHeight();
+    }
+
+    /** Samples that landed in the image. */
+    public long plotCount() {
+        return renderer.getPlotCount();
+    }
+
+    /**
+     * The raw accumulation buffer, {@link Histogram#CHANNELS} channels per pixel, for callers that tone-map or analyze
+     * it themselves. Read it only; it goes back to the pool on {@link #close()}.
+     */
+    public Histogram histogram() {
+        return state().getHistogram();
+    }
+
+    /** Tone-maps the histogram into memory, {@code bitDepth} 8 or 16 bits per sample. */
+    public ToneMappedImage toneMap(ToneMapper toneMapper, int bitDepth) {
+        if (bitDepth != 8 && bitDepth != 16) {
+            throw new IllegalArgumentException("PNG bit depth must be 8 or 16, got: " + bitDepth);
+        }
+        state().setPngBitDepth(bitDepth);
+        return renderer.toneMap(toneMapper);
+    }
+
+    public BufferedImage toBufferedImage() {
+        return toBufferedImage(ToneMapper.DEFAULT);
+    }
+
+    public BufferedImage toBufferedImage(ToneMapper toneMapper) {
+        return toneMap(toneMapper, 8).toBufferedImage();
+    }
+
+    public byte[] toPng() {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        writePng(png, ToneMapper.DEFAULT);
+        return png.toByteArray();
+    }
+
+    /** Streams the image as an 8-bit PNG, tone-mapping the rows as they are encoded; the stream is left open. */
+    public void writePng(OutputStream output, ToneMapper toneMapper) {
+        state().setPngBitDepth(8);
+        try {
+            renderer.writePng(Channels.newChannel(output), toneMapper);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write PNG: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            renderer.close();
+            onClose.run();
+        }
+    }
+
+    private ImageRenderer state() {
+        if (closed) {
+            throw new IllegalStateException("Render is closed, its histogram went back to the engine");
+        }
+        return renderer;
+    }
+}
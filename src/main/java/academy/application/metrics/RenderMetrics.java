@@ -0,0 +1,197 @@
+package academy.application.metrics;
+
+import academy.application.render.ImageRenderer;
+import academy.application.render.histogram.Histogram;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Collects the measurements of one render: phase durations in nanoseconds, heap allocated per phase and per worker,
+ * garbage collections, per-worker throughput and histogram statistics. Every method is thread-safe, so workers and
+ * encoder threads can record into the same instance. Call {@link #report()} at the end to get an immutable snapshot
+ * that can be written out.
+ *
+ * <p>Phase allocations are process-wide deltas of {@link #allocatedBytes()}, so they include whatever other threads
+ * allocated meanwhile; worker and tone-map allocations are measured on the thread doing the work.
+ */
+public class RenderMetrics {
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Map<RenderPhase, Long> phaseNanos = new EnumMap<>(RenderPhase.class);
+    private final Map<RenderPhase, Long> phaseAllocatedBytes = new EnumMap<>(RenderPhase.class);
+    private final Map<RenderPhase, Long> phaseCpuNanos = new EnumMap<>(RenderPhase.class);
+    private final List<RenderReport.Worker> workers = new ArrayList<>();
+    private final GcTotals gcAtStart = GcTotals.now();
+    private int width;
+    private int height;
+    private long plotCount;
+    private long outOfBoundsCount;
+    private long nonEmptyPixels;
+    private RenderReport.TimeBudget timeBudget;
+
+    public void addPhase(RenderPhase phase, long nanos) {
+        addPhase(phase, nanos, 0);
+    }
+
+    public synchronized void addPhase(RenderPhase phase, long nanos, long allocatedBytes) {
+        phaseNanos.merge(phase, nanos, Long::sum);
+        phaseAllocatedBytes.merge(phase, allocatedBytes, Long::sum);
+    }
+
+    /**
+     * Adds time a phase spent on several threads at once, summed over the threads. Kept apart from the wall-clock
+     * durations of {@link #addPhase}, which it can exceed.
+     */
+    public synchronized void addPhaseCpu(RenderPhase phase, long nanos) {
+        phaseCpuNanos.merge(phase, nanos, Long::sum);
+    }
+
+    public synchronized long getPhaseNanos(RenderPhase phase) {
+        return phaseNanos.getOrDefault(phase, 0L);
+    }
+
+    public synchronized long getPhaseCpuNanos(RenderPhase phase) {
+        return phaseCpuNanos.getOrDefault(phase, 0L);
+    }
+
+    public synchronized long getPhaseAllocatedBytes(RenderPhase phase) {
+        return phaseAllocatedBytes.getOrDefault(phase, 0L);
+    }
+
+    public void time(RenderPhase phase, Runnable action) {
+        long startTime = System.nanoTime();
+        long allocatedBefore = allocatedBytes();
+        try {
+            action.run();
+        } finally {
+            addPhase(phase, System.nanoTime() - startTime, allocatedBytes() - allocatedBefore);
+        }
+    }
+
+    public <T> T time(RenderPhase phase, Supplier<T> action) {
+        long startTime = System.nanoTime();
+        long allocatedBefore = allocatedBytes();
+        try {
+            return action.get();
+        } finally {
+            addPhase(phase, System.nanoTime() - startTime, allocatedBytes() - allocatedBefore);
+        }
+    }
+
+    public synchronized void addWorker(int worker, long iterations, long nanos, long allocatedBytes) {
+        double iterationsPerSecond = nanos == 0 ? 0 : iterations * 1e9 / nanos;
+        workers.add(new RenderReport.Worker(worker, iterations, nanos, iterationsPerSecond, allocatedBytes));
+    }
+
+    /** Takes the sample counts and coverage of the final histogram, at its own resolution when oversampled. */
+    public void recordHistogram(ImageRenderer renderer) {
+        Histogram histogram = renderer.getHistogram();
+        long nonEmpty = 0;
+        for (int y = 0; y < histogram.height(); y++) {
+            for (int x = 0; x < histogram.width(); x++) {
+                if (histogram.get(x, y, Histogram.ALPHA) > 0) {
+                    nonEmpty++;
+                }
+            }
+        }
+        synchronized (this) {
+            width = histogram.width();
+            height = histogram.height();
+            plotCount = renderer.getPlotCount();
+            outOfBoundsCount = renderer.getOutOfBoundsCount();
+            nonEmptyPixels = nonEmpty;
+        }
+    }
+
+    public synchronized void setTimeBudget(RenderReport.TimeBudget timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    public synchronized RenderReport report() {
+        Map<String, Long> phases = new LinkedHashMap<>();
+        Map<String, Long> allocations = new LinkedHashMap<>();
+        Map<String, Long> cpu = new LinkedHashMap<>();
+        phaseCpuNanos.forEach((phase, nanos) -> cpu.put(phase.getKey(), nanos));
+        long totalNanos = 0;
+        long totalAllocated = 0;
+        for (RenderPhase phase : RenderPhase.values()) {
+            long nanos = phaseNanos.getOrDefault(phase, 0L);
+            long allocated = phaseAllocatedBytes.getOrDefault(phase, 0L);
+            phases.put(phase.getKey(), nanos);
+            allocations.put(phase.getKey(), allocated);
+            totalNanos += nanos;
+            totalAllocated += allocated;
+        }
+        GcTotals gc = GcTotals.now();
+        long pixels = (long) width * height;
+        return new RenderReport(
+                width,
+                height,
+                phases,
+                totalNanos,
+                cpu,
+                allocations,
+                totalAllocated,
+                workers.stream()
+                        .sorted((a, b) -> Integer.compare(a.worker(), b.worker()))
+                        .toList(),
+                plotCount,
+                outOfBoundsCount,
+                nonEmptyPixels,
+                pixels == 0 ? 0 : (double) nonEmptyPixels / pixels,
+                peakHeapBytes(),
+                gc.collections() - gcAtStart.collections(),
+                gc.pauseMillis() - gcAtStart.pauseMillis(),
+                timeBudget);
+    }
+
+    /** Heap bytes allocated by all threads since the JVM started, or 0 if the JVM does not track allocations. */
+    public static long allocatedBytes() {
+        return THREADS.isThreadAllocatedMemoryEnabled() ? THREADS.getTotalThreadAllocatedBytes() : 0;
+    }
+
+    /** Heap bytes allocated by the calling thread since it started, or 0 if the JVM does not track allocations. */
+    public static long threadAllocatedBytes() {
+        return THREADS.isThreadAllocatedMemoryEnabled() ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    /** Sum of the peak usage of every heap pool since the JVM started (or since the peaks were last reset). */
+    public static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * Collection count and accumulated collection time of the stop-the-world collectors. Beans for concurrent cycles
+     * (G1 "Concurrent GC", ZGC and Shenandoah "Cycles") are skipped because their time is not spent paused.
+     */
+    private record GcTotals(long collections, long pauseMillis) {
+        static GcTotals now() {
+            long collections = 0;
+            long millis = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                String name = collector.getName();
+                if (name.contains("Concurrent") || name.contains("Cycles")) {
+                    continue;
+                }
+                collections += Math.max(0, collector.getCollectionCount());
+                millis += Math.max(0, collector.getCollectionTime());
+            }
+            return new GcTotals(collections, millis);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package academy.application.metrics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/** Stages of a render, in the order they run. Durations of a phase that runs several times are summed. */
+@Getter
+@RequiredArgsConstructor
+public enum RenderPhase {
+    /** Argument parsing and reading the configuration file. */
+    CONFIG_LOAD("config_load"),
+    VALIDATION("validation"),
+    /** Allocating the histogram and loading a resumed one. */
+    ALLOCATION("allocation"),
+    /** Running the chaos game, including the per-thread histogram allocation of a multi-threaded run. */
+    ITERATION("iteration"),
+    /** Summing the per-thread histograms. */
+    MERGE("merge"),
+    /** Blurring the histogram by local density, when enabled. */
+    DENSITY_ESTIMATION("density_estimation"),
+    /**
+     * Turning the histogram into an image in memory. A PNG written straight from the histogram tone-maps its rows
+     * inside {@link #ENCODE} instead, and reports their time summed over the encoder threads as CPU time of this phase.
+     */
+    TONE_MAP("tone_map"),
+    /** Filtering, compressing and writing the outputs, including the rows tone-mapped on demand by the encoder. */
+    ENCODE("encode");
+
+    private final String key;
+}
@@ -0,0 +1,217 @@
+package academy.application.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Live progress of one chaos game run. Workers publish their own counters once per chunk of iterations, with a plain
+ * release store into a slot nobody else writes, so the hot loop never contends or branches on progress. A daemon
+ * reporter thread samples the counters every second to derive throughput and ETA, logs every 10% and backs the
+ * {@link RenderProgressMBean} that monitoring reads over JMX.
+ */
+@Slf4j
+public class RenderProgress implements RenderProgressMBean, AutoCloseable {
+    public static final String OBJECT_NAME = "academy.flame:type=RenderProgress";
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 1000;
+    private static final int LOG_INTERVAL_PERCENT = 10;
+    /** Two counters per worker, spread 128 bytes apart so workers don't share cache lines. */
+    private static final int SLOT_STRIDE = 16;
+
+    private static final int ITERATIONS = 0;
+    private static final int OUT_OF_BOUNDS = 1;
+
+    private final long totalIterations;
+    private final int workers;
+    private final AtomicLongArray counters;
+    private final long startNanos = System.nanoTime();
+    private final ScheduledExecutorService reporter;
+    private ObjectName registeredName;
+
+    private long lastSampleNanos = startNanos;
+    private long lastIterations;
+    private long lastOutOfBounds;
+    private int lastLoggedPercent;
+    private volatile double iterationsPerSecond;
+    private volatile double outOfBoundsPerSecond;
+
+    private RenderProgress(long totalIterations, int workers, boolean report) {
+        this.totalIterations = totalIterations;
+        this.workers = workers;
+        this.counters = new AtomicLongArray(workers * SLOT_STRIDE);
+        this.reporter = report
+                ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "render-progress");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+    }
+
+    /** Starts the reporter thread and registers the MBean; close the result when the run ends. */
+    public static RenderProgress start(long totalIterations, int workers) {
+        RenderProgress progress = new RenderProgress(totalIterations, workers, true);
+        progress.register();
+        progress.reporter.scheduleAtFixedRate(
+                progress::sample, SAMPLE_INTERVAL_MILLIS, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        return progress;
+    }
+
+    /** Counters without a reporter or MBean, for tests and callers that sample by hand. */
+    static RenderProgress detached(long totalIterations, int workers) {
+        return new RenderProgress(totalIterations, workers, false);
+    }
+
+    /** Adds a finished chunk to a worker's counters. Only that worker may call this for its index. */
+    public void add(int worker, long iterations, long outOfBounds) {
+        int slot = worker * SLOT_STRIDE;
+        counters.setRelease(slot + ITERATIONS, counters.getPlain(slot + ITERATIONS) + iterations);
+        counters.setRelease(slot + OUT_OF_BOUNDS, counters.getPlain(slot + OUT_OF_BOUNDS) + outOfBounds);
+    }
+
+    /** Takes a throughput sample and logs when another 10% is done. Called by the reporter thread. */
+    synchronized void sample() {
+        long now = System.nanoTime();
+        long iterations = getCompletedIterations();
+        long outOfBounds = sum(OUT_OF_BOUNDS);
+        double seconds = (now - lastSampleNanos) / 1e9;
+        if (seconds > 0) {
+            iterationsPerSecond = (iterations - lastIterations) / seconds;
+            outOfBoundsPerSecond = (outOfBounds - lastOutOfBounds) / seconds;
+        }
+        lastSampleNanos = now;
+        lastIterations = iterations;
+        lastOutOfBounds = outOfBounds;
+
+        int percent = (int) getProgressPercent();
+        if (percent / LOG_INTERVAL_PERCENT > lastLoggedPercent / LOG_INTERVAL_PERCENT && percent < 100) {
+            lastLoggedPercent = percent;
+            log.info(
+                    "Generation progress: {}% ({}/{} iterations, {} it/s, ETA {} s)",
+                    percent, iterations, totalIterations, String.format("%.0f", iterationsPerSecond), getEtaSeconds());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+        unregister();
+        log.info(summary());
+    }
+
+    /**
+     * How far the run got, logged when it ends. A run stopped early by the user, a time limit, a time budget or a
+     * cancellation reports where it stopped instead of 100%.
+     */
+    String summary() {
+        long iterations = getCompletedIterations();
+        if (iterations >= totalIterations) {
+            return String.format("Generation progress: 100%% (%d/%d iterations)", iterations, totalIterations);
+        }
+        return String.format(
+                Locale.ROOT,
+                "Generation stopped at %.1f%%: %d of %d iterations",
+                getProgressPercent(),
+                iterations,
+                totalIterations);
+    }
+
+    @Override
+    public long getTotalIterations() {
+        return totalIterations;
+    }
+
+    @Override
+    public long getCompletedIterations() {
+        return sum(ITERATIONS);
+    }
+
+    @Override
+    public long[] getWorkerIterations() {
+        long[] iterations = new long[workers];
+        for (int worker = 0; worker < workers; worker++) {
+            iterations[worker] = counters.getAcquire(worker * SLOT_STRIDE + ITERATIONS);
+        }
+        return iterations;
+    }
+
+    @Override
+    public double getProgressPercent() {
+        return totalIterations == 0 ? 100 : getCompletedIterations() * 100.0 / totalIterations;
+    }
+
+    @Override
+    public double getIterationsPerSecond() {
+        return iterationsPerSecond;
+    }
+
+    @Override
+    public long getEtaSeconds() {
+        double throughput = iterationsPerSecond;
+        if (throughput <= 0) {
+            return -1;
+        }
+        return Math.round((totalIterations - getCompletedIterations()) / throughput);
+    }
+
+    @Override
+    public double getOutOfBoundsPerSecond() {
+        return outOfBoundsPerSecond;
+    }
+
+    @Override
+    public double getOutOfBoundsRatio() {
+        long iterations = getCompletedIterations();
+        return iterations == 0 ? 0 : (double) sum(OUT_OF_BOUNDS) / iterations;
+    }
+
+    @Override
+    public long getElapsedSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos);
+    }
+
+    private long sum(int counter) {
+        long total = 0;
+        for (int worker = 0; worker < workers; worker++) {
+            total += counters.getAcquire(worker * SLOT_STRIDE + counter);
+        }
+        return total;
+    }
+
+    private void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            server.registerMBean(this, name);
+            registeredName = name;
+        } catch (InstanceAlreadyExistsException e) {
+            // Another render in this JVM already publishes its progress; this one runs without the MBean
+            log.debug("Render progress MBean already registered, not exposing this run");
+        } catch (JMException e) {
+            log.warn("Failed to register render progress MBean: {}", e.getMessage());
+        }
+    }
+
+    private void unregister() {
+        if (registeredName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (JMException e) {
+            log.warn("Failed to unregister render progress MBean: {}", e.getMessage());
+        }
+        registeredName = null;
+    }
+}
@@ -0,0 +1,27 @@
+package academy.application.metrics;
+
+/** JMX view of a running chaos game, registered as {@value RenderProgress#OBJECT_NAME}. */
+public interface RenderProgressMBean {
+    long getTotalIterations();
+
+    long getCompletedIterations();
+
+    /** Completed iterations of every worker, indexed by worker. */
+    long[] getWorkerIterations();
+
+    double getProgressPercent();
+
+    /** Throughput over the last sampling interval. */
+    double getIterationsPerSecond();
+
+    /** Estimated time to completion at the current throughput, -1 while unknown. */
+    long getEtaSeconds();
+
+    /** Samples that fell outside the image per second, over the last sampling interval. */
+    double getOutOfBoundsPerSecond();
+
+    /** Fraction of all samples so far that fell outside the image. */
+    double getOutOfBoundsRatio();
+
+    long getElapsedSeconds();
+}
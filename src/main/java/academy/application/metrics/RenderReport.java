@@ -0,0 +1,178 @@
+package academy.application.metrics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of {@link RenderMetrics}, written as a JSON sidecar next to the image and optionally in the Prometheus text
+ * exposition format. JSON durations are in nanoseconds; Prometheus gets seconds, its base unit.
+ *
+ * @param phaseNanos wall-clock duration of every {@link RenderPhase}, keyed by {@link RenderPhase#getKey()}
+ * @param totalNanos sum of the phase durations
+ * @param phaseCpuNanos time of the phases that ran on several threads, summed over the threads; not part of
+ *     {@code totalNanos}
+ * @param phaseAllocatedBytes heap allocated during every phase, see {@link RenderMetrics} for what is counted
+ * @param gcCount stop-the-world collections while the render ran
+ * @param gcPauseMillis time those collections took
+ * @param coverage fraction of pixels that received at least one sample
+ * @param peakHeapBytes peak heap usage of the process
+ * @param timeBudget how a time-budgeted render used its budget, {@code null} for one with an iteration count
+ */
+public record RenderReport(
+        @JsonProperty("width") int width,
+        @JsonProperty("height") int height,
+        @JsonProperty("phase_nanos") Map<String, Long> phaseNanos,
+        @JsonProperty("total_nanos") long totalNanos,
+        @JsonProperty("phase_cpu_nanos") Map<String, Long> phaseCpuNanos,
+        @JsonProperty("phase_allocated_bytes") Map<String, Long> phaseAllocatedBytes,
+        @JsonProperty("total_allocated_bytes") long totalAllocatedBytes,
+        @JsonProperty("workers") List<Worker> workers,
+        @JsonProperty("plotted") long plotCount,
+        @JsonProperty("out_of_bounds") long outOfBoundsCount,
+        @JsonProperty("non_empty_pixels") long nonEmptyPixels,
+        @JsonProperty("coverage") double coverage,
+        @JsonProperty("peak_heap_bytes") long peakHeapBytes,
+        @JsonProperty("gc_count") long gcCount,
+        @JsonProperty("gc_pause_millis") long gcPauseMillis,
+        @JsonProperty("time_budget") @JsonInclude(JsonInclude.Include.NON_NULL) TimeBudget timeBudget) {
+
+    private static final ObjectMapper MAPPER =
+            new ObjectMapper().findAndRegisterModules().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final String PREFIX = "flame_";
+
+    /**
+     * Throughput of one chaos game worker.
+     *
+     * @param worker worker index, 0 for a single-threaded run
+     * @param iterations iterations the worker ran, warmup included
+     * @param allocatedBytes heap the worker thread allocated, including its own histogram
+     */
+    public record Worker(
+            @JsonProperty("worker") int worker,
+            @JsonProperty("iterations") long iterations,
+            @JsonProperty("nanos") long nanos,
+            @JsonProperty("iterations_per_second") double iterationsPerSecond,
+            @JsonProperty("allocated_bytes") long allocatedBytes) {}
+
+    /**
+     * How a time-budgeted render spent its budget, counted from the start of the JVM.
+     *
+     * @param generationNanos time left to the generation once the work before it and the estimated finish were taken
+     * @param estimatedFinishNanos estimated time of the merge, tone map and encoding after the generation
+     * @param elapsedNanos time the render actually took, up to the metrics
+     * @param iterations iterations the generation achieved in its time
+     */
+    public record TimeBudget(
+            @JsonProperty("budget_nanos") long budgetNanos,
+            @JsonProperty("generation_nanos") long generationNanos,
+            @JsonProperty("estimated_finish_nanos") long estimatedFinishNanos,
+            @JsonProperty("elapsed_nanos") long elapsedNanos,
+            @JsonProperty("iterations") long iterations) {}
+
+    public static RenderReport read(Path path) throws IOException {
+        return MAPPER.readValue(path.toFile(), RenderReport.class);
+    }
+
+    public String toJson() throws IOException {
+        return MAPPER.writeValueAsString(this);
+    }
+
+    public String toPrometheus() {
+        StringBuilder text = new StringBuilder();
+        header(text, "phase_seconds", "gauge", "Duration of a render phase");
+        phaseNanos.forEach((phase, nanos) -> sample(text, "phase_seconds{phase=\"" + phase + "\"}", nanos / 1e9));
+        header(text, "render_seconds", "gauge", "Sum of the render phase durations");
+        sample(text, "render_seconds", totalNanos / 1e9);
+        if (phaseCpuNanos != null && !phaseCpuNanos.isEmpty()) {
+            header(text, "phase_cpu_seconds", "gauge", "Thread time of a render phase, summed over its threads");
+            phaseCpuNanos.forEach(
+                    (phase, nanos) -> sample(text, "phase_cpu_seconds{phase=\"" + phase + "\"}", nanos / 1e9));
+        }
+        header(text, "phase_allocated_bytes", "gauge", "Heap allocated during a render phase");
+        phaseAllocatedBytes.forEach(
+                (phase, bytes) -> sample(text, "phase_allocated_bytes{phase=\"" + phase + "\"}", bytes));
+
+        header(text, "worker_iterations_per_second", "gauge", "Chaos game throughput of a worker thread");
+        for (Worker worker : workers) {
+            sample(
+                    text,
+                    "worker_iterations_per_second{worker=\"" + worker.worker() + "\"}",
+                    worker.iterationsPerSecond());
+        }
+        header(text, "worker_allocated_bytes", "gauge", "Heap allocated by a worker thread");
+        for (Worker worker : workers) {
+            sample(text, "worker_allocated_bytes{worker=\"" + worker.worker() + "\"}", worker.allocatedBytes());
+        }
+
+        header(text, "points_plotted", "gauge", "Samples that landed inside the image");
+        sample(text, "points_plotted", plotCount);
+        header(text, "points_out_of_bounds", "gauge", "Samples that fell outside the image");
+        sample(text, "points_out_of_bounds", outOfBoundsCount);
+        header(text, "coverage_ratio", "gauge", "Fraction of pixels with at least one sample");
+        sample(text, "coverage_ratio", coverage);
+        header(text, "peak_heap_bytes", "gauge", "Peak heap usage of the render process");
+        sample(text, "peak_heap_bytes", peakHeapBytes);
+        header(text, "gc_collections", "gauge", "Stop-the-world garbage collections during the render");
+        sample(text, "gc_collections", gcCount);
+        header(text, "gc_pause_seconds", "gauge", "Time spent in those collections");
+        sample(text, "gc_pause_seconds", gcPauseMillis / 1e3);
+        if (timeBudget != null) {
+            header(text, "time_budget_seconds", "gauge", "Wall-clock budget of a time-budgeted render");
+            sample(text, "time_budget_seconds", timeBudget.budgetNanos() / 1e9);
+            header(text, "time_budget_elapsed_seconds", "gauge", "Time the time-budgeted render took");
+            sample(text, "time_budget_elapsed_seconds", timeBudget.elapsedNanos() / 1e9);
+            header(text, "time_budget_iterations", "gauge", "Iterations the time-budgeted render achieved");
+            sample(text, "time_budget_iterations", timeBudget.iterations());
+        }
+        return text.toString();
+    }
+
+    public void writeJson(Path path) throws IOException {
+        createParentDirectories(path);
+        MAPPER.writeValue(path.toFile(), this);
+    }
+
+    public void writePrometheus(Path path) throws IOException {
+        createParentDirectories(path);
+        Files.writeString(path, toPrometheus());
+    }
+
+    private static void header(StringBuilder text, String name, String type, String help) {
+        text.append("# HELP ")
+                .append(PREFIX)
+                .append(name)
+                .append(' ')
+                .append(help)
+                .append('\n');
+        text.append("# TYPE ")
+                .append(PREFIX)
+                .append(name)
+                .append(' ')
+                .append(type)
+                .append('\n');
+    }
+
+    private static void sample(StringBuilder text, String series, double value) {
+        text.append(PREFIX).append(series).append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            text.append((long) value);
+        } else {
+            text.append(value);
+        }
+        text.append('\n');
+    }
+
+    private static void createParentDirectories(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+    }
+}
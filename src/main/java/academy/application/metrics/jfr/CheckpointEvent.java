@@ -0,0 +1,30 @@
+package academy.application.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Saving the accumulated histogram so the render can be resumed. */
+@Name("academy.flame.Checkpoint")
+@Label("Histogram Checkpoint")
+@Category({"Fractal Flame", "Output"})
+@Description("Saving the accumulated histogram to disk")
+@StackTrace(false)
+public class CheckpointEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Iterations")
+    public long iterations;
+
+    @Label("Points Plotted")
+    public long pointsPlotted;
+
+    @Label("Bytes Written")
+    @DataAmount
+    public long bytesWritten;
+}
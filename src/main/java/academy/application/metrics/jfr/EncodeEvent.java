@@ -0,0 +1,33 @@
+package academy.application.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Writing one output file; for PNG the row tone mapping happens inside this event. */
+@Name("academy.flame.Encode")
+@Label("Image Encode")
+@Category({"Fractal Flame", "Output"})
+@Description("Encoding and writing one output image")
+@StackTrace(false)
+public class EncodeEvent extends Event {
+    @Label("Path")
+    public String path;
+
+    @Label("Format")
+    public String format;
+
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+
+    @Label("Bytes Written")
+    @DataAmount
+    public long bytesWritten;
+}
@@ -0,0 +1,53 @@
+package academy.application.metrics.jfr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Flight recording of a whole render, started by {@code --jfr}. Uses the JDK {@code profile} settings so samples can be
+ * lined up with the render events of this package, which are always enabled.
+ */
+@Slf4j
+public class FlightRecording implements AutoCloseable {
+    private static final String SETTINGS = "profile";
+
+    private final Recording recording;
+    private final Path destination;
+
+    private FlightRecording(Recording recording, Path destination) {
+        this.recording = recording;
+        this.destination = destination;
+    }
+
+    public static FlightRecording start(Path destination) {
+        try {
+            Path parentDir = destination.toAbsolutePath().getParent();
+            if (parentDir != null) {
+                Files.createDirectories(parentDir);
+            }
+            Recording recording = new Recording(Configuration.getConfiguration(SETTINGS));
+            recording.setName("fractal-flame");
+            recording.setToDisk(true);
+            recording.setDestination(destination);
+            recording.start();
+            log.info("Flight recording started, writing to {}", destination);
+            return new FlightRecording(recording, destination);
+        } catch (IOException | ParseException e) {
+            log.error("Failed to start flight recording: {}", e.getMessage());
+            throw new RuntimeException("Failed to start flight recording: " + e.getMessage(), e);
+        }
+    }
+
+    /** Stops the recording, which dumps it to the destination file. */
+    @Override
+    public void close() {
+        recording.stop();
+        recording.close();
+        log.info("Flight recording written to {}", destination);
+    }
+}
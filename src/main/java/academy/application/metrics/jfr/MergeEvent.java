@@ -0,0 +1,24 @@
+package academy.application.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("academy.flame.Merge")
+@Label("Histogram Merge")
+@Category({"Fractal Flame", "Iteration"})
+@Description("Summing the per-worker histograms into the final one")
+@StackTrace(false)
+public class MergeEvent extends Event {
+    @Label("Histograms")
+    public int histograms;
+
+    @Label("Pixels")
+    public long pixels;
+
+    @Label("Points Plotted")
+    public long pointsPlotted;
+}
@@ -0,0 +1,25 @@
+package academy.application.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Tone mapping of one image row, emitted from whichever encoder thread requested the row. */
+@Name("academy.flame.ToneMapRow")
+@Label("Tone Map Row")
+@Category({"Fractal Flame", "Output"})
+@Description("Tone mapping of one histogram row into pixels")
+@StackTrace(false)
+public class ToneMapEvent extends Event {
+    @Label("Row")
+    public int row;
+
+    @Label("Pixels")
+    public int pixels;
+
+    @Label("Non-Empty Pixels")
+    public int nonEmptyPixels;
+}
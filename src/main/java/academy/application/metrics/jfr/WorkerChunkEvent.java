@@ -0,0 +1,31 @@
+package academy.application.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One chunk of chaos game iterations run by a worker; the event spans the chunk from start to finish. */
+@Name("academy.flame.WorkerChunk")
+@Label("Worker Chunk")
+@Category({"Fractal Flame", "Iteration"})
+@Description("A chunk of chaos game iterations run by one worker")
+@StackTrace(false)
+public class WorkerChunkEvent extends Event {
+    @Label("Worker")
+    public int worker;
+
+    @Label("First Iteration")
+    public long firstIteration;
+
+    @Label("Iterations")
+    public long iterations;
+
+    @Label("Points Plotted")
+    public long pointsPlotted;
+
+    @Label("Points Out Of Bounds")
+    public long pointsOutOfBounds;
+}
@@ -0,0 +1,77 @@
+package academy.application.render;
+
+/**
+ * Parameters of flam3-style density estimation: every histogram cell is blurred with a kernel whose radius shrinks as
+ * its sample count grows, so sparse regions are smoothed while dense detail stays sharp. The radius of a cell of
+ * density {@code n} is {@code max(minRadius, maxRadius / n^curve)}, in image pixels.
+ *
+ * @param maxRadius radius given to cells with a single sample
+ * @param minRadius radius no cell goes below, {@code 0} leaves dense cells untouched
+ * @param curve how fast the radius falls off with density
+ */
+public record DensityEstimation(double maxRadius, double minRadius, double curve) {
+    public static final double DEFAULT_MIN_RADIUS = 0.0;
+    public static final double DEFAULT_CURVE = 0.4;
+    public static final double MAX_RADIUS = 32.0;
+
+    public DensityEstimation {
+        if (!(maxRadius > 0) || maxRadius > MAX_RADIUS) {
+            throw new IllegalArgumentException(
+                    "Density estimation radius must be in (0, " + MAX_RADIUS + "], got: " + maxRadius);
+        }
+        if (!(minRadius >= 0) || minRadius > maxRadius) {
+            throw new IllegalArgumentException(
+                    "Minimum density estimation radius must be between 0 and " + maxRadius + ", got: " + minRadius);
+        }
+        if (!(curve > 0) || Double.isInfinite(curve)) {
+            throw new IllegalArgumentException("Density estimation curve must be a positive number, got: " + curve);
+        }
+    }
+
+    /** Parses {@code maxRadius[,minRadius[,curve]]}, the omitted values taking their defaults. */
+    public static DensityEstimation fromString(String value) {
+        String[] parts = value.split(",");
+        if (parts.length > 3) {
+            throw new IllegalArgumentException(
+                    "Expected maxRadius[,minRadius[,curve]], got " + parts.length + " values: " + value);
+        }
+        double maxRadius = Double.parseDouble(parts[0].trim());
+        double minRadius = parts.length > 1 ? Double.parseDouble(parts[1].trim()) : DEFAULT_MIN_RADIUS;
+        double curve = parts.length > 2 ? Double.parseDouble(parts[2].trim()) : DEFAULT_CURVE;
+        return new DensityEstimation(maxRadius, minRadius, curve);
+    }
+
+    /** Kernel radius in image pixels for a pixel that received {@code density} samples. */
+    public double radius(double density) {
+        return Math.max(minRadius, maxRadius / Math.pow(Math.max(1, density), curve));
+    }
+
+    /**
+     * Heap a pass over a histogram of {@code width x height} cells needs besides the histogram it writes: the kernels
+     * and the band buffers of its threads, which grow with the radius in cells.
+     *
+     * @param oversample histogram cells per image pixel along each axis
+     */
+    public long scratchBytes(int oversample, int width, int height) {
+        return DensityEstimator.scratchBytes(this, oversample, width, height);
+    }
+
+    /**
+     * What a density estimation pass did.
+     *
+     * <p>A cell of count {@code n} blurred by a kernel with squared weights summing to {@code s} keeps a relative
+     * variance of about {@code s / n} instead of {@code 1 / n}. {@code iterationFactor} is the ratio of the mean
+     * relative variances over the non-empty cells without and with the pass: a plain render needs about that many times
+     * the iterations to be as noisy on average.
+     *
+     * @param nonEmptyCells histogram cells with at least one sample
+     * @param blurredCells cells whose kernel reached beyond the cell itself
+     */
+    public record Report(long nonEmptyCells, long blurredCells, double iterationFactor) {
+
+        /** Fraction of the iterations of an equally noisy plain render that the pass saves. */
+        public double iterationSavings() {
+            return 1 - 1 / iterationFactor;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package academy.application.render;
+
+import static academy.application.render.ImageRenderer.ALPHA;
+import static academy.application.render.ImageRenderer.CHANNELS;
+
+import academy.application.render.histogram.Histogram;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Density estimation pass from one histogram into another of the same size. Every non-empty cell is scattered with a
+ * normalized Gaussian kernel picked from a table by its sample count. A Gaussian cut off at its radius is the product
+ * of two one-dimensional profiles within a disc, so a kernel keeps one profile and the reach of each row instead of the
+ * whole square: the table stays linear in the radius, and only the kernels of counts actually met are built.
+ *
+ * <p>The rows are cut into bands at least twice the largest kernel reach high, each band scattering into a private
+ * buffer that extends one reach above and below it. Even bands run in parallel and are added to the target, then odd
+ * ones: the buffers of two bands of the same parity never overlap, so neither the target nor the buffers need locking.
+ */
+final class DensityEstimator {
+    /** Kernel radii are quantized to a quarter of a histogram cell. */
+    private static final int STEPS_PER_CELL = 4;
+    /** Counts below this look up their kernel in a table, the rare denser cells compute it. */
+    private static final int COUNT_TABLE_SIZE = 1 << 14;
+
+    private static final int MIN_BAND_ROWS = 32;
+    private static final long DOUBLE_BYTES = Double.BYTES;
+
+    private final DensityEstimation parameters;
+    private final int oversample;
+    private final Kernel[] kernels;
+    private final int[] kernelByCount;
+    /** Largest kernel half width, in histogram cells. */
+    private final int reach;
+
+    /**
+     * @param oversample histogram cells per image pixel along each axis; radii are scaled to cells and the density of a
+     *     cell is taken per image pixel
+     */
+    DensityEstimator(DensityEstimation parameters, int oversample) {
+        this.parameters = parameters;
+        this.oversample = oversample;
+        this.kernels = new Kernel[kernelIndex(1) + 1];
+        this.kernelByCount = new int[COUNT_TABLE_SIZE];
+        for (int count = 0; count < COUNT_TABLE_SIZE; count++) {
+            kernelByCount[count] = kernelIndex(count);
+        }
+        this.reach = (kernels.length - 1) / STEPS_PER_CELL;
+    }
+
+    /**
+     * Heap a pass over a {@code width x height} histogram needs besides the two histograms: every kernel of the table
+     * and, per thread, a source row and a band buffer.
+     */
+    static long scratchBytes(DensityEstimation parameters, int oversample, int width, int height) {
+        DensityEstimator estimator = new DensityEstimator(parameters, oversample);
+        int reach = estimator.reach;
+        long kernelBytes = 0;
+        for (int index = 0; index < estimator.kernels.length; index++) {
+            // A profile of doubles and a reach per row
+            kernelBytes += (2L * (index / STEPS_PER_CELL) + 1) * (DOUBLE_BYTES + Integer.BYTES);
+        }
+        int bandRows = Math.max(MIN_BAND_ROWS, 2 * reach);
+        int bands = (height + bandRows - 1) / bandRows;
+        int threads = Math.min(ForkJoinPool.getCommonPoolParallelism() + 1, Math.max(1, (bands + 1) / 2));
+        long rowBytes = (long) width * CHANNELS * DOUBLE_BYTES;
+        long bandBytes = rowBytes * (1 + Math.min(height, bandRows + 2 * reach));
+        return kernelBytes + (long) estimator.kernelByCount.length * Integer.BYTES + bandBytes * threads;
+    }
+
+    /** Cells the widest kernel, that of a single sample, scatters into away from the edges. */
+    int widestKernelWeights() {
+        Kernel kernel = kernel(kernels.length - 1);
+        int weights = 0;
+        for (int dy = -kernel.halfWidth(); dy <= kernel.halfWidth(); dy++) {
+            weights += 2 * kernel.rowReach()[Math.abs(dy)] + 1;
+        }
+        return weights;
+    }
+
+    /**
+     * Kernel weights a pass over a {@code width x height} histogram scatters when every cell holds a single sample, so
+     * that every cell gets the widest kernel: the most work a pass over that histogram can do.
+     */
+    long worstCaseWeights(int width, int height) {
+        Kernel kernel = kernel(kernels.length - 1);
+        int halfWidth = kernel.halfWidth();
+        long weights = 0;
+        // Each offset of the kernel lands inside the histogram from (width - |dx|) * (height - |dy|) cells
+        for (int dy = -halfWidth; dy <= halfWidth; dy++) {
+            int rowReach = kernel.rowReach()[Math.abs(dy)];
+            long columns = 0;
+            for (int dx = -rowReach; dx <= rowReach; dx++) {
+                columns += Math.max(0, width - Math.abs(dx));
+            }
+            weights += columns * Math.max(0, height - Math.abs(dy));
+        }
+        return weights;
+    }
+
+    /** Scatters every cell of {@code source} into {@code target}, which must be empty and of the same size. */
+    DensityEstimation.Report apply(Histogram source, Histogram target) {
+        int bandRows = Math.max(MIN_BAND_ROWS, 2 * reach);
+        int bands = (source.height() + bandRows - 1) / bandRows;
+        int rowLength = source.width() * CHANNELS;
+        // Scratch for the pass only: the source row and the band buffer, reused by the bands a thread runs
+        ThreadLocal<double[][]> scratch = ThreadLocal.withInitial(
+                () -> new double[][] {new double[rowLength], new double[(bandRows + 2 * reach) * rowLength]});
+        Tally even = IntStream.range(0, (bands + 1) / 2)
+                .parallel()
+                .mapToObj(band -> scatterBand(source, target, 2 * band * bandRows, bandRows, scratch.get()))
+                .reduce(Tally.EMPTY, Tally::plus);
+        Tally odd = IntStream.range(0, bands / 2)
+                .parallel()
+                .mapToObj(band -> scatterBand(source, target, (2 * band + 1) * bandRows, bandRows, scratch.get()))
+                .reduce(Tally.EMPTY, Tally::plus);
+        Tally total = even.plus(odd);
+
+        double iterationFactor = total.relativeVariance() == 0 ? 1 : total.inverseCounts() / total.relativeVariance();
+        return new DensityEstimation.Report(total.nonEmptyCells(), total.blurredCells(), iterationFactor);
+    }
+
+    private Tally scatterBand(Histogram source, Histogram target, int firstRow, int bandRows, double[][] scratch) {
+        int width = source.width();
+        int height = source.height();
+        int lastRow = Math.min(height, firstRow + bandRows);
+        int top = Math.max(0, firstRow - reach);
+        int bottom = Math.min(height, lastRow + reach);
+        int rowLength = width * CHANNELS;
+        double[] row = scratch[0];
+        double[] buffer = scratch[1];
+        Arrays.fill(buffer, 0, (bottom - top) * rowLength, 0);
+
+        long nonEmptyCells = 0;
+        long blurredCells = 0;
+        double inverseCounts = 0;
+        double relativeVariance = 0;
+        for (int y = firstRow; y < lastRow; y++) {
+            source.readRow(y, row);
+            for (int x = 0, i = 0; x < width; x++, i += CHANNELS) {
+                double count = row[i + ALPHA];
+                if (count <= 0) {
+                    continue;
+                }
+                Kernel kernel = kernel(count < COUNT_TABLE_SIZE ? kernelByCount[(int) count] : kernelIndex(count));
+                nonEmptyCells++;
+                inverseCounts += 1 / count;
+                relativeVariance += kernel.squaredWeights() / count;
+
+                int halfWidth = kernel.halfWidth();
+                if (halfWidth == 0) {
+                    int offset = (y - top) * rowLength + i;
+                    for (int c = 0; c < CHANNELS; c++) {
+                        buffer[offset + c] += row[i + c];
+                    }
+                    continue;
+                }
+                blurredCells++;
+                scatter(kernel, row, i, buffer, x, y - top, width, bottom - top);
+            }
+        }
+
+        for (int y = top; y < bottom; y++) {
+            for (int x = 0, i = (y - top) * rowLength; x < width; x++) {
+                for (int c = 0; c < CHANNELS; c++, i++) {
+                    if (buffer[i] != 0) {
+                        target.add(x, y, c, buffer[i]);
+                    }
+                }
+            }
+        }
+        return new Tally(nonEmptyCells, blurredCells, inverseCounts, relativeVariance);
+    }
+
+    /** Adds the channels of the cell at {@code row[cell]}, weighted by {@code kernel}, around {@code (x, y)}. */
+    private static void scatter(
+            Kernel kernel, double[] row, int cell, double[] buffer, int x, int y, int width, int rows) {
+        int halfWidth = kernel.halfWidth();
+        double[] profile = kernel.profile();
+        for (int dy = Math.max(-halfWidth, -y); dy <= Math.min(halfWidth, rows - 1 - y); dy++) {
+            int rowReach = kernel.rowReach()[Math.abs(dy)];
+            int fromX = Math.max(-rowReach, -x);
+            int toX = Math.min(rowReach, width - 1 - x);
+            double rowWeight = profile[dy + halfWidth];
+            int weight = halfWidth + fromX;
+            int offset = ((y + dy) * width + x + fromX) * CHANNELS;
+            for (int dx = fromX; dx <= toX; dx++, weight++, offset += CHANNELS) {
+                double w = rowWeight * profile[weight];
+                for (int c = 0; c < CHANNELS; c++) {
+                    buffer[offset + c] += w * row[cell + c];
+                }
+            }
+        }
+    }
+
+    /**
+     * Kernel at {@code index} of the table, built on first use. Threads racing on an index may each build it; the
+     * copies are equal and immutable, so whichever lands in the table is safe to share.
+     */
+    private Kernel kernel(int index) {
+        Kernel kernel = kernels[index];
+        if (kernel == null) {
+            kernel = Kernel.of(index / (double) STEPS_PER_CELL);
+            kernels[index] = kernel;
+        }
+        return kernel;
+    }
+
+    /** Index into {@link #kernels} for a cell of {@code count} samples; no cell is sparser than one sample. */
+    private int kernelIndex(double count) {
+        double density = Math.max(1, count) * oversample * oversample;
+        double radius = parameters.radius(density) * oversample;
+        return (int) Math.round(radius * STEPS_PER_CELL);
+    }
+
+    /**
+     * Normalized kernel over the cells around a cell within {@code halfWidth}: the weight at {@code (dx, dy)} is
+     * {@code profile[dx + halfWidth] * profile[dy + halfWidth]} when {@code |dx| <= rowReach[|dy|]}, zero outside.
+     *
+     * @param squaredWeights sum of the squared weights, the fraction of a cell's variance the kernel keeps
+     */
+    private record Kernel(int halfWidth, double[] profile, int[] rowReach, double squaredWeights) {
+
+        /** Gaussian falling to {@code e^-2} at {@code radius} cells and cut off there, as in flam3. */
+        static Kernel of(double radius) {
+            int halfWidth = (int) Math.floor(radius);
+            if (halfWidth == 0) {
+                return new Kernel(0, new double[] {1}, new int[] {0}, 1);
+            }
+            int size = 2 * halfWidth + 1;
+            double[] profile = new double[size];
+            for (int d = -halfWidth; d <= halfWidth; d++) {
+                double distance = d / radius;
+                profile[d + halfWidth] = Math.exp(-2 * distance * distance);
+            }
+            int[] rowReach = new int[halfWidth + 1];
+            double sum = 0;
+            for (int dy = 0; dy <= halfWidth; dy++) {
+                int dx = halfWidth;
+                while (Math.sqrt(dx * dx + dy * dy) / radius > 1) {
+                    dx--;
+                }
+                rowReach[dy] = dx;
+                double row = 0;
+                for (int i = -dx; i <= dx; i++) {
+                    row += profile[i + halfWidth];
+                }
+                sum += (dy == 0 ? 1 : 2) * profile[dy + halfWidth] * row;
+            }
+            double scale = 1 / Math.sqrt(sum);
+            for (int i = 0; i < size; i++) {
+                profile[i] *= scale;
+            }
+            double squaredWeights = 0;
+            for (int dy = 0; dy <= halfWidth; dy++) {
+                double row = 0;
+                for (int i = -rowReach[dy]; i <= rowReach[dy]; i++) {
+                    row += profile[i + halfWidth] * profile[i + halfWidth];
+                }
+                double rowWeight = profile[dy + halfWidth];
+                squaredWeights += (dy == 0 ? 1 : 2) * rowWeight * rowWeight * row;
+            }
+            return new Kernel(halfWidth, profile, rowReach, squaredWeights);
+        }
+    }
+
+    /** Per-band counts behind a {@link DensityEstimation.Report}. */
+    private record Tally(long nonEmptyCells, long blurredCells, double inverseCounts, double relativeVariance) {
+        static final Tally EMPTY = new Tally(0, 0, 0, 0);
+
+        Tally plus(Tally other) {
+            return new Tally(
+                    nonEmptyCells + other.nonEmptyCells,
+                    blurredCells + other.blurredCells,
+                    inverseCounts + other.inverseCounts,
+                    relativeVariance + other.relativeVariance);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package academy.application.render;
+
+import static academy.application.render.ImageRenderer.ALPHA;
+import static academy.application.render.ImageRenderer.CHANNELS;
+
+import academy.application.render.histogram.Histogram;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Separable resampling of an oversampled histogram down to image pixels, one image row at a time so it can run inside
+ * the tone-map pass. A row is filtered vertically into a scratch row at histogram width, then horizontally into image
+ * pixels. The tap tables are shared and the scratch rows are per thread, so rows can be filtered concurrently.
+ *
+ * <p>The weights of every image pixel are normalized to sum to the number of histogram cells it covers, so sample
+ * counts keep the scale they would have without oversampling and the box filter reproduces direct binning exactly.
+ */
+final class Downsampler {
+    private final Histogram histogram;
+    private final int width;
+    private final int height;
+    private final Taps columns;
+    private final Taps rows;
+    private final ThreadLocal<double[][]> scratch;
+
+    Downsampler(Histogram histogram, int width, int height, ReconstructionFilter filter) {
+        this.histogram = histogram;
+        this.width = width;
+        this.height = height;
+        this.columns = Taps.of(filter, width, histogram.width());
+        this.rows = Taps.of(filter, height, histogram.height());
+        int histogramRow = histogram.width() * CHANNELS;
+        int imageRow = width * CHANNELS;
+        this.scratch = ThreadLocal.withInitial(
+                () -> new double[][] {new double[histogramRow], new double[histogramRow], new double[imageRow]});
+    }
+
+    /**
+     * The {@link ImageRenderer#CHANNELS} channels of every pixel of image row {@code y}, in a buffer that belongs to
+     * the calling thread and is valid until its next call.
+     */
+    double[] filterRow(int y) {
+        double[][] buffers = scratch.get();
+        double[] source = buffers[0];
+        double[] filtered = buffers[1];
+        double[] pixels = buffers[2];
+
+        Arrays.fill(filtered, 0);
+        double[] rowWeights = rows.weights()[y];
+        for (int tap = 0, sourceY = rows.first()[y]; tap < rowWeights.length; tap++, sourceY++) {
+            double weight = rowWeights[tap];
+            histogram.readRow(sourceY, source);
+            for (int i = 0; i < filtered.length; i++) {
+                filtered[i] += weight * source[i];
+            }
+        }
+
+        for (int x = 0, i = 0; x < width; x++, i += CHANNELS) {
+            double[] columnWeights = columns.weights()[x];
+            int offset = columns.first()[x] * CHANNELS;
+            double r = 0;
+            double g = 0;
+            double b = 0;
+            double alpha = 0;
+            double color = 0;
+            for (double weight : columnWeights) {
+                r += weight * filtered[offset];
+                g += weight * filtered[offset + 1];
+                b += weight * filtered[offset + 2];
+                alpha += weight * filtered[offset + ALPHA];
+                color += weight * filtered[offset + ImageRenderer.COLOR];
+                offset += CHANNELS;
+            }
+            // Negative lobes can leave small negative sums around isolated samples
+            if (alpha <= 0) {
+                Arrays.fill(pixels, i, i + CHANNELS, 0);
+                continue;
+            }
+            pixels[i] = Math.max(0, r);
+            pixels[i + 1] = Math.max(0, g);
+            pixels[i + 2] = Math.max(0, b);
+            pixels[i + ALPHA] = alpha;
+            pixels[i + ImageRenderer.COLOR] = Math.max(0, color);
+        }
+        return pixels;
+    }
+
+    /** Largest filtered sample count of the image, computed over parallel row bands and the alpha channel only. */
+    double maxAlpha() {
+        return IntStream.range(0, height)
+                .parallel()
+                .mapToDouble(this::maxAlpha)
+                .max()
+                .orElse(0);
+    }
+
+    private double maxAlpha(int y) {
+        double[] filtered = scratch.get()[1];
+        int cells = histogram.width();
+        Arrays.fill(filtered, 0, cells, 0);
+        double[] rowWeights = rows.weights()[y];
+        for (int tap = 0, sourceY = rows.first()[y]; tap < rowWeights.length; tap++, sourceY++) {
+            double weight = rowWeights[tap];
+            for (int x = 0; x < cells; x++) {
+                filtered[x] += weight * histogram.get(x, sourceY, ALPHA);
+            }
+        }
+
+        double max = 0;
+        for (int x = 0; x < width; x++) {
+            double alpha = 0;
+            int cell = columns.first()[x];
+            for (double weight : columns.weights()[x]) {
+                alpha += weight * filtered[cell++];
+            }
+            max = Math.max(max, alpha);
+        }
+        return max;
+    }
+
+    /**
+     * Histogram cells that contribute to every image pixel along one axis.
+     *
+     * @param first index of the first contributing cell of each pixel
+     * @param weights weights of the consecutive contributing cells of each pixel
+     */
+    private record Taps(int[] first, double[][] weights) {
+
+        static Taps of(ReconstructionFilter filter, int pixels, int cells) {
+            double scale = cells / (double) pixels;
+            int[] first = new int[pixels];
+            double[][] weights = new double[pixels][];
+            for (int p = 0; p < pixels; p++) {
+                double center = (p + 0.5) * scale;
+                int start = Math.max(0, (int) Math.floor(center - filter.getRadius() * scale));
+                int end = Math.min(cells, (int) Math.ceil(center + filter.getRadius() * scale));
+
+                double[] pixelWeights = new double[end - start];
+                double sum = 0;
+                for (int cell = start; cell < end; cell++) {
+                    double weight = filter.weight((cell + 0.5 - center) / scale);
+                    pixelWeights[cell - start] = weight;
+                    sum += weight;
+                }
+                // Cells at the image border lose part of the kernel, the rest is scaled up to keep the count
+                for (int tap = 0; tap < pixelWeights.length; tap++) {
+                    pixelWeights[tap] *= scale / sum;
+                }
+                first[p] = start;
+                weights[p] = pixelWeights;
+            }
+            return new Taps(first, weights);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package academy.application.render;
+
+import academy.application.metrics.jfr.CheckpointEvent;
+import academy.application.render.histogram.Histogram;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HexFormat;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Binary format for accumulated histograms, so a render can be refined later instead of starting from zero.
+ *
+ * <p>Layout (little-endian): the {@link #MAGIC} bytes, a format version, the {@link HistogramHeader} fields and the
+ * channel count, the fingerprint as {@value #FINGERPRINT_BYTES} raw bytes (zeros when unknown), followed by
+ * {@code width * height * channels} doubles in row-major {@code [y][x][channel]} order, the layout of every
+ * {@link Histogram} implementation, so rows are copied in bulk. Older versions are not read: version 1 stored the
+ * doubles column by column, version 2 had no fingerprint and version 3 no oversample factor.
+ */
+@Slf4j
+@UtilityClass
+public class HistogramFile {
+
+    public static final String EXTENSION = ".fhist";
+    private static final byte[] MAGIC = "FFHIST".getBytes(StandardCharsets.US_ASCII);
+    private static final short VERSION = 4;
+    private static final int FINGERPRINT_BYTES = 32;
+    private static final int HEADER_SIZE =
+            MAGIC.length + Short.BYTES + 4 * Integer.BYTES + 4 * Long.BYTES + Integer.BYTES + FINGERPRINT_BYTES;
+
+    public static void write(Path path, ImageRenderer renderer, HistogramHeader header) {
+        log.info("Saving histogram to {}", path);
+        long startTime = System.currentTimeMillis();
+        CheckpointEvent event = new CheckpointEvent();
+        event.begin();
+
+        Path parentDir = path.getParent();
+        try {
+            if (parentDir != null && !Files.exists(parentDir)) {
+                Files.createDirectories(parentDir);
+                log.debug("Created histogram directory: {}", parentDir);
+            }
+
+            try (FileChannel channel = FileChannel.open(
+                    path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                write(channel, renderer, header);
+            }
+
+            long endTime = System.currentTimeMillis();
+            long fileSize = Files.size(path);
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = path.toString();
+                event.iterations = header.iterations();
+                event.pointsPlotted = header.plotCount();
+                event.bytesWritten = fileSize;
+                event.commit();
+            }
+            log.info(
+                    "Histogram saved: {} ({} bytes, {} iterations, {} streams) in {} ms",
+                    path,
+                    fileSize,
+                    header.iterations(),
+                    header.streams(),
+                    endTime - startTime);
+        } catch (IOException e) {
+            log.error("Failed to save histogram to {}: {}", path, e.getMessage());
+            throw new RuntimeException("Failed to save histogram: " + e.getMessage(), e);
+        }
+    }
+
+    /** Writes the header and the histogram of {@code renderer} at the position of {@code channel}. */
+    static void write(FileChannel channel, ImageRenderer renderer, HistogramHeader header) throws IOException {
+        ByteBuffer headerBuffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        headerBuffer
+                .put(MAGIC)
+                .putShort(VERSION)
+                .putInt(header.width())
+                .putInt(header.height())
+                .putInt(ImageRenderer.CHANNELS)
+                .putInt(header.oversample())
+                .putLong(header.seed())
+                .putLong(header.iterations())
+                .putInt(header.streams())
+                .putLong(header.plotCount())
+                .putLong(header.outOfBoundsCount())
+                .put(
+                        header.fingerprint() == null
+                                ? new byte[FINGERPRINT_BYTES]
+                                : fingerprintBytes(header.fingerprint()));
+        writeFully(channel, headerBuffer.flip());
+
+        Histogram histogram = renderer.getHistogram();
+        double[] row = new double[histogram.width() * ImageRenderer.CHANNELS];
+        ByteBuffer rowBuffer = ByteBuffer.allocate(row.length * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int y = 0; y < histogram.height(); y++) {
+            histogram.readRow(y, row);
+            rowBuffer.clear();
+            rowBuffer.asDoubleBuffer().put(row);
+            writeFully(channel, rowBuffer);
+        }
+    }
+
+    public static HistogramHeader readHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readHeader(channel, path);
+        }
+    }
+
+    /**
+     * Adds the samples stored in {@code path} on top of whatever {@code target} already holds.
+     *
+     * @return the header of the loaded file
+     */
+    public static HistogramHeader readInto(Path path, ImageRenderer target) {
+        log.info("Loading histogram from {}", path);
+        long startTime = System.currentTimeMillis();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            HistogramHeader header = readHeader(channel, path);
+            Histogram histogram = target.getHistogram();
+            if (header.width() != histogram.width() || header.height() != histogram.height()) {
+                throw new IOException(String.format(
+                        "Histogram size %dx%d does not match image size %dx%d",
+                        header.width(), header.height(), histogram.width(), histogram.height()));
+            }
+
+            double[] row = new double[histogram.width() * ImageRenderer.CHANNELS];
+            ByteBuffer rowBuffer =
+                    ByteBuffer.allocate(row.length * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int y = 0; y < histogram.height(); y++) {
+                rowBuffer.clear();
+                readFully(channel, rowBuffer, path);
+                rowBuffer.flip().asDoubleBuffer().get(row);
+                histogram.addRow(y, row);
+            }
+            target.addCounts(header.plotCount(), header.outOfBoundsCount());
+
+            long endTime = System.currentTimeMillis();
+            log.info(
+                    "Histogram loaded: {}x{}, {} iterations, {} points plotted in {} ms",
+                    header.width(),
+                    header.height(),
+                    header.iterations(),
+                    header.plotCount(),
+                    endTime - startTime);
+            return header;
+        } catch (IOException e) {
+            log.error("Failed to load histogram from {}: {}", path, e.getMessage());
+            throw new RuntimeException("Failed to load histogram: " + e.getMessage(), e);
+        }
+    }
+
+    private static HistogramHeader readHeader(FileChannel channel, Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, buffer, path);
+        buffer.flip();
+
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a histogram file: " + path);
+        }
+
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException(String.format("Unsupported histogram version %d in %s", version, path));
+        }
+
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int channels = buffer.getInt();
+        if (channels != ImageRenderer.CHANNELS) {
+            throw new IOException(String.format(
+                    "Unsupported channel count %d in %s, expected %d", channels, path, ImageRenderer.CHANNELS));
+        }
+        int oversample = buffer.getInt();
+        if (oversample < 1 || width % oversample != 0 || height % oversample != 0) {
+            throw new IOException(String.format(
+                    "Histogram size %dx%d in %s is not a multiple of its oversample factor %d",
+                    width, height, path, oversample));
+        }
+
+        long seed = buffer.getLong();
+        long iterations = buffer.getLong();
+        int streams = buffer.getInt();
+        long plotCount = buffer.getLong();
+        long outOfBoundsCount = buffer.getLong();
+        byte[] fingerprint = new byte[FINGERPRINT_BYTES];
+        buffer.get(fingerprint);
+        return new HistogramHeader(
+                width,
+                height,
+                oversample,
+                seed,
+                iterations,
+                streams,
+                plotCount,
+                outOfBoundsCount,
+                Arrays.equals(fingerprint, new byte[FINGERPRINT_BYTES])
+                        ? null
+                        : HexFormat.of().formatHex(fingerprint));
+    }
+
+    private static byte[] fingerprintBytes(String fingerprint) {
+        byte[] bytes = HexFormat.of().parseHex(fingerprint);
+        if (bytes.length != FINGERPRINT_BYTES) {
+            throw new IllegalArgumentException("Histogram fingerprint must be a SHA-256, got: " + fingerprint);
+        }
+        return bytes;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, Path path) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of histogram file: " + path);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package academy.application.render;
+
+/**
+ * Metadata stored in front of a saved histogram.
+ *
+ * @param width histogram width in pixels
+ * @param height histogram height in pixels
+ * @param oversample histogram cells per image pixel along each axis
+ * @param seed seed the histogram was rendered with (affine colors are derived from it)
+ * @param iterations total iterations accumulated so far, across all refinement passes
+ * @param streams number of random streams already consumed; a refinement pass starts from this index
+ * @param plotCount number of samples that landed inside the image
+ * @param outOfBoundsCount number of samples that fell outside the image
+ * @param fingerprint SHA-256 in hex of the configuration the histogram was rendered from, so it is only resumed with
+ *     that configuration; {@code null} when unknown
+ */
+public record HistogramHeader(
+        int width,
+        int height,
+        int oversample,
+        long seed,
+        long iterations,
+        int streams,
+        long plotCount,
+        long outOfBoundsCount,
+        String fingerprint) {}
@@ -1,81 +1,445 @@
 package academy.application.render;
 
+import academy.application.metrics.RenderMetrics;
+import academy.application.metrics.RenderPhase;
+import academy.application.metrics.jfr.EncodeEvent;
+import academy.application.metrics.jfr.MergeEvent;
+import academy.application.metrics.jfr.ToneMapEvent;
+import academy.application.render.histogram.AccumulationStrategy;
+import academy.application.render.histogram.DoubleHistogram;
+import academy.application.render.histogram.Histogram;
+import academy.application.render.histogram.HistogramPool;
+import academy.application.render.png.PngEncoder;
+import academy.application.render.png.RowSource;
 import academy.domain.AppConfiguration;
 import academy.domain.Point;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
-import javax.imageio.ImageIO;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Getter
-public class ImageRenderer {
+public class ImageRenderer implements AutoCloseable {
     public static final int BRIGHTNESS = 255;
     public static final double AMPLITUDE = 0.5;
-    private static final double X_MIN = -4.0;
-    private static final double X_MAX = 4.0;
-    private static final double Y_MIN = -4.0;
-    private static final double Y_MAX = 4.0;
+    public static final int ALPHA = Histogram.ALPHA;
+    /** Sum of the palette coordinates of the samples, so the histogram can be re-colored with any palette. */
+    public static final int COLOR = Histogram.COLOR;
 
+    public static final int CHANNELS = Histogram.CHANNELS;
+    public static final Palette ACCUMULATION_PALETTE = Palette.RAINBOW;
+    /** Output path that streams the image to standard output. */
+    public static final Path STDOUT = Path.of("-");
+
+    private static final int MAX_16_BIT_SAMPLE = 0xFFFF;
+
+    static final double X_MIN = -4.0;
+    static final double X_MAX = 4.0;
+    static final double Y_MIN = -4.0;
+    static final double Y_MAX = 4.0;
+
+    /** Size of the image; the histogram is {@link #oversample} times larger along each axis. */
     private final int width;
+
     private final int height;
-    private final double[][][] histogram;
+    private final int oversample;
+    private final AccumulationStrategy strategy;
+    /** Replaced by its density-estimated version in {@link #estimateDensity}. */
+    private Histogram histogram;
+    /** Where a {@link AccumulationStrategy#MAPPED_FILE mapped} histogram puts its file, {@code null} for the others. */
+    @Getter(AccessLevel.NONE)
+    private final Path tempDirectory;
+    /** Whether {@link #close()} releases the histogram; worker views of a shared histogram leave it to the owner. */
+    @Getter(AccessLevel.NONE)
+    private final boolean ownsHistogram;
+    /** Where the histograms come from and go back to, {@code null} to allocate them for this render only. */
+    @Getter(AccessLevel.NONE)
+    private final HistogramPool pool;
+
     private final int[][] palette;
     private long plotCount = 0;
     private long outOfBoundsCount = 0;
 
+    @Setter
+    private PngEncoder pngEncoder = PngEncoder.create(Deflater.DEFAULT_COMPRESSION, 1);
+
+    /** Bits per PNG sample, 8 or 16. */
+    @Setter
+    private int pngBitDepth = 8;
+
+    /** Receives the tone map and encode durations of every save. */
+    @Setter
+    private RenderMetrics metrics = new RenderMetrics();
+
+    /** Filter that resamples the histogram to image pixels, see {@link #setFilter}. */
+    private ReconstructionFilter filter = ReconstructionFilter.BOX;
+
+    /** {@code null} while the histogram maps one to one to image pixels. */
+    @Getter(AccessLevel.NONE)
+    private Downsampler downsampler;
+
     public ImageRenderer(AppConfiguration configuration) {
-        this.width = configuration.getSize().width();
-        this.height = configuration.getSize().height();
-        this.histogram = new double[width][height][4];
-        this.palette = generatePalette();
+        this(configuration, AccumulationStrategy.PER_THREAD_DOUBLE, null);
+    }
+
+    /**
+     * Renderer whose histogram follows {@code strategy}, usually the one a {@code MemoryPlanner} picked.
+     *
+     * @param tempDirectory where a {@link AccumulationStrategy#MAPPED_FILE mapped} histogram puts its file
+     */
+    public ImageRenderer(AppConfiguration configuration, AccumulationStrategy strategy, Path tempDirectory) {
+        this(configuration, strategy, tempDirectory, 1);
+    }
+
+    /**
+     * @param oversample histogram cells per image pixel along each axis; the histogram is downsampled with
+     *     {@link #getFilter() the filter} when the image is written
+     */
+    public ImageRenderer(
+            AppConfiguration configuration, AccumulationStrategy strategy, Path tempDirectory, int oversample) {
+        this(
+                strategy.createHistogram(
+                        configuration.getSize().width() * oversample,
+                        configuration.getSize().height() * oversample,
+                        strategy.isShared() && configuration.getThreadQuantity() > 1,
+                        tempDirectory),
+                strategy,
+                tempDirectory,
+                true,
+                oversample,
+                null);
+        this.pngEncoder = PngEncoder.create(Deflater.DEFAULT_COMPRESSION, configuration.getThreadQuantity());
+    }
+
+    /**
+     * Renderer whose final and worker histograms come from {@code pool} and go back to it on {@link #close()}, for
+     * renders that run back to back. It encodes on the calling thread: parallelism comes from the jobs.
+     */
+    public ImageRenderer(AppConfiguration configuration, HistogramPool pool) {
+        this(
+                pool.acquire(
+                        configuration.getSize().width(), configuration.getSize().height()),
+                AccumulationStrategy.PER_THREAD_DOUBLE,
+                null,
+                true,
+                1,
+                pool);
+    }
 
-        log.debug("ImageRenderer initialized: {}x{} pixels", width, height);
+    public ImageRenderer(int width, int height) {
+        this(width, height, 1);
+    }
+
+    public ImageRenderer(int width, int height, int oversample) {
+        this(
+                new DoubleHistogram(width * oversample, height * oversample),
+                AccumulationStrategy.PER_THREAD_DOUBLE,
+                null,
+                true,
+                oversample,
+                null);
+    }
+
+    private ImageRenderer(
+            Histogram histogram,
+            AccumulationStrategy strategy,
+            Path tempDirectory,
+            boolean ownsHistogram,
+            int oversample,
+            HistogramPool pool) {
+        this.width = histogram.width() / oversample;
+        this.height = histogram.height() / oversample;
+        this.oversample = oversample;
+        this.strategy = strategy;
+        this.histogram = histogram;
+        this.tempDirectory = tempDirectory;
+        this.ownsHistogram = ownsHistogram;
+        this.pool = pool;
+        this.palette = ACCUMULATION_PALETTE.getColors();
+        this.downsampler = oversample > 1 ? new Downsampler(histogram, width, height, filter) : null;
+
+        log.debug(
+                "ImageRenderer initialized: {}x{} pixels, {}x oversampled ({})",
+                width,
+                height,
+                oversample,
+                strategy.getKey());
         log.trace("Coordinate bounds: X[{}, {}], Y[{}, {}]", X_MIN, X_MAX, Y_MIN, Y_MAX);
     }
 
+    /**
+     * Sets the filter that resamples the histogram to image pixels; filters other than the box also smooth 1x renders.
+     */
+    public void setFilter(ReconstructionFilter filter) {
+        this.filter = filter;
+        this.downsampler = oversample > 1 || filter != ReconstructionFilter.BOX
+                ? new Downsampler(histogram, width, height, filter)
+                : null;
+    }
+
+    /**
+     * Replaces the histogram with its density-estimated version, see {@link DensityEstimation}. The new histogram
+     * follows the renderer's strategy, so both are in memory until the pass ends.
+     */
+    public DensityEstimation.Report estimateDensity(DensityEstimation parameters) {
+        if (!ownsHistogram) {
+            throw new IllegalStateException("Only the renderer that owns the histogram can replace it");
+        }
+        long startTime = System.nanoTime();
+        long allocatedBefore = RenderMetrics.allocatedBytes();
+        Histogram estimated = strategy.createHistogram(histogram.width(), histogram.height(), false, tempDirectory);
+        DensityEstimation.Report report = new DensityEstimator(parameters, oversample).apply(histogram, estimated);
+        releaseHistogram();
+        histogram = estimated;
+        setFilter(filter);
+        long nanos = System.nanoTime() - startTime;
+        metrics.addPhase(RenderPhase.DENSITY_ESTIMATION, nanos, RenderMetrics.allocatedBytes() - allocatedBefore);
+
+        log.info(
+                "Density estimation blurred {} of {} non-empty cells in {} ms",
+                report.blurredCells(),
+                report.nonEmptyCells(),
+                nanos / 1_000_000);
+        log.info(
+                "A plain render needs about {}x the iterations ({} points plotted instead of {}) for the same mean "
+                        + "noise: {}% saved",
+                Math.round(report.iterationFactor() * 10) / 10.0,
+                Math.round(plotCount * report.iterationFactor()),
+                plotCount,
+                Math.round(report.iterationSavings() * 1000) / 10.0);
+        return report;
+    }
+
+    /**
+     * Renderer for one worker of a multi-threaded run, with its own counters. Shared strategies plot straight into this
+     * renderer's histogram, the others into a private one that {@link #merge(List)} adds back.
+     */
+    public ImageRenderer newWorker() {
+        if (strategy.isShared()) {
+            return new ImageRenderer(histogram, strategy, tempDirectory, false, oversample, pool);
+        }
+        Histogram workerHistogram = pool != null
+                ? pool.acquire(histogram.width(), histogram.height())
+                : strategy.createWorkerHistogram(histogram.width(), histogram.height());
+        return new ImageRenderer(workerHistogram, strategy, tempDirectory, true, oversample, pool);
+    }
+
     public void plot(Point point) {
-        int px = (int) Math.floor((point.getX() - X_MIN) / (X_MAX - X_MIN) * width);
-        int py = (int) Math.floor((point.getY() - Y_MIN) / (Y_MAX - Y_MIN) * height);
+        int histogramWidth = width * oversample;
+        int histogramHeight = height * oversample;
+        int px = (int) Math.floor((point.getX() - X_MIN) / (X_MAX - X_MIN) * histogramWidth);
+        int py = (int) Math.floor((point.getY() - Y_MIN) / (Y_MAX - Y_MIN) * histogramHeight);
 
-        if (px < 0 || px >= width || py < 0 || py >= height) {
+        if (px < 0 || px >= histogramWidth || py < 0 || py >= histogramHeight) {
             outOfBoundsCount++;
             return;
         }
 
-        int colorIndex = (int) Math.floor(point.getColor() * BRIGHTNESS);
-        colorIndex = Math.max(0, Math.min(BRIGHTNESS, colorIndex));
-        int[] color = palette[colorIndex];
+        int[] color = ACCUMULATION_PALETTE.colorAt(point.getColor());
 
-        histogram[px][py][0] += color[0] / (double) BRIGHTNESS;
-        histogram[px][py][1] += color[1] / (double) BRIGHTNESS;
-        histogram[px][py][2] += color[2] / (double) BRIGHTNESS;
-        histogram[px][py][3] += 1.0;
+        histogram.addSample(
+                px,
+                py,
+                color[0] / (double) BRIGHTNESS,
+                color[1] / (double) BRIGHTNESS,
+                color[2] / (double) BRIGHTNESS,
+                point.getColor());
 
         plotCount++;
     }
 
+    void addCounts(long plotted, long outOfBounds) {
+        this.plotCount += plotted;
+        this.outOfBoundsCount += outOfBounds;
+    }
+
     public void save(Path outputPath) {
-        log.info("Starting image rendering to {}", outputPath);
-        long startTime = System.currentTimeMillis();
+        save(outputPath, ToneMapper.DEFAULT);
+    }
 
-        Path parentDir = outputPath.getParent();
-        if (parentDir != null && !Files.exists(parentDir)) {
-            try {
-                Files.createDirectories(parentDir);
-                log.debug("Created output directory: {}", parentDir);
-            } catch (IOException e) {
-                log.error("Failed to create output directory: {}", parentDir, e);
-                throw new RuntimeException("Cannot create output directory: " + e.getMessage(), e);
+    /** Writes the image in the format given by the path's extension, see {@link OutputFormat}. */
+    public void save(Path outputPath, ToneMapper toneMapper) {
+        OutputFormat format = OutputFormat.fromPath(outputPath);
+        log.info("Starting image rendering to {} ({})", outputPath, format);
+        long startTime = System.nanoTime();
+
+        EncodeEvent event = new EncodeEvent();
+        event.begin();
+        try {
+            long fileSize;
+            if (STDOUT.equals(outputPath)) {
+                fileSize = write(Channels.newChannel(System.out), format, toneMapper);
+                System.out.flush();
+            } else {
+                createParentDirectories(outputPath);
+                try (FileChannel channel = FileChannel.open(
+                        outputPath,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                    fileSize = write(channel, format, toneMapper);
+                }
+            }
+            long nanos = System.nanoTime() - startTime;
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = outputPath.toString();
+                event.format = format.name();
+                event.width = width;
+                event.height = height;
+                event.bytesWritten = fileSize;
+                event.commit();
+            }
+
+            log.info("Image saved successfully: {} ({} bytes)", outputPath, fileSize);
+            log.info("Rendering completed in {} ms", nanos / 1_000_000);
+            log.debug("Total points plotted: {}, out of bounds: {}", plotCount, outOfBoundsCount);
+        } catch (IOException e) {
+            log.error("Failed to save image to {}: {}", outputPath, e.getMessage());
+            throw new RuntimeException("Failed to save image: " + e.getMessage(), e);
+        }
+    }
+
+    /** Writes the image in {@code format}, for {@link #save} and the time budget calibration. */
+    long write(WritableByteChannel channel, OutputFormat format, ToneMapper toneMapper) throws IOException {
+        if (format == OutputFormat.PNG) {
+            return writePng(channel, toneMapper);
+        }
+        // The float exports interleave tone mapping with writing too closely to split, they count as encoding
+        long startTime = System.nanoTime();
+        long allocatedBefore = RenderMetrics.allocatedBytes();
+        long written = format == OutputFormat.PFM
+                ? RasterExport.writePfm(channel, this, toneMapper)
+                : RasterExport.writeNpy(channel, this);
+        metrics.addPhase(
+                RenderPhase.ENCODE, System.nanoTime() - startTime, RenderMetrics.allocatedBytes() - allocatedBefore);
+        return written;
+    }
+
+    /**
+     * Tone-maps the histogram row by row straight into a PNG stream, without materializing the image.
+     *
+     * @return number of bytes written
+     */
+    public long writePng(WritableByteChannel channel, ToneMapper toneMapper) throws IOException {
+        long startTime = System.nanoTime();
+        long allocatedBefore = RenderMetrics.allocatedBytes();
+        double logMaxAlpha = logMaxAlpha();
+
+        LongAdder nonEmptyPixels = new LongAdder();
+        LongAdder toneMapNanos = new LongAdder();
+        LongAdder toneMapAllocated = new LongAdder();
+        RowSource source = (y, row) -> {
+            ToneMapEvent event = new ToneMapEvent();
+            event.begin();
+            long rowStartTime = System.nanoTime();
+            long rowAllocatedBefore = RenderMetrics.threadAllocatedBytes();
+            int rowNonEmptyPixels = toneMapRow(y, row, toneMapper, logMaxAlpha);
+            toneMapAllocated.add(RenderMetrics.threadAllocatedBytes() - rowAllocatedBefore);
+            toneMapNanos.add(System.nanoTime() - rowStartTime);
+            nonEmptyPixels.add(rowNonEmptyPixels);
+            event.end();
+            if (event.shouldCommit()) {
+                event.row = y;
+                event.pixels = width;
+                event.nonEmptyPixels = rowNonEmptyPixels;
+                event.commit();
+            }
+        };
+        long written = pngEncoder.encode(channel, width, height, pngBitDepth, source);
+
+        // Rows are tone-mapped on demand, possibly on several encoder threads at once, so the tone map has no wall time
+        // of its own: the write counts as encoding and the row time goes apart as CPU time
+        long totalAllocated = RenderMetrics.allocatedBytes() - allocatedBefore;
+        metrics.addPhase(RenderPhase.TONE_MAP, 0, toneMapAllocated.sum());
+        metrics.addPhaseCpu(RenderPhase.TONE_MAP, toneMapNanos.sum());
+        metrics.addPhase(
+                RenderPhase.ENCODE,
+                System.nanoTime() - startTime,
+                Math.max(0, totalAllocated - toneMapAllocated.sum()));
+
+        // Rounded by hand rather than String.format, which builds a Formatter on every save
+        double coveragePercent = Math.round(nonEmptyPixels.sum() * 10_000.0 / ((long) width * height)) / 100.0;
+        log.info("Image statistics: {} non-empty pixels ({}% coverage)", nonEmptyPixels.sum(), coveragePercent);
+
+        if (coveragePercent < 1.0) {
+            log.warn("Very low pixel coverage ({}%). Consider adjusting parameters.", coveragePercent);
+        }
+        return written;
+    }
+
+    /**
+     * Tone-maps the whole histogram into memory, so the histogram can be released before the image is encoded. Takes
+     * {@code width * height * 3 * pngBitDepth / 8} bytes where {@link #writePng} streams the rows.
+     */
+    public ToneMappedImage toneMap(ToneMapper toneMapper) {
+        long startTime = System.nanoTime();
+        long allocatedBefore = RenderMetrics.allocatedBytes();
+        double logMaxAlpha = logMaxAlpha();
+
+        int rowBytes = width * 3 * pngBitDepth / 8;
+        byte[] pixels = new byte[Math.multiplyExact(rowBytes, height)];
+        byte[] row = new byte[rowBytes];
+        long nonEmptyPixels = 0;
+        for (int y = 0; y < height; y++) {
+            nonEmptyPixels += toneMapRow(y, row, toneMapper, logMaxAlpha);
+            System.arraycopy(row, 0, pixels, y * rowBytes, rowBytes);
+        }
+        metrics.addPhase(
+                RenderPhase.TONE_MAP, System.nanoTime() - startTime, RenderMetrics.allocatedBytes() - allocatedBefore);
+        return new ToneMappedImage(width, height, pngBitDepth, pixels, nonEmptyPixels);
+    }
+
+    /**
+     * Tone-maps a box-downscaled copy of this histogram plus those of {@code workers}, at most {@code maxSize} pixels
+     * along the longer side. The histograms are read without synchronization so the workers can keep plotting: a
+     * preview may miss or half-count the samples of the chunks in flight. Costs one pass over every histogram and a
+     * preview-sized buffer.
+     */
+    public ToneMappedImage preview(List<ImageRenderer> workers, int maxSize, ToneMapper toneMapper) {
+        int histogramWidth = histogram.width();
+        int histogramHeight = histogram.height();
+        int scale = Math.max(1, (Math.max(histogramWidth, histogramHeight) + maxSize - 1) / maxSize);
+        try (ImageRenderer preview =
+                new ImageRenderer((histogramWidth + scale - 1) / scale, (histogramHeight + scale - 1) / scale)) {
+            double[] row = new double[histogramWidth * CHANNELS];
+            addDownscaled(histogram, preview.histogram, scale, row);
+            for (ImageRenderer worker : workers) {
+                // Workers of a shared strategy plot into this histogram, which is already added above
+                if (worker.histogram != histogram) {
+                    addDownscaled(worker.histogram, preview.histogram, scale, row);
+                }
             }
+            return preview.toneMap(toneMapper);
         }
+    }
 
-        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    private static void addDownscaled(Histogram source, Histogram target, int scale, double[] row) {
+        for (int y = 0; y < source.height(); y++) {
+            source.readRow(y, row);
+            for (int x = 0, i = 0; x < source.width(); x++) {
+                for (int c = 0; c < CHANNELS; c++, i++) {
+                    if (row[i] != 0) {
+                        target.add(x / scale, y / scale, c, row[i]);
+                    }
+                }
+            }
+        }
+    }
 
+    /** Log of the densest pixel's sample count, the normalization every tone-mapped output shares. */
+    double logMaxAlpha() {
         double maxAlpha = findMaxAlpha();
         if (maxAlpha == 0) {
             log.warn("No points were plotted! The resulting image will be empty.");
@@ -87,124 +451,146 @@ public class ImageRenderer {
 
         double logMaxAlpha = Math.log(maxAlpha);
         log.debug("Log max alpha: {}", logMaxAlpha);
+        return logMaxAlpha;
+    }
 
+    private int toneMapRow(int y, byte[] row, ToneMapper toneMapper, double logMaxAlpha) {
+        if (pngBitDepth == 16) {
+            return toneMapRow16(y, row, toneMapper, logMaxAlpha);
+        }
         int nonEmptyPixels = 0;
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                int rgb = computePixelColor(x, y, logMaxAlpha);
-                image.setRGB(x, y, rgb);
-                if (rgb != 0) {
-                    nonEmptyPixels++;
-                }
+        double[] filteredRow = filteredRow(y);
+        double[] pixel = new double[CHANNELS];
+        double[] rgb = new double[3];
+        for (int x = 0, i = 0; x < width; x++) {
+            int color = mapPixel(toneMapper, filteredRow, x, y, pixel, logMaxAlpha, rgb) ? ToneMapper.toRgb8(rgb) : 0;
+            row[i++] = (byte) (color >> 16);
+            row[i++] = (byte) (color >> 8);
+            row[i++] = (byte) color;
+            if (color != 0) {
+                nonEmptyPixels++;
             }
         }
+        return nonEmptyPixels;
+    }
 
-        double coveragePercent = nonEmptyPixels * 100.0 / (width * height);
-        log.info(
-                "Image statistics: {} non-empty pixels ({}% coverage)",
-                nonEmptyPixels, String.format("%.2f", coveragePercent));
-
-        if (coveragePercent < 1.0) {
-            log.warn(
-                    "Very low pixel coverage ({}%). Consider adjusting parameters.",
-                    String.format("%.2f", coveragePercent));
-        }
-
-        try {
-            ImageIO.write(image, "PNG", outputPath.toFile());
-            long fileSize = Files.size(outputPath);
-            long endTime = System.currentTimeMillis();
-
-            log.info("Image saved successfully: {} ({} bytes)", outputPath, fileSize);
-            log.info("Rendering completed in {} ms", endTime - startTime);
-            log.debug("Total points plotted: {}, out of bounds: {}", plotCount, outOfBoundsCount);
-        } catch (IOException e) {
-            log.error("Failed to save image to {}: {}", outputPath, e.getMessage());
-            throw new RuntimeException("Failed to save image: " + e.getMessage(), e);
+    private int toneMapRow16(int y, byte[] row, ToneMapper toneMapper, double logMaxAlpha) {
+        int nonEmptyPixels = 0;
+        double[] filteredRow = filteredRow(y);
+        double[] pixel = new double[CHANNELS];
+        double[] rgb = new double[3];
+        for (int x = 0, i = 0; x < width; x++) {
+            mapPixel(toneMapper, filteredRow, x, y, pixel, logMaxAlpha, rgb);
+            boolean nonEmpty = false;
+            for (int c = 0; c < 3; c++) {
+                int sample = (int) (Math.min(1.0, rgb[c]) * MAX_16_BIT_SAMPLE);
+                row[i++] = (byte) (sample >> 8);
+                row[i++] = (byte) sample;
+                nonEmpty |= sample != 0;
+            }
+            if (nonEmpty) {
+                nonEmptyPixels++;
+            }
         }
+        return nonEmptyPixels;
     }
 
-    private int computePixelColor(int x, int y, double logMaxAlpha) {
-        double alpha = histogram[x][y][3];
+    /**
+     * Image row {@code y} resampled from the histogram, or {@code null} when image pixels are histogram cells. The
+     * buffer belongs to the calling thread and is valid until its next call.
+     */
+    double[] filteredRow(int y) {
+        return downsampler == null ? null : downsampler.filterRow(y);
+    }
 
-        if (alpha == 0) {
-            return 0;
+    /** Tone-maps image pixel {@code x} of row {@code y}, {@code filteredRow} being {@link #filteredRow(int)}. */
+    boolean mapPixel(
+            ToneMapper toneMapper,
+            double[] filteredRow,
+            int x,
+            int y,
+            double[] pixel,
+            double logMaxAlpha,
+            double[] rgb) {
+        if (filteredRow != null) {
+            return toneMapper.mapPixel(filteredRow, x * CHANNELS, logMaxAlpha, rgb);
         }
+        histogram.read(x, y, pixel);
+        return toneMapper.mapPixel(pixel, logMaxAlpha, rgb);
+    }
 
-        double logScale = Math.log(alpha) / alpha;
-        double r = histogram[x][y][0] * logScale;
-        double g = histogram[x][y][1] * logScale;
-        double b = histogram[x][y][2] * logScale;
-
-        if (logMaxAlpha > 0) {
-            r /= logMaxAlpha;
-            g /= logMaxAlpha;
-            b /= logMaxAlpha;
+    static void createParentDirectories(Path outputPath) {
+        Path parentDir = outputPath.getParent();
+        if (parentDir != null && !Files.exists(parentDir)) {
+            try {
+                Files.createDirectories(parentDir);
+                log.debug("Created output directory: {}", parentDir);
+            } catch (IOException e) {
+                log.error("Failed to create output directory: {}", parentDir, e);
+                throw new RuntimeException("Cannot create output directory: " + e.getMessage(), e);
+            }
         }
-
-        r = Math.min(1.0, Math.max(0.0, r));
-        g = Math.min(1.0, Math.max(0.0, g));
-        b = Math.min(1.0, Math.max(0.0, b));
-
-        int r8 = (int) (r * BRIGHTNESS);
-        int g8 = (int) (g * BRIGHTNESS);
-        int b8 = (int) (b * BRIGHTNESS);
-
-        return (r8 << 16) | (g8 << 8) | b8;
     }
 
-    private double findMaxAlpha() {
+    /** Largest sample count of an image pixel, after resampling when the histogram is oversampled or filtered. */
+    public double findMaxAlpha() {
+        if (downsampler != null) {
+            return downsampler.maxAlpha();
+        }
         double max = 0;
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                if (histogram[x][y][3] > max) {
-                    max = histogram[x][y][3];
-                }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                max = Math.max(max, histogram.get(x, y, ALPHA));
             }
         }
         return max;
     }
 
-    private int[][] generatePalette() {
-        log.trace("Generating color palette with {} colors", BRIGHTNESS + 1);
-        int[][] pal = new int[256][3];
-
-        for (int i = 0; i <= BRIGHTNESS; i++) {
-            double t = i / (double) BRIGHTNESS;
-            pal[i][0] = (int) (BRIGHTNESS * (AMPLITUDE + AMPLITUDE * Math.sin(2 * Math.PI * t + 0)));
-            pal[i][1] = (int) (BRIGHTNESS * (AMPLITUDE + AMPLITUDE * Math.sin(2 * Math.PI * t + 2 * Math.PI / 3)));
-            pal[i][2] = (int) (BRIGHTNESS * (AMPLITUDE + AMPLITUDE * Math.sin(2 * Math.PI * t + 4 * Math.PI / 3)));
-        }
-
-        return pal;
-    }
-
     public void merge(List<ImageRenderer> others) {
         log.debug("Merging {} histograms", others.size());
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
+        MergeEvent event = new MergeEvent();
+        event.begin();
 
-        int mergedPixelCount = 0;
         for (var other : others) {
-            for (int i = 0; i < width; i++) {
-                for (int j = 0; j < height; j++) {
-                    if (other.getHistogram()[i][j][3] > 0) {
-                        mergedPixelCount++;
-                    }
-                    for (int k = 0; k < 4; k++) {
-                        this.histogram[i][j][k] += other.getHistogram()[i][j][k];
-                    }
-                }
+            // Workers of a shared strategy plotted straight into this histogram, only their counters are left to add
+            if (other.histogram != histogram) {
+                histogram.addAll(other.histogram);
             }
             this.plotCount += other.plotCount;
             this.outOfBoundsCount += other.outOfBoundsCount;
         }
 
-        long endTime = System.currentTimeMillis();
+        event.end();
+        if (event.shouldCommit()) {
+            event.histograms = others.size();
+            event.pixels = (long) histogram.width() * histogram.height();
+            event.pointsPlotted = plotCount;
+            event.commit();
+        }
         log.debug(
-                "Merge completed in {} ms. Merged {} non-empty pixels from {} renderers. Total plot count: {}",
-                endTime - startTime,
-                mergedPixelCount,
+                "Merge completed in {} ms. Merged {} renderers. Total plot count: {}",
+                (System.nanoTime() - startTime) / 1_000_000,
                 others.size(),
                 this.plotCount);
     }
+
+    /**
+     * Returns the histogram to the pool, or releases it if it lives outside the heap; the renderer must not be used
+     * afterwards.
+     */
+    @Override
+    public void close() {
+        if (ownsHistogram) {
+            releaseHistogram();
+        }
+    }
+
+    private void releaseHistogram() {
+        if (pool != null) {
+            pool.release(histogram);
+        } else {
+            histogram.close();
+        }
+    }
 }
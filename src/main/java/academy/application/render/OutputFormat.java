@@ -0,0 +1,47 @@
+package academy.application.render;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import lombok.Getter;
+
+/** Image and data formats the renderer writes, selected by the output file extension. */
+@Getter
+public enum OutputFormat {
+    /** Tone-mapped RGB PNG, 8 or 16 bits per sample. */
+    PNG(".png"),
+    /** Portable float map: tone-mapped, unclamped linear RGB as 32-bit floats. */
+    PFM(".pfm"),
+    /** NumPy array of the raw histogram channels, shape {@code (height, width, CHANNELS)}, little-endian doubles. */
+    NPY(".npy");
+
+    private final String extension;
+
+    OutputFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * @return the format for the path's extension; standard output is always written as PNG
+     * @throws IllegalArgumentException if the extension is not supported
+     */
+    public static OutputFormat fromPath(Path path) {
+        if (ImageRenderer.STDOUT.equals(path)) {
+            return PNG;
+        }
+        Path fileName = path.getFileName();
+        String name = fileName == null ? "" : fileName.toString().toLowerCase(Locale.ROOT);
+        for (OutputFormat format : values()) {
+            if (name.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException(
+                String.format("Unsupported output format: %s. Available: %s", path, getExtensionsAsString()));
+    }
+
+    public static String getExtensionsAsString() {
+        return Arrays.stream(values()).map(OutputFormat::getExtension).collect(Collectors.joining(", "));
+    }
+}
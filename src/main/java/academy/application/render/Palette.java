@@ -0,0 +1,49 @@
+package academy.application.render;
+
+import static academy.application.render.ImageRenderer.AMPLITUDE;
+import static academy.application.render.ImageRenderer.BRIGHTNESS;
+
+import java.util.Arrays;
+import java.util.function.DoubleFunction;
+import java.util.stream.Collectors;
+
+/** Color palettes indexed by the palette coordinate a sample carries, {@code 0..BRIGHTNESS}. */
+public enum Palette {
+    RAINBOW(t -> new double[] {
+        AMPLITUDE + AMPLITUDE * Math.sin(2 * Math.PI * t),
+        AMPLITUDE + AMPLITUDE * Math.sin(2 * Math.PI * t + 2 * Math.PI / 3),
+        AMPLITUDE + AMPLITUDE * Math.sin(2 * Math.PI * t + 4 * Math.PI / 3)
+    }),
+
+    FIRE(t -> new double[] {Math.min(1.0, 3 * t), Math.min(1.0, Math.max(0.0, 3 * t - 1)), Math.max(0.0, 3 * t - 2)}),
+
+    OCEAN(t -> new double[] {t * t, AMPLITUDE * t + AMPLITUDE * t * t, AMPLITUDE + AMPLITUDE * t}),
+
+    GRAYSCALE(t -> new double[] {t, t, t});
+
+    private final int[][] colors;
+
+    Palette(DoubleFunction<double[]> generator) {
+        this.colors = new int[BRIGHTNESS + 1][3];
+        for (int i = 0; i <= BRIGHTNESS; i++) {
+            double[] rgb = generator.apply(i / (double) BRIGHTNESS);
+            for (int c = 0; c < 3; c++) {
+                colors[i][c] = (int) (BRIGHTNESS * rgb[c]);
+            }
+        }
+    }
+
+    /** Returns the color table; callers must not modify it. */
+    public int[][] getColors() {
+        return colors;
+    }
+
+    public int[] colorAt(double paletteCoordinate) {
+        int colorIndex = (int) Math.floor(paletteCoordinate * BRIGHTNESS);
+        return colors[Math.max(0, Math.min(BRIGHTNESS, colorIndex))];
+    }
+
+    public static String getValuesAsString() {
+        return Arrays.stream(values()).map(Enum::name).map(String::toLowerCase).collect(Collectors.joining(", "));
+    }
+}
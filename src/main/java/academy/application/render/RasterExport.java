@@ -0,0 +1,98 @@
+package academy.application.render;
+
+import static academy.application.render.ImageRenderer.CHANNELS;
+
+import academy.application.render.histogram.Histogram;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Floating-point exports for downstream tools that do their own tone mapping or compositing. Both formats are written
+ * row by row straight from the histogram into a channel, one row buffer at a time.
+ */
+@UtilityClass
+public class RasterExport {
+
+    private static final byte[] NPY_MAGIC = {(byte) 0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0};
+    private static final int NPY_ALIGNMENT = 64;
+
+    /**
+     * Writes a little-endian PFM with the tone-mapped, unclamped RGB values. PFM stores the bottom row first.
+     *
+     * @return number of bytes written
+     */
+    public static long writePfm(WritableByteChannel channel, ImageRenderer renderer, ToneMapper toneMapper)
+            throws IOException {
+        int width = renderer.getWidth();
+        int height = renderer.getHeight();
+        double logMaxAlpha = renderer.logMaxAlpha();
+
+        // A negative scale marks little-endian data
+        byte[] header = String.format("PF\n%d %d\n-1.0\n", width, height).getBytes(StandardCharsets.US_ASCII);
+        long written = writeFully(channel, ByteBuffer.wrap(header));
+
+        ByteBuffer row = ByteBuffer.allocate(width * 3 * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        double[] pixel = new double[CHANNELS];
+        double[] rgb = new double[3];
+        for (int y = height - 1; y >= 0; y--) {
+            row.clear();
+            double[] filteredRow = renderer.filteredRow(y);
+            for (int x = 0; x < width; x++) {
+                renderer.mapPixel(toneMapper, filteredRow, x, y, pixel, logMaxAlpha, rgb);
+                row.putFloat((float) rgb[0]).putFloat((float) rgb[1]).putFloat((float) rgb[2]);
+            }
+            written += writeFully(channel, row.flip());
+        }
+        return written;
+    }
+
+    /**
+     * Writes the raw histogram as a version 1.0 NPY array of shape {@code (height, width, CHANNELS)} in C order, so
+     * {@code numpy.load} returns it indexed as {@code [y, x, channel]}. An oversampled histogram is written at its own
+     * resolution.
+     *
+     * @return number of bytes written
+     */
+    public static long writeNpy(WritableByteChannel channel, ImageRenderer renderer) throws IOException {
+        Histogram histogram = renderer.getHistogram();
+        int width = histogram.width();
+        int height = histogram.height();
+
+        StringBuilder dictionary = new StringBuilder(String.format(
+                "{'descr': '<f8', 'fortran_order': False, 'shape': (%d, %d, %d), }", height, width, CHANNELS));
+        int prefix = NPY_MAGIC.length + Short.BYTES;
+        while ((prefix + dictionary.length() + 1) % NPY_ALIGNMENT != 0) {
+            dictionary.append(' ');
+        }
+        dictionary.append('\n');
+        byte[] dictionaryBytes = dictionary.toString().getBytes(StandardCharsets.US_ASCII);
+
+        ByteBuffer header = ByteBuffer.allocate(prefix + dictionaryBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(NPY_MAGIC).putShort((short) dictionaryBytes.length).put(dictionaryBytes);
+        long written = writeFully(channel, header.flip());
+
+        ByteBuffer row = ByteBuffer.allocate(width * CHANNELS * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int y = 0; y < height; y++) {
+            row.clear();
+            for (int x = 0; x < width; x++) {
+                for (int c = 0; c < CHANNELS; c++) {
+                    row.putDouble(histogram.get(x, y, c));
+                }
+            }
+            written += writeFully(channel, row.flip());
+        }
+        return written;
+    }
+
+    private static long writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        long written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return written;
+    }
+}
@@ -0,0 +1,69 @@
+package academy.application.render;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Filters that turn an oversampled histogram into image pixels. Weights are functions of the distance from the image
+ * pixel center, in image pixels, and vanish beyond {@link #getRadius()}.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ReconstructionFilter {
+    /** Sums the histogram cells inside the pixel: the same counts as binning straight into image pixels. */
+    BOX("box", 0.5),
+    /** Gaussian with a standard deviation of half a pixel, cut off at three deviations. */
+    GAUSSIAN("gaussian", 1.5),
+    /** Mitchell-Netravali with B = C = 1/3: sharper than the Gaussian, with slight negative lobes. */
+    MITCHELL("mitchell", 2.0);
+
+    private static final double GAUSSIAN_SIGMA = 0.5;
+    private static final double MITCHELL_B = 1.0 / 3;
+    private static final double MITCHELL_C = 1.0 / 3;
+
+    private final String key;
+    private final double radius;
+
+    public static ReconstructionFilter fromKey(String key) {
+        for (ReconstructionFilter filter : values()) {
+            if (filter.key.equalsIgnoreCase(key)) {
+                return filter;
+            }
+        }
+        throw new IllegalArgumentException("Unknown filter: '" + key + "'. Available: " + getKeysAsString());
+    }
+
+    public static String getKeysAsString() {
+        return Arrays.stream(values()).map(ReconstructionFilter::getKey).collect(Collectors.joining(", "));
+    }
+
+    public double weight(double distance) {
+        double x = Math.abs(distance);
+        if (x >= radius) {
+            return 0;
+        }
+        return switch (this) {
+            case BOX -> 1;
+            case GAUSSIAN -> Math.exp(-x * x / (2 * GAUSSIAN_SIGMA * GAUSSIAN_SIGMA));
+            case MITCHELL -> mitchell(x);
+        };
+    }
+
+    private static double mitchell(double x) {
+        double x2 = x * x;
+        double x3 = x2 * x;
+        if (x < 1) {
+            return ((12 - 9 * MITCHELL_B - 6 * MITCHELL_C) * x3
+                            + (-18 + 12 * MITCHELL_B + 6 * MITCHELL_C) * x2
+                            + (6 - 2 * MITCHELL_B))
+                    / 6;
+        }
+        return ((-MITCHELL_B - 6 * MITCHELL_C) * x3
+                        + (6 * MITCHELL_B + 30 * MITCHELL_C) * x2
+                        + (-12 * MITCHELL_B - 48 * MITCHELL_C) * x
+                        + (8 * MITCHELL_B + 24 * MITCHELL_C))
+                / 6;
+    }
+}
@@ -0,0 +1,216 @@
+package academy.application.render;
+
+import academy.application.render.histogram.DoubleHistogram;
+import academy.application.render.histogram.Histogram;
+import academy.domain.Point;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cost model of the steps that follow the chaos game: merging the worker histograms, the density estimation pass, then
+ * saving the histogram and writing every image. A time-budgeted render stops its generation {@link #finishNanos} before
+ * its deadline. {@link #calibrate} measures the costs on this machine with small renderers set up like the real one, so
+ * the strategy, oversampling, filter, encoders and histogram directory of the render are all in the measurement.
+ *
+ * <p>Writing has a fixed cost on top of the per-pixel one (deflater and encoder threads, row buffers, opening the
+ * histogram file) that dominates small images, so it is measured at two sizes and extrapolated along the line through
+ * both.
+ *
+ * <p>The density estimation pass costs the kernel weights it scatters, which depend on the counts the generation
+ * leaves. The model takes the worst case, every cell holding a single sample and so getting the widest kernel, and
+ * times the pass per weight on a histogram filled that way. Denser renders finish the pass ahead of the estimate.
+ *
+ * @param mergeNanosPerPixel time to add one worker histogram into the render, per pixel
+ * @param writeNanosPerPixel time to save the histogram and write every image, per pixel
+ * @param writeNanos fixed time of those writes
+ * @param densityNanosPerPixel worst-case time of the density estimation pass per pixel, {@code 0} without the pass
+ */
+@Slf4j
+public record RenderBudget(
+        double mergeNanosPerPixel, double writeNanosPerPixel, double writeNanos, double densityNanosPerPixel) {
+    /** Side of the calibration renderer; large enough for the timings to dwarf the clock resolution. */
+    public static final int SAMPLE_SIZE = 256;
+    /** Side of the renderer that measures the fixed cost of a write. */
+    public static final int SMALL_SAMPLE_SIZE = 32;
+    /**
+     * Headroom on the measured costs for what the samples miss: cache misses of large histograms, file I/O. The samples
+     * run on code the JIT has barely compiled, so they already err on the slow side.
+     */
+    static final double SAFETY_FACTOR = 1.25;
+    /** Time the end of a render takes whatever its size: metrics, closing files. */
+    static final long FIXED_NANOS = 50_000_000L;
+
+    private static final int ROUNDS = 4;
+    private static final int SAMPLES_PER_PIXEL = 1;
+    /** Kernel weights the density sample aims at, about a tenth of a second of scattering. */
+    private static final long DENSITY_SAMPLE_WEIGHTS = 1L << 24;
+
+    private static final int MIN_DENSITY_SAMPLE_CELLS = 32;
+
+    /**
+     * What a render does after its generation.
+     *
+     * @param formats format of the output and of every export
+     * @param histogramDirectory directory the histogram is saved to, {@code null} when it is not saved
+     * @param densityEstimation parameters of the density estimation pass, {@code null} without it
+     */
+    public record Finish(List<OutputFormat> formats, Path histogramDirectory, DensityEstimation densityEstimation) {
+        /** A plain render writing a single PNG. */
+        public static final Finish PNG = new Finish(List.of(OutputFormat.PNG), null, null);
+    }
+
+    /**
+     * Times the merge of {@code workers} worker histograms, the density estimation pass and the writes of
+     * {@code finish} with renderers from {@code sample}, which must return a fresh square renderer of the given side
+     * configured like the real one. The first rounds mostly warm the code up, so the fastest round is kept.
+     *
+     * @param workers worker histograms merged at the end of the render, {@code 0} for a single-threaded one
+     */
+    public static RenderBudget calibrate(IntFunction<ImageRenderer> sample, int workers, Finish finish) {
+        long startTime = System.nanoTime();
+        double pixels = (double) SAMPLE_SIZE * SAMPLE_SIZE;
+        double smallPixels = (double) SMALL_SAMPLE_SIZE * SMALL_SAMPLE_SIZE;
+        double mergeNanos = Double.MAX_VALUE;
+        double writeNanos = Double.MAX_VALUE;
+        double smallWriteNanos = Double.MAX_VALUE;
+        int oversample = 1;
+        Random random = new Random(0);
+        for (int round = 0; round < ROUNDS; round++) {
+            try (ImageRenderer renderer = sample.apply(SAMPLE_SIZE);
+                    ImageRenderer small = fill(sample.apply(SMALL_SAMPLE_SIZE), random)) {
+                oversample = renderer.getOversample();
+                List<ImageRenderer> workerRenderers = new ArrayList<>();
+                for (int i = 0; i < workers; i++) {
+                    workerRenderers.add(fill(renderer.newWorker(), random));
+                }
+                if (workers == 0) {
+                    fill(renderer, random);
+                }
+                long mergeStart = System.nanoTime();
+                if (workers > 0) {
+                    renderer.merge(workerRenderers);
+                    workerRenderers.forEach(ImageRenderer::close);
+                }
+                mergeNanos = Math.min(mergeNanos, (System.nanoTime() - mergeStart) / pixels / Math.max(workers, 1));
+                writeNanos = Math.min(writeNanos, timeWrites(renderer, finish));
+                smallWriteNanos = Math.min(smallWriteNanos, timeWrites(small, finish));
+            }
+        }
+        double writeNanosPerPixel = Math.max(0, (writeNanos - smallWriteNanos) / (pixels - smallPixels));
+        double densityNanosPerPixel = 0;
+        if (finish.densityEstimation() != null) {
+            DensityEstimator estimator = new DensityEstimator(finish.densityEstimation(), oversample);
+            densityNanosPerPixel =
+                    timeDensityWeight(estimator) * estimator.widestKernelWeights() * oversample * oversample;
+        }
+        RenderBudget budget = new RenderBudget(
+                workers == 0 ? 0 : mergeNanos,
+                writeNanosPerPixel,
+                Math.max(0, smallWriteNanos - writeNanosPerPixel * smallPixels),
+                densityNanosPerPixel);
+        log.debug(
+                "Render budget calibrated in {} ms: merge {} ns, density estimation {} ns, write {} ns per pixel "
+                        + "and {} ms per render",
+                (System.nanoTime() - startTime) / 1_000_000,
+                String.format("%.2f", budget.mergeNanosPerPixel()),
+                String.format("%.2f", budget.densityNanosPerPixel()),
+                String.format("%.2f", budget.writeNanosPerPixel()),
+                String.format("%.2f", budget.writeNanos() / 1e6));
+        return budget;
+    }
+
+    /**
+     * Estimated time from the end of the generation to the end of the render, headroom included.
+     *
+     * @param workers worker histograms merged, {@code 0} for a single-threaded render
+     */
+    public long finishNanos(int width, int height, int workers) {
+        double pixels = (double) width * height;
+        double nanos = pixels * (mergeNanosPerPixel * workers + densityNanosPerPixel + writeNanosPerPixel) + writeNanos;
+        return FIXED_NANOS + (long) (nanos * SAFETY_FACTOR);
+    }
+
+    /** Saves the histogram of {@code renderer} to a scratch file if the render saves one, then writes every image. */
+    private static long timeWrites(ImageRenderer renderer, Finish finish) {
+        long startTime = System.nanoTime();
+        try {
+            if (finish.histogramDirectory() != null) {
+                Path file = Files.createTempFile(finish.histogramDirectory(), "budget-", HistogramFile.EXTENSION);
+                try (FileChannel channel =
+                        FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+                    Histogram histogram = renderer.getHistogram();
+                    HistogramFile.write(
+                            channel,
+                            renderer,
+                            new HistogramHeader(
+                                    histogram.width(),
+                                    histogram.height(),
+                                    renderer.getOversample(),
+                                    0,
+                                    0,
+                                    0,
+                                    0,
+                                    0,
+                                    null));
+                }
+            }
+            for (OutputFormat format : finish.formats()) {
+                renderer.write(Channels.newChannel(OutputStream.nullOutputStream()), format, ToneMapper.DEFAULT);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return System.nanoTime() - startTime;
+    }
+
+    /**
+     * Time of the density estimation pass per kernel weight, on a square histogram with a single sample in every cell
+     * and sized to scatter about {@link #DENSITY_SAMPLE_WEIGHTS} weights.
+     */
+    private static double timeDensityWeight(DensityEstimator estimator) {
+        int side = (int) Math.clamp(
+                (long) Math.sqrt((double) DENSITY_SAMPLE_WEIGHTS / estimator.widestKernelWeights()),
+                MIN_DENSITY_SAMPLE_CELLS,
+                SAMPLE_SIZE);
+        Histogram source = new DoubleHistogram(side, side);
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                source.addSample(x, y, 0.5, 0.5, 0.5, 0.5);
+            }
+        }
+        double weights = estimator.worstCaseWeights(side, side);
+        double nanosPerWeight = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            Histogram target = new DoubleHistogram(side, side);
+            long startTime = System.nanoTime();
+            estimator.apply(source, target);
+            nanosPerWeight = Math.min(nanosPerWeight, (System.nanoTime() - startTime) / weights);
+        }
+        return nanosPerWeight;
+    }
+
+    /** Plots {@link #SAMPLES_PER_PIXEL} random points per histogram cell, so the tone map sees no empty image. */
+    private static ImageRenderer fill(ImageRenderer renderer, Random random) {
+        Point point = Point.builder().build();
+        long samples =
+                (long) renderer.getHistogram().width() * renderer.getHistogram().height() * SAMPLES_PER_PIXEL;
+        for (long i = 0; i < samples; i++) {
+            point.setX(random.nextDouble(ImageRenderer.X_MIN, ImageRenderer.X_MAX))
+                    .setY(random.nextDouble(ImageRenderer.Y_MIN, ImageRenderer.Y_MAX))
+                    .setColor(random.nextDouble());
+            renderer.plot(point);
+        }
+        return renderer;
+    }
+}
@@ -0,0 +1,63 @@
+package academy.application.render;
+
+import academy.application.render.png.PngEncoder;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tone-mapped image held in memory, for pipelines that release the histogram before the image is encoded; see
+ * {@link ImageRenderer#toneMap(ToneMapper)}.
+ *
+ * @param bitDepth bits per sample, 8 or 16
+ * @param pixels rows of {@code width * 3 * bitDepth / 8} bytes, top to bottom, 16-bit samples big-endian
+ * @param nonEmptyPixels pixels with any non-zero sample
+ */
+@Slf4j
+public record ToneMappedImage(int width, int height, int bitDepth, byte[] pixels, long nonEmptyPixels) {
+
+    /** The image as 8-bit RGB; 16-bit samples keep their high byte. */
+    public BufferedImage toBufferedImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int bytesPerSample = bitDepth / 8;
+        int rowBytes = pixels.length / height;
+        int[] rgb = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0, i = y * rowBytes; x < width; x++, i += 3 * bytesPerSample) {
+                rgb[x] = (pixels[i] & 0xFF) << 16
+                        | (pixels[i + bytesPerSample] & 0xFF) << 8
+                        | pixels[i + 2 * bytesPerSample] & 0xFF;
+            }
+            image.setRGB(0, y, width, 1, rgb, 0, width);
+        }
+        return image;
+    }
+
+    /** @return number of bytes written */
+    public long writePng(WritableByteChannel channel, PngEncoder encoder) throws IOException {
+        int rowBytes = pixels.length / height;
+        return encoder.encode(
+                channel, width, height, bitDepth, (y, row) -> System.arraycopy(pixels, y * rowBytes, row, 0, rowBytes));
+    }
+
+    /** Writes the image as a PNG file, creating its directory if needed; returns the file size. */
+    public long savePng(Path outputPath, PngEncoder encoder) {
+        ImageRenderer.createParentDirectories(outputPath);
+        try (FileChannel channel = FileChannel.open(
+                outputPath,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long fileSize = writePng(channel, encoder);
+            log.info("Image saved successfully: {} ({} bytes)", outputPath, fileSize);
+            return fileSize;
+        } catch (IOException e) {
+            log.error("Failed to save image to {}: {}", outputPath, e.getMessage());
+            throw new RuntimeException("Failed to save image: " + e.getMessage(), e);
+        }
+    }
+}
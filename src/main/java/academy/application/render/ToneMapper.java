@@ -0,0 +1,121 @@
+package academy.application.render;
+
+import static academy.application.render.ImageRenderer.ACCUMULATION_PALETTE;
+import static academy.application.render.ImageRenderer.ALPHA;
+import static academy.application.render.ImageRenderer.BRIGHTNESS;
+import static academy.application.render.ImageRenderer.COLOR;
+
+/**
+ * Logarithmic density tone mapping of an accumulated histogram pixel into 8-bit or floating-point RGB.
+ *
+ * <p>With the accumulation palette the summed RGB channels are used as is. Any other palette is applied to the mean
+ * palette coordinate of the pixel, so the same histogram can be re-colored without re-running the chaos game.
+ *
+ * @param palette palette to color the pixels with
+ * @param gamma gamma correction applied after log scaling, {@code 1.0} leaves the values unchanged
+ * @param brightness linear multiplier applied before clamping, {@code 1.0} leaves the values unchanged
+ */
+public record ToneMapper(Palette palette, double gamma, double brightness) {
+
+    public static final ToneMapper DEFAULT = new ToneMapper(ACCUMULATION_PALETTE, 1.0, 1.0);
+
+    public ToneMapper {
+        if (palette == null) {
+            throw new IllegalArgumentException("Palette can't be null");
+        }
+        if (!(gamma > 0) || Double.isInfinite(gamma)) {
+            throw new IllegalArgumentException("Gamma must be a positive number, got: " + gamma);
+        }
+        if (!(brightness > 0) || Double.isInfinite(brightness)) {
+            throw new IllegalArgumentException("Brightness must be a positive number, got: " + brightness);
+        }
+    }
+
+    public int computePixelColor(double[] pixel, double logMaxAlpha) {
+        double[] rgb = new double[3];
+        return mapPixel(pixel, logMaxAlpha, rgb) ? toRgb8(rgb) : 0;
+    }
+
+    /** Clamps linear RGB from {@link #mapPixel} to {@code [0, 1]} and packs it as {@code 0xRRGGBB}. */
+    public static int toRgb8(double[] rgb) {
+        int r8 = (int) (Math.min(1.0, rgb[0]) * BRIGHTNESS);
+        int g8 = (int) (Math.min(1.0, rgb[1]) * BRIGHTNESS);
+        int b8 = (int) (Math.min(1.0, rgb[2]) * BRIGHTNESS);
+
+        return (r8 << 16) | (g8 << 8) | b8;
+    }
+
+    /**
+     * Tone-maps a pixel into linear floating-point RGB without clamping to the displayable range, so values above
+     * {@code 1.0} survive for HDR outputs. Clamping the result to {@code [0, 1]} gives exactly what
+     * {@link #computePixelColor} quantizes.
+     *
+     * @param rgb receives the three channels
+     * @return {@code false} if the pixel is empty, in which case {@code rgb} is zeroed
+     */
+    public boolean mapPixel(double[] pixel, double logMaxAlpha, double[] rgb) {
+        return mapPixel(pixel, 0, logMaxAlpha, rgb);
+    }
+
+    /** {@link #mapPixel(double[], double, double[])} for the pixel whose channels start at {@code offset}. */
+    public boolean mapPixel(double[] pixels, int offset, double logMaxAlpha, double[] rgb) {
+        double alpha = pixels[offset + ALPHA];
+
+        if (alpha == 0) {
+            rgb[0] = 0;
+            rgb[1] = 0;
+            rgb[2] = 0;
+            return false;
+        }
+
+        double r;
+        double g;
+        double b;
+        if (palette == ACCUMULATION_PALETTE) {
+            r = pixels[offset];
+            g = pixels[offset + 1];
+            b = pixels[offset + 2];
+        } else {
+            int[] color = palette.colorAt(pixels[offset + COLOR] / alpha);
+            r = color[0] / (double) BRIGHTNESS * alpha;
+            g = color[1] / (double) BRIGHTNESS * alpha;
+            b = color[2] / (double) BRIGHTNESS * alpha;
+        }
+
+        double logScale = Math.log(alpha) / alpha * brightness;
+        r *= logScale;
+        g *= logScale;
+        b *= logScale;
+
+        if (logMaxAlpha > 0) {
+            r /= logMaxAlpha;
+            g /= logMaxAlpha;
+            b /= logMaxAlpha;
+        }
+
+        r = Math.max(0.0, r);
+        g = Math.max(0.0, g);
+        b = Math.max(0.0, b);
+
+        if (gamma != 1.0) {
+            double inverseGamma = 1.0 / gamma;
+            r = Math.pow(r, inverseGamma);
+            g = Math.pow(g, inverseGamma);
+            b = Math.pow(b, inverseGamma);
+        }
+
+        rgb[0] = r;
+        rgb[1] = g;
+        rgb[2] = b;
+        return true;
+    }
+
+    /** Short, file-name friendly description such as {@code fire-g2.2-b1.5}. */
+    public String describe() {
+        return palette.name().toLowerCase() + "-g" + formatNumber(gamma) + "-b" + formatNumber(brightness);
+    }
+
+    private static String formatNumber(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
@@ -0,0 +1,115 @@
+package academy.application.render.histogram;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Ways to accumulate samples, fastest first. Per-thread strategies give every worker a private histogram and merge them
+ * at the end; shared strategies let all workers update one histogram atomically.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum AccumulationStrategy {
+    /** A private {@code double} histogram per worker, summed into the final one. */
+    PER_THREAD_DOUBLE("per-thread-double", false),
+    /** A private {@code float} histogram per worker, summed into a {@code double} one: half the worker memory. */
+    COMPACT("compact", false),
+    /** One {@code double} heap histogram shared by all workers. */
+    SHARED_ATOMIC("shared-atomic", true),
+    /** One {@code double} histogram in direct buffers, outside the heap. */
+    OFF_HEAP("off-heap", true),
+    /** One {@code double} histogram in a memory-mapped temporary file. */
+    MAPPED_FILE("mapped-file", true);
+
+    private static final long DOUBLE_BYTES_PER_PIXEL = (long) Histogram.CHANNELS * Double.BYTES;
+    private static final long FLOAT_BYTES_PER_PIXEL = (long) Histogram.CHANNELS * Float.BYTES;
+    private static final long MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final String key;
+    /** Whether workers plot straight into the final histogram instead of a private one. */
+    private final boolean shared;
+
+    public static AccumulationStrategy fromKey(String key) {
+        for (AccumulationStrategy strategy : values()) {
+            if (strategy.key.equalsIgnoreCase(key)) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException(
+                "Unknown accumulation strategy: '" + key + "'. Available: " + getKeysAsString());
+    }
+
+    public static String getKeysAsString() {
+        return Arrays.stream(values()).map(AccumulationStrategy::getKey).collect(Collectors.joining(", "));
+    }
+
+    public MemoryEstimate estimate(int width, int height, int threads) {
+        return estimate(width, height, threads, false, 0);
+    }
+
+    /**
+     * @param densityEstimation whether a second final histogram receives the density-estimated samples; the worker
+     *     histograms are gone by then, so the peak is the larger of the two stages
+     * @param densityScratchBytes heap the density estimation pass needs besides the two histograms, for its kernels and
+     *     band buffers
+     */
+    public MemoryEstimate estimate(
+            int width, int height, int threads, boolean densityEstimation, long densityScratchBytes) {
+        long pixels = (long) width * height;
+        long histogram = pixels * DOUBLE_BYTES_PER_PIXEL;
+        long finalHistograms = densityEstimation ? 2 * histogram : histogram;
+        long scratch = densityEstimation ? densityScratchBytes : 0;
+        // A single-threaded run plots straight into the final histogram whatever the strategy
+        int workers = threads > 1 ? threads : 0;
+        return switch (this) {
+            case PER_THREAD_DOUBLE ->
+                new MemoryEstimate(Math.max(histogram * (workers + 1), finalHistograms + scratch), 0, 0);
+            case COMPACT ->
+                new MemoryEstimate(
+                        Math.max(histogram + pixels * FLOAT_BYTES_PER_PIXEL * workers, finalHistograms + scratch),
+                        0,
+                        0);
+            case SHARED_ATOMIC -> new MemoryEstimate(finalHistograms + scratch, 0, 0);
+            case OFF_HEAP -> new MemoryEstimate(scratch, finalHistograms, 0);
+            case MAPPED_FILE -> new MemoryEstimate(scratch, 0, finalHistograms);
+        };
+    }
+
+    /**
+     * Precision the samples of a render with {@code threads} workers are summed in before they reach the final
+     * {@code double} histogram: {@code "float"} for the compact worker histograms, {@code "double"} otherwise.
+     */
+    public String precision(int threads) {
+        return this == COMPACT && threads > 1 ? "float" : "double";
+    }
+
+    /** Whether the histograms fit Java arrays, which heap strategies need. */
+    public boolean supportsSize(int width, int height) {
+        return this == OFF_HEAP
+                || this == MAPPED_FILE
+                || (long) width * height * Histogram.CHANNELS <= MAX_ARRAY_LENGTH;
+    }
+
+    /** The final histogram; {@code concurrent} if workers of a shared strategy will update it at the same time. */
+    public Histogram createHistogram(int width, int height, boolean concurrent, Path tempDirectory) {
+        return switch (this) {
+            case PER_THREAD_DOUBLE, COMPACT -> new DoubleHistogram(width, height);
+            case SHARED_ATOMIC ->
+                concurrent ? new AtomicDoubleHistogram(width, height) : new DoubleHistogram(width, height);
+            case OFF_HEAP -> BufferHistogram.offHeap(width, height, concurrent);
+            case MAPPED_FILE -> BufferHistogram.mapped(width, height, concurrent, tempDirectory);
+        };
+    }
+
+    /** A worker's private histogram; only for strategies that are not {@link #isShared() shared}. */
+    public Histogram createWorkerHistogram(int width, int height) {
+        return switch (this) {
+            case PER_THREAD_DOUBLE -> new DoubleHistogram(width, height);
+            case COMPACT -> new FloatHistogram(width, height);
+            default -> throw new IllegalStateException(key + " workers share the final histogram");
+        };
+    }
+}
@@ -0,0 +1,61 @@
+package academy.application.render.histogram;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * One {@code double} heap histogram that every worker plots into directly, with atomic adds instead of per-thread
+ * copies. Needs a single histogram of memory at any thread count, at the cost of contended updates on hot pixels; the
+ * order of the additions, and so the last bits of the sums, varies between runs.
+ */
+public class AtomicDoubleHistogram implements Histogram {
+    private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(double[].class);
+
+    private final int width;
+    private final int height;
+    private final double[] data;
+
+    public AtomicDoubleHistogram(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.data = new double[Math.multiplyExact(Math.multiplyExact(width, height), CHANNELS)];
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public void addSample(int x, int y, double r, double g, double b, double color) {
+        int index = (y * width + x) * CHANNELS;
+        ELEMENT.getAndAdd(data, index, r);
+        ELEMENT.getAndAdd(data, index + 1, g);
+        ELEMENT.getAndAdd(data, index + 2, b);
+        ELEMENT.getAndAdd(data, index + ALPHA, 1.0);
+        ELEMENT.getAndAdd(data, index + COLOR, color);
+    }
+
+    @Override
+    public void add(int x, int y, int channel, double value) {
+        ELEMENT.getAndAdd(data, (y * width + x) * CHANNELS + channel, value);
+    }
+
+    @Override
+    public double get(int x, int y, int channel) {
+        return (double) ELEMENT.getOpaque(data, (y * width + x) * CHANNELS + channel);
+    }
+
+    @Override
+    public void addRow(int y, double[] row) {
+        int offset = y * width * CHANNELS;
+        for (int i = 0; i < width * CHANNELS; i++) {
+            data[offset + i] += row[i];
+        }
+    }
+}
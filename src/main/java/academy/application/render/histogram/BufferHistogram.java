@@ -0,0 +1,148 @@
+package academy.application.render.histogram;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@code double} histogram outside the Java heap, either in direct buffers or in a memory-mapped temporary file, for
+ * images whose histograms don't fit the heap. The data is split into blocks of whole rows because a buffer holds at
+ * most 2 GiB. When several workers share it, updates are compare-and-set loops.
+ */
+@Slf4j
+public class BufferHistogram implements Histogram {
+    private static final VarHandle DOUBLE =
+            MethodHandles.byteBufferViewVarHandle(double[].class, ByteOrder.nativeOrder());
+    private static final long MAX_BLOCK_BYTES = Integer.MAX_VALUE;
+
+    private final int width;
+    private final int height;
+    private final boolean concurrent;
+    private final int rowsPerBlock;
+    private final ByteBuffer[] blocks;
+    private final Path file;
+
+    private BufferHistogram(int width, int height, boolean concurrent, Path file) {
+        this.width = width;
+        this.height = height;
+        this.concurrent = concurrent;
+        this.file = file;
+        long rowBytes = (long) width * CHANNELS * Double.BYTES;
+        this.rowsPerBlock = (int) Math.max(1, Math.min(height, MAX_BLOCK_BYTES / rowBytes));
+        this.blocks = new ByteBuffer[(height + rowsPerBlock - 1) / rowsPerBlock];
+    }
+
+    /** Histogram in direct buffers; {@code concurrent} makes every update atomic. */
+    public static BufferHistogram offHeap(int width, int height, boolean concurrent) {
+        BufferHistogram histogram = new BufferHistogram(width, height, concurrent, null);
+        for (int block = 0; block < histogram.blocks.length; block++) {
+            histogram.blocks[block] = ByteBuffer.allocateDirect(histogram.blockBytes(block));
+        }
+        return histogram;
+    }
+
+    /** Histogram in a temporary file under {@code directory}, mapped into memory and deleted on {@link #close()}. */
+    public static BufferHistogram mapped(int width, int height, boolean concurrent, Path directory) {
+        try {
+            Path file = Files.createTempFile(directory, "flame-histogram-", ".bin");
+            file.toFile().deleteOnExit();
+            BufferHistogram histogram = new BufferHistogram(width, height, concurrent, file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long position = 0;
+                for (int block = 0; block < histogram.blocks.length; block++) {
+                    int size = histogram.blockBytes(block);
+                    histogram.blocks[block] = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+                    position += size;
+                }
+            }
+            log.info("Histogram mapped to {}", file);
+            return histogram;
+        } catch (IOException e) {
+            log.error("Failed to map histogram file in {}: {}", directory, e.getMessage());
+            throw new UncheckedIOException("Failed to map histogram file: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public void addSample(int x, int y, double r, double g, double b, double color) {
+        ByteBuffer block = blocks[y / rowsPerBlock];
+        int offset = offset(x, y, 0);
+        add(block, offset, r);
+        add(block, offset + Double.BYTES, g);
+        add(block, offset + 2 * Double.BYTES, b);
+        add(block, offset + ALPHA * Double.BYTES, 1.0);
+        add(block, offset + COLOR * Double.BYTES, color);
+    }
+
+    @Override
+    public void add(int x, int y, int channel, double value) {
+        add(blocks[y / rowsPerBlock], offset(x, y, channel), value);
+    }
+
+    @Override
+    public double get(int x, int y, int channel) {
+        ByteBuffer block = blocks[y / rowsPerBlock];
+        int offset = offset(x, y, channel);
+        return concurrent ? (double) DOUBLE.getOpaque(block, offset) : (double) DOUBLE.get(block, offset);
+    }
+
+    @Override
+    public void addRow(int y, double[] row) {
+        ByteBuffer block = blocks[y / rowsPerBlock];
+        int offset = offset(0, y, 0);
+        for (int i = 0; i < width * CHANNELS; i++, offset += Double.BYTES) {
+            DOUBLE.set(block, offset, (double) DOUBLE.get(block, offset) + row[i]);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (file == null) {
+            return;
+        }
+        try {
+            // The mapping itself goes away when the buffers are collected; on Unix the file can go right now
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete histogram file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void add(ByteBuffer block, int offset, double value) {
+        if (!concurrent) {
+            DOUBLE.set(block, offset, (double) DOUBLE.get(block, offset) + value);
+            return;
+        }
+        double current;
+        do {
+            current = (double) DOUBLE.getVolatile(block, offset);
+        } while (!DOUBLE.compareAndSet(block, offset, current, current + value));
+    }
+
+    private int offset(int x, int y, int channel) {
+        return (((y % rowsPerBlock) * width + x) * CHANNELS + channel) * Double.BYTES;
+    }
+
+    private int blockBytes(int block) {
+        int rows = Math.min(rowsPerBlock, height - block * rowsPerBlock);
+        return rows * width * CHANNELS * Double.BYTES;
+    }
+}
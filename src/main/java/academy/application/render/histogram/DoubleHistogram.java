@@ -0,0 +1,87 @@
+package academy.application.render.histogram;
+
+import java.util.Arrays;
+
+/** Plain {@code double} histogram in one row-major heap array. Not thread-safe. */
+public class DoubleHistogram implements Histogram {
+    private final int width;
+    private final int height;
+    private final double[] data;
+
+    public DoubleHistogram(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.data = new double[Math.multiplyExact(Math.multiplyExact(width, height), CHANNELS)];
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    /** Heap taken by the samples. */
+    public long sizeBytes() {
+        return (long) data.length * Double.BYTES;
+    }
+
+    /** Zeroes every channel, so the histogram can be reused for another render of the same size. */
+    public void clear() {
+        Arrays.fill(data, 0);
+    }
+
+    @Override
+    public void addSample(int x, int y, double r, double g, double b, double color) {
+        int index = (y * width + x) * CHANNELS;
+        data[index] += r;
+        data[index + 1] += g;
+        data[index + 2] += b;
+        data[index + ALPHA] += 1.0;
+        data[index + COLOR] += color;
+    }
+
+    @Override
+    public void add(int x, int y, int channel, double value) {
+        data[(y * width + x) * CHANNELS + channel] += value;
+    }
+
+    @Override
+    public double get(int x, int y, int channel) {
+        return data[(y * width + x) * CHANNELS + channel];
+    }
+
+    @Override
+    public void read(int x, int y, double[] pixel) {
+        System.arraycopy(data, (y * width + x) * CHANNELS, pixel, 0, CHANNELS);
+    }
+
+    @Override
+    public void readRow(int y, double[] row) {
+        System.arraycopy(data, y * width * CHANNELS, row, 0, width * CHANNELS);
+    }
+
+    @Override
+    public void addRow(int y, double[] row) {
+        int offset = y * width * CHANNELS;
+        for (int i = 0; i < width * CHANNELS; i++) {
+            data[offset + i] += row[i];
+        }
+    }
+
+    @Override
+    public void addAll(Histogram other) {
+        switch (other) {
+            case DoubleHistogram source -> {
+                for (int i = 0; i < data.length; i++) {
+                    data[i] += source.data[i];
+                }
+            }
+            case FloatHistogram source -> source.addTo(data);
+            default -> Histogram.super.addAll(other);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package academy.application.render.histogram;
+
+/**
+ * Half-size {@code float} histogram for per-thread accumulation. Sample counts stay exact up to 2^24 per pixel, which
+ * {@link MemoryPlanner} guarantees by only choosing it when no worker runs more iterations than that. Not thread-safe.
+ */
+public class FloatHistogram implements Histogram {
+    /** Largest count a {@code float} still increments exactly. */
+    public static final long MAX_EXACT_COUNT = 1L << 24;
+
+    private final int width;
+    private final int height;
+    private final float[] data;
+
+    public FloatHistogram(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.data = new float[Math.multiplyExact(Math.multiplyExact(width, height), CHANNELS)];
+    }
+
+    @Override
+    public int width() {
+        return width;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public void addSample(int x, int y, double r, double g, double b, double color) {
+        int index = (y * width + x) * CHANNELS;
+        data[index] += (float) r;
+        data[index + 1] += (float) g;
+        data[index + 2] += (float) b;
+        data[index + ALPHA] += 1.0f;
+        data[index + COLOR] += (float) color;
+    }
+
+    @Override
+    public void add(int x, int y, int channel, double value) {
+        data[(y * width + x) * CHANNELS + channel] += (float) value;
+    }
+
+    @Override
+    public double get(int x, int y, int channel) {
+        return data[(y * width + x) * CHANNELS + channel];
+    }
+
+    @Override
+    public void addRow(int y, double[] row) {
+        int offset = y * width * CHANNELS;
+        for (int i = 0; i < width * CHANNELS; i++) {
+            data[offset + i] += (float) row[i];
+        }
+    }
+
+    /** Adds every channel to a {@link DoubleHistogram} array of the same layout. */
+    void addTo(double[] target) {
+        for (int i = 0; i < data.length; i++) {
+            target[i] += data[i];
+        }
+    }
+}
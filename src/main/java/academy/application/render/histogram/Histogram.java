@@ -0,0 +1,68 @@
+package academy.application.render.histogram;
+
+/**
+ * Accumulation buffer of a render: for every pixel the sums of the sample colors (r, g, b), the sample count (alpha)
+ * and the sum of the palette coordinates, laid out as {@link #CHANNELS} channels. Implementations differ in precision,
+ * thread safety and where the memory lives, see {@link AccumulationStrategy}.
+ */
+public interface Histogram extends AutoCloseable {
+    int ALPHA = 3;
+    /** Sum of the palette coordinates of the samples, so the histogram can be re-colored with any palette. */
+    int COLOR = 4;
+
+    int CHANNELS = 5;
+
+    int width();
+
+    int height();
+
+    /** Adds one sample: its color to the r, g, b sums, one to the count and its palette coordinate to the color sum. */
+    void addSample(int x, int y, double r, double g, double b, double color);
+
+    void add(int x, int y, int channel, double value);
+
+    double get(int x, int y, int channel);
+
+    /** Copies the {@link #CHANNELS} channels of a pixel into {@code pixel}. */
+    default void read(int x, int y, double[] pixel) {
+        for (int c = 0; c < CHANNELS; c++) {
+            pixel[c] = get(x, y, c);
+        }
+    }
+
+    /** Copies the channels of every pixel of row {@code y} into {@code row}, {@code width() * CHANNELS} values. */
+    default void readRow(int y, double[] row) {
+        for (int x = 0, i = 0; x < width(); x++) {
+            for (int c = 0; c < CHANNELS; c++) {
+                row[i++] = get(x, y, c);
+            }
+        }
+    }
+
+    /**
+     * Adds {@code row}, laid out like {@link #readRow}, to the channels of row {@code y}. Meant for loading a saved
+     * histogram before any worker plots into it: the adds are plain even on the thread-safe implementations.
+     */
+    default void addRow(int y, double[] row) {
+        for (int x = 0, i = 0; x < width(); x++) {
+            for (int c = 0; c < CHANNELS; c++) {
+                add(x, y, c, row[i++]);
+            }
+        }
+    }
+
+    /** Adds every channel of {@code other}, which must have the same size, to this histogram. */
+    default void addAll(Histogram other) {
+        for (int y = 0; y < height(); y++) {
+            for (int x = 0; x < width(); x++) {
+                for (int c = 0; c < CHANNELS; c++) {
+                    add(x, y, c, other.get(x, y, c));
+                }
+            }
+        }
+    }
+
+    /** Releases memory that the garbage collector does not manage. The histogram must not be used afterwards. */
+    @Override
+    default void close() {}
+}
@@ -0,0 +1,86 @@
+package academy.application.render.histogram;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Idle {@link DoubleHistogram}s kept between renders, so a run of jobs of the same size reuses their buffers instead of
+ * allocating and zeroing new ones in the old generation every time. Idle histograms are handed out most recently
+ * released first and evicted least recently released first. Thread-safe.
+ */
+@Slf4j
+public class HistogramPool {
+    private final Deque<DoubleHistogram> idle = new ArrayDeque<>();
+    private long idleBytes;
+    private long allocated;
+    private long reused;
+
+    /** An empty histogram of the given size, reused if one is idle. */
+    public DoubleHistogram acquire(int width, int height) {
+        DoubleHistogram histogram = takeIdle(width, height);
+        if (histogram == null) {
+            synchronized (this) {
+                allocated++;
+            }
+            return new DoubleHistogram(width, height);
+        }
+        // Cleared outside the lock, other jobs keep acquiring and releasing meanwhile
+        histogram.clear();
+        return histogram;
+    }
+
+    /** Makes a histogram from {@link #acquire} idle again; other histograms are left to the garbage collector. */
+    public synchronized void release(Histogram histogram) {
+        if (histogram instanceof DoubleHistogram pooled) {
+            idle.push(pooled);
+            idleBytes += pooled.sizeBytes();
+        }
+    }
+
+    /**
+     * Drops idle histograms, oldest first, until at least {@code bytes} are freed or none is left.
+     *
+     * @return bytes freed
+     */
+    public synchronized long evict(long bytes) {
+        long freed = 0;
+        while (freed < bytes && !idle.isEmpty()) {
+            freed += idle.removeLast().sizeBytes();
+        }
+        idleBytes -= freed;
+        if (freed > 0) {
+            log.debug("Evicted {} of idle histograms", MemoryEstimate.formatBytes(freed));
+        }
+        return freed;
+    }
+
+    /** Heap held by idle histograms. */
+    public synchronized long idleBytes() {
+        return idleBytes;
+    }
+
+    /** Histograms allocated because none of the right size was idle. */
+    public synchronized long allocatedCount() {
+        return allocated;
+    }
+
+    /** Histograms handed out again after a release. */
+    public synchronized long reusedCount() {
+        return reused;
+    }
+
+    private synchronized DoubleHistogram takeIdle(int width, int height) {
+        for (Iterator<DoubleHistogram> iterator = idle.iterator(); iterator.hasNext(); ) {
+            DoubleHistogram histogram = iterator.next();
+            if (histogram.width() == width && histogram.height() == height) {
+                iterator.remove();
+                idleBytes -= histogram.sizeBytes();
+                reused++;
+                return histogram;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,41 @@
+package academy.application.render.histogram;
+
+/**
+ * Memory a render's histograms need, by where it lives.
+ *
+ * @param heapBytes Java heap, bounded by {@code -Xmx} or the configured budget
+ * @param offHeapBytes direct buffers, bounded by {@code -XX:MaxDirectMemorySize} and physical memory
+ * @param diskBytes temporary file, bounded by free disk space
+ */
+public record MemoryEstimate(long heapBytes, long offHeapBytes, long diskBytes) {
+    private static final String[] UNITS = {"B", "KiB", "MiB", "GiB", "TiB"};
+
+    public String describe() {
+        StringBuilder description = new StringBuilder();
+        append(description, heapBytes, "heap");
+        append(description, offHeapBytes, "off-heap");
+        append(description, diskBytes, "disk");
+        return description.isEmpty() ? "nothing" : description.toString();
+    }
+
+    /** Binary units with one decimal, as in {@code 1.5 GiB}. */
+    public static String formatBytes(long bytes) {
+        int unit = 0;
+        double value = bytes;
+        while (value >= 1024 && unit < UNITS.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return unit == 0 ? bytes + " B" : Math.round(value * 10) / 10.0 + " " + UNITS[unit];
+    }
+
+    private static void append(StringBuilder description, long bytes, String location) {
+        if (bytes == 0) {
+            return;
+        }
+        if (!description.isEmpty()) {
+            description.append(", ");
+        }
+        description.append(formatBytes(bytes)).append(' ').append(location);
+    }
+}
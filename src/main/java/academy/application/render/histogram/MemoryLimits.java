@@ -0,0 +1,102 @@
+package academy.application.render.histogram;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import com.sun.management.OperatingSystemMXBean;
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Memory a render's histograms can still take, by where it lives.
+ *
+ * @param heapBytes free space of the old generation under the budget, less a headroom for everything else the render
+ *     allocates
+ * @param offHeapBytes direct memory left under {@code -XX:MaxDirectMemorySize} and outside the heap's share of RAM
+ * @param diskBytes usable space in the directory of a mapped histogram
+ * @param tempDirectory where a mapped histogram puts its file
+ */
+@Slf4j
+public record MemoryLimits(long heapBytes, long offHeapBytes, long diskBytes, Path tempDirectory) {
+    /** Left free for the tone mapper, encoder buffers and the rest of the application. */
+    static final long HEAP_HEADROOM_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Limits of the running JVM.
+     *
+     * @param heapBudgetBytes heap the histograms may use, {@code 0} for the maximum heap
+     */
+    public static MemoryLimits current(long heapBudgetBytes, Path tempDirectory) {
+        Runtime runtime = Runtime.getRuntime();
+        long maxHeap = runtime.maxMemory();
+        if (heapBudgetBytes > maxHeap) {
+            log.warn(
+                    "Memory budget {} is above the maximum heap {}, raise -Xmx to use it",
+                    MemoryEstimate.formatBytes(heapBudgetBytes),
+                    MemoryEstimate.formatBytes(maxHeap));
+        }
+        // Histograms live for the whole render, so they have to fit the old generation, which is only part of the
+        // heap with the serial and parallel collectors; G1 and ZGC report the whole heap
+        MemoryPoolMXBean oldGeneration = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .max(Comparator.comparingLong(pool -> pool.getUsage().getMax()))
+                .orElseThrow();
+        long capacity =
+                oldGeneration.getUsage().getMax() > 0 ? oldGeneration.getUsage().getMax() : maxHeap;
+        long budget = heapBudgetBytes > 0 ? Math.min(heapBudgetBytes, capacity) : capacity;
+        long heap = Math.max(0, budget - oldGeneration.getUsage().getUsed() - HEAP_HEADROOM_BYTES);
+
+        long directUsed = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+        long offHeap = Math.max(0, Math.min(maxDirectMemory(maxHeap) - directUsed, physicalMemory() - maxHeap));
+
+        return new MemoryLimits(heap, offHeap, usableSpace(tempDirectory), tempDirectory);
+    }
+
+    public boolean fits(MemoryEstimate estimate) {
+        return estimate.heapBytes() <= heapBytes
+                && estimate.offHeapBytes() <= offHeapBytes
+                && estimate.diskBytes() <= diskBytes;
+    }
+
+    public String describe() {
+        return MemoryEstimate.formatBytes(heapBytes) + " heap, " + MemoryEstimate.formatBytes(offHeapBytes)
+                + " off-heap, " + MemoryEstimate.formatBytes(diskBytes) + " disk in " + tempDirectory;
+    }
+
+    /** {@code -XX:MaxDirectMemorySize}, which defaults to the maximum heap when unset. */
+    private static long maxDirectMemory(long maxHeap) {
+        try {
+            HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            long configured =
+                    Long.parseLong(hotSpot.getVMOption("MaxDirectMemorySize").getValue());
+            return configured > 0 ? configured : maxHeap;
+        } catch (RuntimeException e) {
+            log.debug("MaxDirectMemorySize unavailable ({}), assuming the maximum heap", e.getMessage());
+            return maxHeap;
+        }
+    }
+
+    private static long physicalMemory() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof OperatingSystemMXBean os) {
+            return os.getTotalMemorySize();
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static long usableSpace(Path directory) {
+        try {
+            return Files.getFileStore(directory).getUsableSpace();
+        } catch (IOException e) {
+            log.warn("Cannot read free space of {}: {}", directory, e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package academy.application.render.histogram;
+
+/**
+ * Accumulation strategy chosen for a render and what it costs.
+ *
+ * @param strategy how the workers accumulate samples
+ * @param estimate memory the histograms of {@code strategy} take
+ * @param limits memory that was available when the plan was made
+ */
+public record MemoryPlan(AccumulationStrategy strategy, MemoryEstimate estimate, MemoryLimits limits) {}
@@ -0,0 +1,78 @@
+package academy.application.render.histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Picks the fastest {@link AccumulationStrategy} whose histograms fit the available memory, so a render that cannot fit
+ * fails before any work instead of with an {@link OutOfMemoryError} halfway through.
+ */
+@Slf4j
+@UtilityClass
+public class MemoryPlanner {
+
+    public static MemoryPlan plan(
+            int width, int height, int threads, long iterations, MemoryLimits limits, AccumulationStrategy forced) {
+        return plan(width, height, threads, iterations, limits, forced, false, 0);
+    }
+
+    /**
+     * @param iterations samples the workers plot in this run
+     * @param forced strategy to use instead of the fastest that fits, or {@code null}
+     * @param densityEstimation whether the render ends with a density estimation pass into a second histogram
+     * @param densityScratchBytes heap that pass needs besides the histograms
+     * @throws IllegalArgumentException if no strategy fits, with the estimates of every candidate
+     */
+    public static MemoryPlan plan(
+            int width,
+            int height,
+            int threads,
+            long iterations,
+            MemoryLimits limits,
+            AccumulationStrategy forced,
+            boolean densityEstimation,
+            long densityScratchBytes) {
+        List<AccumulationStrategy> candidates =
+                forced == null ? List.of(AccumulationStrategy.values()) : List.of(forced);
+        List<String> rejected = new ArrayList<>();
+
+        for (AccumulationStrategy strategy : candidates) {
+            if (!strategy.supportsSize(width, height)) {
+                rejected.add(strategy.getKey() + ": image too large for Java arrays");
+                continue;
+            }
+            if (forced == null && !suitsRun(strategy, threads, iterations)) {
+                log.debug("Skipping {} accumulation for {} threads and {} iterations", strategy, threads, iterations);
+                continue;
+            }
+
+            MemoryEstimate estimate = strategy.estimate(width, height, threads, densityEstimation, densityScratchBytes);
+            if (limits.fits(estimate)) {
+                MemoryPlan plan = new MemoryPlan(strategy, estimate, limits);
+                log.info("Memory plan: {} accumulation, {}", strategy.getKey(), estimate.describe());
+                log.debug("Memory available: {}", limits.describe());
+                return plan;
+            }
+            rejected.add(strategy.getKey() + " needs " + estimate.describe());
+        }
+
+        throw new IllegalArgumentException(String.format(
+                "Histograms of a %dx%d image with %d threads do not fit in memory: %s. Available: %s. "
+                        + "Reduce the size or thread count, or raise -Xmx, --memory-budget or the free disk space",
+                width, height, threads, String.join("; ", rejected), limits.describe()));
+    }
+
+    /**
+     * Shared strategies only pay off with several workers, and a {@code float} worker histogram stays exact only while
+     * no pixel can receive more samples than a {@code float} counts.
+     */
+    private static boolean suitsRun(AccumulationStrategy strategy, int threads, long iterations) {
+        return switch (strategy) {
+            case COMPACT -> threads > 1 && (iterations + threads - 1) / threads <= FloatHistogram.MAX_EXACT_COUNT;
+            case SHARED_ATOMIC -> threads > 1;
+            default -> true;
+        };
+    }
+}
@@ -0,0 +1,66 @@
+package academy.application.render.png;
+
+import static academy.application.render.png.PngChunks.MAX_CHUNK_SIZE;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/** Buffers a zlib stream and emits it as IDAT chunks of at most {@link PngChunks#MAX_CHUNK_SIZE} bytes. */
+final class IdatWriter {
+    private final WritableByteChannel channel;
+    private final byte[] chunk = new byte[MAX_CHUNK_SIZE];
+    private int chunkLength;
+    private long written;
+
+    IdatWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /** Exposes the free tail of the current chunk for callers that deflate straight into it. */
+    byte[] buffer() {
+        return chunk;
+    }
+
+    int position() {
+        return chunkLength;
+    }
+
+    int remaining() {
+        return chunk.length - chunkLength;
+    }
+
+    /** Marks {@code length} bytes written into {@link #buffer()} and flushes the chunk once it is full. */
+    void advance(int length) throws IOException {
+        chunkLength += length;
+        if (chunkLength == chunk.length) {
+            flush();
+        }
+    }
+
+    void write(byte[] data, int offset, int length) throws IOException {
+        while (length > 0) {
+            int count = Math.min(length, remaining());
+            System.arraycopy(data, offset, chunk, chunkLength, count);
+            offset += count;
+            length -= count;
+            advance(count);
+        }
+    }
+
+    /**
+     * Writes the buffered tail.
+     *
+     * @return total number of bytes written to the channel, chunk framing included
+     */
+    long finish() throws IOException {
+        if (chunkLength > 0) {
+            flush();
+        }
+        return written;
+    }
+
+    private void flush() throws IOException {
+        written += PngChunks.writeChunk(channel, "IDAT", chunk, 0, chunkLength);
+        chunkLength = 0;
+    }
+}
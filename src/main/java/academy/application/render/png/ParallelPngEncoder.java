@@ -0,0 +1,183 @@
+package academy.application.render.png;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * PNG encoder that filters and deflates independent row blocks on several threads, in the style of pigz.
+ *
+ * <p>Every block is compressed by its own raw {@link Deflater}, primed with the last 32 KiB of the previous block as a
+ * preset dictionary so the ratio stays close to a single stream, and terminated with a sync flush so the blocks can
+ * simply be concatenated. The caller thread wraps the concatenation in the zlib header and Adler-32 trailer and writes
+ * it out as IDAT chunks in row order. Only a window of {@code 2 * threads} blocks is in flight at any time.
+ */
+@Slf4j
+public class ParallelPngEncoder implements PngEncoder {
+    private static final int DEFAULT_BLOCK_BYTES = 128 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    /** zlib header for a deflate stream with a 32 KiB window (CMF 0x78, default-level FLG with a valid check). */
+    private static final byte[] ZLIB_HEADER = {0x78, (byte) 0x9C};
+
+    private final int compressionLevel;
+    private final int threads;
+    private final int blockBytes;
+
+    public ParallelPngEncoder(int compressionLevel, int threads) {
+        this(compressionLevel, threads, DEFAULT_BLOCK_BYTES);
+    }
+
+    ParallelPngEncoder(int compressionLevel, int threads, int blockBytes) {
+        this.compressionLevel = compressionLevel;
+        this.threads = threads;
+        this.blockBytes = blockBytes;
+    }
+
+    @Override
+    public long encode(WritableByteChannel channel, int width, int height, int bitDepth, RowSource source)
+            throws IOException {
+        int bytesPerPixel = PngChunks.bytesPerPixel(bitDepth);
+        int rowBytes = width * bytesPerPixel;
+        int rowsPerBlock = Math.max(1, blockBytes / (rowBytes + 1));
+        int blockCount = (height + rowsPerBlock - 1) / rowsPerBlock;
+        BlockLayout layout = new BlockLayout(rowBytes, bytesPerPixel, rowsPerBlock, height, blockCount);
+        int window = threads * 2;
+        log.debug(
+                "Encoding {}x{} PNG in {} blocks of {} rows with {} threads (compression level {})",
+                width,
+                height,
+                blockCount,
+                rowsPerBlock,
+                threads,
+                compressionLevel);
+
+        long written = PngChunks.writeSignatureAndHeader(channel, width, height, bitDepth);
+        IdatWriter idat = new IdatWriter(channel);
+        idat.write(ZLIB_HEADER, 0, ZLIB_HEADER.length);
+        Adler32 checksum = new Adler32();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<CompletableFuture<byte[]>> filtered = new ArrayList<>(blockCount);
+            List<CompletableFuture<byte[]>> compressed = new ArrayList<>(blockCount);
+
+            for (int block = 0; block < blockCount; block++) {
+                while (filtered.size() < Math.min(blockCount, block + window)) {
+                    submitBlock(filtered, compressed, executor, source, layout);
+                }
+
+                byte[] data = join(filtered.get(block));
+                byte[] deflated = join(compressed.get(block));
+                checksum.update(data);
+                idat.write(deflated, 0, deflated.length);
+
+                if (block > 0) {
+                    filtered.set(block - 1, null);
+                }
+                compressed.set(block, null);
+            }
+        }
+
+        byte[] trailer =
+                ByteBuffer.allocate(4).putInt((int) checksum.getValue()).array();
+        idat.write(trailer, 0, trailer.length);
+        written += idat.finish();
+        return written + PngChunks.writeEnd(channel);
+    }
+
+    private void submitBlock(
+            List<CompletableFuture<byte[]>> filtered,
+            List<CompletableFuture<byte[]>> compressed,
+            ExecutorService executor,
+            RowSource source,
+            BlockLayout layout) {
+        int block = filtered.size();
+        int firstRow = block * layout.rowsPerBlock();
+        int lastRow = Math.min(layout.height(), firstRow + layout.rowsPerBlock());
+        boolean last = block == layout.blockCount() - 1;
+
+        CompletableFuture<byte[]> data =
+                CompletableFuture.supplyAsync(() -> filterRows(source, layout, firstRow, lastRow), executor);
+        CompletableFuture<byte[]> dictionary =
+                block == 0 ? CompletableFuture.completedFuture(null) : filtered.get(block - 1);
+        filtered.add(data);
+        compressed.add(
+                data.thenCombineAsync(dictionary, (input, previous) -> deflate(input, previous, last), executor));
+    }
+
+    /** Filters rows {@code [firstRow, lastRow)}; the row above the block is regenerated to serve as filter context. */
+    private static byte[] filterRows(RowSource source, BlockLayout layout, int firstRow, int lastRow) {
+        int rowBytes = layout.rowBytes();
+        ScanlineFilter filter = new ScanlineFilter(rowBytes, layout.bytesPerPixel());
+        byte[] row = new byte[rowBytes];
+        byte[] prior = null;
+        if (firstRow > 0) {
+            prior = new byte[rowBytes];
+            source.fillRow(firstRow - 1, prior);
+        }
+
+        byte[] output = new byte[(lastRow - firstRow) * (rowBytes + 1)];
+        for (int y = firstRow, offset = 0; y < lastRow; y++, offset += rowBytes + 1) {
+            source.fillRow(y, row);
+            System.arraycopy(filter.filter(row, prior), 0, output, offset, rowBytes + 1);
+            if (prior == null) {
+                prior = new byte[rowBytes];
+            }
+            byte[] swap = prior;
+            prior = row;
+            row = swap;
+        }
+        return output;
+    }
+
+    private byte[] deflate(byte[] input, byte[] previous, boolean last) {
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            if (previous != null) {
+                int length = Math.min(DICTIONARY_SIZE, previous.length);
+                deflater.setDictionary(previous, previous.length - length, length);
+            }
+            deflater.setInput(input);
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream(input.length / 2 + 64);
+            byte[] buffer = new byte[16 * 1024];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    output.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                int count;
+                do {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    output.write(buffer, 0, count);
+                } while (count == buffer.length);
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] join(CompletableFuture<byte[]> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("PNG block encoding failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private record BlockLayout(int rowBytes, int bytesPerPixel, int rowsPerBlock, int height, int blockCount) {}
+}
@@ -0,0 +1,63 @@
+package academy.application.render.png;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import lombok.experimental.UtilityClass;
+
+/** Low-level PNG framing: signature, chunk headers and CRCs. */
+@UtilityClass
+class PngChunks {
+
+    static final int RGB_CHANNELS = 3;
+    static final int MAX_CHUNK_SIZE = 1 << 16;
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte COLOR_TYPE_RGB = 2;
+
+    /** Bytes per pixel of an RGB image with the given sample bit depth (8 or 16). */
+    static int bytesPerPixel(int bitDepth) {
+        return RGB_CHANNELS * bitDepth / 8;
+    }
+
+    static long writeSignatureAndHeader(WritableByteChannel channel, int width, int height, int bitDepth)
+            throws IOException {
+        ByteBuffer ihdr = ByteBuffer.allocate(13)
+                .putInt(width)
+                .putInt(height)
+                .put((byte) bitDepth)
+                .put(COLOR_TYPE_RGB)
+                .put((byte) 0) // deflate compression
+                .put((byte) 0) // adaptive filtering
+                .put((byte) 0); // no interlace
+        long written = writeFully(channel, ByteBuffer.wrap(SIGNATURE));
+        return written + writeChunk(channel, "IHDR", ihdr.array(), 0, ihdr.capacity());
+    }
+
+    static long writeEnd(WritableByteChannel channel) throws IOException {
+        return writeChunk(channel, "IEND", new byte[0], 0, 0);
+    }
+
+    static long writeChunk(WritableByteChannel channel, String type, byte[] data, int offset, int length)
+            throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, offset, length);
+
+        ByteBuffer header = ByteBuffer.allocate(8).putInt(length).put(typeBytes).flip();
+        ByteBuffer trailer = ByteBuffer.allocate(4).putInt((int) crc.getValue()).flip();
+        return writeFully(channel, header)
+                + writeFully(channel, ByteBuffer.wrap(data, offset, length))
+                + writeFully(channel, trailer);
+    }
+
+    static long writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        long written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return written;
+    }
+}
@@ -0,0 +1,33 @@
+package academy.application.render.png;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/** Writes an RGB PNG whose rows are pulled from a {@link RowSource}. */
+public interface PngEncoder {
+
+    /**
+     * Encodes an image with 8 or 16 bits per sample. Rows hold {@code width * 3 * bitDepth / 8} bytes, 16-bit samples
+     * in big-endian order.
+     *
+     * @return number of bytes written to {@code channel}
+     */
+    long encode(WritableByteChannel channel, int width, int height, int bitDepth, RowSource source) throws IOException;
+
+    /** Encodes an 8-bit image. */
+    default long encode(WritableByteChannel channel, int width, int height, RowSource source) throws IOException {
+        return encode(channel, width, height, 8, source);
+    }
+
+    /**
+     * Picks the encoder for the given thread budget: the single-stream encoder for one thread, the block-parallel one
+     * otherwise.
+     *
+     * @param compressionLevel {@link java.util.zip.Deflater} level, -1 (default) or 0..9
+     */
+    static PngEncoder create(int compressionLevel, int threads) {
+        return threads <= 1
+                ? new StreamingPngEncoder(compressionLevel)
+                : new ParallelPngEncoder(compressionLevel, threads);
+    }
+}
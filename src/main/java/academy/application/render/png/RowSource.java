@@ -0,0 +1,12 @@
+package academy.application.render.png;
+
+/** Produces the raw (unfiltered) bytes of one image row on demand. */
+@FunctionalInterface
+public interface RowSource {
+
+    /**
+     * Fills {@code row} with the samples of image row {@code y}. Implementations must be safe to call from several
+     * threads for different rows.
+     */
+    void fillRow(int y, byte[] row);
+}
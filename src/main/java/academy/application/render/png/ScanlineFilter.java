@@ -0,0 +1,84 @@
+package academy.application.render.png;
+
+import java.util.Arrays;
+
+/**
+ * Adaptive PNG row filtering: every row is filtered with all five filter types and the one with the smallest sum of
+ * absolute residuals is kept (the libpng "minimum sum" heuristic). Instances hold scratch buffers and are not
+ * thread-safe.
+ */
+final class ScanlineFilter {
+    private static final int NONE = 0;
+    private static final int SUB = 1;
+    private static final int UP = 2;
+    private static final int AVERAGE = 3;
+    private static final int PAETH = 4;
+
+    private final int bytesPerPixel;
+    private final byte[] zeroRow;
+    private final byte[][] candidates;
+    private final long[] sums = new long[PAETH + 1];
+
+    ScanlineFilter(int rowBytes, int bytesPerPixel) {
+        this.bytesPerPixel = bytesPerPixel;
+        this.zeroRow = new byte[rowBytes];
+        this.candidates = new byte[PAETH + 1][rowBytes + 1];
+        for (int type = NONE; type <= PAETH; type++) {
+            candidates[type][0] = (byte) type;
+        }
+    }
+
+    /**
+     * Filters {@code raw} against the previous row.
+     *
+     * @param prior previous raw row, or {@code null} for the first row of the image
+     * @return buffer of {@code rowBytes + 1} bytes starting with the filter type; valid until the next call
+     */
+    byte[] filter(byte[] raw, byte[] prior) {
+        byte[] up = prior == null ? zeroRow : prior;
+        byte[] none = candidates[NONE];
+        byte[] sub = candidates[SUB];
+        byte[] upFiltered = candidates[UP];
+        byte[] average = candidates[AVERAGE];
+        byte[] paethFiltered = candidates[PAETH];
+        Arrays.fill(sums, 0);
+
+        for (int i = 0; i < raw.length; i++) {
+            int x = raw[i] & 0xFF;
+            int a = i >= bytesPerPixel ? raw[i - bytesPerPixel] & 0xFF : 0;
+            int b = up[i] & 0xFF;
+            int c = i >= bytesPerPixel ? up[i - bytesPerPixel] & 0xFF : 0;
+
+            none[i + 1] = (byte) x;
+            sub[i + 1] = (byte) (x - a);
+            upFiltered[i + 1] = (byte) (x - b);
+            average[i + 1] = (byte) (x - ((a + b) >>> 1));
+            paethFiltered[i + 1] = (byte) (x - paeth(a, b, c));
+
+            sums[NONE] += Math.abs(none[i + 1]);
+            sums[SUB] += Math.abs(sub[i + 1]);
+            sums[UP] += Math.abs(upFiltered[i + 1]);
+            sums[AVERAGE] += Math.abs(average[i + 1]);
+            sums[PAETH] += Math.abs(paethFiltered[i + 1]);
+        }
+
+        int bestType = NONE;
+        for (int type = SUB; type <= PAETH; type++) {
+            if (sums[type] < sums[bestType]) {
+                bestType = type;
+            }
+        }
+        return candidates[bestType];
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+}
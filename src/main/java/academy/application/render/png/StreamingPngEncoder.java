@@ -0,0 +1,57 @@
+package academy.application.render.png;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.Deflater;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Single-threaded PNG encoder that pulls one row at a time from its source, filters it and streams the deflated bytes
+ * out as IDAT chunks. Apart from the deflater window only two rows are held in memory.
+ */
+@Slf4j
+public class StreamingPngEncoder implements PngEncoder {
+    private final int compressionLevel;
+
+    public StreamingPngEncoder(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    @Override
+    public long encode(WritableByteChannel channel, int width, int height, int bitDepth, RowSource source)
+            throws IOException {
+        log.debug("Encoding {}x{} PNG (compression level {})", width, height, compressionLevel);
+        int bytesPerPixel = PngChunks.bytesPerPixel(bitDepth);
+        int rowBytes = width * bytesPerPixel;
+        long written = PngChunks.writeSignatureAndHeader(channel, width, height, bitDepth);
+
+        ScanlineFilter filter = new ScanlineFilter(rowBytes, bytesPerPixel);
+        byte[] row = new byte[rowBytes];
+        byte[] prior = new byte[rowBytes];
+        IdatWriter idat = new IdatWriter(channel);
+
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            for (int y = 0; y < height; y++) {
+                source.fillRow(y, row);
+                deflater.setInput(filter.filter(row, y == 0 ? null : prior));
+                while (!deflater.needsInput()) {
+                    idat.advance(deflater.deflate(idat.buffer(), idat.position(), idat.remaining()));
+                }
+                byte[] swap = prior;
+                prior = row;
+                row = swap;
+            }
+
+            deflater.finish();
+            while (!deflater.finished()) {
+                idat.advance(deflater.deflate(idat.buffer(), idat.position(), idat.remaining()));
+            }
+            written += idat.finish();
+        } finally {
+            deflater.end();
+        }
+
+        return written + PngChunks.writeEnd(channel);
+    }
+}
@@ -0,0 +1,26 @@
+package academy.application.server;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/** Lifecycle of a job of the {@link RenderServer}: queued, running, then one of the finished states. */
+@Getter
+@RequiredArgsConstructor
+public enum JobState {
+    QUEUED("queued"),
+    RUNNING("running"),
+    DONE("done"),
+    FAILED("failed"),
+    /** Cancelled by a client, before or while it ran. */
+    CANCELLED("cancelled"),
+    /** Stopped because it ran longer than its timeout. */
+    TIMED_OUT("timed_out");
+
+    @JsonValue
+    private final String key;
+
+    public boolean isFinished() {
+        return this != QUEUED && this != RUNNING;
+    }
+}
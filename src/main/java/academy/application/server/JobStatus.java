@@ -0,0 +1,20 @@
+package academy.application.server;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * What the {@link RenderServer} reports about a job.
+ *
+ * @param completedIterations iterations done so far, {@code null} while the job is queued
+ * @param queuedMillis time spent waiting for a render slot
+ * @param renderMillis time spent rendering, so far while the job runs; {@code null} before it starts
+ * @param error why a job failed, was cancelled or timed out
+ */
+public record JobStatus(
+        String id,
+        JobState state,
+        @JsonProperty("completed_iterations") Long completedIterations,
+        @JsonProperty("total_iterations") long totalIterations,
+        @JsonProperty("queued_millis") long queuedMillis,
+        @JsonProperty("render_millis") Long renderMillis,
+        String error) {}
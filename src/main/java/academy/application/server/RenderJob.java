@@ -0,0 +1,160 @@
+package academy.application.server;
+
+import academy.application.algorithm.ChaosGame;
+import academy.application.metrics.RenderProgress;
+import academy.application.render.ImageRenderer;
+import academy.application.render.ToneMappedImage;
+import academy.application.render.ToneMapper;
+import academy.application.render.histogram.MemoryPlan;
+import academy.domain.AppConfiguration;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One render of the {@link RenderServer}. Runs on a job thread of the server, its workers on the shared pool, and keeps
+ * the encoded PNG in memory once it is done. State changes are synchronized on the job; the game is cancelled through
+ * {@link ChaosGame#cancel()}, so a stopped job frees its threads within a chunk of iterations.
+ */
+@Slf4j
+final class RenderJob {
+    @Getter
+    private final String id;
+
+    private final AppConfiguration configuration;
+    private final MemoryPlan plan;
+
+    @Getter
+    private final Duration timeout;
+
+    private final long submittedNanos = System.nanoTime();
+
+    private JobState state = JobState.QUEUED;
+
+    private long startedNanos;
+    private long finishedNanos;
+    private String error;
+    private ChaosGame game;
+    /** State to finish in once the cancelled game returns. */
+    private JobState stopReason;
+
+    @Getter
+    private volatile byte[] image;
+
+    RenderJob(String id, AppConfiguration configuration, MemoryPlan plan, Duration timeout) {
+        this.id = id;
+        this.configuration = configuration;
+        this.plan = plan;
+        this.timeout = timeout;
+    }
+
+    /** Renders the job with its workers on {@code pool}, unless it was cancelled while queued. */
+    void run(ExecutorService pool) {
+        ImageRenderer renderer =
+                new ImageRenderer(configuration, plan.strategy(), plan.limits().tempDirectory());
+        ChaosGame chaosGame = new ChaosGame(configuration, renderer);
+        chaosGame.setExecutor(pool);
+        synchronized (this) {
+            if (state != JobState.QUEUED) {
+                renderer.close();
+                return;
+            }
+            state = JobState.RUNNING;
+            startedNanos = System.nanoTime();
+            game = chaosGame;
+        }
+        log.info("Job {} started", id);
+
+        try (renderer) {
+            configuration.setRandom(new Random(configuration.getSeed()));
+            configuration.setColors();
+            if (configuration.getThreadQuantity() == 1) {
+                chaosGame.runSingleThread();
+            } else {
+                chaosGame.runMultiThread();
+            }
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            renderer.writePng(Channels.newChannel(png), ToneMapper.DEFAULT);
+            image = png.toByteArray();
+            finish(JobState.DONE, null);
+        } catch (CancellationException e) {
+            finish(stopReason, stopReason == JobState.TIMED_OUT ? timeoutMessage() : null);
+        } catch (IOException | RuntimeException e) {
+            log.error("Job {} failed: {}", id, e.getMessage());
+            finish(JobState.FAILED, String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Stops the job in {@code reason}, {@link JobState#CANCELLED} or {@link JobState#TIMED_OUT}: at once if it is
+     * queued, at the next chunk boundary of its workers if it runs.
+     *
+     * @return whether the job was still queued or running
+     */
+    synchronized boolean stop(JobState reason) {
+        if (state == JobState.QUEUED) {
+            finish(reason, reason == JobState.TIMED_OUT ? timeoutMessage() : null);
+            return true;
+        }
+        if (state == JobState.RUNNING && stopReason == null) {
+            log.info("Stopping job {}: {}", id, reason.getKey());
+            stopReason = reason;
+            game.cancel();
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void finish(JobState finalState, String message) {
+        state = finalState;
+        error = message;
+        finishedNanos = System.nanoTime();
+        game = null;
+        if (startedNanos != 0) {
+            log.info("Job {} {} in {} ms", id, finalState.getKey(), (finishedNanos - startedNanos) / 1_000_000);
+        }
+    }
+
+    private String timeoutMessage() {
+        return "Job exceeded its timeout of " + timeout.toSeconds() + " s";
+    }
+
+    synchronized JobState getState() {
+        return state;
+    }
+
+    /**
+     * Low-resolution snapshot of the running render, see {@link ChaosGame#preview}; {@code null} unless the job runs.
+     */
+    ToneMappedImage preview(int maxSize) {
+        ChaosGame running;
+        synchronized (this) {
+            running = game;
+        }
+        return running == null ? null : running.preview(maxSize, ToneMapper.DEFAULT);
+    }
+
+    synchronized JobStatus status() {
+        long now = System.nanoTime();
+        long queuedMillis =
+                ((startedNanos != 0 ? startedNanos : finishedNanos != 0 ? finishedNanos : now) - submittedNanos)
+                        / 1_000_000;
+        Long renderMillis =
+                startedNanos == 0 ? null : ((finishedNanos != 0 ? finishedNanos : now) - startedNanos) / 1_000_000;
+        Long completed = null;
+        if (state == JobState.DONE) {
+            completed = (long) configuration.getIterationCount();
+        } else if (game != null) {
+            RenderProgress progress = game.getProgress();
+            completed = progress == null ? 0 : progress.getCompletedIterations();
+        }
+        return new JobStatus(
+                id, state, completed, configuration.getIterationCount(), queuedMillis, renderMillis, error);
+    }
+}
@@ -0,0 +1,478 @@
+package academy.application.server;
+
+import academy.application.render.ToneMappedImage;
+import academy.application.render.histogram.MemoryEstimate;
+import academy.application.render.histogram.MemoryLimits;
+import academy.application.render.histogram.MemoryPlan;
+import academy.application.render.histogram.MemoryPlanner;
+import academy.application.render.png.PngEncoder;
+import academy.domain.AppConfiguration;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local HTTP render service on the JDK {@link HttpServer}, every request handled on a virtual thread:
+ *
+ * <pre>
+ * POST   /jobs[?timeout=seconds]   queue the JSON configuration in the body, 202 with the job status
+ * GET    /jobs                     status of every job the server remembers
+ * GET    /jobs/{id}                status of one job
+ * GET    /jobs/{id}/preview[?size] low-resolution PNG of a running job, refreshed at most twice a second
+ * GET    /jobs/{id}/image          the PNG of a finished job
+ * DELETE /jobs/{id}                cancel a queued or running job
+ * </pre>
+ *
+ * <p>At most {@code maxJobs} jobs render at a time, their workers sharing one pool; up to {@code maxQueued} more wait,
+ * and further submissions get 503. Every job is stopped once it has run for its timeout, so one huge job cannot starve
+ * the queue. Jobs whose histograms do not fit in the memory budget are refused up front, and a job only starts once its
+ * histograms fit next to those of the running ones; until then it stays queued. Finished jobs and their images are kept
+ * in memory, the oldest dropped beyond {@value #RETAINED_JOBS}.
+ */
+@Slf4j
+public class RenderServer implements AutoCloseable {
+    static final int RETAINED_JOBS = 64;
+
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final int DEFAULT_PREVIEW_SIZE = 256;
+    private static final int MAX_PREVIEW_SIZE = 1024;
+    private static final long PREVIEW_INTERVAL_NANOS = 500_000_000L;
+
+    private static final ObjectMapper MAPPER =
+            new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private final InetSocketAddress address;
+    private final Duration jobTimeout;
+    private final MemoryLimits memoryBudget;
+    private final JobLoader loader;
+    private final ExecutorService pool;
+    private final ThreadPoolExecutor jobRunner;
+    private final ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "render-job-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService handlers = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong nextId = new AtomicLong(1);
+    /** Jobs by id in submission order; guarded by itself. */
+    private final Map<String, RenderJob> jobs = new LinkedHashMap<>();
+    /** Last preview of every running job, so polling clients do not each pay for one. */
+    private final Map<String, Preview> previews = new LinkedHashMap<>();
+
+    private HttpServer server;
+    /** Memory the histograms of the running jobs were planned to take; guarded by this server. */
+    private long reservedHeapBytes;
+
+    private long reservedOffHeapBytes;
+
+    /** Turns the configuration of a request into a validated one; any runtime exception rejects the job. */
+    @FunctionalInterface
+    public interface JobLoader {
+        AppConfiguration load(JsonNode config);
+    }
+
+    private record Preview(long takenNanos, int size, byte[] png) {}
+
+    /**
+     * @param threads size of the worker pool the jobs share
+     * @param maxJobs jobs rendering at the same time
+     * @param maxQueued jobs waiting for a render slot before submissions are refused
+     * @param jobTimeout longest a job may render; requests may ask for less
+     * @param memoryBudget heap and off-heap memory the histograms of the running jobs may take together, and the disk
+     *     space and directory of mapped histograms
+     */
+    public RenderServer(
+            InetSocketAddress address,
+            int threads,
+            int maxJobs,
+            int maxQueued,
+            Duration jobTimeout,
+            MemoryLimits memoryBudget,
+            JobLoader loader) {
+        this.address = address;
+        this.jobTimeout = jobTimeout;
+        this.memoryBudget = memoryBudget;
+        this.loader = loader;
+        this.pool = Executors.newFixedThreadPool(threads);
+        this.jobRunner = new ThreadPoolExecutor(
+                maxJobs, maxJobs, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(maxQueued), runnable -> {
+                    Thread thread = new Thread(runnable, "render-job");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(address, 0);
+        server.setExecutor(handlers);
+        server.createContext("/jobs", this::handle);
+        server.start();
+        log.info("Render server listening on http://{}:{}/jobs", address.getHostString(), port());
+    }
+
+    /** Port the server listens on, the one picked by the system when it was asked for port 0. */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Stops accepting requests and cancels every job. */
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+        }
+        synchronized (jobs) {
+            jobs.values().forEach(job -> job.stop(JobState.CANCELLED));
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+        jobRunner.shutdownNow();
+        timeouts.shutdownNow();
+        pool.shutdown();
+        handlers.shutdown();
+        log.info("Render server stopped");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            route(exchange);
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        try {
+            String[] path =
+                    exchange.getRequestURI().getPath().replaceAll("/+$", "").split("/");
+            String method = exchange.getRequestMethod();
+            // path is ["", "jobs", id?, resource?]
+            if (!path[1].equals("jobs")) {
+                sendError(
+                        exchange,
+                        404,
+                        "No such resource: " + exchange.getRequestURI().getPath());
+                return;
+            }
+            if (path.length == 2) {
+                switch (method) {
+                    case "POST" -> submit(exchange);
+                    case "GET" -> sendJson(exchange, 200, statuses());
+                    default -> sendError(exchange, 405, "Method not allowed: " + method);
+                }
+                return;
+            }
+            RenderJob job = path.length <= 4 ? find(path[2]) : null;
+            if (job == null) {
+                sendError(
+                        exchange,
+                        404,
+                        "No such job: " + exchange.getRequestURI().getPath());
+                return;
+            }
+            String resource = path.length == 4 ? path[3] : "";
+            switch (method + " " + resource) {
+                case "GET " -> sendJson(exchange, 200, job.status());
+                case "DELETE " -> cancel(exchange, job);
+                case "GET preview" -> sendPreview(exchange, job);
+                case "GET image" -> sendImage(exchange, job);
+                default -> sendError(exchange, 404, "No such resource: " + method + " " + exchange.getRequestURI());
+            }
+        } catch (RuntimeException e) {
+            log.error(
+                    "Request {} {} failed: {}", exchange.getRequestMethod(), exchange.getRequestURI(), e.getMessage());
+            sendError(exchange, 500, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private void submit(HttpExchange exchange) throws IOException {
+        byte[] body;
+        try (InputStream input = exchange.getRequestBody()) {
+            body = input.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (body.length > MAX_BODY_BYTES) {
+            sendError(exchange, 413, "Configuration is larger than " + MAX_BODY_BYTES + " bytes");
+            return;
+        }
+
+        Duration timeout;
+        AppConfiguration configuration;
+        MemoryPlan plan;
+        try {
+            timeout = requestedTimeout(queryParameter(exchange, "timeout"));
+            configuration = loader.load(MAPPER.readTree(body));
+            plan = planMemory(configuration);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Rejecting job: {}", e.getMessage());
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+
+        RenderJob job = new RenderJob(String.valueOf(nextId.getAndIncrement()), configuration, plan, timeout);
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+        }
+        try {
+            jobRunner.execute(() -> runJob(job, plan.estimate()));
+        } catch (RejectedExecutionException e) {
+            synchronized (jobs) {
+                jobs.remove(job.getId());
+            }
+            sendError(exchange, 503, "Render queue is full, try again later");
+            return;
+        }
+        log.info("Job {} queued ({} waiting)", job.getId(), jobRunner.getQueue().size());
+        exchange.getResponseHeaders().set("Location", "/jobs/" + job.getId());
+        sendJson(exchange, 202, job.status());
+    }
+
+    private void runJob(RenderJob job, MemoryEstimate estimate) {
+        if (!reserve(job, estimate)) {
+            // Cancelled while it waited
+            return;
+        }
+        var timer = timeouts.schedule(
+                () -> job.stop(JobState.TIMED_OUT), job.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        try {
+            job.run(pool);
+        } finally {
+            timer.cancel(false);
+            release(estimate);
+            synchronized (previews) {
+                previews.remove(job.getId());
+            }
+            forgetOldJobs();
+        }
+    }
+
+    private void cancel(HttpExchange exchange, RenderJob job) throws IOException {
+        if (!job.stop(JobState.CANCELLED)) {
+            sendError(exchange, 409, "Job " + job.getId() + " already finished");
+            return;
+        }
+        synchronized (this) {
+            // A job waiting for memory gives up its turn
+            notifyAll();
+        }
+        sendJson(exchange, 202, job.status());
+    }
+
+    private void sendPreview(HttpExchange exchange, RenderJob job) throws IOException {
+        JobState state = job.getState();
+        if (state == JobState.DONE) {
+            exchange.getResponseHeaders().set("Location", "/jobs/" + job.getId() + "/image");
+            exchange.sendResponseHeaders(303, -1);
+            return;
+        }
+        if (state != JobState.RUNNING) {
+            sendError(exchange, 409, "Job " + job.getId() + " is " + state.getKey() + ", no preview to show");
+            return;
+        }
+        int size;
+        try {
+            String requested = queryParameter(exchange, "size");
+            size = requested == null ? DEFAULT_PREVIEW_SIZE : Integer.parseInt(requested);
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "Preview size must be a number: " + e.getMessage());
+            return;
+        }
+        if (size < 1 || size > MAX_PREVIEW_SIZE) {
+            sendError(exchange, 400, "Preview size must be between 1 and " + MAX_PREVIEW_SIZE + ", got: " + size);
+            return;
+        }
+
+        byte[] png = preview(job, size);
+        if (png == null) {
+            sendError(exchange, 409, "Job " + job.getId() + " finished while the preview was taken");
+            return;
+        }
+        send(exchange, 200, "image/png", png);
+    }
+
+    /** The last preview of the job if it is recent enough and of the same size, a new one otherwise. */
+    private byte[] preview(RenderJob job, int size) throws IOException {
+        long now = System.nanoTime();
+        synchronized (previews) {
+            Preview last = previews.get(job.getId());
+            if (last != null && last.size() == size && now - last.takenNanos() < PREVIEW_INTERVAL_NANOS) {
+                return last.png();
+            }
+        }
+        ToneMappedImage image = job.preview(size);
+        if (image == null) {
+            return null;
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        image.writePng(Channels.newChannel(png), PngEncoder.create(Deflater.BEST_SPEED, 1));
+        log.debug("Preview of job {} took {} ms", job.getId(), (System.nanoTime() - now) / 1_000_000);
+        synchronized (previews) {
+            if (job.getState() == JobState.RUNNING) {
+                previews.put(job.getId(), new Preview(now, size, png.toByteArray()));
+            }
+        }
+        return png.toByteArray();
+    }
+
+    private void sendImage(HttpExchange exchange, RenderJob job) throws IOException {
+        byte[] image = job.getImage();
+        if (image == null) {
+            sendError(
+                    exchange,
+                    409,
+                    "Job " + job.getId() + " is " + job.getState().getKey() + ", it has no image");
+            return;
+        }
+        send(exchange, 200, "image/png", image);
+    }
+
+    private Duration requestedTimeout(String seconds) {
+        if (seconds == null) {
+            return jobTimeout;
+        }
+        long value;
+        try {
+            value = Long.parseLong(seconds);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Timeout must be a number of seconds, got: " + seconds);
+        }
+        if (value < 1) {
+            throw new IllegalArgumentException("Timeout must be at least 1 second, got: " + value);
+        }
+        Duration requested = Duration.ofSeconds(value);
+        return requested.compareTo(jobTimeout) < 0 ? requested : jobTimeout;
+    }
+
+    /** Plans the job against the whole budget, so it is refused only if it cannot run even alone. */
+    private MemoryPlan planMemory(AppConfiguration configuration) {
+        return MemoryPlanner.plan(
+                configuration.getSize().width(),
+                configuration.getSize().height(),
+                configuration.getThreadQuantity(),
+                configuration.getIterationCount(),
+                memoryBudget,
+                null);
+    }
+
+    /**
+     * Waits until the histograms of the job fit next to those of the running jobs.
+     *
+     * @return whether the job may run, {@code false} once it was cancelled or the server closed
+     */
+    private synchronized boolean reserve(RenderJob job, MemoryEstimate estimate) {
+        if (!fits(estimate)) {
+            log.info("Job {} waits for memory: {}", job.getId(), estimate.describe());
+        }
+        while (!fits(estimate)) {
+            if (job.getState() != JobState.QUEUED) {
+                return false;
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.stop(JobState.CANCELLED);
+                return false;
+            }
+        }
+        if (job.getState() != JobState.QUEUED) {
+            return false;
+        }
+        reservedHeapBytes += estimate.heapBytes();
+        reservedOffHeapBytes += estimate.offHeapBytes();
+        return true;
+    }
+
+    private synchronized void release(MemoryEstimate estimate) {
+        reservedHeapBytes -= estimate.heapBytes();
+        reservedOffHeapBytes -= estimate.offHeapBytes();
+        notifyAll();
+    }
+
+    private boolean fits(MemoryEstimate estimate) {
+        return reservedHeapBytes + estimate.heapBytes() <= memoryBudget.heapBytes()
+                && reservedOffHeapBytes + estimate.offHeapBytes() <= memoryBudget.offHeapBytes();
+    }
+
+    private RenderJob find(String id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    private List<JobStatus> statuses() {
+        List<RenderJob> snapshot;
+        synchronized (jobs) {
+            snapshot = new ArrayList<>(jobs.values());
+        }
+        return snapshot.stream().map(RenderJob::status).toList();
+    }
+
+    /** Drops the oldest finished jobs beyond {@link #RETAINED_JOBS}, with their images. */
+    private void forgetOldJobs() {
+        synchronized (jobs) {
+            long finished = jobs.values().stream()
+                    .filter(job -> job.getState().isFinished())
+                    .count();
+            Iterator<RenderJob> iterator = jobs.values().iterator();
+            while (finished > RETAINED_JOBS && iterator.hasNext()) {
+                if (iterator.next().getState().isFinished()) {
+                    iterator.remove();
+                    finished--;
+                }
+            }
+        }
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0 && parameter.substring(0, separator).equals(name)) {
+                return parameter.substring(separator + 1);
+            }
+        }
+        return null;
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        send(exchange, status, "application/json", MAPPER.writeValueAsBytes(body));
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, Map.of("error", String.valueOf(message)));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+}
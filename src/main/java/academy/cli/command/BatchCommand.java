@@ -0,0 +1,128 @@
+package academy.cli.command;
+
+import academy.Application;
+import academy.application.batch.BatchResult;
+import academy.application.batch.BatchRunner;
+import academy.application.render.histogram.MemoryLimits;
+import academy.cli.converter.AppConfigurationConverter;
+import academy.cli.converter.MemorySizeConverter;
+import academy.cli.converter.PathConverter;
+import academy.cli.validator.ArgumentValidator;
+import academy.domain.AppConfiguration;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.Spec;
+
+@Slf4j
+@Command(
+        name = "batch",
+        description = "Render a directory or manifest of JSON configurations in one JVM on a shared worker pool",
+        mixinStandardHelpOptions = true)
+public class BatchCommand implements Runnable {
+
+    @Spec
+    private CommandSpec spec;
+
+    @Parameters(
+            index = "0",
+            description = "Directory of .json configurations, or a manifest file listing one configuration per line",
+            converter = PathConverter.class)
+    private Path source;
+
+    @Option(
+            names = {"-o", "--output-dir"},
+            description = "Directory for the images, named after the configurations (default: ${DEFAULT-VALUE})",
+            defaultValue = ".",
+            converter = PathConverter.class)
+    private Path outputDir;
+
+    @Option(
+            names = {"-t", "--threads"},
+            description = "Size of the shared worker pool (default: available processors)")
+    private int threadQuantity = Runtime.getRuntime().availableProcessors();
+
+    @Option(
+            names = "--memory-budget",
+            description = "Heap the histograms of running and reusable jobs may take, e.g. 512m or 4g "
+                    + "(default: the free heap)",
+            converter = MemorySizeConverter.class)
+    private Long memoryBudget;
+
+    @Option(
+            names = "--summary",
+            description = "Per-job summary CSV (default: batch-summary.csv in the output directory)",
+            converter = PathConverter.class)
+    private Path summaryPath;
+
+    /** Only the target of the validators' error messages, the batch options are not {@link Application}'s. */
+    private final Application validationContext = new Application();
+
+    @Override
+    public void run() {
+        if (threadQuantity < 1) {
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(), "Thread quantity must be at least 1, got: " + threadQuantity);
+        }
+        List<Path> configs = resolveConfigs();
+
+        long budget = MemoryLimits.current(memoryBudget == null ? 0 : memoryBudget, outputDir)
+                .heapBytes();
+        List<BatchResult> results =
+                new BatchRunner(threadQuantity, budget, outputDir, this::loadConfiguration).run(configs);
+        writeSummary(results);
+
+        long failed = results.stream().filter(result -> !result.succeeded()).count();
+        if (failed > 0) {
+            throw new RuntimeException(failed + " of " + results.size() + " batch jobs failed, see the summary");
+        }
+    }
+
+    private List<Path> resolveConfigs() {
+        if (!Files.exists(source)) {
+            log.error("Batch source not found: {}", source);
+            throw new CommandLine.ParameterException(spec.commandLine(), "Batch source not found: " + source);
+        }
+        try {
+            List<Path> configs = BatchRunner.resolveConfigs(source);
+            if (configs.isEmpty()) {
+                throw new CommandLine.ParameterException(spec.commandLine(), "No configurations found in " + source);
+            }
+            return configs;
+        } catch (IOException e) {
+            log.error("Cannot read batch source {}: {}", source, e.getMessage());
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(), "Cannot read batch source " + source + ": " + e.getMessage());
+        }
+    }
+
+    private AppConfiguration loadConfiguration(Path configPath, Path outputPath) {
+        AppConfiguration loaded = new AppConfigurationConverter().convert(configPath.toString());
+        AppConfiguration configuration =
+                loaded.toBuilder().outputPath(outputPath).build();
+        ArgumentValidator.validate(configuration, validationContext);
+        return configuration;
+    }
+
+    private void writeSummary(List<BatchResult> results) {
+        Path path = summaryPath != null ? summaryPath : outputDir.resolve("batch-summary.csv");
+        try {
+            Path parentDir = path.toAbsolutePath().getParent();
+            if (parentDir != null) {
+                Files.createDirectories(parentDir);
+            }
+            Files.writeString(path, BatchRunner.toCsv(results));
+            log.info("Batch summary written to {}", path);
+        } catch (IOException e) {
+            log.error("Failed to write {}: {}", path, e.getMessage());
+            throw new RuntimeException("Failed to write batch summary: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package academy.cli.command;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Spec;
+
+@Command(
+        name = "bench",
+        description = "Performance measurements for tuning render settings",
+        mixinStandardHelpOptions = true,
+        subcommands = {ScalingCommand.class})
+public class BenchCommand implements Runnable {
+
+    @Spec
+    private CommandSpec spec;
+
+    @Override
+    public void run() {
+        throw new CommandLine.ParameterException(spec.commandLine(), "Missing required subcommand, see --help");
+    }
+}
@@ -0,0 +1,112 @@
+package academy.cli.command;
+
+import academy.application.daemon.DaemonMessage;
+import academy.application.daemon.RenderClient;
+import academy.application.daemon.RenderDaemon;
+import academy.application.render.ImageRenderer;
+import academy.cli.converter.PathConverter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Spec;
+
+@Slf4j
+@Command(
+        name = "client",
+        description = "Render a JSON configuration on a running daemon (see the daemon command)",
+        mixinStandardHelpOptions = true)
+public class ClientCommand implements Runnable {
+    private static final int LOG_INTERVAL_PERCENT = 10;
+
+    @Spec
+    private CommandSpec spec;
+
+    @Option(
+            names = "--config",
+            description = "Configuration file (JSON) to render",
+            required = true,
+            converter = PathConverter.class)
+    private Path configPath;
+
+    @Option(
+            names = {"-o", "--output-path"},
+            description = "Image to write (default: the output_path of the configuration)",
+            converter = PathConverter.class)
+    private Path outputPath;
+
+    @Option(
+            names = "--socket",
+            description = "Unix domain socket of the daemon (default: fractal-flame.sock in the temp directory)",
+            converter = PathConverter.class)
+    private Path socketPath = RenderDaemon.DEFAULT_SOCKET;
+
+    @Option(
+            names = "--fetch",
+            description = "Receive the PNG bytes and write them here instead of letting the daemon write the file, "
+                    + "for daemons that cannot reach the output path")
+    private boolean fetch;
+
+    private int lastLoggedPercent = -LOG_INTERVAL_PERCENT;
+
+    @Override
+    public void run() {
+        JsonNode config;
+        try {
+            config = new ObjectMapper().readTree(configPath.toFile());
+        } catch (IOException e) {
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(), String.format("Cannot read configuration %s: %s", configPath, e.getMessage()));
+        }
+        Path target = outputPath != null ? outputPath : configuredOutput(config);
+        boolean toStdout = ImageRenderer.STDOUT.equals(target);
+
+        try {
+            RenderClient.Result result = RenderClient.render(
+                    socketPath, config, fetch || toStdout ? null : target, fetch || toStdout, this::logProgress);
+            if (result.image() != null) {
+                if (toStdout) {
+                    System.out.write(result.image());
+                    System.out.flush();
+                } else {
+                    Path parentDir = target.toAbsolutePath().getParent();
+                    if (parentDir != null) {
+                        Files.createDirectories(parentDir);
+                    }
+                    Files.write(target, result.image());
+                }
+            }
+            log.info("Rendered {} on the daemon in {} ms", toStdout ? "to standard output" : target, result.millis());
+        } catch (IOException e) {
+            log.error("Daemon render failed: {}", e.getMessage());
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private Path configuredOutput(JsonNode config) {
+        JsonNode configured = config.get("output_path");
+        if (configured == null || !configured.isTextual()) {
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(), "Configuration has no output_path, pass -o to choose the image");
+        }
+        return Path.of(configured.asText());
+    }
+
+    private void logProgress(DaemonMessage message) {
+        if (DaemonMessage.QUEUED.equals(message.event())) {
+            log.info("Waiting for the daemon to finish another render");
+            return;
+        }
+        int percent = message.total() == 0 ? 100 : (int) (message.completed() * 100 / message.total());
+        if (percent >= lastLoggedPercent + LOG_INTERVAL_PERCENT) {
+            lastLoggedPercent = percent;
+            log.info("Daemon progress: {}% ({}/{} iterations)", percent, message.completed(), message.total());
+        }
+    }
+}
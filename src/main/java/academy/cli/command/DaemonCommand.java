@@ -0,0 +1,112 @@
+package academy.cli.command;
+
+import academy.Application;
+import academy.application.daemon.RenderDaemon;
+import academy.application.render.histogram.MemoryLimits;
+import academy.cli.converter.AppConfigurationConverter;
+import academy.cli.converter.MemorySizeConverter;
+import academy.cli.converter.PathConverter;
+import academy.cli.validator.ArgumentValidator;
+import academy.domain.AppConfiguration;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Spec;
+
+@Slf4j
+@Command(
+        name = "daemon",
+        description = "Keep a warmed-up render engine running and take jobs from the client command over a Unix "
+                + "domain socket",
+        mixinStandardHelpOptions = true)
+public class DaemonCommand implements Runnable {
+    @Spec
+    private CommandSpec spec;
+
+    @Option(
+            names = "--socket",
+            description = "Unix domain socket to listen on (default: fractal-flame.sock in the temp directory)",
+            converter = PathConverter.class)
+    private Path socketPath = RenderDaemon.DEFAULT_SOCKET;
+
+    @Option(
+            names = {"-t", "--threads"},
+            description = "Size of the worker pool the jobs share (default: available processors)")
+    private int threadQuantity = Runtime.getRuntime().availableProcessors();
+
+    @Option(
+            names = "--max-jobs",
+            description = "Jobs rendering at the same time, the others wait (default: ${DEFAULT-VALUE})",
+            defaultValue = "1")
+    private int maxJobs;
+
+    @Option(
+            names = "--warmup-iterations",
+            description = "Iterations of the render that warms the engine up before the first job, 0 to skip it "
+                    + "(default: ${DEFAULT-VALUE})",
+            defaultValue = "5000000")
+    private int warmupIterations;
+
+    @Option(
+            names = "--memory-budget",
+            description = "Heap the histograms of the running jobs may take together, e.g. 512m or 4g "
+                    + "(default: the free heap)",
+            converter = MemorySizeConverter.class)
+    private Long memoryBudget;
+
+    /** Context for the validator's error messages. */
+    private final Application validationContext = new Application();
+
+    @Override
+    public void run() {
+        if (threadQuantity < 1) {
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(), "Thread quantity must be at least 1, got: " + threadQuantity);
+        }
+        if (maxJobs < 1) {
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(), "Maximum job count must be at least 1, got: " + maxJobs);
+        }
+        if (warmupIterations < 0) {
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(), "Warmup iterations cannot be negative, got: " + warmupIterations);
+        }
+
+        RenderDaemon daemon = new RenderDaemon(
+                socketPath,
+                threadQuantity,
+                maxJobs,
+                warmupIterations,
+                MemoryLimits.current(memoryBudget == null ? 0 : memoryBudget, Path.of(".")),
+                this::loadConfiguration);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> stop(daemon), "daemon-shutdown"));
+        try {
+            daemon.start();
+            daemon.serve();
+        } catch (IOException e) {
+            log.error("Render daemon failed: {}", e.getMessage());
+            throw new RuntimeException("Render daemon failed: " + e.getMessage(), e);
+        }
+    }
+
+    private AppConfiguration loadConfiguration(JsonNode config, Path outputPath) {
+        AppConfiguration loaded = AppConfigurationConverter.fromTree(config);
+        AppConfiguration configuration =
+                loaded.toBuilder().outputPath(outputPath).build();
+        ArgumentValidator.validate(configuration, validationContext);
+        return configuration;
+    }
+
+    private static void stop(RenderDaemon daemon) {
+        try {
+            daemon.close();
+        } catch (IOException e) {
+            log.warn("Failed to stop the render daemon cleanly: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package academy.cli.command;
+
+import academy.application.bench.ScalingResult;
+import academy.application.bench.ThreadScaling;
+import academy.cli.converter.AppConfigurationConverter;
+import academy.cli.converter.PathConverter;
+import academy.domain.AppConfiguration;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Spec;
+
+@Slf4j
+@Command(
+        name = "scaling",
+        description = "Render a configuration at 1..N threads and report throughput, speedup and efficiency",
+        mixinStandardHelpOptions = true)
+public class ScalingCommand implements Runnable {
+
+    @Spec
+    private CommandSpec spec;
+
+    @Option(
+            names = "--config",
+            description = "Application configuration file (JSON)",
+            required = true,
+            converter = AppConfigurationConverter.class)
+    private AppConfiguration configuration;
+
+    @Option(
+            names = {"-t", "--max-threads"},
+            description = "Highest thread count to measure (default: available processors)")
+    private int maxThreads = Runtime.getRuntime().availableProcessors();
+
+    @Option(
+            names = "--threads",
+            description = "Explicit thread counts, comma separated; overrides --max-threads",
+            split = ",")
+    private List<Integer> threadCounts;
+
+    @Option(
+            names = {"-i", "--iteration-count"},
+            description = "Iterations per render (default: the configuration's)")
+    private Integer iterationCount;
+
+    @Option(
+            names = "--warmup",
+            description = "Unmeasured warmup renders (default: ${DEFAULT-VALUE})",
+            defaultValue = "1")
+    private int warmupRuns;
+
+    @Option(
+            names = "--runs",
+            description = "Measured renders per thread count, the fastest is kept (default: ${DEFAULT-VALUE})",
+            defaultValue = "1")
+    private int runs;
+
+    @Option(
+            names = "--csv",
+            description = "Write the results as CSV to this file instead of standard output",
+            converter = PathConverter.class)
+    private Path csvPath;
+
+    @Override
+    public void run() {
+        List<Integer> counts = resolveThreadCounts();
+        AppConfiguration benchConfiguration = iterationCount == null
+                ? configuration
+                : configuration.toBuilder().iterationCount(iterationCount).build();
+        if (benchConfiguration.getIterationCount() < 1) {
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(),
+                    "Iteration count must be at least 1, got: " + benchConfiguration.getIterationCount());
+        }
+
+        List<ScalingResult> results = new ThreadScaling(benchConfiguration, warmupRuns, runs).run(counts);
+
+        System.out.println();
+        System.out.print(ThreadScaling.toTable(results));
+        String csv = ThreadScaling.toCsv(results);
+        if (csvPath == null) {
+            System.out.println();
+            System.out.print(csv);
+            return;
+        }
+        try {
+            Path parentDir = csvPath.toAbsolutePath().getParent();
+            if (parentDir != null) {
+                Files.createDirectories(parentDir);
+            }
+            Files.writeString(csvPath, csv);
+            log.info("Scaling results written to {}", csvPath);
+        } catch (IOException e) {
+            log.error("Failed to write {}: {}", csvPath, e.getMessage());
+            throw new RuntimeException("Failed to write scaling results: " + e.getMessage(), e);
+        }
+    }
+
+    private List<Integer> resolveThreadCounts() {
+        if (warmupRuns < 0 || runs < 1) {
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(), "Warmup must not be negative and runs must be at least 1");
+        }
+        if (threadCounts != null && !threadCounts.isEmpty()) {
+            for (int threads : threadCounts) {
+                if (threads < 1) {
+                    throw new CommandLine.ParameterException(
+                            spec.commandLine(), "Thread quantity must be at least 1, got: " + threads);
+                }
+            }
+            return threadCounts;
+        }
+        if (maxThreads < 1) {
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(), "Thread quantity must be at least 1, got: " + maxThreads);
+        }
+        return IntStream.rangeClosed(1, maxThreads).boxed().toList();
+    }
+}
@@ -0,0 +1,135 @@
+package academy.cli.command;
+
+import academy.Application;
+import academy.application.render.ImageRenderer;
+import academy.application.render.histogram.MemoryLimits;
+import academy.application.server.RenderServer;
+import academy.cli.converter.AppConfigurationConverter;
+import academy.cli.converter.MemorySizeConverter;
+import academy.cli.validator.ArgumentValidator;
+import academy.domain.AppConfiguration;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Spec;
+
+@Slf4j
+@Command(
+        name = "serve",
+        description = "Run a local HTTP render service with a job queue, progress, previews and cancellation",
+        mixinStandardHelpOptions = true)
+public class ServeCommand implements Runnable {
+    @Spec
+    private CommandSpec spec;
+
+    @Option(
+            names = "--host",
+            description = "Address to listen on (default: ${DEFAULT-VALUE})",
+            defaultValue = "127.0.0.1")
+    private String host;
+
+    @Option(
+            names = {"-p", "--port"},
+            description = "Port to listen on, 0 for any free one (default: ${DEFAULT-VALUE})",
+            defaultValue = "8080")
+    private int port;
+
+    @Option(
+            names = {"-t", "--threads"},
+            description = "Size of the worker pool the jobs share (default: available processors)")
+    private int threadQuantity = Runtime.getRuntime().availableProcessors();
+
+    @Option(
+            names = "--max-jobs",
+            description = "Jobs rendering at the same time (default: ${DEFAULT-VALUE})",
+            defaultValue = "1")
+    private int maxJobs;
+
+    @Option(
+            names = "--max-queued",
+            description = "Jobs waiting for a render slot before new ones are refused (default: ${DEFAULT-VALUE})",
+            defaultValue = "16")
+    private int maxQueued;
+
+    @Option(
+            names = "--job-timeout",
+            description = "Seconds a job may render before it is stopped (default: ${DEFAULT-VALUE})",
+            defaultValue = "600")
+    private long jobTimeoutSeconds;
+
+    @Option(
+            names = "--memory-budget",
+            description = "Heap the histograms of the running jobs may take together, e.g. 512m or 4g "
+                    + "(default: the free heap)",
+            converter = MemorySizeConverter.class)
+    private Long memoryBudget;
+
+    /** Context for the validator's error messages. */
+    private final Application validationContext = new Application();
+
+    @Override
+    public void run() {
+        if (port < 0 || port > 0xFFFF) {
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(), "Port must be between 0 and 65535, got: " + port);
+        }
+        if (threadQuantity < 1) {
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(), "Thread quantity must be at least 1, got: " + threadQuantity);
+        }
+        if (maxJobs < 1) {
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(), "Maximum job count must be at least 1, got: " + maxJobs);
+        }
+        if (maxQueued < 1) {
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(), "Maximum queued job count must be at least 1, got: " + maxQueued);
+        }
+        if (jobTimeoutSeconds < 1) {
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(), "Job timeout must be at least 1 second, got: " + jobTimeoutSeconds);
+        }
+
+        RenderServer server = new RenderServer(
+                new InetSocketAddress(host, port),
+                threadQuantity,
+                maxJobs,
+                maxQueued,
+                Duration.ofSeconds(jobTimeoutSeconds),
+                MemoryLimits.current(memoryBudget == null ? 0 : memoryBudget, Path.of(".")),
+                this::loadConfiguration);
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime()
+                .addShutdownHook(new Thread(
+                        () -> {
+                            server.close();
+                            stopped.countDown();
+                        },
+                        "server-shutdown"));
+        try {
+            server.start();
+            stopped.await();
+        } catch (IOException e) {
+            log.error("Render server failed: {}", e.getMessage());
+            throw new RuntimeException("Render server failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private AppConfiguration loadConfiguration(JsonNode config) {
+        AppConfiguration configuration = AppConfigurationConverter.fromTree(config).toBuilder()
+                .outputPath(ImageRenderer.STDOUT)
+                .build();
+        ArgumentValidator.validate(configuration, validationContext);
+        return configuration;
+    }
+}
@@ -0,0 +1,184 @@
+package academy.cli.command;
+
+import academy.application.render.DensityEstimation;
+import academy.application.render.HistogramFile;
+import academy.application.render.HistogramHeader;
+import academy.application.render.ImageRenderer;
+import academy.application.render.Palette;
+import academy.application.render.ReconstructionFilter;
+import academy.application.render.ToneMapper;
+import academy.cli.converter.DensityEstimationConverter;
+import academy.cli.converter.PaletteConverter;
+import academy.cli.converter.PathConverter;
+import academy.cli.converter.ReconstructionFilterConverter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Spec;
+
+@Slf4j
+@Command(
+        name = "tonemap",
+        description = "Render palette, gamma and brightness variants from a saved histogram",
+        mixinStandardHelpOptions = true)
+public class TonemapCommand implements Runnable {
+
+    @Spec
+    private CommandSpec spec;
+
+    @Option(
+            names = "--histogram",
+            description = "Saved histogram file (see --save-histogram)",
+            required = true,
+            converter = PathConverter.class)
+    private Path histogramPath;
+
+    @Option(
+            names = {"-p", "--palette"},
+            description = "Palettes to render, comma separated (default: ${DEFAULT-VALUE}). Available: "
+                    + "rainbow, fire, ocean, grayscale",
+            split = ",",
+            defaultValue = "rainbow",
+            converter = PaletteConverter.class)
+    private List<Palette> palettes;
+
+    @Option(
+            names = {"-g", "--gamma"},
+            description = "Gamma values, comma separated (default: ${DEFAULT-VALUE})",
+            split = ",",
+            defaultValue = "1.0")
+    private List<Double> gammas;
+
+    @Option(
+            names = {"-b", "--brightness"},
+            description = "Brightness multipliers, comma separated (default: ${DEFAULT-VALUE})",
+            split = ",",
+            defaultValue = "1.0")
+    private List<Double> brightnesses;
+
+    @Option(
+            names = {"-o", "--output-dir"},
+            description = "Directory for the rendered variants (default: ${DEFAULT-VALUE})",
+            defaultValue = ".",
+            converter = PathConverter.class)
+    private Path outputDir;
+
+    @Option(
+            names = "--filter",
+            description = "Filter that downsamples an oversampled histogram to the image size: box, gaussian or "
+                    + "mitchell (default: ${DEFAULT-VALUE})",
+            defaultValue = "box",
+            converter = ReconstructionFilterConverter.class)
+    private ReconstructionFilter filter;
+
+    @Option(
+            names = "--density-estimation",
+            description = "Density estimation max[,min[,curve]] applied to the histogram before the variants",
+            converter = DensityEstimationConverter.class)
+    private DensityEstimation densityEstimation;
+
+    @Option(
+            names = {"-t", "--threads"},
+            description = "Thread quantity (default: available processors)")
+    private int threadQuantity = Runtime.getRuntime().availableProcessors();
+
+    @Override
+    public void run() {
+        long startTime = System.currentTimeMillis();
+
+        List<ToneMapper> variants = createVariants();
+        ImageRenderer renderer = loadHistogram();
+        renderVariants(renderer, variants);
+
+        long endTime = System.currentTimeMillis();
+        log.info("Rendered {} variants in {} ms", variants.size(), endTime - startTime);
+    }
+
+    private List<ToneMapper> createVariants() {
+        if (threadQuantity < 1) {
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(), "Thread quantity must be at least 1, got: " + threadQuantity);
+        }
+
+        List<ToneMapper> variants = new ArrayList<>();
+        for (Palette palette : palettes) {
+            for (double gamma : gammas) {
+                for (double brightness : brightnesses) {
+                    try {
+                        variants.add(new ToneMapper(palette, gamma, brightness));
+                    } catch (IllegalArgumentException e) {
+                        log.error("Invalid tone mapping parameters: {}", e.getMessage());
+                        throw new CommandLine.ParameterException(spec.commandLine(), e.getMessage());
+                    }
+                }
+            }
+        }
+        log.info("Prepared {} tone mapping variants", variants.size());
+        return variants;
+    }
+
+    private ImageRenderer loadHistogram() {
+        if (!Files.isRegularFile(histogramPath)) {
+            log.error("Histogram file not found: {}", histogramPath);
+            throw new CommandLine.ParameterException(spec.commandLine(), "Histogram file not found: " + histogramPath);
+        }
+
+        HistogramHeader header;
+        try {
+            header = HistogramFile.readHeader(histogramPath);
+        } catch (IOException e) {
+            log.error("Cannot read histogram {}: {}", histogramPath, e.getMessage());
+            throw new CommandLine.ParameterException(
+                    spec.commandLine(), "Cannot read histogram " + histogramPath + ": " + e.getMessage());
+        }
+
+        int oversample = header.oversample();
+        ImageRenderer renderer =
+                new ImageRenderer(header.width() / oversample, header.height() / oversample, oversample);
+        renderer.setFilter(filter);
+        HistogramFile.readInto(histogramPath, renderer);
+        if (densityEstimation != null) {
+            renderer.estimateDensity(densityEstimation);
+        }
+        return renderer;
+    }
+
+    private void renderVariants(ImageRenderer renderer, List<ToneMapper> variants) {
+        String fileName = histogramPath.getFileName().toString();
+        int extensionIndex = fileName.lastIndexOf('.');
+        String stem = extensionIndex > 0 ? fileName.substring(0, extensionIndex) : fileName;
+        int threads = Math.min(threadQuantity, variants.size());
+        log.info("Rendering {} variants with {} threads", variants.size(), threads);
+
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (ToneMapper variant : variants) {
+                Path outputPath = outputDir.resolve(stem + "-" + variant.describe() + ".png");
+                futures.add(executor.submit(() -> renderer.save(outputPath, variant)));
+            }
+
+            for (var future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    log.error("Interrupted while waiting for tone mapping", e);
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Tone mapping interrupted", e);
+                } catch (ExecutionException e) {
+                    log.error("Tone mapping failed: {}", e.getCause().getMessage());
+                    throw new RuntimeException("Tone mapping failed", e.getCause());
+                }
+            }
+        }
+    }
+}
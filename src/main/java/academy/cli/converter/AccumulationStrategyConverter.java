@@ -0,0 +1,33 @@
+package academy.cli.converter;
+
+import static academy.cli.utils.CliUtils.*;
+
+import academy.application.render.histogram.AccumulationStrategy;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+
+/** Converts a strategy key; {@code auto} becomes {@code null}, leaving the choice to the memory planner. */
+@Slf4j
+public class AccumulationStrategyConverter implements CommandLine.ITypeConverter<AccumulationStrategy> {
+    public static final String AUTO = "auto";
+
+    @Override
+    public AccumulationStrategy convert(String value) throws CommandLine.TypeConversionException {
+        log.debug("Converting accumulation strategy from string: '{}'", value);
+
+        if (isNullOrEmpty(value)) {
+            log.error("Accumulation strategy is null or empty");
+            throw new CommandLine.TypeConversionException("Accumulation strategy can't be null or empty");
+        }
+        if (AUTO.equalsIgnoreCase(value.trim())) {
+            return null;
+        }
+
+        try {
+            return AccumulationStrategy.fromKey(value.trim());
+        } catch (IllegalArgumentException e) {
+            log.error("Unknown accumulation strategy: '{}'", value);
+            throw new CommandLine.TypeConversionException(e.getMessage() + ", " + AUTO);
+        }
+    }
+}
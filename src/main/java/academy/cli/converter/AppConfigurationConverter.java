@@ -4,6 +4,8 @@ import static academy.cli.utils.CliUtils.*;
 
 import academy.domain.AppConfiguration;
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import java.io.IOException;
@@ -61,6 +63,20 @@ public class AppConfigurationConverter implements CommandLine.ITypeConverter<App
         return configuration;
     }
 
+    /** Configuration from an already parsed JSON document, such as the body of a render request. */
+    public static AppConfiguration fromTree(JsonNode tree) {
+        AppConfiguration configuration;
+        try {
+            configuration = new ObjectMapper().findAndRegisterModules().treeToValue(tree, AppConfiguration.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Failed to parse configuration: " + e.getMessage(), e);
+        }
+        if (configuration == null) {
+            throw new IllegalArgumentException("Request has no configuration");
+        }
+        return configuration;
+    }
+
     private void logConfigurationDetails(AppConfiguration config) {
         log.debug("Configuration details:");
         log.debug(
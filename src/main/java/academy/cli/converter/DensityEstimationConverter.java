@@ -0,0 +1,34 @@
+package academy.cli.converter;
+
+import static academy.cli.utils.CliUtils.*;
+
+import academy.application.render.DensityEstimation;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+
+@Slf4j
+public class DensityEstimationConverter implements CommandLine.ITypeConverter<DensityEstimation> {
+
+    @Override
+    public DensityEstimation convert(String value) throws CommandLine.TypeConversionException {
+        log.debug("Converting density estimation from string: '{}'", value);
+
+        if (isNullOrEmpty(value)) {
+            log.error("Density estimation parameters are null or empty");
+            throw new CommandLine.TypeConversionException("Density estimation parameters can't be null or empty");
+        }
+
+        try {
+            DensityEstimation result = DensityEstimation.fromString(value.trim());
+            log.debug("Density estimation: {}", result);
+            return result;
+        } catch (NumberFormatException e) {
+            log.error("Invalid number format in density estimation: {}", e.getMessage());
+            throw new CommandLine.TypeConversionException(
+                    "Invalid number format in density estimation: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid density estimation: {}", e.getMessage());
+            throw new CommandLine.TypeConversionException(e.getMessage());
+        }
+    }
+}
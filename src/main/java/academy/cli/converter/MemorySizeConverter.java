@@ -0,0 +1,51 @@
+package academy.cli.converter;
+
+import static academy.cli.utils.CliUtils.*;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+
+/** Parses sizes such as {@code 512m}, {@code 4G} or {@code 1073741824} into bytes, with binary multiples. */
+@Slf4j
+public class MemorySizeConverter implements CommandLine.ITypeConverter<Long> {
+    private static final Pattern SIZE = Pattern.compile("(\\d+)\\s*([kmgt]?)i?b?");
+
+    @Override
+    public Long convert(String value) throws CommandLine.TypeConversionException {
+        log.debug("Converting memory size from string: '{}'", value);
+
+        if (isNullOrEmpty(value)) {
+            log.error("Memory size is null or empty");
+            throw new CommandLine.TypeConversionException("Memory size can't be null or empty");
+        }
+
+        Matcher matcher = SIZE.matcher(value.trim().toLowerCase(Locale.ROOT));
+        if (!matcher.matches()) {
+            log.error("Invalid memory size: '{}'", value);
+            throw new CommandLine.TypeConversionException(
+                    "Invalid memory size: '" + value + "'. Expected a number with an optional k, m, g or t suffix");
+        }
+
+        int shift =
+                switch (matcher.group(2)) {
+                    case "k" -> 10;
+                    case "m" -> 20;
+                    case "g" -> 30;
+                    case "t" -> 40;
+                    default -> 0;
+                };
+        try {
+            long bytes = Long.parseLong(matcher.group(1));
+            if (bytes == 0 || bytes > Long.MAX_VALUE >> shift) {
+                throw new NumberFormatException();
+            }
+            return bytes << shift;
+        } catch (NumberFormatException e) {
+            log.error("Memory size out of range: '{}'", value);
+            throw new CommandLine.TypeConversionException("Memory size out of range: '" + value + "'");
+        }
+    }
+}
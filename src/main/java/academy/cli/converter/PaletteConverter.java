@@ -0,0 +1,29 @@
+package academy.cli.converter;
+
+import static academy.cli.utils.CliUtils.*;
+
+import academy.application.render.Palette;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+
+@Slf4j
+public class PaletteConverter implements CommandLine.ITypeConverter<Palette> {
+
+    @Override
+    public Palette convert(String value) throws CommandLine.TypeConversionException {
+        log.debug("Converting palette from string: '{}'", value);
+
+        if (isNullOrEmpty(value)) {
+            log.error("Palette name is null or empty");
+            throw new CommandLine.TypeConversionException("Palette name can't be null or empty");
+        }
+
+        try {
+            return Palette.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.error("Unknown palette: '{}'. Available palettes: {}", value, Palette.getValuesAsString());
+            throw new CommandLine.TypeConversionException(
+                    "Unknown palette: '" + value + "'. Available: " + Palette.getValuesAsString());
+        }
+    }
+}
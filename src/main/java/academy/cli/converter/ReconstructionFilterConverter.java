@@ -0,0 +1,28 @@
+package academy.cli.converter;
+
+import static academy.cli.utils.CliUtils.*;
+
+import academy.application.render.ReconstructionFilter;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+
+@Slf4j
+public class ReconstructionFilterConverter implements CommandLine.ITypeConverter<ReconstructionFilter> {
+
+    @Override
+    public ReconstructionFilter convert(String value) throws CommandLine.TypeConversionException {
+        log.debug("Converting reconstruction filter from string: '{}'", value);
+
+        if (isNullOrEmpty(value)) {
+            log.error("Filter name is null or empty");
+            throw new CommandLine.TypeConversionException("Filter name can't be null or empty");
+        }
+
+        try {
+            return ReconstructionFilter.fromKey(value.trim());
+        } catch (IllegalArgumentException e) {
+            log.error("Unknown filter: '{}'. Available filters: {}", value, ReconstructionFilter.getKeysAsString());
+            throw new CommandLine.TypeConversionException(e.getMessage());
+        }
+    }
+}
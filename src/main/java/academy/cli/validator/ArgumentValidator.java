@@ -1,11 +1,18 @@
 package academy.cli.validator;
 
 import academy.Application;
+import academy.application.cache.RenderKey;
+import academy.application.render.HistogramFile;
+import academy.application.render.HistogramHeader;
+import academy.application.render.ImageRenderer;
+import academy.application.render.OutputFormat;
 import academy.domain.AffineParams;
 import academy.domain.AppConfiguration;
 import academy.domain.Variation;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 import picocli.CommandLine;
@@ -14,11 +21,16 @@ import picocli.CommandLine;
 @UtilityClass
 public class ArgumentValidator {
 
-    private static final String PNG_EXTENSION = ".png";
     private static final int MIN_DIMENSION = 1;
     private static final int MAX_DIMENSION = 16384;
     private static final int MIN_ITERATIONS = 1;
     private static final int MIN_THREADS = 1;
+    private static final int MIN_PNG_COMPRESSION = -1;
+    private static final int MAX_PNG_COMPRESSION = 9;
+    private static final int MIN_OVERSAMPLE = 1;
+    private static final int MAX_OVERSAMPLE = 8;
+    private static final int MIN_PREVIEW_SIZE = 16;
+    private static final int MAX_PREVIEW_SIZE = 4096;
 
     public static void validate(AppConfiguration config, Application app) {
         log.debug("Starting validation of application configuration");
@@ -112,6 +124,31 @@ public class ArgumentValidator {
             throw new CommandLine.ParameterException(new CommandLine(app), "Output path cannot be null");
         }
 
+        if (ImageRenderer.STDOUT.equals(outputPath)) {
+            log.debug("Output path validation passed (image will be written to standard output)");
+            return;
+        }
+
+        validateOutputFile(outputPath, app);
+        log.debug("Output path validation passed");
+    }
+
+    public static void validateExportPaths(List<Path> exportPaths, Application app) {
+        log.debug("Validating {} export path(s)", exportPaths.size());
+
+        for (Path exportPath : exportPaths) {
+            if (ImageRenderer.STDOUT.equals(exportPath)) {
+                log.error("Export path cannot be standard output");
+                throw new CommandLine.ParameterException(
+                        new CommandLine(app), "Exports must be written to files, standard output is reserved for -o");
+            }
+            validateOutputFile(exportPath, app);
+        }
+
+        log.debug("Export paths validation passed");
+    }
+
+    private static void validateOutputFile(Path outputPath, Application app) {
         Path fileNamePath = outputPath.getFileName();
         if (fileNamePath == null) {
             log.error("Output path is a root directory: {}", outputPath);
@@ -121,11 +158,18 @@ public class ArgumentValidator {
         }
 
         String fileName = fileNamePath.toString().toLowerCase();
-        if (!fileName.endsWith(PNG_EXTENSION)) {
-            log.error("Invalid output file extension: {}. Expected: {}", fileName, PNG_EXTENSION);
+        try {
+            OutputFormat.fromPath(outputPath);
+        } catch (IllegalArgumentException e) {
+            log.error(
+                    "Invalid output file extension: {}. Expected one of: {}",
+                    fileName,
+                    OutputFormat.getExtensionsAsString());
             throw new CommandLine.ParameterException(
                     new CommandLine(app),
-                    String.format("Output file must have %s extension, got: %s", PNG_EXTENSION, fileName));
+                    String.format(
+                            "Output file must have one of %s extensions, got: %s",
+                            OutputFormat.getExtensionsAsString(), fileName));
         }
 
         Path parentDir = outputPath.getParent();
@@ -136,8 +180,219 @@ public class ArgumentValidator {
         if (Files.exists(outputPath)) {
             log.warn("Output file already exists and will be overwritten: {}", outputPath);
         }
+    }
 
-        log.debug("Output path validation passed");
+    public static void validatePngBitDepth(int bitDepth, Application app) {
+        log.debug("Validating PNG bit depth: {}", bitDepth);
+
+        if (bitDepth != 8 && bitDepth != 16) {
+            log.error("Invalid PNG bit depth: {}. Must be 8 or 16", bitDepth);
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app), String.format("PNG bit depth must be 8 or 16, got: %d", bitDepth));
+        }
+
+        log.debug("PNG bit depth validation passed");
+    }
+
+    public static void validatePngCompression(int level, Application app) {
+        log.debug("Validating PNG compression level: {}", level);
+
+        if (level < MIN_PNG_COMPRESSION || level > MAX_PNG_COMPRESSION) {
+            log.error(
+                    "Invalid PNG compression level: {}. Must be between {} and {}",
+                    level,
+                    MIN_PNG_COMPRESSION,
+                    MAX_PNG_COMPRESSION);
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app),
+                    String.format(
+                            "PNG compression level must be between %d and %d, got: %d",
+                            MIN_PNG_COMPRESSION, MAX_PNG_COMPRESSION, level));
+        }
+
+        log.debug("PNG compression level validation passed");
+    }
+
+    public static void validateOversample(int oversample, Application app) {
+        log.debug("Validating oversample factor: {}", oversample);
+
+        if (oversample < MIN_OVERSAMPLE || oversample > MAX_OVERSAMPLE) {
+            log.error(
+                    "Invalid oversample factor: {}. Must be between {} and {}",
+                    oversample,
+                    MIN_OVERSAMPLE,
+                    MAX_OVERSAMPLE);
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app),
+                    String.format(
+                            "Oversample factor must be between %d and %d, got: %d",
+                            MIN_OVERSAMPLE, MAX_OVERSAMPLE, oversample));
+        }
+
+        log.debug("Oversample factor validation passed");
+    }
+
+    public static void validateTimeLimit(int timeLimitSeconds, Application app) {
+        log.debug("Validating time limit: {} s", timeLimitSeconds);
+
+        if (timeLimitSeconds < 1) {
+            log.error("Invalid time limit: {}", timeLimitSeconds);
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app),
+                    String.format("Time limit must be at least 1 second, got: %d", timeLimitSeconds));
+        }
+
+        log.debug("Time limit validation passed");
+    }
+
+    /**
+     * A time budget replaces the iteration count, so it cannot be combined with a time limit of its own or with the
+     * cache, whose entries are keyed by iteration count.
+     */
+    public static void validateTimeBudget(
+            int timeBudgetSeconds, Integer timeLimitSeconds, Path cacheDirectory, Application app) {
+        log.debug("Validating time budget: {} s", timeBudgetSeconds);
+
+        if (timeBudgetSeconds < 1) {
+            log.error("Invalid time budget: {}", timeBudgetSeconds);
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app),
+                    String.format("Time budget must be at least 1 second, got: %d", timeBudgetSeconds));
+        }
+        if (timeLimitSeconds != null) {
+            log.error("Time budget combined with a time limit");
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app), "--time-budget cannot be combined with --time-limit");
+        }
+        if (cacheDirectory != null) {
+            log.error("Time budget combined with the render cache");
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app), "--time-budget cannot be combined with --cache");
+        }
+
+        log.debug("Time budget validation passed");
+    }
+
+    /** Previews are written next to the output file, so there must be one. */
+    public static void validatePreview(int previewEverySeconds, int previewSize, Path outputPath, Application app) {
+        log.debug("Validating previews: every {} s, up to {} px", previewEverySeconds, previewSize);
+
+        if (previewEverySeconds < 1) {
+            log.error("Invalid preview interval: {}", previewEverySeconds);
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app),
+                    String.format("Preview interval must be at least 1 second, got: %d", previewEverySeconds));
+        }
+        if (previewSize < MIN_PREVIEW_SIZE || previewSize > MAX_PREVIEW_SIZE) {
+            log.error(
+                    "Invalid preview size: {}. Must be between {} and {}",
+                    previewSize,
+                    MIN_PREVIEW_SIZE,
+                    MAX_PREVIEW_SIZE);
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app),
+                    String.format(
+                            "Preview size must be between %d and %d, got: %d",
+                            MIN_PREVIEW_SIZE, MAX_PREVIEW_SIZE, previewSize));
+        }
+        if (ImageRenderer.STDOUT.equals(outputPath)) {
+            log.error("Previews requested for an image written to standard output");
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app), "--preview-every needs an output file to write the previews next to");
+        }
+
+        log.debug("Preview validation passed");
+    }
+
+    /** The cache decides on its own what to resume from, so it cannot be combined with an explicit histogram. */
+    public static void validateCache(Path cacheDirectory, Path resumeHistogramPath, Application app) {
+        log.debug("Validating render cache directory: {}", cacheDirectory);
+
+        if (resumeHistogramPath != null) {
+            log.error("Render cache combined with a histogram to resume");
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app), "--cache cannot be combined with --resume-histogram");
+        }
+        if (Files.exists(cacheDirectory) && !Files.isDirectory(cacheDirectory)) {
+            log.error("Render cache path is not a directory: {}", cacheDirectory);
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app), String.format("Render cache path is not a directory: %s", cacheDirectory));
+        }
+
+        log.debug("Render cache validation passed");
+    }
+
+    /**
+     * The saved histogram must have been rendered from the same configuration, up to the iteration and thread counts,
+     * with the same {@code oversample} factor.
+     */
+    public static void validateResumeHistogram(
+            AppConfiguration config, Application app, Path histogramPath, int oversample) {
+        log.debug("Validating histogram to resume: {}", histogramPath);
+
+        if (!Files.isRegularFile(histogramPath)) {
+            log.error("Histogram file not found: {}", histogramPath);
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app), String.format("Histogram file not found: %s", histogramPath));
+        }
+
+        HistogramHeader header;
+        try {
+            header = HistogramFile.readHeader(histogramPath);
+        } catch (IOException e) {
+            log.error("Cannot read histogram {}: {}", histogramPath, e.getMessage());
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app), String.format("Cannot read histogram %s: %s", histogramPath, e.getMessage()));
+        }
+
+        if (header.oversample() != oversample) {
+            log.error("Histogram oversample {}x does not match --oversample {}", header.oversample(), oversample);
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app),
+                    String.format(
+                            "Histogram was rendered with --oversample %d, got: %d", header.oversample(), oversample));
+        }
+
+        int width = config.getSize().width() * oversample;
+        int height = config.getSize().height() * oversample;
+        if (header.width() != width || header.height() != height) {
+            log.error(
+                    "Histogram size {}x{} does not match image size {}x{}",
+                    header.width(),
+                    header.height(),
+                    width,
+                    height);
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app),
+                    String.format(
+                            "Histogram size %dx%d does not match image size %dx%d",
+                            header.width(), header.height(), width, height));
+        }
+
+        if (header.seed() != config.getSeed()) {
+            log.error("Histogram seed {} does not match configured seed {}", header.seed(), config.getSeed());
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app),
+                    String.format(
+                            "Histogram was rendered with seed %d, got: %d (transformation colors would differ)",
+                            header.seed(), config.getSeed()));
+        }
+
+        String fingerprint = RenderKey.content(config, oversample).hash();
+        if (!fingerprint.equals(header.fingerprint())) {
+            log.error(
+                    "Histogram fingerprint {} does not match configuration fingerprint {}",
+                    header.fingerprint(),
+                    fingerprint);
+            throw new CommandLine.ParameterException(
+                    new CommandLine(app),
+                    String.format(
+                            "Histogram %s was rendered from a different configuration "
+                                    + "(transformations or variations differ), so the samples would not add up",
+                            histogramPath));
+        }
+
+        log.debug("Resume histogram validation passed ({} previous iterations)", header.iterations());
     }
 
     public static void validateAffineParams(AppConfiguration config, Application app) {
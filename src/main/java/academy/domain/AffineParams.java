@@ -1,6 +1,7 @@
 package academy.domain;
 
 import java.util.Arrays;
+import java.util.List;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.NotNull;
@@ -25,6 +26,17 @@ public class AffineParams {
         return new AffineParams(params[0], params[1], params[2], params[3], params[4], params[5]);
     }
 
+    /**
+     * The three maps of the Sierpinski triangle, a cheap attractor for warmups and tests. The instances are fresh on
+     * every call, since {@link AppConfiguration#setColors} assigns their colors.
+     */
+    public static List<AffineParams> sierpinskiTriangle() {
+        return List.of(
+                new AffineParams(0.5, 0.0, 0.0, 0.0, 0.5, 0.0),
+                new AffineParams(0.5, 0.0, 0.5, 0.0, 0.5, 0.0),
+                new AffineParams(0.5, 0.0, 0.25, 0.0, 0.5, 0.5));
+    }
+
     @Override
     public @NotNull String toString() {
         return "AffineParams{" + "a=" + a + ", b=" + b + ", c=" + c + ", d=" + d + ", e=" + e + ", f=" + f + '}';
@@ -9,7 +9,7 @@ import lombok.Builder;
 import lombok.Data;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 // @RequiredArgsConstructor
 public class AppConfiguration {
     private final Size size;
@@ -0,0 +1,43 @@
+package academy.perf;
+
+import java.util.Arrays;
+import java.util.Optional;
+import lombok.Getter;
+
+/** Metrics recorded by the performance suite and the direction in which each of them regresses. */
+@Getter
+public enum Metric {
+    ITERATIONS_PER_SECOND("iterations_per_second", true, 0),
+    GENERATE_MILLIS("generate_millis", false, 5),
+    SAVE_MILLIS("save_millis", false, 5),
+    ALLOCATED_BYTES_PER_ITERATION("allocated_bytes_per_iteration", false, 1),
+    ALLOCATED_BYTES_PER_PIXEL("allocated_bytes_per_pixel", false, 1);
+
+    private final String key;
+    private final boolean higherIsBetter;
+    /** Differences below this many units are noise (timer resolution, logging allocations) and never fail. */
+    private final double absoluteTolerance;
+
+    Metric(String key, boolean higherIsBetter, double absoluteTolerance) {
+        this.key = key;
+        this.higherIsBetter = higherIsBetter;
+        this.absoluteTolerance = absoluteTolerance;
+    }
+
+    public static Optional<Metric> fromKey(String key) {
+        return Arrays.stream(values()).filter(metric -> metric.key.equals(key)).findFirst();
+    }
+
+    /**
+     * Relative change from {@code baseline} to {@code current}, signed so that a positive value is always a regression.
+     */
+    public double regression(double baseline, double current) {
+        double change = (current - baseline) / baseline;
+        return higherIsBetter ? -change : change;
+    }
+
+    /** Whether {@code current} is worse than {@code baseline} by more than {@code threshold} and the noise floor. */
+    public boolean regressed(double baseline, double current, double threshold) {
+        return regression(baseline, current) > threshold && Math.abs(current - baseline) > absoluteTolerance;
+    }
+}
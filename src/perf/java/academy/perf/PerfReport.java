@@ -0,0 +1,36 @@
+package academy.perf;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Median metrics of one suite run, keyed by scenario and {@link Metric#getKey()}. The same format is used for the
+ * committed baseline and for fresh results.
+ *
+ * @param environment JVM and host the numbers were measured on; the gate only compares runs of the same JDK release and
+ *     CPU count
+ */
+public record PerfReport(
+        @JsonProperty("environment") Map<String, String> environment,
+        @JsonProperty("scenarios") Map<String, Map<String, Double>> scenarios) {
+
+    private static final ObjectMapper MAPPER =
+            new ObjectMapper().findAndRegisterModules().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public static PerfReport read(Path path) throws IOException {
+        return MAPPER.readValue(path.toFile(), PerfReport.class);
+    }
+
+    public void write(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        MAPPER.writeValue(path.toFile(), this);
+    }
+}
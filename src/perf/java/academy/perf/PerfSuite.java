@@ -0,0 +1,193 @@
+package academy.perf;
+
+import academy.application.algorithm.ChaosGame;
+import academy.application.render.ImageRenderer;
+import academy.application.render.ToneMapper;
+import academy.application.render.png.PngEncoder;
+import academy.cli.converter.AppConfigurationConverter;
+import academy.domain.AffineParams;
+import academy.domain.AppConfiguration;
+import academy.domain.Point;
+import academy.domain.Size;
+import academy.domain.Variation;
+import academy.domain.VariationParams;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.Deflater;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The fixed set of renders the regression gate measures: a scaled-down {@code mandala.json}, the configuration of
+ * {@code ChaosGameBenchmarkTest} at one and four threads, and tone mapping of a 4K histogram. Every scenario runs
+ * {@code warmupRuns} unmeasured times and reports the median of {@code runs} measured ones.
+ */
+@Slf4j
+public class PerfSuite {
+    private static final int CHAOS_ITERATIONS = 2_000_000;
+    private static final int MANDALA_SIZE = 640;
+    /** Workers of the multi-threaded scenarios, and so the CPUs a meaningful baseline needs. */
+    public static final int REQUIRED_PROCESSORS = 4;
+
+    private static final int MANDALA_THREADS = REQUIRED_PROCESSORS;
+    private static final int TONEMAP_WIDTH = 3840;
+    private static final int TONEMAP_HEIGHT = 2160;
+
+    private final Path configDir;
+    private final int warmupRuns;
+    private final int runs;
+    private final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public PerfSuite(Path configDir, int warmupRuns, int runs) {
+        this.configDir = configDir;
+        this.warmupRuns = warmupRuns;
+        this.runs = runs;
+    }
+
+    public Map<String, Map<String, Double>> run() {
+        Map<String, Map<String, Double>> results = new LinkedHashMap<>();
+        results.put("mandala-640", measure("mandala-640", () -> render(mandalaConfig())));
+        results.put("chaos-800-1-thread", measure("chaos-800-1-thread", () -> render(benchmarkConfig(1))));
+        results.put(
+                "chaos-800-4-threads",
+                measure("chaos-800-4-threads", () -> render(benchmarkConfig(REQUIRED_PROCESSORS))));
+
+        ImageRenderer histogram = filledHistogram();
+        results.put("tonemap-4k", measure("tonemap-4k", () -> toneMap(histogram)));
+        return results;
+    }
+
+    private Map<String, Double> measure(String name, ScenarioRun scenario) {
+        log.info("Running scenario {} ({} warmup, {} measured runs)", name, warmupRuns, runs);
+        for (int i = 0; i < warmupRuns; i++) {
+            scenario.run();
+        }
+
+        Map<Metric, double[]> samples = new EnumMap<>(Metric.class);
+        for (int i = 0; i < runs; i++) {
+            Map<Metric, Double> result = scenario.run();
+            for (var entry : result.entrySet()) {
+                samples.computeIfAbsent(entry.getKey(), metric -> new double[runs])[i] = entry.getValue();
+            }
+        }
+
+        Map<String, Double> medians = new LinkedHashMap<>();
+        samples.forEach((metric, values) -> medians.put(metric.getKey(), median(values)));
+        log.info("Scenario {}: {}", name, medians);
+        return medians;
+    }
+
+    private Map<Metric, Double> render(AppConfiguration configuration) {
+        configuration.setRandom(new Random(configuration.getSeed()));
+        configuration.setColors();
+        ImageRenderer renderer = new ImageRenderer(configuration);
+        ChaosGame game = new ChaosGame(configuration, renderer);
+
+        long allocatedBefore = threadBean.getTotalThreadAllocatedBytes();
+        long startTime = System.nanoTime();
+        if (configuration.getThreadQuantity() == 1) {
+            game.runSingleThread();
+        } else {
+            game.runMultiThread();
+        }
+        long generateNanos = System.nanoTime() - startTime;
+        long allocated = threadBean.getTotalThreadAllocatedBytes() - allocatedBefore;
+
+        long saveNanos = timeSave(renderer);
+
+        Map<Metric, Double> result = new EnumMap<>(Metric.class);
+        result.put(Metric.ITERATIONS_PER_SECOND, configuration.getIterationCount() * 1e9 / generateNanos);
+        result.put(Metric.GENERATE_MILLIS, generateNanos / 1e6);
+        result.put(Metric.SAVE_MILLIS, saveNanos / 1e6);
+        result.put(Metric.ALLOCATED_BYTES_PER_ITERATION, allocated / (double) configuration.getIterationCount());
+        return result;
+    }
+
+    private Map<Metric, Double> toneMap(ImageRenderer renderer) {
+        long allocatedBefore = threadBean.getTotalThreadAllocatedBytes();
+        long saveNanos = timeSave(renderer);
+        long allocated = threadBean.getTotalThreadAllocatedBytes() - allocatedBefore;
+
+        Map<Metric, Double> result = new EnumMap<>(Metric.class);
+        result.put(Metric.SAVE_MILLIS, saveNanos / 1e6);
+        result.put(Metric.ALLOCATED_BYTES_PER_PIXEL, allocated / ((double) renderer.getWidth() * renderer.getHeight()));
+        return result;
+    }
+
+    private static long timeSave(ImageRenderer renderer) {
+        renderer.setPngEncoder(PngEncoder.create(Deflater.DEFAULT_COMPRESSION, 1));
+        long startTime = System.nanoTime();
+        try {
+            renderer.writePng(Channels.newChannel(OutputStream.nullOutputStream()), ToneMapper.DEFAULT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return System.nanoTime() - startTime;
+    }
+
+    private AppConfiguration mandalaConfig() {
+        AppConfiguration mandala = new AppConfigurationConverter()
+                .convert(configDir.resolve("mandala.json").toString());
+        return AppConfiguration.builder()
+                .size(new Size(MANDALA_SIZE, MANDALA_SIZE))
+                .seed(mandala.getSeed())
+                .iterationCount(CHAOS_ITERATIONS)
+                .threadQuantity(MANDALA_THREADS)
+                .outputPath(mandala.getOutputPath())
+                .affineParamsList(mandala.getAffineParamsList())
+                .variationsParamsList(mandala.getVariationsParamsList())
+                .build();
+    }
+
+    /** Same transformations as {@code ChaosGameBenchmarkTest}, with fewer iterations. */
+    private static AppConfiguration benchmarkConfig(int threads) {
+        return AppConfiguration.builder()
+                .size(new Size(800, 800))
+                .seed(12345L)
+                .iterationCount(CHAOS_ITERATIONS)
+                .threadQuantity(threads)
+                .outputPath(Path.of("benchmark.png"))
+                .affineParamsList(List.of(
+                        new AffineParams(0.5, 0.0, 0.0, 0.0, 0.5, 0.0),
+                        new AffineParams(0.5, 0.0, 0.5, 0.0, 0.5, 0.0),
+                        new AffineParams(0.5, 0.0, 0.25, 0.0, 0.5, 0.5),
+                        new AffineParams(0.5, 0.0, 0.0, 0.0, 0.5, 0.5)))
+                .variationsParamsList(
+                        List.of(new VariationParams(Variation.SWIRL, 0.7), new VariationParams(Variation.LINEAR, 0.3)))
+                .build();
+    }
+
+    private static ImageRenderer filledHistogram() {
+        ImageRenderer renderer = new ImageRenderer(TONEMAP_WIDTH, TONEMAP_HEIGHT);
+        Random random = new Random(42);
+        Point point = Point.builder().build();
+        for (int i = 0; i < TONEMAP_WIDTH * TONEMAP_HEIGHT; i++) {
+            renderer.plot(point.setX(random.nextGaussian() * 1.5)
+                    .setY(random.nextGaussian() * 1.5)
+                    .setColor(random.nextDouble()));
+        }
+        return renderer;
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    @FunctionalInterface
+    private interface ScenarioRun {
+        Map<Metric, Double> run();
+    }
+}
@@ -0,0 +1,221 @@
+package academy.perf;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Runs the {@link PerfSuite}, stores the result and compares it against the committed baseline. Exits with status 1
+ * when any metric regressed by more than the threshold, which fails the {@code perf-gate} Maven profile.
+ *
+ * <p>The metrics are absolute, so they only compare on the JDK release and CPU count the baseline was measured with. On
+ * any other host the comparison is skipped with a warning instead of failing on the difference between machines.
+ */
+@Slf4j
+@Command(
+        name = "performance-gate",
+        description = "Compare render performance against a stored baseline",
+        mixinStandardHelpOptions = true)
+public class PerformanceGate implements Callable<Integer> {
+    private static final String JAVA_VERSION = "java_version";
+    private static final String AVAILABLE_PROCESSORS = "available_processors";
+
+    @Option(
+            names = "--baseline",
+            description = "Baseline JSON (default: ${DEFAULT-VALUE})",
+            defaultValue = "benchmarks/baseline.json")
+    private Path baselinePath;
+
+    @Option(
+            names = "--output",
+            description = "Where to write the results of this run (default: ${DEFAULT-VALUE})",
+            defaultValue = "target/perf-result.json")
+    private Path outputPath;
+
+    @Option(
+            names = "--threshold",
+            description = "Allowed relative regression per metric (default: ${DEFAULT-VALUE})",
+            defaultValue = "0.10")
+    private double threshold;
+
+    @Option(
+            names = "--warmup",
+            description = "Unmeasured runs per scenario (default: ${DEFAULT-VALUE})",
+            defaultValue = "1")
+    private int warmupRuns;
+
+    @Option(
+            names = "--runs",
+            description = "Measured runs per scenario, the median is kept (default: ${DEFAULT-VALUE})",
+            defaultValue = "3")
+    private int runs;
+
+    @Option(
+            names = "--config-dir",
+            description = "Directory with the example configurations (default: ${DEFAULT-VALUE})",
+            defaultValue = "config")
+    private Path configDir;
+
+    @Option(names = "--update-baseline", description = "Overwrite the baseline with this run instead of comparing")
+    private boolean updateBaseline;
+
+    @Option(
+            names = "--skip-on-mismatch",
+            arity = "0..1",
+            description = "Pass without comparing when the baseline comes from another JDK release or CPU count, "
+                    + "instead of failing (default: ${DEFAULT-VALUE})",
+            defaultValue = "false")
+    private boolean skipOnMismatch;
+
+    public static void main(String[] args) {
+        System.exit(new CommandLine(new PerformanceGate()).execute(args));
+    }
+
+    @Override
+    public Integer call() throws IOException {
+        if (threshold <= 0 || runs < 1 || warmupRuns < 0) {
+            throw new CommandLine.ParameterException(
+                    new CommandLine(this), "Threshold must be positive, runs at least 1 and warmup not negative");
+        }
+
+        Map<String, String> environment = environment();
+        PerfReport baseline = null;
+        if (updateBaseline) {
+            int processors = Runtime.getRuntime().availableProcessors();
+            if (processors < PerfSuite.REQUIRED_PROCESSORS) {
+                log.error(
+                        "Refusing to record a baseline on {} CPU(s): the multi-threaded scenarios need {}",
+                        processors,
+                        PerfSuite.REQUIRED_PROCESSORS);
+                return 1;
+            }
+        } else {
+            if (!Files.exists(baselinePath)) {
+                log.error(
+                        "Baseline {} not found, run with --update-baseline on the reference host to create it",
+                        baselinePath);
+                return 1;
+            }
+            baseline = PerfReport.read(baselinePath);
+            List<String> mismatches = environmentMismatches(baseline.environment(), environment);
+            if (!mismatches.isEmpty()) {
+                String message = String.format(
+                        "Baseline %s was measured on another environment (%s); "
+                                + "run with --update-baseline on this host to compare against it",
+                        baselinePath, String.join(", ", mismatches));
+                if (!skipOnMismatch) {
+                    log.error("{}, or pass --skip-on-mismatch to skip the comparison", message);
+                    return 1;
+                }
+                log.warn("{}. Skipping the comparison as requested", message);
+                return 0;
+            }
+        }
+
+        PerfReport report = new PerfReport(environment, new PerfSuite(configDir, warmupRuns, runs).run());
+        report.write(outputPath);
+        log.info("Results written to {}", outputPath);
+
+        if (updateBaseline) {
+            report.write(baselinePath);
+            log.info("Baseline updated: {}", baselinePath);
+            return 0;
+        }
+
+        int regressions = compare(baseline, report);
+        if (regressions > 0) {
+            log.error("{} metric(s) regressed by more than {}%", regressions, formatPercent(threshold));
+            return 1;
+        }
+        log.info("No regressions beyond {}%", formatPercent(threshold));
+        return 0;
+    }
+
+    private int compare(PerfReport baseline, PerfReport current) {
+        int regressions = 0;
+        for (var scenario : baseline.scenarios().entrySet()) {
+            Map<String, Double> currentMetrics = current.scenarios().get(scenario.getKey());
+            if (currentMetrics == null) {
+                log.warn("Scenario {} is in the baseline but was not run", scenario.getKey());
+                continue;
+            }
+            for (var entry : scenario.getValue().entrySet()) {
+                Optional<Metric> metric = Metric.fromKey(entry.getKey());
+                Double value = currentMetrics.get(entry.getKey());
+                if (metric.isEmpty() || value == null || entry.getValue() <= 0) {
+                    log.warn("Skipping metric {} of scenario {}", entry.getKey(), scenario.getKey());
+                    continue;
+                }
+
+                boolean failed = metric.get().regressed(entry.getValue(), value, threshold);
+                String line = String.format(
+                        "%-22s %-30s baseline %14.2f  current %14.2f  %+7.1f%%",
+                        scenario.getKey(),
+                        entry.getKey(),
+                        entry.getValue(),
+                        value,
+                        (value - entry.getValue()) / entry.getValue() * 100);
+                if (failed) {
+                    regressions++;
+                    log.error("{}  REGRESSION", line);
+                } else {
+                    log.info(line);
+                }
+            }
+        }
+        return regressions;
+    }
+
+    /** Differences in the JDK release or the CPU count, the environment the metrics depend on. */
+    private static List<String> environmentMismatches(Map<String, String> baseline, Map<String, String> current) {
+        Map<String, String> expected = baseline == null ? Map.of() : baseline;
+        List<String> mismatches = new ArrayList<>();
+        String baselineRelease = javaRelease(expected.get(JAVA_VERSION));
+        String currentRelease = javaRelease(current.get(JAVA_VERSION));
+        if (!currentRelease.equals(baselineRelease)) {
+            mismatches.add("JDK " + baselineRelease + " in the baseline, " + currentRelease + " now");
+        }
+        String baselineProcessors = expected.get(AVAILABLE_PROCESSORS);
+        if (!current.get(AVAILABLE_PROCESSORS).equals(baselineProcessors)) {
+            mismatches.add(baselineProcessors + " CPUs in the baseline, " + current.get(AVAILABLE_PROCESSORS) + " now");
+        }
+        return mismatches;
+    }
+
+    /** Feature release of a {@code java.version}, so that updates of the same JDK still compare. */
+    private static String javaRelease(String version) {
+        if (version == null) {
+            return "unknown";
+        }
+        try {
+            return String.valueOf(Runtime.Version.parse(version).feature());
+        } catch (IllegalArgumentException e) {
+            return version;
+        }
+    }
+
+    private static Map<String, String> environment() {
+        Map<String, String> environment = new LinkedHashMap<>();
+        environment.put(JAVA_VERSION, System.getProperty("java.version"));
+        environment.put("java_vm", System.getProperty("java.vm.name"));
+        environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        environment.put(
+                AVAILABLE_PROCESSORS, String.valueOf(Runtime.getRuntime().availableProcessors()));
+        environment.put("max_heap_mb", String.valueOf(Runtime.getRuntime().maxMemory() >> 20));
+        return environment;
+    }
+
+    private static String formatPercent(double fraction) {
+        return String.format("%.1f", fraction * 100);
+    }
+}
@@ -0,0 +1,33 @@
+package academy;
+
+import academy.domain.AffineParams;
+import academy.domain.AppConfiguration;
+import academy.domain.Size;
+import academy.domain.Variation;
+import academy.domain.VariationParams;
+import java.util.List;
+import java.util.Random;
+import lombok.experimental.UtilityClass;
+
+/** Configurations shared by the render tests. */
+@UtilityClass
+public class TestConfigurations {
+
+    /**
+     * A {@code width x height} Sierpinski triangle with the linear variation, a small attractor that renders fast. The
+     * seed, iterations, threads and output are left to the test.
+     */
+    public static AppConfiguration.AppConfigurationBuilder sierpinski(int width, int height) {
+        return AppConfiguration.builder()
+                .size(new Size(width, height))
+                .affineParamsList(AffineParams.sierpinskiTriangle())
+                .variationsParamsList(List.of(new VariationParams(Variation.LINEAR, 1.0)));
+    }
+
+    /** Seeds the random generator and colors the maps, as the application does before a render. */
+    public static AppConfiguration seeded(AppConfiguration configuration) {
+        configuration.setRandom(new Random(configuration.getSeed()));
+        configuration.setColors();
+        return configuration;
+    }
+}
@@ -3,6 +3,7 @@ package academy.application.algorithm;
 import static org.assertj.core.api.Assertions.*;
 
 import academy.application.render.ImageRenderer;
+import academy.application.render.histogram.Histogram;
 import academy.domain.*;
 import java.nio.file.Path;
 import java.util.List;
@@ -180,8 +181,8 @@ class ChaosGameBenchmarkTest {
         new ChaosGame(config1, renderer1).runSingleThread();
         new ChaosGame(config4, renderer4).runMultiThread();
 
-        double[][][] hist1 = renderer1.getHistogram();
-        double[][][] hist4 = renderer4.getHistogram();
+        Histogram hist1 = renderer1.getHistogram();
+        Histogram hist4 = renderer4.getHistogram();
 
         int nonEmpty1 = countNonEmptyPixels(hist1);
         int nonEmpty4 = countNonEmptyPixels(hist4);
@@ -192,11 +193,11 @@ class ChaosGameBenchmarkTest {
         System.out.printf("%nPixel count: 1 thread = %d, 4 threads = %d%n", nonEmpty1, nonEmpty4);
     }
 
-    private int countNonEmptyPixels(double[][][] histogram) {
+    private int countNonEmptyPixels(Histogram histogram) {
         int count = 0;
-        for (int x = 0; x < histogram.length; x++) {
-            for (int y = 0; y < histogram[0].length; y++) {
-                if (histogram[x][y][3] > 0) {
+        for (int x = 0; x < histogram.width(); x++) {
+            for (int y = 0; y < histogram.height(); y++) {
+                if (histogram.get(x, y, 3) > 0) {
                     count++;
                 }
             }
@@ -2,13 +2,23 @@ package academy.application.algorithm;
 
 import static org.assertj.core.api.Assertions.*;
 
+import academy.application.metrics.AllocationBudget;
 import academy.application.render.ImageRenderer;
+import academy.application.render.ToneMappedImage;
+import academy.application.render.ToneMapper;
+import academy.application.render.histogram.Histogram;
 import academy.domain.*;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -65,11 +75,11 @@ class ChaosGameTest {
 
             game.runSingleThread();
 
-            double[][][] histogram = renderer.getHistogram();
+            Histogram histogram = renderer.getHistogram();
             boolean foundPlottedPixel = false;
             for (int x = 0; x < 100; x++) {
                 for (int y = 0; y < 100; y++) {
-                    if (histogram[x][y][3] > 0) {
+                    if (histogram.get(x, y, 3) > 0) {
                         foundPlottedPixel = true;
                         break;
                     }
@@ -95,15 +105,15 @@ class ChaosGameTest {
             new ChaosGame(config1, renderer1).runSingleThread();
             new ChaosGame(config2, renderer2).runSingleThread();
 
-            double[][][] hist1 = renderer1.getHistogram();
-            double[][][] hist2 = renderer2.getHistogram();
+            Histogram hist1 = renderer1.getHistogram();
+            Histogram hist2 = renderer2.getHistogram();
 
             for (int x = 0; x < 100; x++) {
                 for (int y = 0; y < 100; y++) {
                     for (int c = 0; c < 4; c++) {
-                        assertThat(hist1[x][y][c])
+                        assertThat(hist1.get(x, y, c))
                                 .as("Pixel (%d, %d, %d) should match", x, y, c)
-                                .isEqualTo(hist2[x][y][c]);
+                                .isEqualTo(hist2.get(x, y, c));
                     }
                 }
             }
@@ -126,13 +136,13 @@ class ChaosGameTest {
             new ChaosGame(config1, renderer1).runSingleThread();
             new ChaosGame(config2, renderer2).runSingleThread();
 
-            double[][][] hist1 = renderer1.getHistogram();
-            double[][][] hist2 = renderer2.getHistogram();
+            Histogram hist1 = renderer1.getHistogram();
+            Histogram hist2 = renderer2.getHistogram();
 
             boolean foundDifference = false;
             for (int x = 0; x < 100 && !foundDifference; x++) {
                 for (int y = 0; y < 100 && !foundDifference; y++) {
-                    if (hist1[x][y][3] != hist2[x][y][3]) {
+                    if (hist1.get(x, y, 3) != hist2.get(x, y, 3)) {
                         foundDifference = true;
                     }
                 }
@@ -172,11 +182,11 @@ class ChaosGameTest {
 
             game.runMultiThread();
 
-            double[][][] histogram = renderer.getHistogram();
+            Histogram histogram = renderer.getHistogram();
             int plottedPixels = 0;
             for (int x = 0; x < 100; x++) {
                 for (int y = 0; y < 100; y++) {
-                    if (histogram[x][y][3] > 0) {
+                    if (histogram.get(x, y, 3) > 0) {
                         plottedPixels++;
                     }
                 }
@@ -209,15 +219,15 @@ class ChaosGameTest {
             new ChaosGame(config1, renderer1).runMultiThread();
             new ChaosGame(config2, renderer2).runMultiThread();
 
-            double[][][] hist1 = renderer1.getHistogram();
-            double[][][] hist2 = renderer2.getHistogram();
+            Histogram hist1 = renderer1.getHistogram();
+            Histogram hist2 = renderer2.getHistogram();
 
             for (int x = 0; x < 100; x++) {
                 for (int y = 0; y < 100; y++) {
                     for (int c = 0; c < 4; c++) {
-                        assertThat(hist1[x][y][c])
+                        assertThat(hist1.get(x, y, c))
                                 .as("Pixel (%d, %d, %d) should match", x, y, c)
-                                .isEqualTo(hist2[x][y][c]);
+                                .isEqualTo(hist2.get(x, y, c));
                     }
                 }
             }
@@ -255,6 +265,363 @@ class ChaosGameTest {
 
             assertThatCode(game::runMultiThread).doesNotThrowAnyException();
         }
+
+        @Test
+        @DisplayName("iterating and merging separately should match a multi-threaded run")
+        void iterateThenMergeShouldMatchRun() {
+            AppConfiguration config1 = configBuilder()
+                    .seed(7L)
+                    .threadQuantity(3)
+                    .iterationCount(3000)
+                    .build();
+            AppConfiguration config2 = configBuilder()
+                    .seed(7L)
+                    .threadQuantity(3)
+                    .iterationCount(3000)
+                    .build();
+            config1.setRandom(new Random(config1.getSeed()));
+            config1.setColors();
+            config2.setRandom(new Random(config2.getSeed()));
+            config2.setColors();
+            ImageRenderer renderer1 = new ImageRenderer(config1);
+            ImageRenderer renderer2 = new ImageRenderer(config2);
+
+            new ChaosGame(config1, renderer1).runMultiThread();
+            ChaosGame game = new ChaosGame(config2, renderer2);
+            List<ImageRenderer> workers = game.iterate();
+            assertThat(workers).hasSize(3);
+            assertThat(renderer2.getPlotCount()).isZero();
+            game.merge(workers);
+
+            assertThat(renderer2.getPlotCount()).isEqualTo(renderer1.getPlotCount());
+            for (int x = 0; x < 100; x++) {
+                for (int y = 0; y < 100; y++) {
+                    assertThat(renderer2.getHistogram().get(x, y, Histogram.ALPHA))
+                            .isEqualTo(renderer1.getHistogram().get(x, y, Histogram.ALPHA));
+                }
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Cancellation and previews")
+    class CancellationTest {
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 3})
+        @DisplayName("a cancelled game should stop before its iterations are done")
+        void cancelledGameShouldStop(int threads) {
+            AppConfiguration config = configBuilder()
+                    .threadQuantity(threads)
+                    .iterationCount(50_000_000)
+                    .build();
+            config.setRandom(new Random(config.getSeed()));
+            config.setColors();
+            ImageRenderer renderer = new ImageRenderer(config);
+            ChaosGame game = new ChaosGame(config, renderer);
+            game.cancel();
+
+            assertThatThrownBy(threads == 1 ? game::runSingleThread : game::runMultiThread)
+                    .isInstanceOf(CancellationException.class);
+            assertThat(game.isCancelled()).isTrue();
+            assertThat(renderer.getPlotCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("a preview should show the iterations of the workers before the merge")
+        void previewShouldSeeUnmergedWorkers() {
+            AppConfiguration config =
+                    configBuilder().threadQuantity(2).iterationCount(20_000).build();
+            config.setRandom(new Random(config.getSeed()));
+            config.setColors();
+            ImageRenderer renderer = new ImageRenderer(config);
+            ChaosGame game = new ChaosGame(config, renderer);
+
+            assertThat(game.preview(25, ToneMapper.DEFAULT).nonEmptyPixels()).isZero();
+            List<ImageRenderer> workers = game.iterate();
+            ToneMappedImage preview = game.preview(25, ToneMapper.DEFAULT);
+            game.merge(workers);
+
+            assertThat(preview.width()).isEqualTo(25);
+            assertThat(preview.height()).isEqualTo(25);
+            assertThat(preview.nonEmptyPixels()).isPositive();
+            assertThat(game.preview(25, ToneMapper.DEFAULT).pixels()).isEqualTo(preview.pixels());
+        }
+    }
+
+    @Nested
+    @DisplayName("Early stops")
+    class EarlyStopTest {
+
+        private ChaosGame game(ImageRenderer renderer, AppConfiguration config) {
+            config.setRandom(new Random(config.getSeed()));
+            config.setColors();
+            return new ChaosGame(config, renderer);
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 3})
+        @DisplayName("a stopped game should keep what its workers accumulated")
+        void stoppedGameShouldKeepPartialHistogram(int threads) throws Exception {
+            AppConfiguration config = configBuilder()
+                    .threadQuantity(threads)
+                    .iterationCount(1_000_000_000)
+                    .build();
+            ImageRenderer renderer = new ImageRenderer(config);
+            ChaosGame game = game(renderer, config);
+            Thread stopper = Thread.ofVirtual().start(() -> {
+                while (game.getProgress() == null || game.getProgress().getCompletedIterations() == 0) {
+                    Thread.onSpinWait();
+                }
+                game.stop();
+            });
+
+            if (threads == 1) {
+                game.runSingleThread();
+            } else {
+                game.runMultiThread();
+            }
+            stopper.join();
+
+            assertThat(game.isStoppedEarly()).isTrue();
+            assertThat(game.getCompletedIterations()).isPositive().isLessThan(1_000_000_000);
+            // Every worker skips its first 20 points, unless it was stopped before it started
+            assertThat(renderer.getPlotCount() + renderer.getOutOfBoundsCount())
+                    .isBetween(game.getCompletedIterations() - threads * 20L, game.getCompletedIterations());
+        }
+
+        @Test
+        @DisplayName("the time limit should end the generation at the next chunk")
+        void timeLimitShouldEndGeneration() {
+            AppConfiguration config = configBuilder()
+                    .threadQuantity(2)
+                    .iterationCount(1_000_000_000)
+                    .build();
+            ImageRenderer renderer = new ImageRenderer(config);
+            ChaosGame game = game(renderer, config);
+            game.setTimeLimit(Duration.ofMillis(300));
+
+            long startTime = System.nanoTime();
+            game.runMultiThread();
+            long millis = (System.nanoTime() - startTime) / 1_000_000;
+
+            assertThat(millis).isBetween(300L, 10_000L);
+            assertThat(game.isStoppedEarly()).isTrue();
+            assertThat(renderer.getPlotCount()).isPositive();
+        }
+
+        @Test
+        @DisplayName("a game iterating until its time limit should run past the configured count")
+        void shouldIterateUntilTimeLimit() {
+            AppConfiguration config =
+                    configBuilder().threadQuantity(2).iterationCount(1000).build();
+            ImageRenderer renderer = new ImageRenderer(config);
+            ChaosGame game = game(renderer, config);
+            game.setIterateUntilTimeLimit(true);
+            game.setTimeLimit(Duration.ofMillis(300));
+
+            game.runMultiThread();
+
+            assertThat(game.getCompletedIterations()).isGreaterThan(1000);
+            assertThat(game.isStoppedEarly()).isFalse();
+            assertThat(renderer.getPlotCount()).isPositive();
+        }
+
+        @Test
+        @DisplayName("chunks should cover a worker count of Integer.MAX_VALUE without wrapping")
+        void chunksShouldCoverIntRange() {
+            long covered = 0;
+            int chunks = 0;
+            int lastChunk = 0;
+            for (long chunkStart = 0; chunkStart < Integer.MAX_VALUE; chunkStart += ChaosGame.CHUNK_ITERATIONS) {
+                lastChunk = ChaosGame.chunkLength(chunkStart, Integer.MAX_VALUE);
+                assertThat(lastChunk).isPositive();
+                covered += lastChunk;
+                chunks++;
+            }
+
+            assertThat(covered).isEqualTo(Integer.MAX_VALUE);
+            assertThat(chunks).isEqualTo(1 << 15);
+            assertThat(lastChunk).isEqualTo(ChaosGame.CHUNK_ITERATIONS - 1);
+        }
+
+        @Test
+        @DisplayName("a game iterating until its time limit should plot every iteration after the warmup")
+        void iteratingUntilTimeLimitShouldKeepCountsConsistent() {
+            AppConfiguration config = configBuilder().threadQuantity(1).build();
+            ImageRenderer renderer = new ImageRenderer(config);
+            ChaosGame game = game(renderer, config);
+            game.setIterateUntilTimeLimit(true);
+            game.setTimeLimit(Duration.ofMillis(200));
+
+            game.runSingleThread();
+
+            assertThat(game.getCompletedIterations()).isPositive().isLessThanOrEqualTo(Integer.MAX_VALUE);
+            assertThat(renderer.getPlotCount() + renderer.getOutOfBoundsCount())
+                    .isEqualTo(game.getCompletedIterations() - 20);
+        }
+
+        @Test
+        @DisplayName("iterating until the time limit should need a time limit")
+        void iteratingUntilTimeLimitShouldNeedLimit() {
+            AppConfiguration config = configBuilder().threadQuantity(1).build();
+            ChaosGame game = game(new ImageRenderer(config), config);
+            game.setIterateUntilTimeLimit(true);
+
+            assertThatThrownBy(game::runSingleThread)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("time limit");
+        }
+
+        @Test
+        @DisplayName("a game that ran to the end should report every iteration")
+        void fullRunShouldReportEveryIteration() {
+            AppConfiguration config =
+                    configBuilder().threadQuantity(2).iterationCount(300_001).build();
+            ChaosGame game = game(new ImageRenderer(config), config);
+            game.setTimeLimit(Duration.ofMinutes(5));
+
+            game.runMultiThread();
+
+            assertThat(game.getCompletedIterations()).isEqualTo(300_001);
+            assertThat(game.isStoppedEarly()).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Event publishing")
+    class EventTest {
+
+        /** Takes every event it is offered and records how the subscription ended. */
+        private static final class Recorder implements Flow.Subscriber<RenderEvent> {
+            final List<RenderEvent> events = new CopyOnWriteArrayList<>();
+            final CompletableFuture<Void> done = new CompletableFuture<>();
+            private final long demand;
+
+            Recorder(long demand) {
+                this.demand = demand;
+            }
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(demand);
+            }
+
+            @Override
+            public void onNext(RenderEvent event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                done.completeExceptionally(error);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        }
+
+        private ChaosGame game(int threads, int iterations) {
+            AppConfiguration config = configBuilder()
+                    .threadQuantity(threads)
+                    .iterationCount(iterations)
+                    .build();
+            config.setRandom(new Random(config.getSeed()));
+            config.setColors();
+            return new ChaosGame(config, new ImageRenderer(config));
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 2})
+        @DisplayName("should publish progress and frames, then the completion")
+        void shouldPublishEvents(int threads) throws Exception {
+            ChaosGame game = game(threads, 3_000_000);
+            RenderEvents events = game.publishEvents(Duration.ofMillis(5), Duration.ofMillis(10), 20);
+            Recorder recorder = new Recorder(Long.MAX_VALUE);
+            events.subscribe(recorder);
+
+            if (threads == 1) {
+                game.runSingleThread();
+            } else {
+                game.runMultiThread();
+            }
+            recorder.done.get(10, TimeUnit.SECONDS);
+
+            assertThat(recorder.events).hasAtLeastOneElementOfType(RenderEvent.Progress.class);
+            assertThat(recorder.events.getLast()).isInstanceOf(RenderEvent.Completed.class);
+            RenderEvent.Completed completed = (RenderEvent.Completed) recorder.events.getLast();
+            assertThat(completed.iterations()).isEqualTo(3_000_000);
+            assertThat(completed.plottedPoints()).isPositive();
+            RenderEvent.Frame last = (RenderEvent.Frame) recorder.events.get(recorder.events.size() - 2);
+            assertThat(last.completedIterations()).isEqualTo(3_000_000);
+            assertThat(last.image().width()).isEqualTo(20);
+            assertThat(last.image().nonEmptyPixels()).isPositive();
+            assertThat(recorder.events)
+                    .filteredOn(RenderEvent.Progress.class::isInstance)
+                    .map(event -> ((RenderEvent.Progress) event).completedIterations())
+                    .isSorted();
+        }
+
+        @Test
+        @DisplayName("a subscriber that stops requesting should only lose events")
+        void slowSubscriberShouldNotStallTheRender() throws Exception {
+            ChaosGame game = game(2, 3_000_000);
+            RenderEvents events = game.publishEvents(Duration.ofMillis(1), null, 0);
+            Recorder stuck = new Recorder(1);
+            Recorder eager = new Recorder(Long.MAX_VALUE);
+            events.subscribe(stuck);
+            events.subscribe(eager);
+
+            game.runMultiThread();
+            eager.done.get(10, TimeUnit.SECONDS);
+
+            assertThat(stuck.events).hasSize(1);
+            assertThat(events.getDroppedEvents()).isPositive();
+            assertThat(eager.events.getLast()).isInstanceOf(RenderEvent.Completed.class);
+            assertThat(eager.events).noneMatch(RenderEvent.Frame.class::isInstance);
+        }
+
+        @Test
+        @DisplayName("a cancelled run should end the subscriptions with the cancellation")
+        void cancelledRunShouldFailSubscriptions() {
+            ChaosGame game = game(2, 50_000_000);
+            RenderEvents events = game.publishEvents(Duration.ofMillis(5), Duration.ofMillis(10), 20);
+            Recorder recorder = new Recorder(Long.MAX_VALUE);
+            events.subscribe(recorder);
+            game.cancel();
+
+            assertThatThrownBy(game::runMultiThread).isInstanceOf(CancellationException.class);
+            // CompletableFuture rethrows a cancellation as is rather than wrapped in an ExecutionException
+            assertThatThrownBy(() -> recorder.done.get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(CancellationException.class)
+                    .hasMessage("Render cancelled");
+        }
+    }
+
+    @Nested
+    @DisplayName("Allocation budget")
+    class AllocationBudgetTest {
+
+        @Test
+        @DisplayName("iteration loop should not allocate per iteration")
+        void iterationLoopShouldNotAllocatePerIteration() {
+            int iterations = 500_000;
+            AppConfiguration config = configBuilder()
+                    .iterationCount(iterations)
+                    .variationsParamsList(List.of(
+                            new VariationParams(Variation.SWIRL, 0.5),
+                            new VariationParams(Variation.SINUSOIDAL, 0.3),
+                            new VariationParams(Variation.LINEAR, 0.2)))
+                    .build();
+            config.setRandom(new Random(config.getSeed()));
+            config.setColors();
+            ChaosGame game = new ChaosGame(config, new ImageRenderer(config));
+
+            // What remains is per run: the progress reporter, its MBean and one JFR event object per chunk
+            AllocationBudget.assertAllocatesPerOperationAtMost(0.05, iterations, game::runSingleThread);
+        }
     }
 
     @Nested
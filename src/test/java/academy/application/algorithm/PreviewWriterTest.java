@@ -0,0 +1,82 @@
+package academy.application.algorithm;
+
+import static org.assertj.core.api.Assertions.*;
+
+import academy.TestConfigurations;
+import academy.application.render.ImageRenderer;
+import academy.domain.AppConfiguration;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("Preview writer tests")
+class PreviewWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ChaosGame game(int threads, int iterations) {
+        AppConfiguration config = TestConfigurations.seeded(TestConfigurations.sierpinski(200, 100)
+                .seed(7L)
+                .iterationCount(iterations)
+                .threadQuantity(threads)
+                .outputPath(tempDir.resolve("flame.png"))
+                .build());
+        return new ChaosGame(config, new ImageRenderer(config));
+    }
+
+    @Test
+    @DisplayName("should name the preview after the output")
+    void shouldNamePreviewAfterOutput() {
+        assertThat(PreviewWriter.previewPath(Path.of("out", "flame.png")))
+                .isEqualTo(Path.of("out", "flame.preview.png"));
+        assertThat(PreviewWriter.previewPath(Path.of("flame"))).isEqualTo(Path.of("flame.preview.png"));
+    }
+
+    @Test
+    @DisplayName("should leave the final frame as a downscaled PNG and no temporary file")
+    void shouldWriteFinalPreview() throws Exception {
+        ChaosGame game = game(2, 3_000_000);
+        RenderEvents events = game.publishEvents(Duration.ofMillis(5), Duration.ofMillis(10), 50);
+        PreviewWriter previews = new PreviewWriter(tempDir.resolve("flame.preview.png"));
+        events.subscribe(previews);
+
+        game.runMultiThread();
+
+        assertThat(previews.await(Duration.ofSeconds(10))).isTrue();
+        BufferedImage preview =
+                ImageIO.read(tempDir.resolve("flame.preview.png").toFile());
+        assertThat(preview.getWidth()).isEqualTo(50);
+        assertThat(preview.getHeight()).isEqualTo(25);
+        assertThat(previews.getWrittenCount()).isPositive().isLessThanOrEqualTo(events.getFrameCount());
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(tempDir.resolve("flame.preview.png"));
+        }
+    }
+
+    @Test
+    @DisplayName("frames should take a bounded share of the render time")
+    void shouldBoundFrameCost() throws InterruptedException {
+        ChaosGame game = game(1, 20_000_000);
+        RenderEvents events = game.publishEvents(Duration.ofMillis(50), Duration.ofMillis(1), 200);
+        PreviewWriter previews = new PreviewWriter(tempDir.resolve("flame.preview.png"));
+        events.subscribe(previews);
+
+        long startTime = System.nanoTime();
+        game.runSingleThread();
+        long renderNanos = System.nanoTime() - startTime;
+        assertThat(previews.await(Duration.ofSeconds(10))).isTrue();
+
+        // One frame may start right before the end, and the final frame comes on top of the share
+        assertThat(events.getFrameCount()).isGreaterThanOrEqualTo(1);
+        double share = (double) events.getFrameNanos() / renderNanos;
+        double lastFrames = 2.0 * events.getFrameNanos() / events.getFrameCount() / renderNanos;
+        assertThat(share).isLessThanOrEqualTo(RenderEvents.MAX_FRAME_SHARE + lastFrames + 0.01);
+    }
+}
@@ -0,0 +1,154 @@
+package academy.application.batch;
+
+import static org.assertj.core.api.Assertions.*;
+
+import academy.TestConfigurations;
+import academy.domain.AppConfiguration;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("Batch runner tests")
+class BatchRunnerTest {
+    private static final long BUDGET = 64L * 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    /** Configurations come from their file name: {@code <width>x<height>-<threads>.json}, or fail to load. */
+    private static AppConfiguration load(Path configPath, Path outputPath) {
+        String name = configPath.getFileName().toString().replace(".json", "");
+        if (name.startsWith("broken")) {
+            throw new IllegalArgumentException("Failed to parse configuration file: " + name);
+        }
+        String[] size = name.split("-")[0].split("x");
+        return TestConfigurations.sierpinski(Integer.parseInt(size[0]), Integer.parseInt(size[1]))
+                .seed(9L)
+                .iterationCount(20_000)
+                .threadQuantity(Integer.parseInt(name.split("-")[1]))
+                .outputPath(outputPath)
+                .build();
+    }
+
+    private BatchRunner runner(long budget) {
+        return new BatchRunner(2, budget, tempDir.resolve("out"), BatchRunnerTest::load);
+    }
+
+    @Nested
+    @DisplayName("Rendering")
+    class RenderingTest {
+
+        @Test
+        @DisplayName("should render every job and number outputs that share a name")
+        void shouldRenderEveryJob() throws IOException {
+            List<Path> configs = List.of(
+                    Path.of("a", "64x48-1.json"),
+                    Path.of("b", "64x48-1.json"),
+                    Path.of("40x30-3.json"),
+                    Path.of("64x48-2.json"));
+
+            List<BatchResult> results = runner(BUDGET).run(configs);
+
+            assertThat(results).allMatch(BatchResult::succeeded);
+            assertThat(results)
+                    .extracting(result -> result.output().getFileName().toString())
+                    .containsExactly("64x48-1.png", "64x48-1-2.png", "40x30-3.png", "64x48-2.png");
+            BufferedImage image = ImageIO.read(results.get(2).output().toFile());
+            assertThat(image.getWidth()).isEqualTo(40);
+            assertThat(image.getHeight()).isEqualTo(30);
+            assertThat(results.get(3).threads()).isEqualTo(2);
+            assertThat(results.get(3).iterationsPerSecond()).isPositive();
+        }
+
+        @Test
+        @DisplayName("jobs on reused histograms should render exactly like the first one")
+        void reusedHistogramsShouldBeCleared() throws IOException {
+            List<Path> configs =
+                    List.of(Path.of("a", "64x48-1.json"), Path.of("b", "64x48-2.json"), Path.of("c", "64x48-1.json"));
+
+            List<BatchResult> results = runner(BUDGET).run(configs);
+
+            assertThat(Files.readAllBytes(results.get(2).output()))
+                    .isEqualTo(Files.readAllBytes(results.get(0).output()));
+        }
+
+        @Test
+        @DisplayName("should record failed jobs and go on with the others")
+        void shouldRecordFailures() {
+            List<Path> configs = List.of(Path.of("broken.json"), Path.of("2000x2000-1.json"), Path.of("40x30-1.json"));
+
+            List<BatchResult> results = runner(BUDGET).run(configs);
+
+            assertThat(results.get(0).error()).contains("Failed to parse");
+            assertThat(results.get(1).error()).contains("batch budget");
+            assertThat(results.get(2).succeeded()).isTrue();
+        }
+
+        @Test
+        @DisplayName("should report the utilisation of every pipeline stage")
+        void shouldReportStageUtilisation() {
+            BatchRunner runner = runner(BUDGET);
+
+            runner.run(List.of(Path.of("64x48-1.json"), Path.of("64x48-2.json"), Path.of("broken.json")));
+
+            assertThat(runner.getStageUtilisation())
+                    .extracting(StageUtilisation::stage)
+                    .containsExactly("iterate", "merge", "tone_map", "encode");
+            assertThat(runner.getStageUtilisation()).allSatisfy(stage -> {
+                assertThat(stage.jobs()).isEqualTo(2);
+                assertThat(stage.busyNanos()).isPositive();
+                assertThat(stage.utilisation()).isBetween(0.0, 1.0);
+            });
+            assertThat(runner.getStageUtilisation().getFirst().threads()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("should write one summary row per job")
+        void shouldWriteSummary() {
+            List<BatchResult> results =
+                    runner(BUDGET).run(List.of(Path.of("broken, really.json"), Path.of("40x30-1.json")));
+
+            String[] lines = BatchRunner.toCsv(results).split("\n");
+
+            assertThat(lines).hasSize(3);
+            assertThat(lines[0]).startsWith("config,output,status");
+            assertThat(lines[1]).startsWith("\"broken, really.json\",").contains(",failed,");
+            assertThat(lines[2]).startsWith("40x30-1.json,").contains(",ok,40,30,20000,1,");
+        }
+    }
+
+    @Nested
+    @DisplayName("Configuration sources")
+    class SourceTest {
+
+        @Test
+        @DisplayName("should list the JSON files of a directory in name order")
+        void shouldListDirectory() throws IOException {
+            Files.writeString(tempDir.resolve("b.json"), "{}");
+            Files.writeString(tempDir.resolve("a.JSON"), "{}");
+            Files.writeString(tempDir.resolve("notes.txt"), "");
+
+            assertThat(BatchRunner.resolveConfigs(tempDir))
+                    .containsExactly(tempDir.resolve("a.JSON"), tempDir.resolve("b.json"));
+        }
+
+        @Test
+        @DisplayName("should read a manifest relative to its directory")
+        void shouldReadManifest() throws IOException {
+            Path manifest = tempDir.resolve("nightly.txt");
+            Files.writeString(manifest, "# nightly set\nflames/one.json\n\n  two.json  \n");
+
+            assertThat(BatchRunner.resolveConfigs(manifest))
+                    .containsExactly(
+                            tempDir.toAbsolutePath().resolve("flames/one.json"),
+                            tempDir.toAbsolutePath().resolve("two.json"));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package academy.application.bench;
+
+import static org.assertj.core.api.Assertions.*;
+
+import academy.TestConfigurations;
+import academy.domain.AppConfiguration;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("ThreadScaling tests")
+class ThreadScalingTest {
+
+    private static AppConfiguration config() {
+        return TestConfigurations.sierpinski(64, 48)
+                .seed(3L)
+                .iterationCount(20_000)
+                .threadQuantity(8)
+                .outputPath(Path.of("unused.png"))
+                .build();
+    }
+
+    @Test
+    @DisplayName("should measure every requested thread count relative to the first")
+    void shouldMeasureEveryThreadCount() {
+        List<ScalingResult> results = new ThreadScaling(config(), 0, 1).run(List.of(1, 2, 3));
+
+        assertThat(results).extracting(ScalingResult::threads).containsExactly(1, 2, 3);
+        assertThat(results.getFirst().speedup()).isEqualTo(1.0);
+        assertThat(results.getFirst().efficiency()).isEqualTo(1.0);
+        assertThat(results.getFirst().mergeMillis()).isZero();
+        for (ScalingResult result : results) {
+            assertThat(result.iterations()).isEqualTo(20_000);
+            assertThat(result.iterationsPerSecond()).isPositive();
+            assertThat(result.efficiency()).isCloseTo(result.speedup() / result.threads(), within(1e-9));
+            assertThat(result.peakHeapBytes()).isPositive();
+        }
+    }
+
+    @Test
+    @DisplayName("should format results as a table and as CSV")
+    void shouldFormatResults() {
+        List<ScalingResult> results = List.of(
+                new ScalingResult(1, 1000, 10.0, 100_000, 1.0, 1.0, 0.0, 64L << 20),
+                new ScalingResult(2, 1000, 6.0, 166_667, 1.6667, 0.8333, 1.5, 96L << 20));
+
+        String csv = ThreadScaling.toCsv(results);
+        String table = ThreadScaling.toTable(results);
+
+        assertThat(csv.lines())
+                .containsExactly(
+                        "threads,iterations,millis,iterations_per_second,speedup,efficiency,merge_millis,peak_heap_mb",
+                        "1,1000,10.000,100000.0,1.0000,1.0000,0.000,64",
+                        "2,1000,6.000,166667.0,1.6667,0.8333,1.500,96");
+        assertThat(table.lines()).hasSize(3);
+        assertThat(table).contains("speedup").contains("83%");
+    }
+}
@@ -0,0 +1,228 @@
+package academy.application.cache;
+
+import static org.assertj.core.api.Assertions.*;
+
+import academy.application.render.DensityEstimation;
+import academy.application.render.HistogramFile;
+import academy.application.render.HistogramHeader;
+import academy.application.render.ImageRenderer;
+import academy.application.render.histogram.AccumulationStrategy;
+import academy.domain.AffineParams;
+import academy.domain.AppConfiguration;
+import academy.domain.Point;
+import academy.domain.Size;
+import academy.domain.Variation;
+import academy.domain.VariationParams;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("Render cache tests")
+class RenderCacheTest {
+    private static final int WIDTH = 40;
+    private static final int HEIGHT = 30;
+    private static final AccumulationStrategy STRATEGY = AccumulationStrategy.PER_THREAD_DOUBLE;
+
+    @TempDir
+    Path tempDir;
+
+    private static AppConfiguration.AppConfigurationBuilder config() {
+        return AppConfiguration.builder()
+                .size(new Size(WIDTH, HEIGHT))
+                .seed(11L)
+                .iterationCount(1000)
+                .threadQuantity(2)
+                .outputPath(Path.of("out.png"))
+                .affineParamsList(List.of(new AffineParams(0.5, 0.0, 0.25, 0.0, 0.5, -0.0)))
+                .variationsParamsList(List.of(new VariationParams(Variation.SWIRL, 1.0)));
+    }
+
+    private static ImageRenderer renderer(int points) {
+        ImageRenderer renderer = new ImageRenderer(WIDTH, HEIGHT);
+        for (int i = 0; i < points; i++) {
+            renderer.plot(Point.builder().x(0.1 * i).y(0.0).color(0.5).build());
+        }
+        return renderer;
+    }
+
+    private static HistogramHeader header(long iterations) {
+        return new HistogramHeader(WIDTH, HEIGHT, 1, 11L, iterations, 2, iterations, 0, null);
+    }
+
+    @Nested
+    @DisplayName("Keys")
+    class KeyTest {
+
+        @Test
+        @DisplayName("equal configurations should hash equally however their numbers are written")
+        void shouldNormalizeNumbers() {
+            AppConfiguration written = config().affineParamsList(
+                            List.of(new AffineParams(0.50, 0, 2.5e-1, 0.0, 5e-1, 0.0)))
+                    .build();
+
+            assertThat(RenderKey.of(written, 1, STRATEGY)).isEqualTo(RenderKey.of(config().build(), 1, STRATEGY));
+        }
+
+        @Test
+        @DisplayName("should ignore the output path and iteration count")
+        void shouldIgnoreOutputAndIterations() {
+            AppConfiguration other = config().outputPath(Path.of("elsewhere", "other.png"))
+                    .iterationCount(5000)
+                    .build();
+
+            assertThat(RenderKey.of(other, 1, STRATEGY)).isEqualTo(RenderKey.of(config().build(), 1, STRATEGY));
+        }
+
+        @Test
+        @DisplayName("should tell apart anything that shapes the histogram")
+        void shouldDependOnHistogramInputs() {
+            RenderKey key = RenderKey.of(config().build(), 1, STRATEGY);
+
+            assertThat(RenderKey.of(config().seed(12L).build(), 1, STRATEGY)).isNotEqualTo(key);
+            assertThat(RenderKey.of(config().threadQuantity(3).build(), 1, STRATEGY))
+                    .isNotEqualTo(key);
+            assertThat(RenderKey.of(config().size(new Size(30, 40)).build(), 1, STRATEGY))
+                    .isNotEqualTo(key);
+            assertThat(RenderKey.of(config().build(), 2, STRATEGY)).isNotEqualTo(key);
+            assertThat(RenderKey.of(
+                            config().variationsParamsList(List.of(new VariationParams(Variation.SWIRL, 0.9)))
+                                    .build(),
+                            1,
+                            STRATEGY))
+                    .isNotEqualTo(key);
+        }
+
+        @Test
+        @DisplayName("should tell apart float and double accumulation")
+        void shouldDependOnPrecision() {
+            RenderKey key = RenderKey.of(config().build(), 1, STRATEGY);
+
+            assertThat(RenderKey.of(config().build(), 1, AccumulationStrategy.COMPACT))
+                    .isNotEqualTo(key);
+            assertThat(RenderKey.of(config().build(), 1, AccumulationStrategy.SHARED_ATOMIC))
+                    .isEqualTo(key);
+            assertThat(RenderKey.of(config().threadQuantity(1).build(), 1, AccumulationStrategy.COMPACT))
+                    .as("a single-threaded compact render plots straight into doubles")
+                    .isEqualTo(RenderKey.of(config().threadQuantity(1).build(), 1, STRATEGY));
+        }
+
+        @Test
+        @DisplayName("canonical form should have sorted keys and plain numbers")
+        void canonicalFormShouldBeSorted() {
+            String canonical = RenderKey.canonical(config().build(), 1, STRATEGY);
+
+            assertThat(canonical)
+                    .isEqualTo("{\"affine_params\":[[0.5,0,0.25,0,0.5,0]],\"functions\":[[\"SWIRL\",1]],"
+                            + "\"oversample\":1,\"precision\":\"double\",\"seed\":11,\"size\":[40,30],\"threads\":2,\"version\":"
+                            + RenderKey.VERSION + "}");
+        }
+
+        @Test
+        @DisplayName("image keys should depend on the iterations and output settings")
+        void imageKeysShouldDependOnOutput() {
+            RenderKey key = RenderKey.of(config().build(), 1, STRATEGY);
+            RenderKey image = key.image(1000, "box", null, 8, -1, ".png");
+
+            assertThat(key.image(1000, "box", null, 8, -1, ".png")).isEqualTo(image);
+            assertThat(key.image(2000, "box", null, 8, -1, ".png")).isNotEqualTo(image);
+            assertThat(key.image(1000, "box", new DensityEstimation(4, 0, 0.4), 8, -1, ".png"))
+                    .isNotEqualTo(image);
+            assertThat(key.image(1000, "box", null, 16, -1, ".png")).isNotEqualTo(image);
+            assertThat(key.image(1000, "box", null, 8, -1, ".pfm")).isNotEqualTo(image);
+        }
+    }
+
+    @Nested
+    @DisplayName("Store")
+    class StoreTest {
+
+        @Test
+        @DisplayName("should find the stored histogram with the most iterations up to the request")
+        void shouldFindBestHistogram() {
+            RenderCache cache = RenderCache.open(tempDir.resolve("cache"), 1L << 30);
+            RenderKey key = RenderKey.of(config().build(), 1, STRATEGY);
+            cache.storeHistogram(key, renderer(3), header(1000));
+            cache.storeHistogram(key, renderer(5), header(3000));
+
+            assertThat(cache.findHistogram(key, 500)).isEmpty();
+            assertThat(cache.findHistogram(key, 1000).orElseThrow().iterations())
+                    .isEqualTo(1000);
+            assertThat(cache.findHistogram(key, 2500).orElseThrow().iterations())
+                    .isEqualTo(1000);
+            assertThat(cache.findHistogram(key, 9000).orElseThrow().iterations())
+                    .isEqualTo(3000);
+            assertThat(cache.findHistogram(RenderKey.of(config().seed(1L).build(), 1, STRATEGY), 9000))
+                    .isEmpty();
+        }
+
+        @Test
+        @DisplayName("a cached histogram should load back exactly")
+        void cachedHistogramShouldRoundTrip() {
+            RenderCache cache = RenderCache.open(tempDir.resolve("cache"), 1L << 30);
+            RenderKey key = RenderKey.of(config().build(), 1, STRATEGY);
+            ImageRenderer original = renderer(7);
+            cache.storeHistogram(key, original, header(1000));
+
+            ImageRenderer loaded = new ImageRenderer(WIDTH, HEIGHT);
+            HistogramFile.readInto(cache.findHistogram(key, 1000).orElseThrow().path(), loaded);
+
+            for (int x = 0; x < WIDTH; x++) {
+                for (int y = 0; y < HEIGHT; y++) {
+                    for (int c = 0; c < ImageRenderer.CHANNELS; c++) {
+                        assertThat(loaded.getHistogram().get(x, y, c))
+                                .isEqualTo(original.getHistogram().get(x, y, c));
+                    }
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("should store and find images by key and format")
+        void shouldStoreImages() throws IOException {
+            RenderCache cache = RenderCache.open(tempDir.resolve("cache"), 1L << 30);
+            RenderKey image = RenderKey.of(config().build(), 1, STRATEGY).image(1000, "box", null, 8, -1, ".png");
+            Path rendered = Files.writeString(tempDir.resolve("rendered.png"), "png bytes");
+
+            cache.storeImage(image, rendered, ".png");
+
+            assertThat(cache.findImage(image, ".png"))
+                    .hasValueSatisfying(path -> assertThat(path).hasContent("png bytes"));
+            assertThat(cache.findImage(image, ".pfm")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should index the entries already on disk when opened")
+        void shouldReopen() {
+            Path directory = tempDir.resolve("cache");
+            RenderKey key = RenderKey.of(config().build(), 1, STRATEGY);
+            RenderCache.open(directory, 1L << 30).storeHistogram(key, renderer(3), header(1000));
+
+            RenderCache reopened = RenderCache.open(directory, 1L << 30);
+
+            assertThat(reopened.entryCount()).isEqualTo(1);
+            assertThat(reopened.findHistogram(key, 1000)).isPresent();
+        }
+
+        @Test
+        @DisplayName("should evict entries and delete their files beyond the size limit")
+        void shouldEvictBeyondLimit() throws IOException {
+            Path directory = tempDir.resolve("cache");
+            // Each histogram file takes about 38 KiB, so the limit holds two of them
+            RenderCache cache = RenderCache.open(directory, 100 * 1024);
+            for (int i = 0; i < 5; i++) {
+                cache.storeHistogram(RenderKey.of(config().seed(i).build(), 1, STRATEGY), renderer(3), header(1000));
+            }
+
+            assertThat(cache.sizeBytes()).isLessThanOrEqualTo(100 * 1024);
+            try (Stream<Path> files = Files.walk(directory)) {
+                assertThat(files.filter(Files::isRegularFile).count()).isEqualTo(cache.entryCount());
+            }
+        }
+    }
+}
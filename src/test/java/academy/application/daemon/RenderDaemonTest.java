@@ -0,0 +1,244 @@
+package academy.application.daemon;
+
+import static org.assertj.core.api.Assertions.*;
+
+import academy.TestConfigurations;
+import academy.application.render.histogram.MemoryLimits;
+import academy.domain.AppConfiguration;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("Render daemon tests")
+class RenderDaemonTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    private Path socketPath;
+    private RenderDaemon daemon;
+    private Thread server;
+
+    /**
+     * Configurations are only {@code {"width", "height", "threads"}} and an optional {@code "iterations"}, or
+     * {@code {"broken": true}} to fail loading.
+     */
+    private static AppConfiguration load(JsonNode config, Path outputPath) {
+        if (config.has("broken")) {
+            throw new IllegalArgumentException("Failed to parse configuration: broken");
+        }
+        return TestConfigurations.sierpinski(
+                        config.get("width").asInt(), config.get("height").asInt())
+                .seed(5L)
+                .iterationCount(config.path("iterations").asInt(50_000))
+                .threadQuantity(config.get("threads").asInt())
+                .outputPath(outputPath)
+                .build();
+    }
+
+    private static ObjectNode config(int width, int height, int threads) {
+        return MAPPER.createObjectNode()
+                .put("width", width)
+                .put("height", height)
+                .put("threads", threads);
+    }
+
+    @BeforeEach
+    void startDaemon() throws IOException {
+        socketPath = tempDir.resolve("daemon.sock");
+        daemon = new RenderDaemon(socketPath, 2, 1, 10_000, MemoryLimits.current(0, tempDir), RenderDaemonTest::load);
+        daemon.start();
+        server = Thread.ofPlatform().start(() -> {
+            try {
+                daemon.serve();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    @AfterEach
+    void stopDaemon() throws Exception {
+        daemon.close();
+        server.join(5_000);
+    }
+
+    @Nested
+    @DisplayName("Rendering")
+    class RenderingTest {
+
+        @Test
+        @DisplayName("should write the image where the request asks")
+        void shouldWriteImage() throws IOException {
+            Path output = tempDir.resolve("out").resolve("image.png");
+            List<DaemonMessage> messages = new CopyOnWriteArrayList<>();
+
+            RenderClient.Result result =
+                    RenderClient.render(socketPath, config(64, 48, 1), output, false, messages::add);
+
+            assertThat(result.outputPath()).isEqualTo(output);
+            assertThat(result.image()).isNull();
+            BufferedImage image = ImageIO.read(output.toFile());
+            assertThat(image.getWidth()).isEqualTo(64);
+            assertThat(image.getHeight()).isEqualTo(48);
+            assertThat(messages).allMatch(message -> message.completed() <= message.total());
+        }
+
+        @Test
+        @DisplayName("should send the image back without writing a file")
+        void shouldReturnImage() throws IOException {
+            RenderClient.Result result = RenderClient.render(socketPath, config(40, 30, 2), null, true, message -> {});
+
+            assertThat(result.outputPath()).isNull();
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(result.image()));
+            assertThat(image.getWidth()).isEqualTo(40);
+            assertThat(image.getHeight()).isEqualTo(30);
+        }
+
+        @Test
+        @DisplayName("repeated jobs should render identical images")
+        void shouldRenderDeterministically() throws IOException {
+            byte[] first = RenderClient.render(socketPath, config(48, 48, 2), null, true, message -> {})
+                    .image();
+            byte[] second = RenderClient.render(socketPath, config(48, 48, 2), null, true, message -> {})
+                    .image();
+
+            assertThat(second).isEqualTo(first);
+        }
+
+        @Test
+        @DisplayName("should serve clients that connect at the same time")
+        void shouldServeConcurrentClients() throws Exception {
+            List<Thread> clients = new ArrayList<>();
+            List<Path> outputs = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                Path output = tempDir.resolve("concurrent-" + i + ".png");
+                clients.add(Thread.ofVirtual().start(() -> {
+                    try {
+                        outputs.add(RenderClient.render(socketPath, config(32, 32, 1), output, false, message -> {})
+                                .outputPath());
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }));
+            }
+            for (Thread client : clients) {
+                client.join();
+            }
+
+            assertThat(outputs).hasSize(3).allMatch(Files::isRegularFile);
+        }
+    }
+
+    @Nested
+    @DisplayName("Failures")
+    class FailureTest {
+
+        @Test
+        @DisplayName("should report a configuration that does not load")
+        void shouldReportBrokenConfiguration() {
+            JsonNode broken = MAPPER.createObjectNode().put("broken", true);
+
+            assertThatThrownBy(() -> RenderClient.render(socketPath, broken, null, true, message -> {}))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("Failed to parse configuration");
+        }
+
+        @Test
+        @DisplayName("should refuse a job whose histograms exceed the memory budget")
+        void shouldRefuseJobOverBudget() throws IOException {
+            Path small = tempDir.resolve("small.sock");
+            try (RenderDaemon tight = new RenderDaemon(
+                    small, 1, 1, 0, new MemoryLimits(1024, 1024, 1024, tempDir), RenderDaemonTest::load)) {
+                tight.start();
+                Thread.ofVirtual().start(() -> {
+                    try {
+                        tight.serve();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+
+                assertThatThrownBy(() -> RenderClient.render(small, config(64, 64, 2), null, true, message -> {}))
+                        .isInstanceOf(IOException.class)
+                        .hasMessageContaining("do not fit in memory");
+            }
+        }
+
+        @Test
+        @DisplayName("should keep serving after a failed job")
+        void shouldKeepServing() throws IOException {
+            JsonNode broken = MAPPER.createObjectNode().put("broken", true);
+            assertThatThrownBy(() -> RenderClient.render(socketPath, broken, null, true, message -> {}))
+                    .isInstanceOf(IOException.class);
+
+            assertThat(RenderClient.render(socketPath, config(32, 32, 1), null, true, message -> {})
+                            .image())
+                    .isNotEmpty();
+        }
+
+        @Test
+        @Timeout(30)
+        @DisplayName("should cancel the job of a client that disconnects")
+        void shouldCancelJobOfDisconnectedClient() throws Exception {
+            JsonNode endless = config(64, 64, 2).put("iterations", 1_000_000_000);
+            try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+                InputStream input = Channels.newInputStream(channel);
+                DaemonProtocol.write(Channels.newOutputStream(channel), new DaemonRequest(endless, null, true));
+                assertThat(DaemonProtocol.read(input, DaemonMessage.class).event())
+                        .isEqualTo(DaemonMessage.PROGRESS);
+            }
+
+            // The abandoned job held both pool threads and the only render permit
+            assertThat(RenderClient.render(socketPath, config(32, 32, 2), null, true, message -> {})
+                            .image())
+                    .isNotEmpty();
+        }
+
+        @Test
+        @DisplayName("should refuse to start next to a running daemon")
+        void shouldRefuseSecondDaemon() {
+            RenderDaemon second =
+                    new RenderDaemon(socketPath, 1, 1, 0, MemoryLimits.current(0, tempDir), RenderDaemonTest::load);
+
+            assertThatThrownBy(second::start)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("already listening");
+        }
+
+        @Test
+        @DisplayName("should replace a stale socket file")
+        void shouldReplaceStaleSocket() throws IOException {
+            Path stale = tempDir.resolve("stale.sock");
+            Files.createFile(stale);
+
+            try (RenderDaemon replacement =
+                    new RenderDaemon(stale, 1, 1, 0, MemoryLimits.current(0, tempDir), RenderDaemonTest::load)) {
+                replacement.start();
+                assertThat(stale).exists();
+            }
+            assertThat(stale).doesNotExist();
+        }
+    }
+}
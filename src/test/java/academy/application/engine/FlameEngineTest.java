@@ -0,0 +1,167 @@
+package academy.application.engine;
+
+import static org.assertj.core.api.Assertions.*;
+
+import academy.TestConfigurations;
+import academy.application.render.ToneMapper;
+import academy.application.render.histogram.Histogram;
+import academy.domain.AppConfiguration;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@DisplayName("Flame engine tests")
+class FlameEngineTest {
+    private final FlameEngine engine =
+            FlameEngine.builder().threads(2).memoryBudget(64L << 20).build();
+
+    private static AppConfiguration config(int width, int height, int threads) {
+        return TestConfigurations.sierpinski(width, height)
+                .seed(11L)
+                .iterationCount(40_000)
+                .threadQuantity(threads)
+                .build();
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    @AfterEach
+    void closeEngine() {
+        engine.close();
+    }
+
+    @Nested
+    @DisplayName("Rendering")
+    class RenderingTest {
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 3})
+        @DisplayName("the image and the PNG should show the same pixels")
+        void imageShouldMatchPng(int threads) throws IOException {
+            BufferedImage image = engine.renderImage(config(64, 48, threads));
+            byte[] png = engine.renderPng(config(64, 48, threads));
+
+            BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(png));
+            assertThat(image.getWidth()).isEqualTo(64);
+            assertThat(image.getHeight()).isEqualTo(48);
+            assertThat(pixels(image)).isEqualTo(pixels(decoded));
+            assertThat(Arrays.stream(pixels(image)).anyMatch(rgb -> (rgb & 0xFFFFFF) != 0))
+                    .isTrue();
+        }
+
+        @Test
+        @DisplayName("should expose the histogram and a 16-bit tone map of a render")
+        void shouldExposeHistogram() {
+            try (FlameRender render = engine.render(config(32, 32, 2))) {
+                Histogram histogram = render.histogram();
+                double samples = 0;
+                for (int y = 0; y < 32; y++) {
+                    for (int x = 0; x < 32; x++) {
+                        samples += histogram.get(x, y, Histogram.ALPHA);
+                    }
+                }
+
+                assertThat(samples).isEqualTo(render.plotCount()).isPositive();
+                assertThat(render.toneMap(ToneMapper.DEFAULT, 16).pixels()).hasSize(32 * 32 * 6);
+            }
+        }
+
+        @Test
+        @DisplayName("should leave the caller's configuration untouched")
+        void shouldNotMutateConfiguration() {
+            AppConfiguration configuration = config(32, 32, 1);
+
+            engine.renderPng(configuration);
+
+            assertThat(configuration.getRandom()).isNull();
+            assertThat(configuration.getAffineParamsList()).allMatch(params -> params.getColor() == 0);
+        }
+
+        @Test
+        @DisplayName("should reuse pooled histograms across renders of the same size")
+        void shouldReuseHistograms() {
+            engine.renderPng(config(48, 48, 2));
+            long idle = engine.idleHistogramBytes();
+            engine.renderPng(config(48, 48, 2));
+
+            assertThat(idle).isPositive();
+            assertThat(engine.reusedHistogramCount()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("concurrent callers should get the same image as a lone one")
+        void shouldRenderConcurrently() throws Exception {
+            AppConfiguration shared = config(40, 40, 2);
+            byte[] expected = engine.renderPng(shared);
+
+            List<Future<byte[]>> results = new ArrayList<>();
+            try (ExecutorService callers = Executors.newFixedThreadPool(4)) {
+                for (int i = 0; i < 8; i++) {
+                    results.add(callers.submit(() -> engine.renderPng(shared)));
+                }
+            }
+
+            for (Future<byte[]> result : results) {
+                assertThat(result.get()).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Failures")
+    class FailureTest {
+
+        @Test
+        @DisplayName("should refuse renders larger than the memory budget")
+        void shouldRefuseOversizedRender() {
+            assertThatThrownBy(() -> engine.render(config(4096, 4096, 2)))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("engine budget");
+        }
+
+        @Test
+        @DisplayName("should refuse incomplete configurations")
+        void shouldRefuseIncompleteConfiguration() {
+            AppConfiguration noVariations = config(32, 32, 1).toBuilder()
+                    .variationsParamsList(List.of())
+                    .build();
+
+            assertThatThrownBy(() -> engine.render(noVariations))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("variations");
+        }
+
+        @Test
+        @DisplayName("a closed render should refuse to be read")
+        void closedRenderShouldRefuseReads() {
+            FlameRender render = engine.render(config(32, 32, 1));
+            render.close();
+            render.close();
+
+            assertThatThrownBy(render::toPng).isInstanceOf(IllegalStateException.class);
+        }
+
+        @Test
+        @DisplayName("a closed engine should refuse renders")
+        void closedEngineShouldRefuseRenders() {
+            engine.close();
+
+            assertThatThrownBy(() -> engine.render(config(32, 32, 1))).isInstanceOf(IllegalStateException.class);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package academy.application.metrics;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Pins heap allocation budgets in tests. The action runs a few times unmeasured so class loading and JIT compilation do
+ * not count, then once more while the calling thread's allocated bytes are tracked; work the action hands to other
+ * threads is not measured.
+ */
+public final class AllocationBudget {
+    private static final int WARMUP_RUNS = 3;
+
+    private AllocationBudget() {}
+
+    /** Bytes the calling thread allocates in one run of {@code action}, after warmup. */
+    public static long measure(Runnable action) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(
+                threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled(),
+                "JVM does not track allocated bytes per thread");
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            action.run();
+        }
+        long before = RenderMetrics.threadAllocatedBytes();
+        action.run();
+        return RenderMetrics.threadAllocatedBytes() - before;
+    }
+
+    public static void assertAllocatesAtMost(long maxBytes, Runnable action) {
+        long allocated = measure(action);
+        assertThat(allocated)
+                .as("allocated %d bytes, budget is %d bytes", allocated, maxBytes)
+                .isLessThanOrEqualTo(maxBytes);
+    }
+
+    /** Asserts the average allocation per operation when one run of {@code action} performs {@code operations}. */
+    public static void assertAllocatesPerOperationAtMost(
+            double maxBytesPerOperation, long operations, Runnable action) {
+        long allocated = measure(action);
+        double perOperation = allocated / (double) operations;
+        assertThat(perOperation)
+                .as(
+                        "allocated %d bytes over %d operations (%.3f per operation), budget is %.3f per operation",
+                        allocated, operations, perOperation, maxBytesPerOperation)
+                .isLessThanOrEqualTo(maxBytesPerOperation);
+    }
+}
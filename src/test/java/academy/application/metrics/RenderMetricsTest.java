@@ -0,0 +1,162 @@
+package academy.application.metrics;
+
+import static org.assertj.core.api.Assertions.*;
+
+import academy.TestConfigurations;
+import academy.application.algorithm.ChaosGame;
+import academy.application.render.ImageRenderer;
+import academy.domain.AppConfiguration;
+import academy.domain.Point;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("Render metrics tests")
+class RenderMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static AppConfiguration config(int threads) {
+        return TestConfigurations.seeded(TestConfigurations.sierpinski(40, 30)
+                .seed(11L)
+                .iterationCount(10_000)
+                .threadQuantity(threads)
+                .outputPath(Path.of("unused.png"))
+                .build());
+    }
+
+    @Nested
+    @DisplayName("Collection")
+    class CollectionTest {
+
+        @Test
+        @DisplayName("should sum repeated phases and report every phase in order")
+        void shouldSumPhases() {
+            RenderMetrics metrics = new RenderMetrics();
+            metrics.addPhase(RenderPhase.ENCODE, 100);
+            metrics.addPhase(RenderPhase.ENCODE, 50);
+            metrics.addPhase(RenderPhase.VALIDATION, 7);
+
+            RenderReport report = metrics.report();
+
+            assertThat(report.phaseNanos())
+                    .containsKeys("config_load", "validation", "allocation", "iteration", "merge", "tone_map", "encode")
+                    .containsEntry("encode", 150L)
+                    .containsEntry("validation", 7L)
+                    .containsEntry("merge", 0L);
+            assertThat(report.phaseNanos().keySet()).first().isEqualTo("config_load");
+            assertThat(report.totalNanos()).isEqualTo(157);
+        }
+
+        @Test
+        @DisplayName("should count plotted, out-of-bounds and covered pixels")
+        void shouldRecordHistogram() {
+            ImageRenderer renderer = new ImageRenderer(8, 4);
+            renderer.plot(Point.builder().x(0.0).y(0.0).color(0.5).build());
+            renderer.plot(Point.builder().x(0.0).y(0.0).color(0.5).build());
+            renderer.plot(Point.builder().x(-4.0).y(-4.0).color(0.5).build());
+            renderer.plot(Point.builder().x(10.0).y(0.0).color(0.5).build());
+            RenderMetrics metrics = new RenderMetrics();
+
+            metrics.recordHistogram(renderer);
+            RenderReport report = metrics.report();
+
+            assertThat(report.plotCount()).isEqualTo(3);
+            assertThat(report.outOfBoundsCount()).isEqualTo(1);
+            assertThat(report.nonEmptyPixels()).isEqualTo(2);
+            assertThat(report.coverage()).isEqualTo(2 / 32.0);
+            assertThat(report.peakHeapBytes()).isPositive();
+        }
+
+        @Test
+        @DisplayName("should record iteration, merge and one entry per worker from the chaos game")
+        void shouldRecordChaosGame() {
+            AppConfiguration configuration = config(3);
+            RenderMetrics metrics = new RenderMetrics();
+            ChaosGame game = new ChaosGame(configuration, new ImageRenderer(configuration));
+            game.setMetrics(metrics);
+
+            game.runMultiThread();
+            RenderReport report = metrics.report();
+
+            assertThat(report.workers()).extracting(RenderReport.Worker::worker).containsExactly(0, 1, 2);
+            assertThat(report.workers())
+                    .extracting(RenderReport.Worker::iterations)
+                    .containsExactly(3334L, 3333L, 3333L);
+            // Every worker allocates its own 40x30 histogram
+            assertThat(report.workers()).allSatisfy(worker -> {
+                assertThat(worker.iterationsPerSecond()).isPositive();
+                assertThat(worker.allocatedBytes()).isGreaterThan(40L * 30 * ImageRenderer.CHANNELS * Double.BYTES);
+            });
+            assertThat(report.phaseAllocatedBytes().get("iteration")).isPositive();
+            assertThat(report.gcCount()).isNotNegative();
+            assertThat(report.phaseNanos().get("iteration")).isPositive();
+            assertThat(report.phaseNanos().get("merge")).isEqualTo(game.getMergeNanos());
+        }
+
+        @Test
+        @DisplayName("should time a PNG save as encoding and its rows as tone map CPU time")
+        void shouldTimeSave() {
+            AppConfiguration configuration = config(1);
+            ImageRenderer renderer = new ImageRenderer(configuration);
+            RenderMetrics metrics = new RenderMetrics();
+            renderer.setMetrics(metrics);
+            new ChaosGame(configuration, renderer).runSingleThread();
+
+            renderer.save(tempDir.resolve("out.png"));
+
+            assertThat(metrics.getPhaseNanos(RenderPhase.TONE_MAP)).isZero();
+            assertThat(metrics.getPhaseCpuNanos(RenderPhase.TONE_MAP)).isPositive();
+            assertThat(metrics.getPhaseNanos(RenderPhase.ENCODE)).isPositive();
+            assertThat(metrics.report().phaseCpuNanos()).containsOnlyKeys("tone_map");
+        }
+    }
+
+    @Nested
+    @DisplayName("Export")
+    class ExportTest {
+
+        private RenderReport sampleReport() {
+            RenderMetrics metrics = new RenderMetrics();
+            metrics.addPhase(RenderPhase.ITERATION, 1_500_000_000L);
+            metrics.addWorker(1, 2000, 1_000_000_000L, 4096);
+            metrics.addWorker(0, 1000, 500_000_000L, 0);
+            return metrics.report();
+        }
+
+        @Test
+        @DisplayName("should round trip the JSON sidecar")
+        void shouldRoundTripJson() throws IOException {
+            RenderReport report = sampleReport();
+            Path path = tempDir.resolve("nested/flame.metrics.json");
+
+            report.writeJson(path);
+
+            assertThat(Files.readString(path)).contains("\"phase_nanos\"", "\"iterations_per_second\"");
+            assertThat(RenderReport.read(path)).isEqualTo(report);
+        }
+
+        @Test
+        @DisplayName("should write Prometheus text with seconds and labelled series")
+        void shouldWritePrometheus() {
+            String text = sampleReport().toPrometheus();
+
+            assertThat(text.lines())
+                    .contains(
+                            "# TYPE flame_phase_seconds gauge",
+                            "flame_phase_seconds{phase=\"iteration\"} 1.5",
+                            "flame_phase_seconds{phase=\"merge\"} 0",
+                            "flame_worker_iterations_per_second{worker=\"0\"} 2000",
+                            "flame_worker_iterations_per_second{worker=\"1\"} 2000",
+                            "flame_points_plotted 0",
+                            "flame_worker_allocated_bytes{worker=\"1\"} 4096");
+            assertThat(text.lines().filter(line -> !line.startsWith("#")))
+                    .allMatch(line -> line.matches("flame_[a-z_]+(\\{[a-z]+=\"[a-z0-9_]+\"})? \\S+"));
+        }
+    }
+}
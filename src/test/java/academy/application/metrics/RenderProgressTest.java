@@ -0,0 +1,73 @@
+package academy.application.metrics;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Render progress tests")
+class RenderProgressTest {
+
+    @Test
+    @DisplayName("should sum per-worker counters into progress and out-of-bounds ratio")
+    void shouldSumWorkerCounters() {
+        RenderProgress progress = RenderProgress.detached(1000, 3);
+
+        progress.add(0, 100, 10);
+        progress.add(2, 200, 0);
+        progress.add(0, 100, 20);
+
+        assertThat(progress.getWorkerIterations()).containsExactly(200, 0, 200);
+        assertThat(progress.getCompletedIterations()).isEqualTo(400);
+        assertThat(progress.getProgressPercent()).isEqualTo(40.0);
+        assertThat(progress.getOutOfBoundsRatio()).isEqualTo(30 / 400.0);
+    }
+
+    @Test
+    @DisplayName("the final report should tell a finished run from a stopped one")
+    void summaryShouldReportWhereTheRunStopped() {
+        RenderProgress progress = RenderProgress.detached(1000, 2);
+
+        progress.add(0, 300, 0);
+        progress.add(1, 150, 0);
+        assertThat(progress.summary()).isEqualTo("Generation stopped at 45.0%: 450 of 1000 iterations");
+
+        progress.add(1, 550, 0);
+        assertThat(progress.summary()).isEqualTo("Generation progress: 100% (1000/1000 iterations)");
+    }
+
+    @Test
+    @DisplayName("should derive throughput and ETA from samples")
+    void shouldEstimateThroughputAndEta() throws InterruptedException {
+        RenderProgress progress = RenderProgress.detached(1_000_000, 1);
+        assertThat(progress.getEtaSeconds()).isEqualTo(-1);
+
+        Thread.sleep(20);
+        progress.add(0, 1000, 100);
+        progress.sample();
+
+        assertThat(progress.getIterationsPerSecond()).isPositive();
+        assertThat(progress.getOutOfBoundsPerSecond())
+                .isCloseTo(progress.getIterationsPerSecond() / 10, withinPercentage(1));
+        assertThat(progress.getEtaSeconds()).isPositive();
+    }
+
+    @Test
+    @DisplayName("should expose the MBean while running and unregister it on close")
+    void shouldRegisterMBean() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(RenderProgress.OBJECT_NAME);
+
+        try (RenderProgress progress = RenderProgress.start(500, 2)) {
+            progress.add(1, 250, 0);
+
+            assertThat(server.isRegistered(name)).isTrue();
+            assertThat(server.getAttribute(name, "CompletedIterations")).isEqualTo(250L);
+            assertThat(server.getAttribute(name, "TotalIterations")).isEqualTo(500L);
+        }
+        assertThat(server.isRegistered(name)).isFalse();
+    }
+}
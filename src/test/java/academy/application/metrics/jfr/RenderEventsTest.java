@@ -0,0 +1,105 @@
+package academy.application.metrics.jfr;
+
+import static org.assertj.core.api.Assertions.*;
+
+import academy.TestConfigurations;
+import academy.application.algorithm.ChaosGame;
+import academy.application.render.HistogramFile;
+import academy.application.render.HistogramHeader;
+import academy.application.render.ImageRenderer;
+import academy.domain.AppConfiguration;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("JFR render events tests")
+class RenderEventsTest {
+
+    private static final int WIDTH = 40;
+    private static final int HEIGHT = 30;
+
+    @TempDir
+    Path tempDir;
+
+    private static AppConfiguration config() {
+        return TestConfigurations.seeded(TestConfigurations.sierpinski(WIDTH, HEIGHT)
+                .seed(5L)
+                .iterationCount(5_000)
+                .threadQuantity(2)
+                .outputPath(Path.of("unused.png"))
+                .build());
+    }
+
+    @Test
+    @DisplayName("should emit chunk, merge, tone map, encode and checkpoint events with their fields")
+    void shouldEmitRenderEvents() throws IOException {
+        AppConfiguration configuration = config();
+        ImageRenderer renderer = new ImageRenderer(configuration);
+        Path image = tempDir.resolve("out.png");
+        Path histogram = tempDir.resolve("out.fhist");
+        Path dump = tempDir.resolve("render.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(WorkerChunkEvent.class);
+            recording.enable(MergeEvent.class);
+            recording.enable(ToneMapEvent.class);
+            recording.enable(EncodeEvent.class);
+            recording.enable(CheckpointEvent.class);
+            recording.start();
+
+            new ChaosGame(configuration, renderer).runMultiThread();
+            renderer.save(image);
+            HistogramFile.write(
+                    histogram,
+                    renderer,
+                    new HistogramHeader(
+                            WIDTH,
+                            HEIGHT,
+                            1,
+                            5L,
+                            5_000,
+                            2,
+                            renderer.getPlotCount(),
+                            renderer.getOutOfBoundsCount(),
+                            null));
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        Map<String, List<RecordedEvent>> events = RecordingFile.readAllEvents(dump).stream()
+                .collect(Collectors.groupingBy(event -> event.getEventType().getName()));
+
+        List<RecordedEvent> chunks = events.get("academy.flame.WorkerChunk");
+        assertThat(chunks).extracting(event -> event.getInt("worker")).containsExactlyInAnyOrder(0, 1);
+        assertThat(chunks.stream()
+                        .mapToLong(event -> event.getLong("iterations"))
+                        .sum())
+                .isEqualTo(5_000);
+        assertThat(chunks.stream()
+                        .mapToLong(event -> event.getLong("pointsPlotted"))
+                        .sum())
+                .isEqualTo(renderer.getPlotCount());
+
+        assertThat(events.get("academy.flame.Merge"))
+                .singleElement()
+                .satisfies(event -> assertThat(event.getInt("histograms")).isEqualTo(2));
+        assertThat(events.get("academy.flame.ToneMapRow")).hasSize(HEIGHT);
+        assertThat(events.get("academy.flame.Encode")).singleElement().satisfies(event -> {
+            assertThat(event.getString("format")).isEqualTo("PNG");
+            assertThat(event.getLong("bytesWritten")).isEqualTo(Files.size(image));
+        });
+        assertThat(events.get("academy.flame.Checkpoint"))
+                .singleElement()
+                .satisfies(event -> assertThat(event.getLong("bytesWritten")).isEqualTo(Files.size(histogram)));
+    }
+}
@@ -0,0 +1,255 @@
+package academy.application.render;
+
+import static org.assertj.core.api.Assertions.*;
+
+import academy.application.metrics.RenderMetrics;
+import academy.application.metrics.RenderPhase;
+import academy.application.render.histogram.AccumulationStrategy;
+import academy.application.render.histogram.DoubleHistogram;
+import academy.application.render.histogram.Histogram;
+import academy.domain.AppConfiguration;
+import academy.domain.Point;
+import academy.domain.Size;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("Density estimation tests")
+class DensityEstimatorTest {
+    private static final DensityEstimation ESTIMATION = new DensityEstimation(4, 0, 0.4);
+
+    @TempDir
+    Path tempDir;
+
+    private static void addSamples(Histogram histogram, int x, int y, int count) {
+        for (int i = 0; i < count; i++) {
+            histogram.addSample(x, y, 0.5, 0.25, 1.0, 0.75);
+        }
+    }
+
+    private static double alphaSum(Histogram histogram) {
+        double sum = 0;
+        for (int y = 0; y < histogram.height(); y++) {
+            for (int x = 0; x < histogram.width(); x++) {
+                sum += histogram.get(x, y, Histogram.ALPHA);
+            }
+        }
+        return sum;
+    }
+
+    @Nested
+    @DisplayName("Parameters")
+    class ParametersTest {
+
+        @Test
+        @DisplayName("should shrink the radius with density down to the minimum")
+        void radiusShouldShrinkWithDensity() {
+            DensityEstimation estimation = new DensityEstimation(9, 0.5, 0.4);
+
+            assertThat(estimation.radius(1)).isEqualTo(9);
+            assertThat(estimation.radius(32)).isCloseTo(9 / 4.0, within(1e-12));
+            assertThat(estimation.radius(1e9)).isEqualTo(0.5);
+        }
+
+        @Test
+        @DisplayName("should parse omitted values as defaults")
+        void shouldParseDefaults() {
+            assertThat(DensityEstimation.fromString("9"))
+                    .isEqualTo(new DensityEstimation(
+                            9, DensityEstimation.DEFAULT_MIN_RADIUS, DensityEstimation.DEFAULT_CURVE));
+            assertThat(DensityEstimation.fromString("6, 1, 0.6")).isEqualTo(new DensityEstimation(6, 1, 0.6));
+        }
+
+        @Test
+        @DisplayName("should reject invalid parameters")
+        void shouldRejectInvalidParameters() {
+            assertThatThrownBy(() -> new DensityEstimation(0, 0, 0.4)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> new DensityEstimation(4, 5, 0.4)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> new DensityEstimation(4, 0, 0)).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> DensityEstimation.fromString("1,2,3,4"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Estimation pass")
+    class PassTest {
+
+        @Test
+        @DisplayName("should spread an isolated sample symmetrically and keep its count")
+        void shouldSpreadIsolatedSample() {
+            Histogram source = new DoubleHistogram(21, 21);
+            addSamples(source, 10, 10, 1);
+            Histogram target = new DoubleHistogram(21, 21);
+
+            DensityEstimation.Report report = new DensityEstimator(ESTIMATION, 1).apply(source, target);
+
+            assertThat(alphaSum(target)).isCloseTo(1, within(1e-12));
+            double center = target.get(10, 10, Histogram.ALPHA);
+            assertThat(center).isLessThan(1).isGreaterThan(target.get(11, 10, Histogram.ALPHA));
+            assertThat(target.get(9, 10, Histogram.ALPHA))
+                    .isCloseTo(target.get(10, 11, Histogram.ALPHA), within(1e-15));
+            assertThat(target.get(14, 10, Histogram.ALPHA)).isPositive();
+            assertThat(target.get(15, 10, Histogram.ALPHA)).isZero();
+            assertThat(target.get(10, 10, Histogram.COLOR)).isCloseTo(0.75 * center, within(1e-12));
+            assertThat(report.blurredCells()).isEqualTo(1);
+            assertThat(report.iterationFactor()).isGreaterThan(10);
+        }
+
+        @Test
+        @DisplayName("kernels should be cut off to a disc")
+        void kernelsShouldBeDiscs() {
+            Histogram source = new DoubleHistogram(21, 21);
+            addSamples(source, 10, 10, 1);
+            Histogram target = new DoubleHistogram(21, 21);
+
+            new DensityEstimator(ESTIMATION, 1).apply(source, target);
+
+            assertThat(target.get(13, 12, Histogram.ALPHA)).isPositive();
+            assertThat(target.get(13, 13, Histogram.ALPHA)).isZero();
+            assertThat(target.get(7, 7, Histogram.ALPHA)).isZero();
+        }
+
+        @Test
+        @DisplayName("the scratch estimate should cover a band buffer per thread")
+        void scratchShouldCoverBandBuffers() {
+            DensityEstimation widest = new DensityEstimation(DensityEstimation.MAX_RADIUS, 0, 0.4);
+            // A single sample in an 8x oversampled cell is 64 per pixel
+            int reach = (int) Math.floor(widest.radius(64) * 8);
+            long bandBuffer = 15_360L * Histogram.CHANNELS * Double.BYTES * 4 * reach;
+
+            assertThat(widest.scratchBytes(8, 15_360, 8_640)).isGreaterThan(bandBuffer);
+            assertThat(ESTIMATION.scratchBytes(1, 21, 21)).isLessThan(1 << 20);
+            assertThat(ESTIMATION.scratchBytes(2, 42, 42)).isGreaterThan(ESTIMATION.scratchBytes(1, 42, 42));
+        }
+
+        @Test
+        @DisplayName("should leave dense cells untouched")
+        void shouldLeaveDenseCellsUntouched() {
+            Histogram source = new DoubleHistogram(8, 8);
+            addSamples(source, 3, 4, 5000);
+            addSamples(source, 4, 4, 3000);
+            Histogram target = new DoubleHistogram(8, 8);
+
+            DensityEstimation.Report report = new DensityEstimator(ESTIMATION, 1).apply(source, target);
+
+            for (int c = 0; c < Histogram.CHANNELS; c++) {
+                assertThat(target.get(3, 4, c)).isEqualTo(source.get(3, 4, c));
+                assertThat(target.get(4, 4, c)).isEqualTo(source.get(4, 4, c));
+            }
+            assertThat(report.nonEmptyCells()).isEqualTo(2);
+            assertThat(report.blurredCells()).isZero();
+            assertThat(report.iterationFactor()).isEqualTo(1);
+            assertThat(report.iterationSavings()).isZero();
+        }
+
+        @Test
+        @DisplayName("should keep every count across band boundaries")
+        void shouldKeepCountsAcrossBands() {
+            Histogram source = new DoubleHistogram(64, 300);
+            Random random = new Random(11);
+            int samples = 0;
+            for (int i = 0; i < 2000; i++) {
+                int count = 1 + random.nextInt(3);
+                addSamples(source, 8 + random.nextInt(48), 8 + random.nextInt(284), count);
+                samples += count;
+            }
+            Histogram target = new DoubleHistogram(64, 300);
+
+            new DensityEstimator(ESTIMATION, 1).apply(source, target);
+
+            assertThat(alphaSum(target)).isCloseTo(samples, within(1e-6));
+        }
+
+        @Test
+        @DisplayName("a sample on a band edge should spread evenly into both bands")
+        void bandEdgeShouldSpreadEvenly() {
+            Histogram source = new DoubleHistogram(16, 96);
+            addSamples(source, 8, 32, 1);
+            Histogram target = new DoubleHistogram(16, 96);
+
+            new DensityEstimator(ESTIMATION, 1).apply(source, target);
+
+            assertThat(target.get(8, 31, Histogram.ALPHA)).isCloseTo(target.get(8, 33, Histogram.ALPHA), within(1e-15));
+            assertThat(target.get(8, 29, Histogram.ALPHA)).isCloseTo(target.get(8, 35, Histogram.ALPHA), within(1e-15));
+        }
+
+        @Test
+        @DisplayName("oversampled histograms should get radii scaled to cells")
+        void oversampledRadiiShouldScale() {
+            Histogram plain = new DoubleHistogram(21, 21);
+            Histogram oversampled = new DoubleHistogram(41, 41);
+            addSamples(plain, 10, 10, 1);
+            addSamples(oversampled, 20, 20, 1);
+
+            DensityEstimation.Report plainReport =
+                    new DensityEstimator(ESTIMATION, 1).apply(plain, new DoubleHistogram(21, 21));
+            Histogram target = new DoubleHistogram(41, 41);
+            new DensityEstimator(ESTIMATION, 2).apply(oversampled, target);
+
+            // A single cell of a 2x histogram is a quarter of a sample per pixel: a smaller radius, but in finer cells
+            double radiusCells = ESTIMATION.radius(4) * 2;
+            assertThat(target.get(20 + (int) Math.floor(radiusCells), 20, Histogram.ALPHA))
+                    .isPositive();
+            assertThat(target.get(20 + (int) Math.floor(radiusCells) + 1, 20, Histogram.ALPHA))
+                    .isZero();
+            assertThat(plainReport.blurredCells()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Renderer")
+    class RendererTest {
+
+        @Test
+        @DisplayName("should replace the histogram, time the pass and still render")
+        void shouldReplaceHistogram() throws IOException {
+            ImageRenderer renderer = new ImageRenderer(40, 30, 2);
+            RenderMetrics metrics = new RenderMetrics();
+            renderer.setMetrics(metrics);
+            Random random = new Random(5);
+            Point point = Point.builder().build();
+            for (int i = 0; i < 2000; i++) {
+                renderer.plot(point.setX(random.nextGaussian())
+                        .setY(random.nextGaussian())
+                        .setColor(random.nextDouble()));
+            }
+            Histogram raw = renderer.getHistogram();
+            double rawSum = alphaSum(raw);
+
+            DensityEstimation.Report report = renderer.estimateDensity(new DensityEstimation(2, 0, 0.4));
+
+            assertThat(renderer.getHistogram()).isNotSameAs(raw);
+            assertThat(alphaSum(renderer.getHistogram())).isCloseTo(rawSum, withinPercentage(5));
+            assertThat(report.iterationFactor()).isGreaterThan(1);
+            assertThat(metrics.getPhaseNanos(RenderPhase.DENSITY_ESTIMATION)).isPositive();
+
+            Path output = tempDir.resolve("estimated.png");
+            renderer.save(output);
+            BufferedImage image = ImageIO.read(output.toFile());
+            assertThat(image.getWidth()).isEqualTo(40);
+            assertThat(image.getRGB(20, 15) & 0xFFFFFF).isNotZero();
+        }
+
+        @Test
+        @DisplayName("worker views of a shared histogram should not replace it")
+        void workerViewsShouldNotReplaceHistogram() {
+            ImageRenderer renderer = new ImageRenderer(
+                    AppConfiguration.builder()
+                            .size(new Size(10, 10))
+                            .threadQuantity(2)
+                            .build(),
+                    AccumulationStrategy.SHARED_ATOMIC,
+                    null);
+
+            assertThatThrownBy(() -> renderer.newWorker().estimateDensity(ESTIMATION))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package academy.application.render;
+
+import static org.assertj.core.api.Assertions.*;
+
+import academy.domain.Point;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.IntStream;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@DisplayName("Oversampling and downsampling tests")
+class DownsamplerTest {
+    private static final int WIDTH = 40;
+    private static final int HEIGHT = 30;
+
+    @TempDir
+    Path tempDir;
+
+    /** Plots the same pseudo-random points into a renderer, concentrated in the middle of the image. */
+    private static ImageRenderer plotted(ImageRenderer renderer) {
+        Random random = new Random(3);
+        Point point = Point.builder().build();
+        for (int i = 0; i < 50_000; i++) {
+            renderer.plot(point.setX(random.nextGaussian())
+                    .setY(random.nextGaussian())
+                    .setColor(random.nextDouble()));
+        }
+        return renderer;
+    }
+
+    private static double alphaSum(ImageRenderer renderer) {
+        double sum = 0;
+        for (int y = 0; y < renderer.getHeight(); y++) {
+            double[] row = renderer.filteredRow(y);
+            for (int x = 0; x < renderer.getWidth(); x++) {
+                sum += row[x * ImageRenderer.CHANNELS + ImageRenderer.ALPHA];
+            }
+        }
+        return sum;
+    }
+
+    @Nested
+    @DisplayName("Filters")
+    class FilterTest {
+
+        @Test
+        @DisplayName("should vanish at the radius")
+        void shouldVanishAtRadius() {
+            for (ReconstructionFilter filter : ReconstructionFilter.values()) {
+                assertThat(filter.weight(filter.getRadius()))
+                        .as(filter.getKey())
+                        .isZero();
+                assertThat(filter.weight(0)).as(filter.getKey()).isPositive();
+            }
+        }
+
+        @Test
+        @DisplayName("mitchell should have the B = C = 1/3 shape")
+        void mitchellShouldHaveExpectedShape() {
+            assertThat(ReconstructionFilter.MITCHELL.weight(0)).isCloseTo(8.0 / 9, within(1e-12));
+            assertThat(ReconstructionFilter.MITCHELL.weight(1)).isCloseTo(1.0 / 18, within(1e-12));
+            assertThat(ReconstructionFilter.MITCHELL.weight(1.5)).isNegative();
+        }
+
+        @Test
+        @DisplayName("should parse filter keys")
+        void shouldParseKeys() {
+            assertThat(ReconstructionFilter.fromKey("Gaussian")).isEqualTo(ReconstructionFilter.GAUSSIAN);
+            assertThatThrownBy(() -> ReconstructionFilter.fromKey("lanczos"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("box, gaussian, mitchell");
+        }
+    }
+
+    @Nested
+    @DisplayName("Downsampling")
+    class DownsamplingTest {
+
+        @Test
+        @DisplayName("box filter should reproduce direct binning exactly")
+        void boxShouldMatchDirectBinning() {
+            ImageRenderer direct = plotted(new ImageRenderer(WIDTH, HEIGHT));
+            ImageRenderer oversampled = plotted(new ImageRenderer(WIDTH, HEIGHT, 3));
+
+            assertThat(oversampled.getHistogram().width()).isEqualTo(WIDTH * 3);
+            assertThat(oversampled.findMaxAlpha()).isEqualTo(direct.findMaxAlpha());
+            for (int y = 0; y < HEIGHT; y++) {
+                double[] row = oversampled.filteredRow(y);
+                for (int x = 0; x < WIDTH; x++) {
+                    for (int c = 0; c < ImageRenderer.CHANNELS; c++) {
+                        assertThat(row[x * ImageRenderer.CHANNELS + c])
+                                .as("pixel (%d, %d) channel %d", x, y, c)
+                                .isCloseTo(direct.getHistogram().get(x, y, c), within(1e-9));
+                    }
+                }
+            }
+        }
+
+        @ParameterizedTest(name = "{0}")
+        @EnumSource(ReconstructionFilter.class)
+        @DisplayName("should preserve the total sample count")
+        void shouldPreserveSampleCount(ReconstructionFilter filter) {
+            ImageRenderer renderer = plotted(new ImageRenderer(WIDTH, HEIGHT, 2));
+            renderer.setFilter(filter);
+
+            assertThat(alphaSum(renderer)).isCloseTo(renderer.getPlotCount(), withinPercentage(1));
+        }
+
+        @Test
+        @DisplayName("smoothing filters should spread isolated samples to neighbours")
+        void smoothingFiltersShouldSpreadSamples() {
+            ImageRenderer renderer = new ImageRenderer(5, 5, 2);
+            renderer.plot(Point.builder().x(0.1).y(0.1).color(0.5).build());
+            renderer.setFilter(ReconstructionFilter.GAUSSIAN);
+
+            double center = renderer.filteredRow(2)[2 * ImageRenderer.CHANNELS + ImageRenderer.ALPHA];
+            double neighbour = renderer.filteredRow(2)[3 * ImageRenderer.CHANNELS + ImageRenderer.ALPHA];
+            assertThat(center).isGreaterThan(neighbour);
+            assertThat(neighbour).isPositive();
+        }
+
+        @Test
+        @DisplayName("rows filtered concurrently should match rows filtered in order")
+        void concurrentRowsShouldMatchSequential() {
+            ImageRenderer renderer = plotted(new ImageRenderer(WIDTH, HEIGHT, 2));
+            renderer.setFilter(ReconstructionFilter.MITCHELL);
+            double[][] sequential = new double[HEIGHT][];
+            for (int y = 0; y < HEIGHT; y++) {
+                sequential[y] = renderer.filteredRow(y).clone();
+            }
+
+            IntStream.range(0, HEIGHT).parallel().forEach(y -> assertThat(renderer.filteredRow(y))
+                    .containsExactly(sequential[y]));
+        }
+
+        @Test
+        @DisplayName("saved image should have the image size, not the histogram size")
+        void savedImageShouldHaveImageSize() throws IOException {
+            ImageRenderer renderer = plotted(new ImageRenderer(WIDTH, HEIGHT, 4));
+            renderer.setFilter(ReconstructionFilter.GAUSSIAN);
+            Path output = tempDir.resolve("oversampled.png");
+
+            renderer.save(output);
+
+            BufferedImage image = ImageIO.read(output.toFile());
+            assertThat(image.getWidth()).isEqualTo(WIDTH);
+            assertThat(image.getHeight()).isEqualTo(HEIGHT);
+            assertThat(image.getRGB(WIDTH / 2, HEIGHT / 2) & 0xFFFFFF).isNotZero();
+        }
+    }
+}
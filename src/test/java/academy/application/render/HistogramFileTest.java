@@ -0,0 +1,237 @@
+package academy.application.render;
+
+import static org.assertj.core.api.Assertions.*;
+
+import academy.TestConfigurations;
+import academy.application.algorithm.ChaosGame;
+import academy.application.render.histogram.Histogram;
+import academy.domain.AppConfiguration;
+import academy.domain.Point;
+import academy.domain.Size;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("HistogramFile tests")
+class HistogramFileTest {
+
+    private static final String FINGERPRINT = "0123456789abcdef".repeat(4);
+
+    @TempDir
+    Path tempDir;
+
+    private AppConfiguration config(int iterations) {
+        return TestConfigurations.seeded(TestConfigurations.sierpinski(50, 40)
+                .seed(7L)
+                .iterationCount(iterations)
+                .threadQuantity(1)
+                .outputPath(tempDir.resolve("test.png"))
+                .build());
+    }
+
+    private HistogramHeader header(ImageRenderer renderer, long iterations, int streams) {
+        return new HistogramHeader(
+                renderer.getHistogram().width(),
+                renderer.getHistogram().height(),
+                renderer.getOversample(),
+                7L,
+                iterations,
+                streams,
+                renderer.getPlotCount(),
+                renderer.getOutOfBoundsCount(),
+                FINGERPRINT);
+    }
+
+    @Nested
+    @DisplayName("Round trip")
+    class RoundTripTest {
+
+        @Test
+        @DisplayName("should restore histogram values and counters")
+        void shouldRestoreHistogram() {
+            AppConfiguration config = config(2000);
+            ImageRenderer original = new ImageRenderer(config);
+            new ChaosGame(config, original).runSingleThread();
+
+            Path path = tempDir.resolve("flame" + HistogramFile.EXTENSION);
+            HistogramFile.write(path, original, header(original, 2000, 1));
+
+            ImageRenderer restored = new ImageRenderer(config);
+            HistogramHeader header = HistogramFile.readInto(path, restored);
+
+            assertThat(header.iterations()).isEqualTo(2000);
+            assertThat(header.streams()).isEqualTo(1);
+            assertThat(restored.getPlotCount()).isEqualTo(original.getPlotCount());
+            assertThat(restored.getOutOfBoundsCount()).isEqualTo(original.getOutOfBoundsCount());
+            for (int x = 0; x < 50; x++) {
+                for (int y = 0; y < 40; y++) {
+                    for (int c = 0; c < Histogram.CHANNELS; c++) {
+                        assertThat(restored.getHistogram().get(x, y, c))
+                                .isEqualTo(original.getHistogram().get(x, y, c));
+                    }
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("should read header without loading samples")
+        void shouldReadHeader() throws IOException {
+            ImageRenderer renderer = new ImageRenderer(config(100));
+            renderer.plot(Point.builder().x(0.0).y(0.0).color(0.5).build());
+
+            Path path = tempDir.resolve("header" + HistogramFile.EXTENSION);
+            HistogramFile.write(path, renderer, header(renderer, 100, 3));
+
+            HistogramHeader header = HistogramFile.readHeader(path);
+
+            assertThat(header).isEqualTo(new HistogramHeader(50, 40, 1, 7L, 100, 3, 1, 0, FINGERPRINT));
+        }
+
+        @Test
+        @DisplayName("should read an unknown fingerprint back as null")
+        void shouldKeepUnknownFingerprint() throws IOException {
+            ImageRenderer renderer = new ImageRenderer(config(100));
+            Path path = tempDir.resolve("unknown" + HistogramFile.EXTENSION);
+            HistogramFile.write(path, renderer, new HistogramHeader(50, 40, 1, 7L, 100, 1, 0, 0, null));
+
+            assertThat(HistogramFile.readHeader(path).fingerprint()).isNull();
+        }
+
+        @Test
+        @DisplayName("should keep the oversample factor, so tone mapping needs no flag for it")
+        void shouldKeepOversample() throws IOException {
+            ImageRenderer renderer = new ImageRenderer(25, 20, 2);
+            Path path = tempDir.resolve("oversampled" + HistogramFile.EXTENSION);
+            HistogramFile.write(path, renderer, header(renderer, 100, 1));
+
+            HistogramHeader header = HistogramFile.readHeader(path);
+
+            assertThat(header.oversample()).isEqualTo(2);
+            assertThat(header.width()).isEqualTo(50);
+            assertThat(header.height()).isEqualTo(40);
+        }
+
+        @Test
+        @DisplayName("should create parent directories")
+        void shouldCreateParentDirectories() {
+            ImageRenderer renderer = new ImageRenderer(config(100));
+            Path path = tempDir.resolve("nested/dir/flame" + HistogramFile.EXTENSION);
+
+            HistogramFile.write(path, renderer, header(renderer, 100, 1));
+
+            assertThat(Files.exists(path)).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("Refinement")
+    class RefinementTest {
+
+        @Test
+        @DisplayName("should accumulate new samples on top of the loaded histogram")
+        void shouldAccumulateOnTop() {
+            AppConfiguration config = config(1000);
+            ImageRenderer first = new ImageRenderer(config);
+            new ChaosGame(config, first).runSingleThread();
+            Path path = tempDir.resolve("first" + HistogramFile.EXTENSION);
+            HistogramFile.write(path, first, header(first, 1000, 1));
+
+            ImageRenderer refined = new ImageRenderer(config);
+            HistogramHeader previous = HistogramFile.readInto(path, refined);
+            ChaosGame game = new ChaosGame(config, refined);
+            game.setStreamOffset(previous.streams());
+            game.runSingleThread();
+
+            assertThat(refined.getPlotCount() + refined.getOutOfBoundsCount())
+                    .isEqualTo(2 * (first.getPlotCount() + first.getOutOfBoundsCount()));
+        }
+
+        @Test
+        @DisplayName("should draw refinement samples from a fresh random stream")
+        void shouldUseFreshStream() {
+            AppConfiguration config = config(1000);
+            ImageRenderer first = new ImageRenderer(config);
+            new ChaosGame(config(1000), first).runSingleThread();
+
+            ImageRenderer second = new ImageRenderer(config);
+            ChaosGame game = new ChaosGame(config, second);
+            game.setStreamOffset(1);
+            game.runSingleThread();
+
+            boolean foundDifference = false;
+            for (int x = 0; x < 50 && !foundDifference; x++) {
+                for (int y = 0; y < 40 && !foundDifference; y++) {
+                    foundDifference = first.getHistogram().get(x, y, 3)
+                            != second.getHistogram().get(x, y, 3);
+                }
+            }
+            assertThat(foundDifference).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("Invalid input")
+    class InvalidInputTest {
+
+        @Test
+        @DisplayName("should reject files without the histogram magic")
+        void shouldRejectForeignFile() throws IOException {
+            Path path = tempDir.resolve("foreign" + HistogramFile.EXTENSION);
+            Files.write(path, new byte[128]);
+
+            assertThatThrownBy(() -> HistogramFile.readHeader(path))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("Not a histogram file");
+        }
+
+        @Test
+        @DisplayName("should reject files of an older version")
+        void shouldRejectOlderVersion() throws IOException {
+            ImageRenderer renderer = new ImageRenderer(config(100));
+            Path path = tempDir.resolve("old" + HistogramFile.EXTENSION);
+            HistogramFile.write(path, renderer, header(renderer, 100, 1));
+            byte[] bytes = Files.readAllBytes(path);
+            bytes[6] = 1;
+            bytes[7] = 0;
+            Files.write(path, bytes);
+
+            assertThatThrownBy(() -> HistogramFile.readHeader(path))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("Unsupported histogram version 1");
+        }
+
+        @Test
+        @DisplayName("should reject histograms of a different size")
+        void shouldRejectSizeMismatch() {
+            ImageRenderer renderer = new ImageRenderer(config(100));
+            Path path = tempDir.resolve("small" + HistogramFile.EXTENSION);
+            HistogramFile.write(path, renderer, header(renderer, 100, 1));
+
+            ImageRenderer other = new ImageRenderer(
+                    AppConfiguration.builder().size(new Size(10, 10)).build());
+
+            assertThatThrownBy(() -> HistogramFile.readInto(path, other))
+                    .isInstanceOf(RuntimeException.class)
+                    .hasMessageContaining("does not match image size");
+        }
+
+        @Test
+        @DisplayName("should reject truncated files")
+        void shouldRejectTruncatedFile() throws IOException {
+            ImageRenderer renderer = new ImageRenderer(config(100));
+            Path path = tempDir.resolve("truncated" + HistogramFile.EXTENSION);
+            HistogramFile.write(path, renderer, header(renderer, 100, 1));
+            byte[] bytes = Files.readAllBytes(path);
+            Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+
+            assertThatThrownBy(() -> HistogramFile.readInto(path, new ImageRenderer(config(100))))
+                    .isInstanceOf(RuntimeException.class)
+                    .hasMessageContaining("Unexpected end");
+        }
+    }
+}
@@ -2,14 +2,22 @@ package academy.application.render;
 
 import static org.assertj.core.api.Assertions.*;
 
+import academy.application.metrics.AllocationBudget;
+import academy.application.render.histogram.Histogram;
+import academy.application.render.png.StreamingPngEncoder;
 import academy.domain.AppConfiguration;
 import academy.domain.Point;
 import academy.domain.Size;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
 import javax.imageio.ImageIO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -48,12 +56,12 @@ class ImageRendererTest {
         @Test
         @DisplayName("should initialize histogram with zeros")
         void shouldInitializeHistogramWithZeros() {
-            double[][][] histogram = renderer.getHistogram();
+            Histogram histogram = renderer.getHistogram();
 
             for (int x = 0; x < 100; x++) {
                 for (int y = 0; y < 100; y++) {
                     for (int c = 0; c < 4; c++) {
-                        assertThat(histogram[x][y][c]).isZero();
+                        assertThat(histogram.get(x, y, c)).isZero();
                     }
                 }
             }
@@ -86,11 +94,11 @@ class ImageRendererTest {
 
             renderer.plot(point);
 
-            double[][][] histogram = renderer.getHistogram();
+            Histogram histogram = renderer.getHistogram();
             boolean foundPlottedPixel = false;
             for (int x = 0; x < 100; x++) {
                 for (int y = 0; y < 100; y++) {
-                    if (histogram[x][y][3] > 0) {
+                    if (histogram.get(x, y, 3) > 0) {
                         foundPlottedPixel = true;
                         break;
                     }
@@ -106,10 +114,10 @@ class ImageRendererTest {
 
             renderer.plot(point);
 
-            double[][][] histogram = renderer.getHistogram();
+            Histogram histogram = renderer.getHistogram();
             for (int x = 0; x < 100; x++) {
                 for (int y = 0; y < 100; y++) {
-                    assertThat(histogram[x][y][3]).isZero();
+                    assertThat(histogram.get(x, y, 3)).isZero();
                 }
             }
         }
@@ -122,11 +130,11 @@ class ImageRendererTest {
 
             renderer.plot(point);
 
-            double[][][] histogram = renderer.getHistogram();
+            Histogram histogram = renderer.getHistogram();
             boolean anyPlotted = false;
             for (int px = 0; px < 100; px++) {
                 for (int py = 0; py < 100; py++) {
-                    if (histogram[px][py][3] > 0) {
+                    if (histogram.get(px, py, 3) > 0) {
                         anyPlotted = true;
                     }
                 }
@@ -143,11 +151,11 @@ class ImageRendererTest {
             renderer.plot(point);
             renderer.plot(point);
 
-            double[][][] histogram = renderer.getHistogram();
+            Histogram histogram = renderer.getHistogram();
             double maxAlpha = 0;
             for (int x = 0; x < 100; x++) {
                 for (int y = 0; y < 100; y++) {
-                    maxAlpha = Math.max(maxAlpha, histogram[x][y][3]);
+                    maxAlpha = Math.max(maxAlpha, histogram.get(x, y, 3));
                 }
             }
             assertThat(maxAlpha).isEqualTo(3.0);
@@ -160,15 +168,15 @@ class ImageRendererTest {
 
             renderer.plot(point);
 
-            double[][][] histogram = renderer.getHistogram();
+            Histogram histogram = renderer.getHistogram();
             int[][] palette = renderer.getPalette();
 
             for (int x = 0; x < 100; x++) {
                 for (int y = 0; y < 100; y++) {
-                    if (histogram[x][y][3] > 0) {
-                        assertThat(histogram[x][y][0]).isCloseTo(palette[0][0] / 255.0, within(0.01));
-                        assertThat(histogram[x][y][1]).isCloseTo(palette[0][1] / 255.0, within(0.01));
-                        assertThat(histogram[x][y][2]).isCloseTo(palette[0][2] / 255.0, within(0.01));
+                    if (histogram.get(x, y, 3) > 0) {
+                        assertThat(histogram.get(x, y, 0)).isCloseTo(palette[0][0] / 255.0, within(0.01));
+                        assertThat(histogram.get(x, y, 1)).isCloseTo(palette[0][1] / 255.0, within(0.01));
+                        assertThat(histogram.get(x, y, 2)).isCloseTo(palette[0][2] / 255.0, within(0.01));
                     }
                 }
             }
@@ -219,6 +227,28 @@ class ImageRendererTest {
             assertThat(Files.exists(outputPath)).isTrue();
         }
 
+        @Test
+        @DisplayName("in-memory tone map should encode to the same file as a streamed save")
+        void toneMappedImageShouldMatchStreamedSave() throws IOException {
+            Random random = new Random(3);
+            for (int i = 0; i < 500; i++) {
+                renderer.plot(Point.builder()
+                        .x(random.nextGaussian())
+                        .y(random.nextGaussian())
+                        .color(random.nextDouble())
+                        .build());
+            }
+            Path streamed = tempDir.resolve("streamed.png");
+            Path inMemory = tempDir.resolve("in-memory.png");
+            renderer.save(streamed);
+
+            ToneMappedImage image = renderer.toneMap(ToneMapper.DEFAULT);
+            image.savePng(inMemory, renderer.getPngEncoder());
+
+            assertThat(image.nonEmptyPixels()).isPositive();
+            assertThat(Files.readAllBytes(inMemory)).isEqualTo(Files.readAllBytes(streamed));
+        }
+
         @Test
         @DisplayName("should save empty image without errors")
         void shouldSaveEmptyImageWithoutErrors() throws IOException {
@@ -230,6 +260,35 @@ class ImageRendererTest {
         }
     }
 
+    @Nested
+    @DisplayName("Allocation budget")
+    class AllocationBudgetTest {
+
+        @Test
+        @DisplayName("tone-map loop should not allocate per pixel")
+        void toneMapLoopShouldNotAllocatePerPixel() {
+            int size = 512;
+            ImageRenderer large = new ImageRenderer(size, size);
+            large.setPngEncoder(new StreamingPngEncoder(Deflater.BEST_SPEED));
+            Random random = new Random(7);
+            Point point = Point.builder().build();
+            for (int i = 0; i < size * size; i++) {
+                large.plot(point.setX(random.nextGaussian())
+                        .setY(random.nextGaussian())
+                        .setColor(random.nextDouble()));
+            }
+
+            // Per save only the encoder's row and IDAT buffers remain, well under a byte per pixel
+            AllocationBudget.assertAllocatesPerOperationAtMost(1.0, (long) size * size, () -> {
+                try {
+                    large.writePng(Channels.newChannel(OutputStream.nullOutputStream()), ToneMapper.DEFAULT);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
     @Nested
     @DisplayName("Merge functionality")
     class MergeTest {
@@ -249,11 +308,11 @@ class ImageRendererTest {
             ImageRenderer mainRenderer = new ImageRenderer(config);
             mainRenderer.merge(List.of(renderer1, renderer2));
 
-            double[][][] histogram = mainRenderer.getHistogram();
+            Histogram histogram = mainRenderer.getHistogram();
             int plottedPixels = 0;
             for (int x = 0; x < 100; x++) {
                 for (int y = 0; y < 100; y++) {
-                    if (histogram[x][y][3] > 0) {
+                    if (histogram.get(x, y, 3) > 0) {
                         plottedPixels++;
                     }
                 }
@@ -275,11 +334,11 @@ class ImageRendererTest {
             ImageRenderer mainRenderer = new ImageRenderer(config);
             mainRenderer.merge(List.of(renderer1, renderer2));
 
-            double[][][] histogram = mainRenderer.getHistogram();
+            Histogram histogram = mainRenderer.getHistogram();
             double maxAlpha = 0;
             for (int x = 0; x < 100; x++) {
                 for (int y = 0; y < 100; y++) {
-                    maxAlpha = Math.max(maxAlpha, histogram[x][y][3]);
+                    maxAlpha = Math.max(maxAlpha, histogram.get(x, y, 3));
                 }
             }
             assertThat(maxAlpha).isEqualTo(2.0);
@@ -303,17 +362,45 @@ class ImageRendererTest {
 
             renderer.merge(List.of(otherRenderer));
 
-            double[][][] histogram = renderer.getHistogram();
+            Histogram histogram = renderer.getHistogram();
             int plottedPixels = 0;
             for (int x = 0; x < 100; x++) {
                 for (int y = 0; y < 100; y++) {
-                    if (histogram[x][y][3] > 0) {
+                    if (histogram.get(x, y, 3) > 0) {
                         plottedPixels++;
                     }
                 }
             }
             assertThat(plottedPixels).isEqualTo(2);
         }
+
+        @Test
+        @DisplayName("preview should downscale its own and the worker histograms without merging them")
+        void previewShouldDownscaleWithoutMerging() {
+            ImageRenderer worker = renderer.newWorker();
+            // Two samples each: a histogram whose densest pixel has one sample tone-maps to black
+            for (int i = 0; i < 2; i++) {
+                renderer.plot(Point.builder().x(-3.9).y(-3.9).color(0.5).build());
+                worker.plot(Point.builder().x(3.9).y(3.9).color(0.5).build());
+            }
+
+            ToneMappedImage preview = renderer.preview(List.of(worker), 10, ToneMapper.DEFAULT);
+
+            assertThat(preview.width()).isEqualTo(10);
+            assertThat(preview.height()).isEqualTo(10);
+            assertThat(preview.nonEmptyPixels()).isEqualTo(2);
+            assertThat(renderer.getPlotCount()).isEqualTo(2);
+            assertThat(renderer.getHistogram().get(99, 99, Histogram.ALPHA)).isZero();
+        }
+
+        @Test
+        @DisplayName("preview should not shrink an image smaller than its size")
+        void previewShouldKeepSmallImages() {
+            ToneMappedImage preview = renderer.preview(List.of(), 256, ToneMapper.DEFAULT);
+
+            assertThat(preview.width()).isEqualTo(100);
+            assertThat(preview.height()).isEqualTo(100);
+        }
     }
 
     @Nested
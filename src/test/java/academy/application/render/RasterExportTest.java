@@ -0,0 +1,168 @@
+package academy.application.render;
+
+import static org.assertj.core.api.Assertions.*;
+
+import academy.application.render.histogram.Histogram;
+import academy.domain.Point;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@DisplayName("Raster export tests")
+class RasterExportTest {
+
+    private static final int WIDTH = 8;
+    private static final int HEIGHT = 6;
+
+    @TempDir
+    Path tempDir;
+
+    private ImageRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        renderer = new ImageRenderer(WIDTH, HEIGHT);
+        // (0, 0) lands in pixel (4, 3); (-4, -4) in pixel (0, 0)
+        for (int i = 0; i < 100; i++) {
+            renderer.plot(Point.builder().x(0.0).y(0.0).color(0.3).build());
+        }
+        for (int i = 0; i < 10; i++) {
+            renderer.plot(Point.builder().x(-4.0).y(-4.0).color(0.8).build());
+        }
+    }
+
+    @Nested
+    @DisplayName("Output format")
+    class OutputFormatTest {
+
+        @ParameterizedTest
+        @CsvSource({"out.png, PNG", "OUT.PFM, PFM", "dir/histogram.npy, NPY", "-, PNG"})
+        @DisplayName("should pick the format from the extension")
+        void shouldPickFormatFromExtension(String path, OutputFormat expected) {
+            assertThat(OutputFormat.fromPath(Path.of(path))).isEqualTo(expected);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"out.jpg", "out", "out.exr"})
+        @DisplayName("should reject unsupported extensions")
+        void shouldRejectUnsupportedExtensions(String path) {
+            assertThatThrownBy(() -> OutputFormat.fromPath(Path.of(path)))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining(".npy");
+        }
+    }
+
+    @Nested
+    @DisplayName("PFM")
+    class PfmTest {
+
+        @Test
+        @DisplayName("should write unclamped float RGB bottom row first")
+        void shouldWriteFloatRgb() throws IOException {
+            ToneMapper bright = new ToneMapper(ImageRenderer.ACCUMULATION_PALETTE, 1.0, 4.0);
+            Path path = tempDir.resolve("out.pfm");
+
+            renderer.save(path, bright);
+
+            byte[] bytes = Files.readAllBytes(path);
+            String header = String.format("PF\n%d %d\n-1.0\n", WIDTH, HEIGHT);
+            assertThat(new String(bytes, 0, header.length(), StandardCharsets.US_ASCII))
+                    .isEqualTo(header);
+            assertThat(bytes).hasSize(header.length() + WIDTH * HEIGHT * 3 * Float.BYTES);
+
+            ByteBuffer data = ByteBuffer.wrap(bytes, header.length(), bytes.length - header.length())
+                    .slice()
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            double[] pixel = new double[Histogram.CHANNELS];
+            renderer.getHistogram().read(4, 3, pixel);
+            double[] expected = new double[3];
+            bright.mapPixel(pixel, Math.log(100), expected);
+            int fileRow = HEIGHT - 1 - 3;
+            int offset = (fileRow * WIDTH + 4) * 3 * Float.BYTES;
+            assertThat(data.getFloat(offset)).isEqualTo((float) expected[0]);
+            assertThat(data.getFloat(offset + Float.BYTES)).isEqualTo((float) expected[1]);
+            assertThat(data.getFloat(offset + 2 * Float.BYTES)).isEqualTo((float) expected[2]);
+            assertThat(Math.max(expected[0], Math.max(expected[1], expected[2])))
+                    .as("HDR values must not be clamped")
+                    .isGreaterThan(1.0);
+            assertThat(data.getFloat(0)).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("NPY")
+    class NpyTest {
+
+        @Test
+        @DisplayName("should dump raw histogram channels with a 64-byte aligned header")
+        void shouldDumpHistogram() throws IOException {
+            Path path = tempDir.resolve("out.npy");
+
+            renderer.save(path);
+
+            byte[] bytes = Files.readAllBytes(path);
+            assertThat(bytes[0]).isEqualTo((byte) 0x93);
+            assertThat(new String(bytes, 1, 5, StandardCharsets.US_ASCII)).isEqualTo("NUMPY");
+            int headerLength =
+                    ByteBuffer.wrap(bytes, 8, 2).order(ByteOrder.LITTLE_ENDIAN).getShort();
+            int dataOffset = 10 + headerLength;
+            assertThat(dataOffset % 64).isZero();
+            assertThat(new String(bytes, 10, headerLength, StandardCharsets.US_ASCII))
+                    .contains("'descr': '<f8'")
+                    .contains("'fortran_order': False")
+                    .contains("'shape': (6, 8, 5)")
+                    .endsWith("\n");
+            assertThat(bytes).hasSize(dataOffset + WIDTH * HEIGHT * ImageRenderer.CHANNELS * Double.BYTES);
+
+            ByteBuffer data = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            int pixel = dataOffset + (3 * WIDTH + 4) * ImageRenderer.CHANNELS * Double.BYTES;
+            for (int c = 0; c < ImageRenderer.CHANNELS; c++) {
+                assertThat(data.getDouble(pixel + c * Double.BYTES))
+                        .isEqualTo(renderer.getHistogram().get(4, 3, c));
+            }
+            assertThat(data.getDouble(pixel + ImageRenderer.ALPHA * Double.BYTES))
+                    .isEqualTo(100.0);
+        }
+    }
+
+    @Nested
+    @DisplayName("16-bit PNG")
+    class Png16Test {
+
+        @Test
+        @DisplayName("should keep precision that 8-bit output quantizes away")
+        void shouldWriteSixteenBitSamples() throws IOException {
+            Path path = tempDir.resolve("out16.png");
+            renderer.setPngBitDepth(16);
+
+            renderer.save(path);
+
+            BufferedImage image = ImageIO.read(path.toFile());
+            Raster raster = image.getRaster();
+            assertThat(raster.getSampleModel().getSampleSize(0)).isEqualTo(16);
+
+            double[] pixel = new double[Histogram.CHANNELS];
+            renderer.getHistogram().read(0, 0, pixel);
+            double[] expected = new double[3];
+            ToneMapper.DEFAULT.mapPixel(pixel, Math.log(100), expected);
+            for (int c = 0; c < 3; c++) {
+                assertThat(raster.getSample(0, 0, c)).isEqualTo((int) (Math.min(1.0, expected[c]) * 0xFFFF));
+            }
+            assertThat(raster.getSample(1, 1, 0)).isZero();
+        }
+    }
+}
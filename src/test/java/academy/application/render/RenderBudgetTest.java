@@ -0,0 +1,68 @@
+package academy.application.render;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+@DisplayName("Render budget tests")
+class RenderBudgetTest {
+
+    @TempDir
+    Path tempDir;
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2})
+    @DisplayName("calibration should measure non-negative costs")
+    void calibrationShouldMeasureCosts(int workers) {
+        RenderBudget budget =
+                RenderBudget.calibrate(size -> new ImageRenderer(size, size), workers, RenderBudget.Finish.PNG);
+
+        assertThat(budget.mergeNanosPerPixel()).isNotNegative();
+        assertThat(budget.writeNanosPerPixel()).isNotNegative();
+        assertThat(budget.writeNanos()).isNotNegative();
+        assertThat(budget.densityNanosPerPixel()).isZero();
+        if (workers == 0) {
+            assertThat(budget.mergeNanosPerPixel()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("calibration should time the density estimation, the saved histogram and every export")
+    void calibrationShouldCoverTheWholeFinish() throws Exception {
+        RenderBudget.Finish finish = new RenderBudget.Finish(
+                List.of(OutputFormat.PNG, OutputFormat.PFM, OutputFormat.NPY),
+                tempDir,
+                new DensityEstimation(9, 0, 0.4));
+
+        RenderBudget budget = RenderBudget.calibrate(size -> new ImageRenderer(size, size, 2), 0, finish);
+
+        assertThat(budget.densityNanosPerPixel()).isPositive();
+        assertThat(budget.writeNanosPerPixel()).isPositive();
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files).as("scratch histogram files").isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("the finish estimate should grow with pixels, workers and density estimation")
+    void finishShouldGrowWithWork() {
+        RenderBudget budget = new RenderBudget(0.5, 4.0, 2_000_000, 0);
+
+        long base = budget.finishNanos(100, 100, 1);
+
+        assertThat(base).isGreaterThan(RenderBudget.FIXED_NANOS);
+        assertThat(budget.finishNanos(200, 100, 1)).isGreaterThan(base);
+        assertThat(budget.finishNanos(100, 100, 4)).isGreaterThan(base);
+        assertThat(new RenderBudget(0.5, 4.0, 2_000_000, 10).finishNanos(100, 100, 1))
+                .isGreaterThan(base);
+        assertThat(new RenderBudget(0, 0, 0, 0).finishNanos(1920, 1080, 8)).isEqualTo(RenderBudget.FIXED_NANOS);
+    }
+}
@@ -0,0 +1,170 @@
+package academy.application.render;
+
+import static org.assertj.core.api.Assertions.*;
+
+import academy.domain.Point;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@DisplayName("ToneMapper tests")
+class ToneMapperTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static double[] pixel(double r, double g, double b, double alpha, double color) {
+        return new double[] {r, g, b, alpha, color};
+    }
+
+    private static int channel(int rgb, int shift) {
+        return (rgb >> shift) & 0xFF;
+    }
+
+    @Nested
+    @DisplayName("Palettes")
+    class PaletteTest {
+
+        @Test
+        @DisplayName("rainbow palette should match the original sine palette")
+        void rainbowShouldMatchSinePalette() {
+            int[][] colors = Palette.RAINBOW.getColors();
+
+            for (int i = 0; i <= 255; i++) {
+                double t = i / 255.0;
+                assertThat(colors[i][0]).isEqualTo((int) (255 * (0.5 + 0.5 * Math.sin(2 * Math.PI * t + 0))));
+                assertThat(colors[i][1])
+                        .isEqualTo((int) (255 * (0.5 + 0.5 * Math.sin(2 * Math.PI * t + 2 * Math.PI / 3))));
+                assertThat(colors[i][2])
+                        .isEqualTo((int) (255 * (0.5 + 0.5 * Math.sin(2 * Math.PI * t + 4 * Math.PI / 3))));
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(Palette.class)
+        @DisplayName("every palette should have 256 valid colors")
+        void shouldHaveValidColors(Palette palette) {
+            assertThat(palette.getColors()).hasNumberOfRows(256);
+            for (int[] color : palette.getColors()) {
+                assertThat(color).hasSize(3);
+                for (int value : color) {
+                    assertThat(value).isBetween(0, 255);
+                }
+            }
+        }
+
+        @ParameterizedTest
+        @CsvSource({"-0.5, 0", "0.0, 0", "1.0, 255", "2.0, 255"})
+        @DisplayName("should clamp palette coordinates")
+        void shouldClampCoordinates(double coordinate, int expectedIndex) {
+            assertThat(Palette.FIRE.colorAt(coordinate)).isSameAs(Palette.FIRE.getColors()[expectedIndex]);
+        }
+    }
+
+    @Nested
+    @DisplayName("Pixel mapping")
+    class PixelMappingTest {
+
+        @Test
+        @DisplayName("should map empty pixels to black")
+        void shouldMapEmptyPixelsToBlack() {
+            assertThat(ToneMapper.DEFAULT.computePixelColor(pixel(0, 0, 0, 0, 0), 1.0))
+                    .isZero();
+        }
+
+        @Test
+        @DisplayName("default mapping should use the accumulated channels with log scaling")
+        void defaultMappingShouldUseAccumulatedChannels() {
+            double alpha = 10;
+            double logMaxAlpha = Math.log(100);
+            int rgb = ToneMapper.DEFAULT.computePixelColor(pixel(5, 2.5, 10, alpha, 3), logMaxAlpha);
+
+            double scale = Math.log(alpha) / alpha / logMaxAlpha;
+            assertThat(channel(rgb, 16)).isEqualTo((int) (Math.min(1.0, 5 * scale) * 255));
+            assertThat(channel(rgb, 8)).isEqualTo((int) (Math.min(1.0, 2.5 * scale) * 255));
+            assertThat(channel(rgb, 0)).isEqualTo((int) (Math.min(1.0, 10 * scale) * 255));
+        }
+
+        @Test
+        @DisplayName("other palettes should color by the mean palette coordinate")
+        void otherPalettesShouldUseMeanCoordinate() {
+            ToneMapper grayscale = new ToneMapper(Palette.GRAYSCALE, 1.0, 1.0);
+            double[] pixel = pixel(0, 0, 0, Math.E, Math.E);
+
+            int rgb = grayscale.computePixelColor(pixel, 1.0);
+
+            assertThat(channel(rgb, 16)).isEqualTo(255);
+            assertThat(channel(rgb, 8)).isEqualTo(255);
+            assertThat(channel(rgb, 0)).isEqualTo(255);
+        }
+
+        @Test
+        @DisplayName("gamma above one should brighten mid tones")
+        void gammaShouldBrightenMidTones() {
+            double[] pixel = pixel(0.5, 0.5, 0.5, Math.E, 0.5);
+            ToneMapper gamma = new ToneMapper(ImageRenderer.ACCUMULATION_PALETTE, 2.2, 1.0);
+
+            int plain = ToneMapper.DEFAULT.computePixelColor(pixel, 1.0);
+            int corrected = gamma.computePixelColor(pixel, 1.0);
+
+            assertThat(channel(corrected, 16)).isGreaterThan(channel(plain, 16));
+        }
+
+        @Test
+        @DisplayName("brightness should scale before clamping")
+        void brightnessShouldScale() {
+            double[] pixel = pixel(0.2, 0.2, 0.2, Math.E, 0.5);
+            ToneMapper bright = new ToneMapper(ImageRenderer.ACCUMULATION_PALETTE, 1.0, 2.0);
+
+            int plain = ToneMapper.DEFAULT.computePixelColor(pixel, 1.0);
+            int brighter = bright.computePixelColor(pixel, 1.0);
+
+            assertThat(channel(brighter, 16)).isCloseTo(2 * channel(plain, 16), within(1));
+        }
+
+        @ParameterizedTest
+        @CsvSource({"0.0, 1.0", "-1.0, 1.0", "1.0, 0.0", "NaN, 1.0", "1.0, Infinity"})
+        @DisplayName("should reject invalid parameters")
+        void shouldRejectInvalidParameters(double gamma, double brightness) {
+            assertThatThrownBy(() -> new ToneMapper(Palette.RAINBOW, gamma, brightness))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        @DisplayName("should describe variants with file-name friendly names")
+        void shouldDescribeVariants() {
+            assertThat(new ToneMapper(Palette.FIRE, 2.2, 1.0).describe()).isEqualTo("fire-g2.2-b1");
+        }
+    }
+
+    @Nested
+    @DisplayName("Re-tone-mapping a renderer")
+    class RendererTest {
+
+        @Test
+        @DisplayName("should produce different images for different palettes from one histogram")
+        void shouldRecolorWithoutReaccumulating() throws IOException {
+            ImageRenderer renderer = new ImageRenderer(20, 20);
+            for (int i = 0; i < 50; i++) {
+                renderer.plot(Point.builder().x(0.0).y(0.0).color(0.2).build());
+            }
+
+            Path rainbow = tempDir.resolve("rainbow.png");
+            Path fire = tempDir.resolve("fire.png");
+            renderer.save(rainbow);
+            renderer.save(fire, new ToneMapper(Palette.FIRE, 1.0, 1.0));
+
+            BufferedImage rainbowImage = ImageIO.read(rainbow.toFile());
+            BufferedImage fireImage = ImageIO.read(fire.toFile());
+            assertThat(rainbowImage.getRGB(10, 10)).isNotEqualTo(fireImage.getRGB(10, 10));
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package academy.application.render.histogram;
+
+import static org.assertj.core.api.Assertions.*;
+
+import academy.TestConfigurations;
+import academy.application.algorithm.ChaosGame;
+import academy.application.render.ImageRenderer;
+import academy.domain.AppConfiguration;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+@DisplayName("Histogram storage tests")
+class HistogramTest {
+    private static final int WIDTH = 7;
+    private static final int HEIGHT = 5;
+
+    @TempDir
+    Path tempDir;
+
+    private static AppConfiguration config(int threads) {
+        return TestConfigurations.seeded(TestConfigurations.sierpinski(60, 40)
+                .seed(11L)
+                .iterationCount(20_000)
+                .threadQuantity(threads)
+                .outputPath(Path.of("histogram.png"))
+                .build());
+    }
+
+    @Nested
+    @DisplayName("Storage")
+    class StorageTest {
+
+        @ParameterizedTest(name = "{0}")
+        @EnumSource(AccumulationStrategy.class)
+        @DisplayName("should accumulate samples and read them back")
+        void shouldAccumulateSamples(AccumulationStrategy strategy) {
+            try (Histogram histogram = strategy.createHistogram(WIDTH, HEIGHT, true, tempDir)) {
+                histogram.addSample(6, 4, 0.25, 0.5, 0.75, 0.125);
+                histogram.addSample(6, 4, 0.25, 0.5, 0.75, 0.125);
+                histogram.add(0, 0, Histogram.COLOR, 2.0);
+
+                double[] pixel = new double[Histogram.CHANNELS];
+                histogram.read(6, 4, pixel);
+                assertThat(pixel).containsExactly(0.5, 1.0, 1.5, 2.0, 0.25);
+                assertThat(histogram.get(0, 0, Histogram.COLOR)).isEqualTo(2.0);
+                assertThat(histogram.get(3, 2, Histogram.ALPHA)).isZero();
+            }
+        }
+
+        @ParameterizedTest(name = "{0}")
+        @EnumSource(AccumulationStrategy.class)
+        @DisplayName("should add and read whole rows")
+        void shouldAddAndReadRows(AccumulationStrategy strategy) {
+            try (Histogram histogram = strategy.createHistogram(WIDTH, HEIGHT, true, tempDir)) {
+                double[] row = new double[WIDTH * Histogram.CHANNELS];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = i * 0.5;
+                }
+                histogram.addSample(2, 3, 1.0, 1.0, 1.0, 1.0);
+
+                histogram.addRow(3, row);
+                histogram.addRow(3, row);
+
+                double[] read = new double[row.length];
+                histogram.readRow(3, read);
+                for (int i = 0; i < row.length; i++) {
+                    double sample = i / Histogram.CHANNELS == 2 ? 1.0 : 0.0;
+                    assertThat(read[i]).as("value %d", i).isEqualTo(2 * row[i] + sample);
+                }
+                histogram.readRow(2, read);
+                assertThat(read).containsOnly(0.0);
+            }
+        }
+
+        @ParameterizedTest(name = "{0}")
+        @EnumSource(
+                value = AccumulationStrategy.class,
+                names = {"PER_THREAD_DOUBLE", "COMPACT"})
+        @DisplayName("should merge worker histograms into the final one")
+        void shouldMergeWorkerHistograms(AccumulationStrategy strategy) {
+            Histogram target = strategy.createHistogram(WIDTH, HEIGHT, false, tempDir);
+            Histogram worker = strategy.createWorkerHistogram(WIDTH, HEIGHT);
+            worker.addSample(1, 2, 1.0, 0.0, 0.5, 0.5);
+            target.addSample(1, 2, 0.0, 1.0, 0.5, 0.25);
+
+            target.addAll(worker);
+
+            double[] pixel = new double[Histogram.CHANNELS];
+            target.read(1, 2, pixel);
+            assertThat(pixel).containsExactly(1.0, 1.0, 1.0, 2.0, 0.75);
+        }
+
+        @Test
+        @DisplayName("shared strategies should have no worker histograms")
+        void sharedStrategiesShouldHaveNoWorkerHistograms() {
+            assertThatThrownBy(() -> AccumulationStrategy.SHARED_ATOMIC.createWorkerHistogram(WIDTH, HEIGHT))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+
+        @Test
+        @DisplayName("concurrent updates of a shared histogram should not be lost")
+        void concurrentUpdatesShouldNotBeLost() {
+            for (AccumulationStrategy strategy : List.of(
+                    AccumulationStrategy.SHARED_ATOMIC,
+                    AccumulationStrategy.OFF_HEAP,
+                    AccumulationStrategy.MAPPED_FILE)) {
+                try (Histogram histogram = strategy.createHistogram(WIDTH, HEIGHT, true, tempDir)) {
+                    IntStream.range(0, 4).parallel().forEach(thread -> {
+                        for (int i = 0; i < 10_000; i++) {
+                            histogram.addSample(3, 3, 1.0, 1.0, 1.0, 1.0);
+                        }
+                    });
+
+                    assertThat(histogram.get(3, 3, Histogram.ALPHA))
+                            .as(strategy.getKey())
+                            .isEqualTo(40_000);
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("mapped histogram should delete its file on close")
+        void mappedHistogramShouldDeleteItsFile() throws Exception {
+            Histogram histogram = AccumulationStrategy.MAPPED_FILE.createHistogram(WIDTH, HEIGHT, false, tempDir);
+            try (var files = Files.list(tempDir)) {
+                assertThat(files).hasSize(1);
+            }
+
+            histogram.close();
+
+            try (var files = Files.list(tempDir)) {
+                assertThat(files).isEmpty();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Rendering")
+    class RenderingTest {
+
+        @ParameterizedTest(name = "{0}")
+        @EnumSource(AccumulationStrategy.class)
+        @DisplayName("every strategy should produce the same multi-threaded histogram")
+        void everyStrategyShouldProduceTheSameHistogram(AccumulationStrategy strategy) {
+            AppConfiguration reference = config(4);
+            ImageRenderer expected = new ImageRenderer(reference);
+            new ChaosGame(reference, expected).runMultiThread();
+
+            AppConfiguration configuration = config(4);
+            try (ImageRenderer actual = new ImageRenderer(configuration, strategy, tempDir)) {
+                new ChaosGame(configuration, actual).runMultiThread();
+
+                assertThat(actual.getPlotCount()).isEqualTo(expected.getPlotCount());
+                // Compact workers sum colors in float, shared ones add in a different order
+                for (int y = 0; y < 40; y++) {
+                    for (int x = 0; x < 60; x++) {
+                        for (int c = 0; c < Histogram.CHANNELS; c++) {
+                            double value = expected.getHistogram().get(x, y, c);
+                            assertThat(actual.getHistogram().get(x, y, c))
+                                    .as("%s pixel (%d, %d) channel %d", strategy, x, y, c)
+                                    .isCloseTo(value, within(1e-5 * (1 + value)));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Pool")
+    class PoolTest {
+
+        @Test
+        @DisplayName("should hand a released histogram out again, cleared")
+        void shouldReuseClearedHistogram() {
+            HistogramPool pool = new HistogramPool();
+            DoubleHistogram histogram = pool.acquire(WIDTH, HEIGHT);
+            histogram.addSample(1, 1, 0.5, 0.5, 0.5, 0.5);
+            pool.release(histogram);
+
+            DoubleHistogram reused = pool.acquire(WIDTH, HEIGHT);
+
+            assertThat(reused).isSameAs(histogram);
+            assertThat(reused.get(1, 1, Histogram.ALPHA)).isZero();
+            assertThat(pool.allocatedCount()).isEqualTo(1);
+            assertThat(pool.reusedCount()).isEqualTo(1);
+            assertThat(pool.idleBytes()).isZero();
+        }
+
+        @Test
+        @DisplayName("should allocate when no idle histogram has the size")
+        void shouldAllocateOtherSizes() {
+            HistogramPool pool = new HistogramPool();
+            DoubleHistogram histogram = pool.acquire(WIDTH, HEIGHT);
+            pool.release(histogram);
+
+            assertThat(pool.acquire(HEIGHT, WIDTH)).isNotSameAs(histogram);
+            assertThat(pool.idleBytes()).isEqualTo(histogram.sizeBytes());
+        }
+
+        @Test
+        @DisplayName("should evict the least recently released histograms first")
+        void shouldEvictOldestFirst() {
+            HistogramPool pool = new HistogramPool();
+            DoubleHistogram oldest = pool.acquire(WIDTH, HEIGHT);
+            DoubleHistogram newest = pool.acquire(WIDTH, HEIGHT);
+            pool.release(oldest);
+            pool.release(newest);
+
+            assertThat(pool.evict(1)).isEqualTo(oldest.sizeBytes());
+
+            assertThat(pool.acquire(WIDTH, HEIGHT)).isSameAs(newest);
+            assertThat(pool.acquire(WIDTH, HEIGHT)).isNotSameAs(oldest);
+        }
+
+        @Test
+        @DisplayName("renderers on a pool should return worker and final histograms when closed")
+        void renderersShouldReturnHistograms() {
+            HistogramPool pool = new HistogramPool();
+            AppConfiguration config = config(3);
+            try (ImageRenderer renderer = new ImageRenderer(config, pool)) {
+                ChaosGame game = new ChaosGame(config, renderer);
+                game.runMultiThread();
+                assertThat(renderer.getPlotCount()).isPositive();
+            }
+
+            assertThat(pool.allocatedCount()).isEqualTo(4);
+            assertThat(pool.idleBytes()).isEqualTo(4 * 60 * 40 * Histogram.CHANNELS * (long) Double.BYTES);
+        }
+    }
+}
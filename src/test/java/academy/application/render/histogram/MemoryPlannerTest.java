@@ -0,0 +1,167 @@
+package academy.application.render.histogram;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.file.Path;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Memory planner tests")
+class MemoryPlannerTest {
+    private static final long MIB = 1024L * 1024;
+    private static final long GIB = 1024 * MIB;
+    private static final Path TEMP = Path.of("build");
+
+    private static MemoryLimits limits(long heap, long offHeap, long disk) {
+        return new MemoryLimits(heap, offHeap, disk, TEMP);
+    }
+
+    @Nested
+    @DisplayName("Estimates")
+    class EstimateTest {
+
+        @Test
+        @DisplayName("per-thread double should pay for a histogram per worker plus the final one")
+        void perThreadDoubleShouldCountEveryWorker() {
+            MemoryEstimate estimate = AccumulationStrategy.PER_THREAD_DOUBLE.estimate(1000, 1000, 4);
+
+            assertThat(estimate).isEqualTo(new MemoryEstimate(5 * 40_000_000L, 0, 0));
+        }
+
+        @Test
+        @DisplayName("compact should halve the worker histograms")
+        void compactShouldHalveWorkers() {
+            MemoryEstimate estimate = AccumulationStrategy.COMPACT.estimate(1000, 1000, 4);
+
+            assertThat(estimate.heapBytes()).isEqualTo(40_000_000L + 4 * 20_000_000L);
+        }
+
+        @Test
+        @DisplayName("a single-threaded run should need only the final histogram")
+        void singleThreadShouldNeedOneHistogram() {
+            assertThat(AccumulationStrategy.PER_THREAD_DOUBLE.estimate(1000, 1000, 1))
+                    .isEqualTo(new MemoryEstimate(40_000_000L, 0, 0));
+        }
+
+        @Test
+        @DisplayName("off-heap and mapped strategies should need no heap")
+        void bufferStrategiesShouldNeedNoHeap() {
+            assertThat(AccumulationStrategy.OFF_HEAP.estimate(1000, 1000, 8))
+                    .isEqualTo(new MemoryEstimate(0, 40_000_000L, 0));
+            assertThat(AccumulationStrategy.MAPPED_FILE.estimate(1000, 1000, 8))
+                    .isEqualTo(new MemoryEstimate(0, 0, 40_000_000L));
+        }
+
+        @Test
+        @DisplayName("density estimation should need a second final histogram once the workers are gone")
+        void densityEstimationShouldNeedSecondHistogram() {
+            assertThat(AccumulationStrategy.PER_THREAD_DOUBLE.estimate(1000, 1000, 1, true, 0))
+                    .isEqualTo(new MemoryEstimate(2 * 40_000_000L, 0, 0));
+            assertThat(AccumulationStrategy.PER_THREAD_DOUBLE.estimate(1000, 1000, 4, true, 0))
+                    .isEqualTo(AccumulationStrategy.PER_THREAD_DOUBLE.estimate(1000, 1000, 4));
+            assertThat(AccumulationStrategy.OFF_HEAP.estimate(1000, 1000, 8, true, 0))
+                    .isEqualTo(new MemoryEstimate(0, 2 * 40_000_000L, 0));
+        }
+
+        @Test
+        @DisplayName("the density estimation scratch should stay on the heap next to the final histograms")
+        void densityScratchShouldCountOnHeap() {
+            assertThat(AccumulationStrategy.PER_THREAD_DOUBLE.estimate(1000, 1000, 1, true, 1000))
+                    .isEqualTo(new MemoryEstimate(2 * 40_000_000L + 1000, 0, 0));
+            assertThat(AccumulationStrategy.OFF_HEAP.estimate(1000, 1000, 8, true, 1000))
+                    .isEqualTo(new MemoryEstimate(1000, 2 * 40_000_000L, 0));
+            assertThat(AccumulationStrategy.MAPPED_FILE.estimate(1000, 1000, 8, false, 1000))
+                    .isEqualTo(AccumulationStrategy.MAPPED_FILE.estimate(1000, 1000, 8));
+        }
+
+        @Test
+        @DisplayName("should format sizes in binary units")
+        void shouldFormatSizes() {
+            assertThat(MemoryEstimate.formatBytes(512)).isEqualTo("512 B");
+            assertThat(MemoryEstimate.formatBytes(1536 * MIB)).isEqualTo("1.5 GiB");
+        }
+    }
+
+    @Nested
+    @DisplayName("Planning")
+    class PlanningTest {
+
+        @Test
+        @DisplayName("should pick per-thread double when everything fits")
+        void shouldPickFastestStrategy() {
+            MemoryPlan plan = MemoryPlanner.plan(1920, 1080, 8, 10_000_000, limits(8 * GIB, GIB, GIB), null);
+
+            assertThat(plan.strategy()).isEqualTo(AccumulationStrategy.PER_THREAD_DOUBLE);
+        }
+
+        @Test
+        @DisplayName("should fall back to compact when only float workers fit")
+        void shouldFallBackToCompact() {
+            // 8 double workers need 747 MiB, 8 float workers 415 MiB
+            MemoryPlan plan = MemoryPlanner.plan(1920, 1080, 8, 10_000_000, limits(500 * MIB, 0, 0), null);
+
+            assertThat(plan.strategy()).isEqualTo(AccumulationStrategy.COMPACT);
+        }
+
+        @Test
+        @DisplayName("should skip compact when a worker could exceed float precision")
+        void shouldSkipCompactForLongRuns() {
+            MemoryPlan plan = MemoryPlanner.plan(1920, 1080, 2, 100_000_000, limits(200 * MIB, 0, 0), null);
+
+            assertThat(plan.strategy()).isEqualTo(AccumulationStrategy.SHARED_ATOMIC);
+        }
+
+        @Test
+        @DisplayName("should move the histogram off the heap when it does not fit")
+        void shouldMoveOffHeap() {
+            MemoryPlan plan = MemoryPlanner.plan(8000, 8000, 4, 1_000_000, limits(GIB, 4 * GIB, 0), null);
+
+            assertThat(plan.strategy()).isEqualTo(AccumulationStrategy.OFF_HEAP);
+            assertThat(plan.estimate().offHeapBytes()).isEqualTo(8000L * 8000 * 40);
+        }
+
+        @Test
+        @DisplayName("should map a file when only the disk is large enough")
+        void shouldMapFile() {
+            MemoryPlan plan = MemoryPlanner.plan(8000, 8000, 4, 1_000_000, limits(GIB, GIB, 100 * GIB), null);
+
+            assertThat(plan.strategy()).isEqualTo(AccumulationStrategy.MAPPED_FILE);
+        }
+
+        @Test
+        @DisplayName("should refuse a render that fits nowhere and list the estimates")
+        void shouldRefuseRender() {
+            assertThatThrownBy(() -> MemoryPlanner.plan(8000, 8000, 4, 1_000_000, limits(GIB, GIB, GIB), null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("8000x8000")
+                    .hasMessageContaining("per-thread-double needs 11.9 GiB heap")
+                    .hasMessageContaining("mapped-file needs 2.4 GiB disk")
+                    .hasMessageContaining("--memory-budget");
+        }
+
+        @Test
+        @DisplayName("should honor a forced strategy and refuse it when it does not fit")
+        void shouldHonorForcedStrategy() {
+            MemoryLimits limits = limits(8 * GIB, GIB, GIB);
+
+            assertThat(MemoryPlanner.plan(100, 100, 1, 1000, limits, AccumulationStrategy.OFF_HEAP)
+                            .strategy())
+                    .isEqualTo(AccumulationStrategy.OFF_HEAP);
+            assertThatThrownBy(() -> MemoryPlanner.plan(8000, 8000, 1, 1000, limits, AccumulationStrategy.MAPPED_FILE))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("mapped-file needs");
+        }
+
+        @Test
+        @DisplayName("should read the limits of the running JVM")
+        void shouldReadCurrentLimits() {
+            MemoryLimits limits = MemoryLimits.current(0, Path.of("."));
+
+            assertThat(limits.heapBytes())
+                    .isPositive()
+                    .isLessThan(Runtime.getRuntime().maxMemory());
+            assertThat(limits.diskBytes()).isPositive();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package academy.application.render.png;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+@DisplayName("PNG encoder tests")
+class PngEncoderTest {
+
+    static Stream<Arguments> encoders() {
+        return Stream.of(
+                Arguments.of("streaming default", new StreamingPngEncoder(Deflater.DEFAULT_COMPRESSION)),
+                Arguments.of("streaming stored", new StreamingPngEncoder(Deflater.NO_COMPRESSION)),
+                Arguments.of("streaming best", new StreamingPngEncoder(Deflater.BEST_COMPRESSION)),
+                Arguments.of("parallel default", new ParallelPngEncoder(Deflater.DEFAULT_COMPRESSION, 4)),
+                Arguments.of("parallel stored", new ParallelPngEncoder(Deflater.NO_COMPRESSION, 2)),
+                Arguments.of("parallel fastest, tiny blocks", new ParallelPngEncoder(Deflater.BEST_SPEED, 3, 1)),
+                Arguments.of("parallel best, small blocks", new ParallelPngEncoder(Deflater.BEST_COMPRESSION, 4, 4096)),
+                Arguments.of("parallel single thread", new ParallelPngEncoder(Deflater.DEFAULT_COMPRESSION, 1, 2048)));
+    }
+
+    @Test
+    @DisplayName("parallel blocks should compress close to a single stream thanks to the preset dictionary")
+    void parallelOutputShouldStayCloseToStreamingSize() throws IOException {
+        int width = 512;
+        int height = 512;
+        ByteArrayOutputStream streaming = new ByteArrayOutputStream();
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+
+        new StreamingPngEncoder(Deflater.DEFAULT_COMPRESSION)
+                .encode(Channels.newChannel(streaming), width, height, patternSource(width, 3));
+        new ParallelPngEncoder(Deflater.DEFAULT_COMPRESSION, 4)
+                .encode(Channels.newChannel(parallel), width, height, patternSource(width, 3));
+
+        assertThat((double) parallel.size()).isLessThan(streaming.size() * 1.05);
+    }
+
+    private static int pixel(int x, int y, long seed) {
+        Random random = new Random(seed * 31 + x * 7919L + y);
+        int noise = random.nextInt(16);
+        return ((x * 3 + noise) & 0xFF) << 16 | ((y * 5) & 0xFF) << 8 | ((x ^ y) & 0xFF);
+    }
+
+    private static RowSource patternSource(int width, long seed) {
+        return (y, row) -> {
+            for (int x = 0; x < width; x++) {
+                int rgb = pixel(x, y, seed);
+                row[x * 3] = (byte) (rgb >> 16);
+                row[x * 3 + 1] = (byte) (rgb >> 8);
+                row[x * 3 + 2] = (byte) rgb;
+            }
+        };
+    }
+
+    private static BufferedImage encodeAndDecode(PngEncoder encoder, int width, int height, RowSource source)
+            throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long written = encoder.encode(Channels.newChannel(output), width, height, source);
+        assertThat(written).isEqualTo(output.size());
+        return ImageIO.read(new ByteArrayInputStream(output.toByteArray()));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("encoders")
+    @DisplayName("should round trip every pixel")
+    void shouldRoundTripPixels(String name, PngEncoder encoder) throws IOException {
+        int width = 173;
+        int height = 97;
+
+        BufferedImage image = encodeAndDecode(encoder, width, height, patternSource(width, 42));
+
+        assertThat(image.getWidth()).isEqualTo(width);
+        assertThat(image.getHeight()).isEqualTo(height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertThat(image.getRGB(x, y) & 0xFFFFFF)
+                        .as("pixel (%d, %d)", x, y)
+                        .isEqualTo(pixel(x, y, 42));
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("encoders")
+    @DisplayName("should encode a single pixel image")
+    void shouldEncodeSinglePixel(String name, PngEncoder encoder) throws IOException {
+        BufferedImage image = encodeAndDecode(encoder, 1, 1, (y, row) -> {
+            row[0] = (byte) 0x12;
+            row[1] = (byte) 0x34;
+            row[2] = (byte) 0x56;
+        });
+
+        assertThat(image.getRGB(0, 0) & 0xFFFFFF).isEqualTo(0x123456);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("encoders")
+    @DisplayName("should encode images larger than one IDAT chunk")
+    void shouldEncodeLargeImages(String name, PngEncoder encoder) throws IOException {
+        int width = 1024;
+        int height = 300;
+
+        BufferedImage image = encodeAndDecode(encoder, width, height, patternSource(width, 7));
+
+        assertThat(image.getRGB(1023, 299) & 0xFFFFFF).isEqualTo(pixel(1023, 299, 7));
+        assertThat(image.getRGB(512, 150) & 0xFFFFFF).isEqualTo(pixel(512, 150, 7));
+    }
+}
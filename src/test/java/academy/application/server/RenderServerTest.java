@@ -0,0 +1,294 @@
+package academy.application.server;
+
+import static org.assertj.core.api.Assertions.*;
+
+import academy.TestConfigurations;
+import academy.application.render.histogram.MemoryLimits;
+import academy.application.render.histogram.MemoryPlanner;
+import academy.domain.AppConfiguration;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("Render server tests")
+class RenderServerTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Duration WAIT = Duration.ofSeconds(30);
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private RenderServer server;
+
+    /** Configurations are only {@code {"width", "height", "threads", "iterations"}}, or {@code {"broken": true}}. */
+    private static AppConfiguration load(JsonNode config) {
+        if (config.has("broken")) {
+            throw new IllegalArgumentException("Failed to parse configuration: broken");
+        }
+        return TestConfigurations.sierpinski(
+                        config.get("width").asInt(), config.get("height").asInt())
+                .seed(3L)
+                .iterationCount(config.get("iterations").asInt())
+                .threadQuantity(config.get("threads").asInt())
+                .outputPath(Path.of("-"))
+                .build();
+    }
+
+    private static String config(int width, int height, int threads, int iterations) {
+        return MAPPER.createObjectNode()
+                .put("width", width)
+                .put("height", height)
+                .put("threads", threads)
+                .put("iterations", iterations)
+                .toString();
+    }
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = server(1, MemoryLimits.current(0, Path.of(".")));
+    }
+
+    private static RenderServer server(int maxJobs, MemoryLimits memoryBudget) throws IOException {
+        RenderServer server = new RenderServer(
+                new InetSocketAddress("127.0.0.1", 0),
+                2,
+                maxJobs,
+                2,
+                Duration.ofSeconds(60),
+                memoryBudget,
+                RenderServerTest::load);
+        server.start();
+        return server;
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    private HttpResponse<byte[]> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + path))
+                .method(
+                        method,
+                        body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private JsonNode json(HttpResponse<byte[]> response) throws IOException {
+        return MAPPER.readTree(response.body());
+    }
+
+    private String submit(String config) throws Exception {
+        HttpResponse<byte[]> response = send("POST", "/jobs", config);
+        assertThat(response.statusCode()).isEqualTo(202);
+        return json(response).get("id").asText();
+    }
+
+    /** Polls the job until it leaves {@code queued} and {@code running}. */
+    private JsonNode awaitFinished(String id) throws Exception {
+        long deadline = System.nanoTime() + WAIT.toNanos();
+        while (System.nanoTime() < deadline) {
+            JsonNode status = json(send("GET", "/jobs/" + id, null));
+            String state = status.get("state").asText();
+            if (!state.equals("queued") && !state.equals("running")) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Job " + id + " did not finish in " + WAIT);
+    }
+
+    private void awaitState(String id, String state) throws Exception {
+        long deadline = System.nanoTime() + WAIT.toNanos();
+        while (!json(send("GET", "/jobs/" + id, null)).get("state").asText().equals(state)) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Nested
+    @DisplayName("Jobs")
+    class JobTest {
+
+        @Test
+        @DisplayName("should render a submitted job and serve its image")
+        void shouldRenderJob() throws Exception {
+            HttpResponse<byte[]> submitted = send("POST", "/jobs", config(64, 48, 2, 50_000));
+            String id = json(submitted).get("id").asText();
+
+            assertThat(submitted.headers().firstValue("Location")).contains("/jobs/" + id);
+            JsonNode status = awaitFinished(id);
+            assertThat(status.get("state").asText()).isEqualTo("done");
+            assertThat(status.get("completed_iterations").asLong()).isEqualTo(50_000);
+            assertThat(status.get("render_millis").asLong()).isNotNegative();
+
+            HttpResponse<byte[]> image = send("GET", "/jobs/" + id + "/image", null);
+            assertThat(image.statusCode()).isEqualTo(200);
+            assertThat(image.headers().firstValue("Content-Type")).contains("image/png");
+            BufferedImage png = ImageIO.read(new ByteArrayInputStream(image.body()));
+            assertThat(png.getWidth()).isEqualTo(64);
+            assertThat(png.getHeight()).isEqualTo(48);
+        }
+
+        @Test
+        @DisplayName("should list the jobs in submission order")
+        void shouldListJobs() throws Exception {
+            String first = submit(config(32, 32, 1, 10_000));
+            String second = submit(config(32, 32, 1, 10_000));
+            awaitFinished(second);
+
+            JsonNode jobs = json(send("GET", "/jobs", null));
+
+            assertThat(jobs).extracting(job -> job.get("id").asText()).containsExactly(first, second);
+        }
+
+        @Test
+        @DisplayName("should reject a configuration that does not load")
+        void shouldRejectBrokenConfiguration() throws Exception {
+            HttpResponse<byte[]> response = send("POST", "/jobs", "{\"broken\": true}");
+
+            assertThat(response.statusCode()).isEqualTo(400);
+            assertThat(json(response).get("error").asText()).contains("Failed to parse configuration");
+            assertThat(json(send("GET", "/jobs", null))).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should answer 404 for unknown jobs and 409 for images of unfinished ones")
+        void shouldReportMissingResources() throws Exception {
+            assertThat(send("GET", "/jobs/42", null).statusCode()).isEqualTo(404);
+
+            String id = submit(config(64, 64, 1, 500_000_000));
+            assertThat(send("GET", "/jobs/" + id + "/image", null).statusCode()).isEqualTo(409);
+            send("DELETE", "/jobs/" + id, null);
+        }
+
+        @Test
+        @DisplayName("should refuse jobs once the queue is full")
+        void shouldRefuseWhenQueueIsFull() throws Exception {
+            String running = submit(config(64, 64, 1, 500_000_000));
+            awaitState(running, "running");
+            submit(config(64, 64, 1, 1000));
+            submit(config(64, 64, 1, 1000));
+
+            assertThat(send("POST", "/jobs", config(64, 64, 1, 1000)).statusCode())
+                    .isEqualTo(503);
+        }
+
+        @Test
+        @DisplayName("should refuse a job whose histograms exceed the memory budget")
+        void shouldRefuseJobOverBudget() throws Exception {
+            server.close();
+            server = server(1, new MemoryLimits(1024, 1024, 1024, Path.of(".")));
+
+            HttpResponse<byte[]> response = send("POST", "/jobs", config(64, 64, 2, 1000));
+
+            assertThat(response.statusCode()).isEqualTo(400);
+            assertThat(json(response).get("error").asText()).contains("do not fit in memory");
+        }
+
+        @Test
+        @DisplayName("should hold a job back until its histograms fit next to the running ones")
+        void shouldReserveMemoryForRunningJobs() throws Exception {
+            long oneJob = MemoryPlanner.plan(
+                            64,
+                            64,
+                            2,
+                            500_000_000,
+                            new MemoryLimits(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Path.of(".")),
+                            null)
+                    .estimate()
+                    .heapBytes();
+            server.close();
+            server = server(2, new MemoryLimits(oneJob * 3 / 2, 0, 0, Path.of(".")));
+
+            String running = submit(config(64, 64, 2, 500_000_000));
+            awaitState(running, "running");
+            String waiting = submit(config(64, 64, 2, 10_000));
+            Thread.sleep(300);
+
+            assertThat(json(send("GET", "/jobs/" + waiting, null)).get("state").asText())
+                    .isEqualTo("queued");
+            send("DELETE", "/jobs/" + running, null);
+            assertThat(awaitFinished(waiting).get("state").asText()).isEqualTo("done");
+        }
+    }
+
+    @Nested
+    @DisplayName("Previews, cancellation and timeouts")
+    class ControlTest {
+
+        @Test
+        @DisplayName("should serve a low-resolution preview of a running job")
+        void shouldServePreview() throws Exception {
+            String id = submit(config(200, 100, 2, 500_000_000));
+            awaitState(id, "running");
+
+            HttpResponse<byte[]> preview = send("GET", "/jobs/" + id + "/preview?size=50", null);
+
+            assertThat(preview.statusCode()).isEqualTo(200);
+            BufferedImage png = ImageIO.read(new ByteArrayInputStream(preview.body()));
+            assertThat(png.getWidth()).isEqualTo(50);
+            assertThat(png.getHeight()).isEqualTo(25);
+            assertThat(send("GET", "/jobs/" + id + "/preview?size=0", null).statusCode())
+                    .isEqualTo(400);
+            send("DELETE", "/jobs/" + id, null);
+        }
+
+        @Test
+        @DisplayName("should cancel a running job and then run the next one")
+        void shouldCancelRunningJob() throws Exception {
+            String running = submit(config(64, 64, 2, 500_000_000));
+            String next = submit(config(32, 32, 1, 10_000));
+            awaitState(running, "running");
+
+            HttpResponse<byte[]> cancelled = send("DELETE", "/jobs/" + running, null);
+
+            assertThat(cancelled.statusCode()).isEqualTo(202);
+            assertThat(awaitFinished(running).get("state").asText()).isEqualTo("cancelled");
+            assertThat(awaitFinished(next).get("state").asText()).isEqualTo("done");
+            assertThat(send("DELETE", "/jobs/" + running, null).statusCode()).isEqualTo(409);
+        }
+
+        @Test
+        @DisplayName("should cancel a queued job without running it")
+        void shouldCancelQueuedJob() throws Exception {
+            String running = submit(config(64, 64, 1, 500_000_000));
+            String queued = submit(config(32, 32, 1, 10_000));
+
+            send("DELETE", "/jobs/" + queued, null);
+            send("DELETE", "/jobs/" + running, null);
+
+            JsonNode status = awaitFinished(queued);
+            assertThat(status.get("state").asText()).isEqualTo("cancelled");
+            assertThat(status.has("render_millis")).isFalse();
+        }
+
+        @Test
+        @DisplayName("should stop a job that runs past its timeout")
+        void shouldTimeOut() throws Exception {
+            HttpResponse<byte[]> submitted = send("POST", "/jobs?timeout=1", config(64, 64, 2, 500_000_000));
+            String id = json(submitted).get("id").asText();
+
+            JsonNode status = awaitFinished(id);
+
+            assertThat(status.get("state").asText()).isEqualTo("timed_out");
+            assertThat(status.get("error").asText()).contains("timeout");
+            assertThat(status.get("completed_iterations")).isNull();
+            assertThat(status.get("render_millis").asLong()).isBetween(900L, 20_000L);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package academy.cli.converter;
 
 import static org.assertj.core.api.Assertions.*;
 
+import academy.application.render.DensityEstimation;
+import academy.application.render.histogram.AccumulationStrategy;
 import academy.domain.AffineParams;
 import academy.domain.Variation;
 import academy.domain.VariationParams;
@@ -272,4 +274,75 @@ class ConvertersTest {
             assertThat(result.getFileName().toString()).isEqualTo("my file.png");
         }
     }
+
+    @Nested
+    @DisplayName("MemorySizeConverter")
+    class MemorySizeConverterTest {
+
+        private final MemorySizeConverter converter = new MemorySizeConverter();
+
+        @Test
+        @DisplayName("should parse sizes with binary suffixes")
+        void shouldParseSuffixes() {
+            assertThat(converter.convert("1048576")).isEqualTo(1024L * 1024);
+            assertThat(converter.convert("512m")).isEqualTo(512L * 1024 * 1024);
+            assertThat(converter.convert("4G")).isEqualTo(4L * 1024 * 1024 * 1024);
+            assertThat(converter.convert("2GiB")).isEqualTo(2L * 1024 * 1024 * 1024);
+            assertThat(converter.convert(" 64 kb ")).isEqualTo(64L * 1024);
+        }
+
+        @ParameterizedTest
+        @NullAndEmptySource
+        @ValueSource(strings = {"abc", "1.5g", "-1g", "0", "12x", "99999999999t"})
+        @DisplayName("should throw exception for invalid sizes")
+        void shouldThrowForInvalidSizes(String input) {
+            assertThatThrownBy(() -> converter.convert(input)).isInstanceOf(CommandLine.TypeConversionException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("AccumulationStrategyConverter")
+    class AccumulationStrategyConverterTest {
+
+        private final AccumulationStrategyConverter converter = new AccumulationStrategyConverter();
+
+        @Test
+        @DisplayName("should parse strategy keys and leave auto to the planner")
+        void shouldParseKeys() {
+            assertThat(converter.convert("off-heap")).isEqualTo(AccumulationStrategy.OFF_HEAP);
+            assertThat(converter.convert("Mapped-File")).isEqualTo(AccumulationStrategy.MAPPED_FILE);
+            assertThat(converter.convert("auto")).isNull();
+        }
+
+        @Test
+        @DisplayName("should throw exception for unknown strategy")
+        void shouldThrowForUnknownStrategy() {
+            assertThatThrownBy(() -> converter.convert("gpu"))
+                    .isInstanceOf(CommandLine.TypeConversionException.class)
+                    .hasMessageContaining("per-thread-double")
+                    .hasMessageContaining("auto");
+        }
+    }
+
+    @Nested
+    @DisplayName("DensityEstimationConverter")
+    class DensityEstimationConverterTest {
+
+        private final DensityEstimationConverter converter = new DensityEstimationConverter();
+
+        @Test
+        @DisplayName("should parse the radius with optional minimum and curve")
+        void shouldParseParameters() {
+            assertThat(converter.convert("9")).isEqualTo(new DensityEstimation(9, 0, 0.4));
+            assertThat(converter.convert(" 5,0.5,0.6 ")).isEqualTo(new DensityEstimation(5, 0.5, 0.6));
+        }
+
+        @ParameterizedTest
+        @NullAndEmptySource
+        @ValueSource(strings = {"abc", "0", "-2", "4,5", "4,0,0", "4,0,0.4,1", "100"})
+        @DisplayName("should throw exception for invalid parameters")
+        void shouldThrowForInvalidParameters(String input) {
+            assertThatThrownBy(() -> converter.convert(input)).isInstanceOf(CommandLine.TypeConversionException.class);
+        }
+    }
 }
@@ -3,6 +3,10 @@ package academy.cli.validator;
 import static org.assertj.core.api.Assertions.*;
 
 import academy.Application;
+import academy.application.cache.RenderKey;
+import academy.application.render.HistogramFile;
+import academy.application.render.HistogramHeader;
+import academy.application.render.ImageRenderer;
 import academy.domain.AffineParams;
 import academy.domain.AppConfiguration;
 import academy.domain.Size;
@@ -149,6 +153,27 @@ class ArgumentValidatorTest {
         }
     }
 
+    @Nested
+    @DisplayName("PNG compression validation")
+    class PngCompressionTest {
+
+        @ParameterizedTest
+        @ValueSource(ints = {-1, 0, 6, 9})
+        @DisplayName("should accept deflate levels")
+        void shouldAcceptValidLevels(int level) {
+            assertThatCode(() -> ArgumentValidator.validatePngCompression(level, app))
+                    .doesNotThrowAnyException();
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {-2, 10, 100})
+        @DisplayName("should reject levels outside the deflate range")
+        void shouldRejectInvalidLevels(int level) {
+            assertThatThrownBy(() -> ArgumentValidator.validatePngCompression(level, app))
+                    .isInstanceOf(CommandLine.ParameterException.class);
+        }
+    }
+
     @Nested
     @DisplayName("Output path validation")
     class OutputPathTest {
@@ -187,6 +212,100 @@ class ArgumentValidatorTest {
                     .hasMessageContaining(".png");
         }
 
+        @ParameterizedTest
+        @ValueSource(strings = {"result.pfm", "histogram.NPY"})
+        @DisplayName("should accept float and histogram formats")
+        void shouldAcceptDataFormats(String fileName) {
+            AppConfiguration config =
+                    validConfigBuilder().outputPath(tempDir.resolve(fileName)).build();
+
+            assertThatCode(() -> ArgumentValidator.validateOutputPath(config, app))
+                    .doesNotThrowAnyException();
+        }
+
+        @Test
+        @DisplayName("should reject exports to standard output or unknown formats")
+        void shouldRejectInvalidExports() {
+            assertThatThrownBy(() -> ArgumentValidator.validateExportPaths(List.of(Path.of("-")), app))
+                    .isInstanceOf(CommandLine.ParameterException.class);
+            assertThatThrownBy(() -> ArgumentValidator.validateExportPaths(List.of(tempDir.resolve("a.tiff")), app))
+                    .isInstanceOf(CommandLine.ParameterException.class);
+            assertThatCode(() -> ArgumentValidator.validateExportPaths(
+                            List.of(tempDir.resolve("a.pfm"), tempDir.resolve("a.npy")), app))
+                    .doesNotThrowAnyException();
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {1, 4, 12, 32})
+        @DisplayName("should reject unsupported PNG bit depths")
+        void shouldRejectInvalidBitDepths(int bitDepth) {
+            assertThatThrownBy(() -> ArgumentValidator.validatePngBitDepth(bitDepth, app))
+                    .isInstanceOf(CommandLine.ParameterException.class);
+        }
+
+        @ParameterizedTest
+        @ValueSource(ints = {0, -2, 9, 16})
+        @DisplayName("should reject oversample factors outside 1 to 8")
+        void shouldRejectInvalidOversample(int oversample) {
+            assertThatThrownBy(() -> ArgumentValidator.validateOversample(oversample, app))
+                    .isInstanceOf(CommandLine.ParameterException.class)
+                    .hasMessageContaining("Oversample factor");
+            assertThatCode(() -> ArgumentValidator.validateOversample(4, app)).doesNotThrowAnyException();
+        }
+
+        @Test
+        @DisplayName("should reject time limits under a second")
+        void shouldRejectInvalidTimeLimit() {
+            assertThatThrownBy(() -> ArgumentValidator.validateTimeLimit(0, app))
+                    .isInstanceOf(CommandLine.ParameterException.class)
+                    .hasMessageContaining("Time limit");
+            assertThatCode(() -> ArgumentValidator.validateTimeLimit(30, app)).doesNotThrowAnyException();
+        }
+
+        @Test
+        @DisplayName("should reject time budgets under a second or combined with a time limit or the cache")
+        void shouldRejectInvalidTimeBudget() {
+            assertThatThrownBy(() -> ArgumentValidator.validateTimeBudget(0, null, null, app))
+                    .isInstanceOf(CommandLine.ParameterException.class)
+                    .hasMessageContaining("Time budget");
+            assertThatThrownBy(() -> ArgumentValidator.validateTimeBudget(5, 10, null, app))
+                    .isInstanceOf(CommandLine.ParameterException.class)
+                    .hasMessageContaining("--time-limit");
+            assertThatThrownBy(() -> ArgumentValidator.validateTimeBudget(5, null, Path.of("cache"), app))
+                    .isInstanceOf(CommandLine.ParameterException.class)
+                    .hasMessageContaining("--cache");
+            assertThatCode(() -> ArgumentValidator.validateTimeBudget(5, null, null, app))
+                    .doesNotThrowAnyException();
+        }
+
+        @Test
+        @DisplayName("should reject previews without an output file or with a bad interval or size")
+        void shouldRejectInvalidPreviews() {
+            Path output = Path.of("out", "flame.png");
+
+            assertThatThrownBy(() -> ArgumentValidator.validatePreview(0, 512, output, app))
+                    .isInstanceOf(CommandLine.ParameterException.class)
+                    .hasMessageContaining("Preview interval");
+            assertThatThrownBy(() -> ArgumentValidator.validatePreview(5, 8, output, app))
+                    .isInstanceOf(CommandLine.ParameterException.class)
+                    .hasMessageContaining("Preview size");
+            assertThatThrownBy(() -> ArgumentValidator.validatePreview(5, 512, Path.of("-"), app))
+                    .isInstanceOf(CommandLine.ParameterException.class)
+                    .hasMessageContaining("output file");
+            assertThatCode(() -> ArgumentValidator.validatePreview(5, 512, output, app))
+                    .doesNotThrowAnyException();
+        }
+
+        @Test
+        @DisplayName("should accept dash for standard output")
+        void shouldAcceptStandardOutput() {
+            AppConfiguration config =
+                    validConfigBuilder().outputPath(Path.of("-")).build();
+
+            assertThatCode(() -> ArgumentValidator.validateOutputPath(config, app))
+                    .doesNotThrowAnyException();
+        }
+
         @Test
         @DisplayName("should reject null output path")
         void shouldRejectNullOutputPath() {
@@ -211,6 +330,90 @@ class ArgumentValidatorTest {
         }
     }
 
+    @Nested
+    @DisplayName("Resume histogram validation")
+    class ResumeHistogramTest {
+
+        private AppConfiguration smallConfig() {
+            return validConfigBuilder().size(new Size(20, 10)).build();
+        }
+
+        private Path saveHistogram(AppConfiguration config) {
+            return saveHistogram(config, 1);
+        }
+
+        private Path saveHistogram(AppConfiguration config, int oversample) {
+            Path path = tempDir.resolve("flame" + HistogramFile.EXTENSION);
+            int width = config.getSize().width();
+            int height = config.getSize().height();
+            try (ImageRenderer renderer = new ImageRenderer(width, height, oversample)) {
+                HistogramFile.write(
+                        path,
+                        renderer,
+                        new HistogramHeader(
+                                width * oversample,
+                                height * oversample,
+                                oversample,
+                                config.getSeed(),
+                                1000,
+                                4,
+                                0,
+                                0,
+                                RenderKey.content(config, oversample).hash()));
+            }
+            return path;
+        }
+
+        @Test
+        @DisplayName("should accept a histogram of the same configuration with other iteration and thread counts")
+        void shouldAcceptSameConfiguration() {
+            Path path = saveHistogram(smallConfig());
+            AppConfiguration config = smallConfig().toBuilder()
+                    .iterationCount(5000)
+                    .threadQuantity(1)
+                    .build();
+
+            assertThatCode(() -> ArgumentValidator.validateResumeHistogram(config, app, path, 1))
+                    .doesNotThrowAnyException();
+        }
+
+        @Test
+        @DisplayName("should reject a histogram of other transformations")
+        void shouldRejectOtherTransformations() {
+            Path path = saveHistogram(smallConfig());
+            AppConfiguration config = smallConfig().toBuilder()
+                    .variationsParamsList(List.of(new VariationParams(Variation.SWIRL, 0.5)))
+                    .build();
+
+            assertThatThrownBy(() -> ArgumentValidator.validateResumeHistogram(config, app, path, 1))
+                    .isInstanceOf(CommandLine.ParameterException.class)
+                    .hasMessageContaining("different configuration");
+        }
+
+        @Test
+        @DisplayName("should reject a histogram of another oversample factor even when the sizes match")
+        void shouldRejectOtherOversample() {
+            Path path = saveHistogram(smallConfig(), 2);
+            AppConfiguration config =
+                    smallConfig().toBuilder().size(new Size(40, 20)).build();
+
+            assertThatThrownBy(() -> ArgumentValidator.validateResumeHistogram(config, app, path, 1))
+                    .isInstanceOf(CommandLine.ParameterException.class)
+                    .hasMessageContaining("--oversample 2");
+        }
+
+        @Test
+        @DisplayName("should reject a histogram of another seed")
+        void shouldRejectOtherSeed() {
+            Path path = saveHistogram(smallConfig());
+            AppConfiguration config = smallConfig().toBuilder().seed(1).build();
+
+            assertThatThrownBy(() -> ArgumentValidator.validateResumeHistogram(config, app, path, 1))
+                    .isInstanceOf(CommandLine.ParameterException.class)
+                    .hasMessageContaining("seed");
+        }
+    }
+
     @Nested
     @DisplayName("Affine params validation")
     class AffineParamsTest {